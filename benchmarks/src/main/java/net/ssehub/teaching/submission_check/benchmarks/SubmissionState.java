@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * JMH state that provides a {@link SyntheticSubmission} on disk. The parameters can be overridden on the command line,
+ * e.g. <code>-p fileCount=500 -p charset=ISO-8859-1</code>.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class SubmissionState {
+    
+    @Param({"10", "100"})
+    private int fileCount;
+    
+    @Param({"4096"})
+    private int fileSize;
+    
+    @Param({"0.0", "0.1"})
+    private double errorDensity;
+    
+    @Param({"UTF-8"})
+    private String charset;
+    
+    private File directory;
+    
+    /**
+     * Writes the submission to a temporary directory.
+     * 
+     * @throws IOException If writing the submission fails.
+     */
+    @Setup(Level.Trial)
+    public void createSubmission() throws IOException {
+        directory = new SyntheticSubmission(fileCount, fileSize, errorDensity, Charset.forName(charset)).create();
+    }
+    
+    /**
+     * Deletes the temporary directory of the submission.
+     */
+    @TearDown(Level.Trial)
+    public void deleteSubmission() {
+        FileUtils.deleteTemporaryDirectory(directory);
+    }
+    
+    /**
+     * Returns the directory that contains the submission.
+     * 
+     * @return The submission directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+    
+    /**
+     * Returns the charset that the source files of the submission are written in.
+     * 
+     * @return The charset.
+     */
+    public Charset getCharset() {
+        return Charset.forName(charset);
+    }
+    
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * Generates a synthetic submission: an eclipse Java project with a configurable number of source files of a
+ * configurable size. A fraction of the files (the error density) contains errors that the checks report:
+ * <ul>
+ *      <li>a return statement with the wrong type (javac),</li>
+ *      <li>a tab-indented line without javadoc on the method (checkstyle),</li>
+ *      <li>a comment with an umlaut in a different encoding than the rest of the file (encoding).</li>
+ * </ul>
+ * The content is generated from a fixed seed, so the same parameters always create the same submission.
+ * 
+ * @author Adam
+ */
+public class SyntheticSubmission {
+    
+    private static final long SEED = 0x5eed;
+    
+    private int fileCount;
+    
+    private int fileSize;
+    
+    private double errorDensity;
+    
+    private Charset charset;
+    
+    /**
+     * Creates a generator for synthetic submissions.
+     * 
+     * @param fileCount The number of Java source files.
+     * @param fileSize The approximate size of each source file in bytes.
+     * @param errorDensity The fraction of files that contain errors, between 0 and 1.
+     * @param charset The charset that the source files are written in.
+     */
+    public SyntheticSubmission(int fileCount, int fileSize, double errorDensity, Charset charset) {
+        this.fileCount = fileCount;
+        this.fileSize = fileSize;
+        this.errorDensity = errorDensity;
+        this.charset = charset;
+    }
+    
+    /**
+     * Writes the submission to a new temporary directory.
+     * 
+     * @return The submission directory.
+     * 
+     * @throws IOException If writing the files fails.
+     */
+    public File create() throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        writeTo(directory);
+        return directory;
+    }
+    
+    /**
+     * Writes the submission to the given directory.
+     * 
+     * @param directory The directory to write the submission to. Must exist.
+     * 
+     * @throws IOException If writing the files fails.
+     */
+    public void writeTo(File directory) throws IOException {
+        Files.writeString(new File(directory, ".project").toPath(), createProjectFile(directory.getName()),
+                StandardCharsets.UTF_8);
+        Files.writeString(new File(directory, ".classpath").toPath(), createClasspathFile(), StandardCharsets.UTF_8);
+        
+        Random random = new Random(SEED);
+        for (int i = 0; i < fileCount; i++) {
+            String packageName = "pkg" + (i % 10);
+            File packageDirectory = new File(directory, packageName);
+            packageDirectory.mkdir();
+            
+            boolean withErrors = random.nextDouble() < errorDensity;
+            try (OutputStream out = Files.newOutputStream(new File(packageDirectory, "Class" + i + ".java").toPath())) {
+                writeSourceFile(out, packageName, "Class" + i, withErrors);
+            }
+        }
+    }
+    
+    /**
+     * Writes a single Java source file. Methods are added until the file has the configured size.
+     * 
+     * @param out The stream to write to.
+     * @param packageName The package of the class.
+     * @param className The name of the class.
+     * @param withErrors Whether to add errors to the file.
+     * 
+     * @throws IOException If writing fails.
+     */
+    private void writeSourceFile(OutputStream out, String packageName, String className, boolean withErrors)
+            throws IOException {
+        
+        StringBuilder content = new StringBuilder();
+        content.append("package ").append(packageName).append(";\n\n");
+        content.append("/**\n * Generated class ").append(className).append(" (äöü).\n */\n");
+        content.append("public class ").append(className).append(" {\n\n");
+        
+        int method = 0;
+        do {
+            content.append("    /**\n     * Computes something.\n     *\n     * @param value The input.\n")
+                    .append("     *\n     * @return The result.\n     */\n");
+            content.append("    public int method").append(method).append("(int value) {\n");
+            content.append("        int result = value * ").append(method + 1).append(";\n");
+            content.append("        if (result > 100) {\n            result -= 100;\n        }\n");
+            content.append("        return result;\n    }\n\n");
+            method++;
+        } while (content.length() < fileSize);
+        
+        if (withErrors) {
+            content.append("    public int broken() {\n");
+            content.append("\treturn \"1\";\n");
+            content.append("    }\n\n");
+        }
+        
+        content.append("}\n");
+        out.write(content.toString().getBytes(charset));
+        
+        if (withErrors) {
+            Charset wrongCharset = charset.equals(StandardCharsets.UTF_8)
+                    ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+            out.write("// wrong encoding: ä\n".getBytes(wrongCharset));
+        }
+    }
+    
+    /**
+     * Creates the content of the eclipse <code>.project</code> file.
+     * 
+     * @param name The name of the project.
+     * 
+     * @return The file content.
+     */
+    private static String createProjectFile(String name) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<projectDescription>\n"
+                + "    <name>" + name + "</name>\n"
+                + "    <comment></comment>\n"
+                + "    <projects>\n    </projects>\n"
+                + "    <buildSpec>\n"
+                + "        <buildCommand>\n"
+                + "            <name>org.eclipse.jdt.core.javabuilder</name>\n"
+                + "            <arguments>\n            </arguments>\n"
+                + "        </buildCommand>\n"
+                + "    </buildSpec>\n"
+                + "    <natures>\n"
+                + "        <nature>org.eclipse.jdt.core.javanature</nature>\n"
+                + "    </natures>\n"
+                + "</projectDescription>\n";
+    }
+    
+    /**
+     * Creates the content of the eclipse <code>.classpath</code> file.
+     * 
+     * @return The file content.
+     */
+    private static String createClasspathFile() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<classpath>\n"
+                + "    <classpathentry kind=\"src\" path=\"\"/>\n"
+                + "    <classpathentry kind=\"con\" path=\"org.eclipse.jdt.launching.JRE_CONTAINER\"/>\n"
+                + "    <classpathentry kind=\"output\" path=\"\"/>\n"
+                + "</classpath>\n";
+    }
+    
+}
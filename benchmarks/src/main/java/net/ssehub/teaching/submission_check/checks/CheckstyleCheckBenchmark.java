@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.benchmarks.SubmissionState;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * Benchmarks the {@link CheckstyleCheck} on a synthetic submission, with the rules from
+ * <code>benchmark-checkstyle.xml</code>. The result cache of the check is not used.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class CheckstyleCheckBenchmark {
+    
+    private File rulesFile;
+    
+    private CheckstyleCheck check;
+    
+    /**
+     * Copies the rules to a temporary file and creates the check.
+     * 
+     * @param submission The synthetic submission.
+     * 
+     * @throws IOException If copying the rules fails.
+     */
+    @Setup
+    public void createCheck(SubmissionState submission) throws IOException {
+        rulesFile = File.createTempFile("benchmark-checkstyle", ".xml");
+        try (InputStream rules = CheckstyleCheckBenchmark.class.getResourceAsStream("/benchmark-checkstyle.xml")) {
+            Files.copy(rules, rulesFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        check = new CheckstyleCheck(rulesFile);
+        check.setCharset(submission.getCharset());
+    }
+    
+    /**
+     * Deletes the temporary rules file.
+     * 
+     * @throws IOException If deleting the file fails.
+     */
+    @TearDown
+    public void deleteRules() throws IOException {
+        FileUtils.deleteFile(rulesFile);
+    }
+    
+    /**
+     * Runs the check on the submission.
+     * 
+     * @param submission The synthetic submission.
+     * 
+     * @return The messages created by the check.
+     */
+    @Benchmark
+    public List<ResultMessage> run(SubmissionState submission) {
+        check.run(submission.getDirectory());
+        return check.getResultMessages();
+    }
+    
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.benchmarks.SubmissionState;
+
+/**
+ * Benchmarks the {@link EclipseConfigCheck} on a synthetic submission. This mostly measures parsing the
+ * <code>.project</code> and <code>.classpath</code> files.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class EclipseConfigCheckBenchmark {
+    
+    private EclipseConfigCheck check;
+    
+    /**
+     * Creates the check that requires a Java project.
+     */
+    @Setup
+    public void createCheck() {
+        check = new EclipseConfigCheck();
+        check.setRequireJavaProject(true);
+    }
+    
+    /**
+     * Runs the check on the submission.
+     * 
+     * @param submission The synthetic submission.
+     * 
+     * @return The messages created by the check.
+     */
+    @Benchmark
+    public List<ResultMessage> run(SubmissionState submission) {
+        check.run(submission.getDirectory());
+        return check.getResultMessages();
+    }
+    
+}
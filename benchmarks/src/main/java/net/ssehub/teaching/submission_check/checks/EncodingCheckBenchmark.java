@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.benchmarks.SubmissionState;
+
+/**
+ * Benchmarks the {@link EncodingCheck} on a synthetic submission.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class EncodingCheckBenchmark {
+    
+    @Param({"1", "4"})
+    private int parallelism;
+    
+    private EncodingCheck check;
+    
+    /**
+     * Creates the check for the charset of the submission.
+     * 
+     * @param submission The synthetic submission.
+     */
+    @Setup
+    public void createCheck(SubmissionState submission) {
+        check = new EncodingCheck();
+        check.setWantedCharset(submission.getCharset());
+        check.setParallelism(parallelism);
+    }
+    
+    /**
+     * Runs the check on the submission.
+     * 
+     * @param submission The synthetic submission.
+     * 
+     * @return The messages created by the check.
+     */
+    @Benchmark
+    public List<ResultMessage> run(SubmissionState submission) {
+        check.run(submission.getDirectory());
+        return check.getResultMessages();
+    }
+    
+}
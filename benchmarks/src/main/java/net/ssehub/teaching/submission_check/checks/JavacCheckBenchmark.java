@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.benchmarks.SubmissionState;
+
+/**
+ * Benchmarks both {@link JavacCheck} implementations on a synthetic submission. The <code>cli</code> variant requires
+ * a <code>javac</code> executable on the <code>PATH</code>.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class JavacCheckBenchmark {
+    
+    @Param({"internal", "cli"})
+    private String implementation;
+    
+    private JavacCheck check;
+    
+    /**
+     * Creates the check of the selected implementation.
+     * 
+     * @param submission The synthetic submission.
+     */
+    @Setup
+    public void createCheck(SubmissionState submission) {
+        if (implementation.equals("internal")) {
+            check = new InternalJavacCheck();
+        } else {
+            check = new CliJavacCheck();
+        }
+        check.setCharset(submission.getCharset());
+    }
+    
+    /**
+     * Runs the check on the submission.
+     * 
+     * @param submission The synthetic submission.
+     * 
+     * @return The messages created by the check.
+     */
+    @Benchmark
+    public List<ResultMessage> run(SubmissionState submission) {
+        check.run(submission.getDirectory());
+        return check.getResultMessages();
+    }
+    
+}
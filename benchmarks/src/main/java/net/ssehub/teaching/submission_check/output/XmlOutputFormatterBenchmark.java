@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.output;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+
+/**
+ * Benchmarks {@link XmlOutputFormatter#format(List)} with messages like those created by the javac and checkstyle
+ * checks.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class XmlOutputFormatterBenchmark {
+    
+    @Param({"10", "1000"})
+    private int messageCount;
+    
+    private List<ResultMessage> messages;
+    
+    private XmlOutputFormatter formatter;
+    
+    /**
+     * Generates the messages.
+     */
+    @Setup
+    public void createMessages() {
+        messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            ResultMessage message = new ResultMessage(i % 2 == 0 ? "javac" : "checkstyle",
+                    i % 3 == 0 ? MessageType.ERROR : MessageType.WARNING, "message number " + i + " <&>");
+            if (i % 4 != 0) {
+                message.setFile(new File("src/pkg" + (i % 10) + "/Class" + i + ".java")).setLine(i + 1);
+            }
+            if (i % 8 == 1) {
+                message.setColumn(i % 80);
+            }
+            messages.add(message);
+        }
+        formatter = new XmlOutputFormatter();
+    }
+    
+    /**
+     * Serializes all messages.
+     * 
+     * @return The XML output.
+     */
+    @Benchmark
+    public String format() {
+        return formatter.format(messages);
+    }
+    
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.svn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks parsing the output of <code>svnlook changed</code> in the {@link CliSvnInterface}. The lines are
+ * generated to resemble a commit that touches the given number of files in a few submissions.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class CliSvnInterfaceBenchmark {
+    
+    private static final String[] CHANGES = {"A ", "U ", "D ", "_U", "UU"};
+    
+    @Param({"10", "1000"})
+    private int changedFiles;
+    
+    private List<String> changeLines;
+    
+    /**
+     * Generates the change lines.
+     */
+    @Setup
+    public void createChangeLines() {
+        changeLines = new ArrayList<>(changedFiles);
+        for (int i = 0; i < changedFiles; i++) {
+            changeLines.add(CHANGES[i % CHANGES.length] + "  Exercise0" + (i % 3) + "/Group" + (i % 7)
+                    + "/src/pkg" + (i % 10) + "/Class" + i + ".java");
+        }
+    }
+    
+    /**
+     * Parses all change lines.
+     * 
+     * @param blackhole Consumes the parsed submissions.
+     * 
+     * @throws SvnException If a line is invalid; does not happen for the generated lines.
+     */
+    @Benchmark
+    public void parseChangedLines(Blackhole blackhole) throws SvnException {
+        for (String line : changeLines) {
+            blackhole.consume(CliSvnInterface.getChangedSubmissionFolder(line));
+        }
+    }
+    
+}
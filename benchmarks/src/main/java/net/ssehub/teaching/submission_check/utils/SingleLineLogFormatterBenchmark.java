@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link SingleLineLogFormatter} for a plain message, a message with parameters and a message with an
+ * exception.
+ * 
+ * @author Adam
+ */
+@State(Scope.Benchmark)
+public class SingleLineLogFormatterBenchmark {
+    
+    private SingleLineLogFormatter formatter;
+    
+    private LogRecord plainRecord;
+    
+    private LogRecord parameterRecord;
+    
+    private LogRecord exceptionRecord;
+    
+    /**
+     * Creates the formatter and the records to format.
+     */
+    @Setup
+    public void createRecords() {
+        formatter = new SingleLineLogFormatter();
+        
+        plainRecord = new LogRecord(Level.INFO, "Running checks for Exercise01/Group01");
+        plainRecord.setSourceClassName("net.ssehub.teaching.submission_check.CheckRunner");
+        plainRecord.setSourceMethodName("run");
+        
+        parameterRecord = new LogRecord(Level.INFO, "{0} {1} ({2})");
+        parameterRecord.setParameters(new Object[] {"JavacCheck", "succeeded", "wall 1234 ms"});
+        parameterRecord.setLoggerName("net.ssehub.teaching.submission_check.CheckRunner");
+        
+        exceptionRecord = new LogRecord(Level.WARNING, "Exception while parsing eclipse configuration");
+        exceptionRecord.setSourceClassName("net.ssehub.teaching.submission_check.checks.EclipseConfigCheck");
+        exceptionRecord.setThrown(new IOException("Could not read file", new IllegalStateException("cause")));
+    }
+    
+    /**
+     * Formats a record without parameters.
+     * 
+     * @return The formatted line.
+     */
+    @Benchmark
+    public String formatPlain() {
+        return formatter.format(plainRecord);
+    }
+    
+    /**
+     * Formats a record with parameters.
+     * 
+     * @return The formatted line.
+     */
+    @Benchmark
+    public String formatWithParameters() {
+        return formatter.format(parameterRecord);
+    }
+    
+    /**
+     * Formats a record with an exception and its stack trace.
+     * 
+     * @return The formatted lines.
+     */
+    @Benchmark
+    public String formatWithException() {
+        return formatter.format(exceptionRecord);
+    }
+    
+}
@@ -89,9 +89,25 @@ function install_hook() {
 			REPOSITORY="$1"
 			TRANSACTION="$2"
 			HOOKDIR="$REPOSITORY/hooks/submission-check"
+			# seconds to wait for the answer of the daemon
+			DAEMON_TIMEOUT=300
 
 			cd "${HOOKDIR}"
 
+			# forward to a running daemon (see README.md), if there is one
+			if [[ -f "submission-check.port" && -r "submission-check.token" ]] \
+					&& { exec 3<>"/dev/tcp/127.0.0.1/$(< submission-check.port)"; } 2>/dev/null
+			then
+				printf '%s\n' "$(< submission-check.token)" PRE "$REPOSITORY" "$TRANSACTION" >&3
+				# if the daemon hangs, run the hook without it
+				if read -r -t "${DAEMON_TIMEOUT}" EXIT_CODE <&3 && [[ "${EXIT_CODE}" =~ ^[0-9]+$ ]]
+				then
+					cat <&3 >&2
+					exit "${EXIT_CODE}"
+				fi
+				exec 3<&-
+			fi
+
 			java -jar "submission-check.jar" PRE "$REPOSITORY" "$TRANSACTION"
 
 			exit $?
@@ -104,9 +120,31 @@ function install_hook() {
 			REPOSITORY="$1"
 			REV="$2"
 			HOOKDIR="$REPOSITORY/hooks/submission-check"
+			# seconds to wait for the answer of the daemon
+			DAEMON_TIMEOUT=300
 
 			cd "${HOOKDIR}"
 
+			# forward to a running daemon (see README.md), if there is one
+			if [[ -f "submission-check.port" && -r "submission-check.token" ]] \
+					&& { exec 3<>"/dev/tcp/127.0.0.1/$(< submission-check.port)"; } 2>/dev/null
+			then
+				printf '%s\n' "$(< submission-check.token)" POST "$REPOSITORY" "$REV" >&3
+				read -r -t "${DAEMON_TIMEOUT}" EXIT_CODE <&3
+				if [[ "${EXIT_CODE}" =~ ^[0-9]+$ ]]
+				then
+					cat <&3 >&2
+					exit "${EXIT_CODE}"
+				elif [[ "${EXIT_CODE}" != "DENIED" ]]
+				then
+					# the daemon may have run the hook (and uploaded the results) before it failed,
+					# so running it again here could upload the results twice
+					echo "The submission-check daemon did not answer, revision $REV may not have been checked" >&2
+					exit 1
+				fi
+				exec 3<&-
+			fi
+
 			java -jar "submission-check.jar" POST "$REPOSITORY" "$REV"
 
 			exit $?
@@ -128,6 +166,7 @@ function check_command() {
 function check_environment() {
 	check_command javac
 	check_command svnlook
+	check_command svn
 }
 
 check_jar_file
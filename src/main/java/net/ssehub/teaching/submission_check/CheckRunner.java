@@ -22,10 +22,19 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.ssehub.teaching.submission_check.checks.Check;
+import net.ssehub.teaching.submission_check.checks.IStreamingCheck;
+import net.ssehub.teaching.submission_check.checks.SourceFileCache;
+import net.ssehub.teaching.submission_check.checks.SubmissionIndex;
+import net.ssehub.teaching.submission_check.utils.Deadline;
+import net.ssehub.teaching.submission_check.utils.ResourceMeter;
 
 /**
  * Runs a given list of {@link Check}s and passes their output to a {@link ResultCollector}. Checks are run in sequence,
- * and later checks are only executed if the previous ones succeeded.
+ * and later checks are only executed if the previous ones succeeded. Each check runs with a {@link Deadline} that is
+ * the earlier of its own {@link Check#getTimeout()} and the deadline of this runner (see
+ * {@link #setDeadline(Deadline)}). The resources used by each check are measured with a {@link ResourceMeter}, logged,
+ * and passed to the {@link ResultCollector} as {@link CheckTiming}s. The CPU time and allocated bytes include the
+ * other threads that a check reports (see {@link Check#getWorkerCpuTime()}).
  * 
  * @author Adam
  */
@@ -37,6 +46,10 @@ public class CheckRunner {
     
     private ResultCollector resultCollector;
     
+    private Deadline deadline;
+    
+    private boolean complete;
+    
     /**
      * Creates an empty {@link CheckRunner} with no {@link Check}s (yet).
      * 
@@ -45,6 +58,17 @@ public class CheckRunner {
     public CheckRunner(ResultCollector resultCollector) {
         this.checksToRun = new LinkedList<>();
         this.resultCollector = resultCollector;
+        this.deadline = Deadline.NONE;
+    }
+    
+    /**
+     * Sets the {@link Deadline} that all {@link Check}s of the following {@link #run(Submission, File)} executions
+     * must finish before, e.g. the time budget of the whole commit.
+     * 
+     * @param deadline The deadline; {@link Deadline#NONE} for no limit.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
     }
     
     /**
@@ -64,7 +88,68 @@ public class CheckRunner {
     }
     
     /**
-     * Runs all checks on the given directory containing the submission files.
+     * Passes a single file that has just been checked out to the {@link IStreamingCheck}s at the start of the list of
+     * {@link Check}s to run. Only these leading checks get the file, since later {@link Check}s are only executed if
+     * all previous ones succeed. The file is passed to the next check only if the previous one still may succeed.
+     * 
+     * @param submissionDirectory The directory that the submission is checked out to.
+     * @param file The file that has just been checked out.
+     * 
+     * @return Whether the checks still may succeed. If <code>false</code>, the next {@link #run(Submission, File)}
+     *      will fail, so the checkout can be aborted.
+     * 
+     * @see net.ssehub.teaching.submission_check.svn.ICheckoutListener
+     */
+    public boolean checkFile(File submissionDirectory, File file) {
+        return checkFile(submissionDirectory, file, null);
+    }
+    
+    /**
+     * Passes a single file that has just been checked out to the leading {@link IStreamingCheck}s, together with its
+     * <code>svn:mime-type</code> property. See {@link #checkFile(File, File)}.
+     * 
+     * @param submissionDirectory The directory that the submission is checked out to.
+     * @param file The file that has just been checked out.
+     * @param svnMimeType The <code>svn:mime-type</code> property of the file, or <code>null</code> if not known.
+     * 
+     * @return Whether the checks still may succeed.
+     */
+    public boolean checkFile(File submissionDirectory, File file, String svnMimeType) {
+        return checkFile(new SourceFileCache(submissionDirectory), file, svnMimeType);
+    }
+    
+    /**
+     * Passes a single file that has just been checked out to the leading {@link IStreamingCheck}s, like
+     * {@link #checkFile(File, File, String)}. The checks read the file through the given {@link SourceFileCache}, so
+     * that content that the checkout already put into memory is not read from disk again (see
+     * {@link SourceFileCache#putBytes(File, byte[])}). Pass the same cache to {@link #run(Submission, SourceFileCache)}
+     * afterwards.
+     * 
+     * @param sourceFileCache The cache for the directory that the submission is checked out to.
+     * @param file The file that has just been checked out.
+     * @param svnMimeType The <code>svn:mime-type</code> property of the file, or <code>null</code> if not known.
+     * 
+     * @return Whether the checks still may succeed.
+     */
+    public boolean checkFile(SourceFileCache sourceFileCache, File file, String svnMimeType) {
+        boolean success = true;
+        for (Check check : this.checksToRun) {
+            if (!success || !(check instanceof IStreamingCheck)) {
+                break;
+            }
+            check.setSourceFileCache(sourceFileCache);
+            success = ((IStreamingCheck) check).checkFile(sourceFileCache.getSubmissionDirectory(), file,
+                    svnMimeType);
+            check.setSourceFileCache(null);
+        }
+        
+        return success;
+    }
+    
+    /**
+     * Runs all checks on the given directory containing the submission files. The directory is walked once to create
+     * a {@link SubmissionIndex}. All {@link Check}s share this index and one {@link SourceFileCache} for this run, so
+     * that the files are only searched and read once.
      * 
      * @param submission The submission to run the checks for.
      * @param submissionDirectory The directory containing the checked-out submission files.
@@ -72,15 +157,60 @@ public class CheckRunner {
      * @return Whether this run was successful, i.e. all {@link Check}s succeeded.
      */
     public boolean run(Submission submission, File submissionDirectory) {
+        return run(submission, new SubmissionIndex(submissionDirectory));
+    }
+    
+    /**
+     * Runs all checks on the directory of the given {@link SubmissionIndex}, like {@link #run(Submission, File)}, but
+     * with an index that has already been created (e.g. for the {@link ResultCache} key).
+     * 
+     * @param submission The submission to run the checks for.
+     * @param submissionIndex The index of the directory containing the checked-out submission files.
+     * 
+     * @return Whether this run was successful, i.e. all {@link Check}s succeeded.
+     */
+    public boolean run(Submission submission, SubmissionIndex submissionIndex) {
+        return run(submission, new SourceFileCache(submissionIndex));
+    }
+    
+    /**
+     * Runs all checks on the directory of the given {@link SourceFileCache}, like {@link #run(Submission, File)}, but
+     * with a cache that may already contain file content read by the checkout (see
+     * {@link #checkFile(SourceFileCache, File, String)}).
+     * 
+     * @param submission The submission to run the checks for.
+     * @param sourceFileCache The cache for the directory containing the checked-out submission files.
+     * 
+     * @return Whether this run was successful, i.e. all {@link Check}s succeeded.
+     */
+    public boolean run(Submission submission, SourceFileCache sourceFileCache) {
+        File submissionDirectory = sourceFileCache.getSubmissionDirectory();
+        
         boolean success = true;
+        complete = true;
         for (Check check : this.checksToRun) {
+            check.setSourceFileCache(sourceFileCache);
+            check.setDeadline(deadline.earliest(Deadline.after(check.getTimeout())));
+            
             LOGGER.log(Level.FINE, "Running {0} on submission {1} in directory {2}...", new Object[] {
                 check.getClass().getSimpleName(), submission, submission});
+            ResourceMeter meter = new ResourceMeter();
             success = check.run(submissionDirectory);
-            LOGGER.log(Level.INFO, "{0} {1}", new Object[] {
-                    check.getClass().getSimpleName(), success ? "succeeded" : "failed"});
+            CheckTiming timing = new CheckTiming(check.getClass().getSimpleName(), submission, meter.getWallTime(),
+                    sum(meter.getCpuTime(), check.getWorkerCpuTime()),
+                    sum(meter.getAllocatedBytes(), check.getWorkerAllocatedBytes()),
+                    check.getChildCpuTime());
+            check.setSourceFileCache(null);
+            check.setDeadline(Deadline.NONE);
+            LOGGER.log(Level.INFO, "{0} {1} ({2})", new Object[] {
+                    check.getClass().getSimpleName(), success ? "succeeded" : "failed", timing});
+            
+            if (check.wasIncomplete()) {
+                complete = false;
+            }
             
             resultCollector.addCheckResult(success);
+            resultCollector.addTiming(timing);
             for (ResultMessage message : check.getResultMessages()) {
                 LOGGER.log(Level.INFO, "{0}", message);
                 resultCollector.addMessage(message, submission);
@@ -94,4 +224,31 @@ public class CheckRunner {
         return success;
     }
     
+    /**
+     * Returns whether all {@link Check}s of the last {@link #run(Submission, File)} completed, i.e. none of them was
+     * aborted (see {@link Check#wasIncomplete()}). Only the results of complete runs may be re-used for identical
+     * submissions.
+     * 
+     * @return Whether the last run was complete.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+    
+    /**
+     * Adds the usage of the worker threads of a check to the usage of the thread that ran it.
+     * 
+     * @param threadValue The value measured for the thread that ran the check, or -1 if not supported.
+     * @param workerValue The value of the worker threads, or -1 if the check did not use any.
+     * 
+     * @return The sum, or -1 if the value of the running thread is not supported.
+     */
+    private static long sum(long threadValue, long workerValue) {
+        long result = threadValue;
+        if (threadValue != -1 && workerValue != -1) {
+            result += workerValue;
+        }
+        return result;
+    }
+    
 }
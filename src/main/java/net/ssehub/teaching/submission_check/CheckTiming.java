@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.util.concurrent.TimeUnit;
+
+import net.ssehub.teaching.submission_check.checks.Check;
+
+/**
+ * The resources that a single execution of a {@link Check} (or another step of the hook, like the checkout) used. All
+ * values except the wall time may be -1 if they are not available. Instances are immutable.
+ * 
+ * @author Adam
+ */
+public class CheckTiming {
+    
+    private String name;
+    
+    private Submission submission;
+    
+    private long wallTime;
+    
+    private long cpuTime;
+    
+    private long allocatedBytes;
+    
+    private long childCpuTime;
+    
+    /**
+     * Creates a new timing record.
+     * 
+     * @param name The name of the step, e.g. the class name of the {@link Check}.
+     * @param submission The {@link Submission} that the step ran for.
+     * @param wallTime The elapsed wall time in nanoseconds.
+     * @param cpuTime The CPU time of the thread that ran the step (and of its worker threads) in nanoseconds, or -1.
+     * @param allocatedBytes The bytes that the thread (and its worker threads) allocated on the heap, or -1.
+     * @param childCpuTime The CPU time of the processes that the step started in nanoseconds, or -1 if it did not
+     *      start any processes.
+     */
+    // checkstyle: stop parameter number check
+    public CheckTiming(String name, Submission submission, long wallTime, long cpuTime, long allocatedBytes,
+            long childCpuTime) {
+        this.name = name;
+        this.submission = submission;
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+        this.childCpuTime = childCpuTime;
+    }
+    // checkstyle: resume parameter number check
+    
+    /**
+     * Returns the name of the step.
+     * 
+     * @return The name, e.g. the class name of the {@link Check}.
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Returns the {@link Submission} that the step ran for.
+     * 
+     * @return The {@link Submission}.
+     */
+    public Submission getSubmission() {
+        return submission;
+    }
+    
+    /**
+     * Returns the elapsed wall time.
+     * 
+     * @return The wall time in nanoseconds.
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+    
+    /**
+     * Returns the CPU time of the thread that ran the step, including the worker threads that the step used.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if not available.
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+    
+    /**
+     * Returns the number of bytes that the thread that ran the step allocated on the heap, including the worker
+     * threads that the step used.
+     * 
+     * @return The allocated bytes, or -1 if not available.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    /**
+     * Returns the CPU time of the processes that the step started.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if the step did not start any processes.
+     */
+    public long getChildCpuTime() {
+        return childCpuTime;
+    }
+    
+    /**
+     * Converts a time in nanoseconds to milliseconds for {@link #toString()}.
+     * 
+     * @param nanos The time in nanoseconds, or -1.
+     * 
+     * @return The time in milliseconds, or "n/a".
+     */
+    private static String toMillis(long nanos) {
+        return nanos != -1 ? TimeUnit.NANOSECONDS.toMillis(nanos) + " ms" : "n/a";
+    }
+    
+    @Override
+    public String toString() {
+        return name + " on " + submission + ": wall " + toMillis(wallTime) + ", cpu " + toMillis(cpuTime)
+                + ", allocated " + (allocatedBytes != -1 ? allocatedBytes + " bytes" : "n/a")
+                + ", child cpu " + toMillis(childCpuTime);
+    }
+    
+}
@@ -23,8 +23,11 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 
 import net.ssehub.teaching.submission_check.checks.Check;
@@ -37,6 +40,9 @@ import net.ssehub.teaching.submission_check.checks.InternalJavacCheck;
 import net.ssehub.teaching.submission_check.checks.JavacCheck;
 import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
 import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
+import net.ssehub.teaching.submission_check.svn.CliSvnInterface;
+import net.ssehub.teaching.submission_check.svn.FsfsSvnInterface;
+import net.ssehub.teaching.submission_check.svn.ISvnInterface;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
 import net.ssehub.teaching.submission_check.utils.FileUtils;
 
@@ -180,6 +186,308 @@ public class Configuration {
         return logLevel;
     }
     
+    /**
+     * Parses a global integer setting.
+     * 
+     * @param key The property key.
+     * @param defaultValue The value to return if the setting is not configured.
+     * 
+     * @return The configured value, or the default value.
+     * 
+     * @throws ConfigurationException If the configured value is not a valid integer.
+     */
+    private int getGlobalIntProperty(String key, int defaultValue) throws ConfigurationException {
+        int result = defaultValue;
+        String value = properties.getProperty(key);
+        if (value != null) {
+            try {
+                result = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException("Invalid " + key + " setting: " + value, e);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the TCP port on the loopback interface that the {@link SubmissionHookDaemon} should listen on. If not
+     * explicitly configured, this is 0, i.e. any free port is chosen.
+     * 
+     * @return The configured port.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getDaemonPort() throws ConfigurationException {
+        int port = getGlobalIntProperty("daemon.port", 0);
+        if (port < 0 || port > 65535) {
+            throw new ConfigurationException("Invalid daemon.port setting: " + port);
+        }
+        return port;
+    }
+    
+    /**
+     * Returns the number of hook invocations that the {@link SubmissionHookDaemon} handles concurrently. If not
+     * explicitly configured, this is the number of available processors.
+     * 
+     * @return The configured number of threads.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getDaemonThreads() throws ConfigurationException {
+        int threads = getGlobalIntProperty("daemon.threads", Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new ConfigurationException("Invalid daemon.threads setting: " + threads);
+        }
+        return threads;
+    }
+    
+    /**
+     * Returns the number of submissions of a single commit that are checked in parallel. If not explicitly configured,
+     * this is 1, i.e. submissions are checked one after another.
+     * 
+     * @return The configured number of parallel submission checks.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getParallelSubmissions() throws ConfigurationException {
+        int parallelSubmissions = getGlobalIntProperty("parallelSubmissions", 1);
+        if (parallelSubmissions < 1) {
+            throw new ConfigurationException("Invalid parallelSubmissions setting: " + parallelSubmissions);
+        }
+        return parallelSubmissions;
+    }
+    
+    /**
+     * Returns the number of threads that a single {@link Check} may use to check the files of one submission (see
+     * {@link EncodingCheck#setParallelism(int)}). If not explicitly configured, this is 1, i.e. files are checked one
+     * after another.
+     * 
+     * @return The configured number of threads per check.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getFileCheckParallelism() throws ConfigurationException {
+        int fileCheckParallelism = getGlobalIntProperty("fileCheckParallelism", 1);
+        if (fileCheckParallelism < 1) {
+            throw new ConfigurationException("Invalid fileCheckParallelism setting: " + fileCheckParallelism);
+        }
+        return fileCheckParallelism;
+    }
+    
+    /**
+     * Returns the number of threads that send the results of the submissions of one commit to the Student Management
+     * System at the same time. If not explicitly configured, this is 4.
+     * 
+     * @return The configured number of upload threads.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getUploadParallelism() throws ConfigurationException {
+        int uploadParallelism = getGlobalIntProperty("uploadParallelism", 4);
+        if (uploadParallelism < 1) {
+            throw new ConfigurationException("Invalid uploadParallelism setting: " + uploadParallelism);
+        }
+        return uploadParallelism;
+    }
+    
+    /**
+     * Returns the maximum time in seconds that the post-commit hook waits for the results to be sent to the Student
+     * Management System. Results that are not sent in this time are stored in the {@link UploadOutbox}. If not
+     * explicitly configured, this is 20 seconds.
+     * 
+     * @return The configured upload timeout in seconds.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getUploadTimeout() throws ConfigurationException {
+        int uploadTimeout = getGlobalIntProperty("uploadTimeout", 20);
+        if (uploadTimeout < 1) {
+            throw new ConfigurationException("Invalid uploadTimeout setting: " + uploadTimeout);
+        }
+        return uploadTimeout;
+    }
+    
+    /**
+     * Returns whether the {@link CheckTiming}s of all {@link Check}s should be added to the XML output for the client.
+     * If not explicitly configured, this is <code>false</code>; the timings are only logged.
+     * 
+     * @return Whether to add the timings to the output.
+     */
+    public boolean getTimingsInOutput() {
+        return Boolean.parseBoolean(properties.getProperty("timingsInOutput", "false").trim());
+    }
+    
+    /**
+     * Returns the time budget in seconds for a complete hook execution, i.e. for all SVN operations and {@link Check}s
+     * of one commit. If not explicitly configured, this is 0, i.e. there is no limit.
+     * 
+     * @return The configured time budget in seconds; 0 means no limit.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getCommitTimeout() throws ConfigurationException {
+        int commitTimeout = getGlobalIntProperty("commitTimeout", 0);
+        if (commitTimeout < 0) {
+            throw new ConfigurationException("Invalid commitTimeout setting: " + commitTimeout);
+        }
+        return commitTimeout;
+    }
+    
+    /**
+     * Returns the directory where the hook keeps state across executions, e.g. the results of previous {@link Check}
+     * runs (see {@link ResultCache}). The directory is created if it does not exist yet. If not explicitly configured,
+     * this is <code>null</code>, i.e. no state is kept.
+     * 
+     * @return The configured state directory, or <code>null</code>.
+     * 
+     * @throws ConfigurationException If the configured directory cannot be created.
+     */
+    public File getStateDirectory() throws ConfigurationException {
+        File result = null;
+        String value = properties.getProperty("stateDirectory");
+        if (value != null && !value.isBlank()) {
+            result = new File(value.trim());
+            if (!result.isDirectory() && !result.mkdirs()) {
+                throw new ConfigurationException("Invalid stateDirectory setting: " + value
+                        + " is not a directory");
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns whether the post-commit hook should only put its work into the {@link JobQueue} and return immediately.
+     * The checks and the upload to the Student Management System are then done by a {@link PostCommitWorker}. If not
+     * explicitly configured, this is <code>false</code>, i.e. the post-commit hook does all work before it returns.
+     * 
+     * @return Whether to queue post-commit hook executions.
+     */
+    public boolean getPostCommitQueue() {
+        return Boolean.parseBoolean(properties.getProperty("postCommitQueue", "false").trim());
+    }
+    
+    /**
+     * Returns the directory of the {@link JobQueue}. This is the <code>queue</code> sub-directory of the
+     * {@link #getStateDirectory()}.
+     * 
+     * @return The queue directory.
+     * 
+     * @throws ConfigurationException If no state directory is configured.
+     */
+    public File getQueueDirectory() throws ConfigurationException {
+        File stateDirectory = getStateDirectory();
+        if (stateDirectory == null) {
+            throw new ConfigurationException("The post-commit queue requires a stateDirectory setting");
+        }
+        return new File(stateDirectory, "queue");
+    }
+    
+    /**
+     * Returns the directory of the {@link UploadOutbox}. This is the <code>outbox</code> sub-directory of the
+     * {@link #getStateDirectory()}.
+     * 
+     * @return The outbox directory, or <code>null</code> if no state directory is configured.
+     * 
+     * @throws ConfigurationException If the configured state directory cannot be created.
+     */
+    public File getOutboxDirectory() throws ConfigurationException {
+        File result = null;
+        File stateDirectory = getStateDirectory();
+        if (stateDirectory != null) {
+            result = new File(stateDirectory, "outbox");
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the number of jobs from the {@link JobQueue} that a {@link PostCommitWorker} processes concurrently. If
+     * not explicitly configured, this is 1.
+     * 
+     * @return The configured number of worker threads.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getQueueWorkerThreads() throws ConfigurationException {
+        int threads = getGlobalIntProperty("queue.workerThreads", 1);
+        if (threads < 1) {
+            throw new ConfigurationException("Invalid queue.workerThreads setting: " + threads);
+        }
+        return threads;
+    }
+    
+    /**
+     * Returns the time in seconds after which a job in the {@link JobQueue} is given to another worker if the worker
+     * processing it does not renew its lease (e.g. because it crashed). If not explicitly configured, this is 60.
+     * 
+     * @return The configured lease timeout in seconds.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public int getQueueLeaseTimeout() throws ConfigurationException {
+        int leaseTimeout = getGlobalIntProperty("queue.leaseTimeout", 60);
+        if (leaseTimeout < 1) {
+            throw new ConfigurationException("Invalid queue.leaseTimeout setting: " + leaseTimeout);
+        }
+        return leaseTimeout;
+    }
+    
+    /**
+     * Returns all exercise-specific settings that are effective for the given submission, i.e. the settings for the
+     * exercise of the submission and the settings for all exercises that are not overridden by these.
+     * <p>
+     * Package visibility for the {@link ResultCache}.
+     * 
+     * @param submission The submission to get the settings for.
+     * 
+     * @return The effective settings, sorted by their key (without the "all." or exercise prefix).
+     */
+    SortedMap<String, String> getEffectiveSettings(Submission submission) {
+        SortedMap<String, String> result = new TreeMap<>();
+        
+        String exercisePrefix = submission.getExercise() + '.';
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("all.")) {
+                result.putIfAbsent(key.substring("all.".length()), null);
+            } else if (key.startsWith(exercisePrefix)) {
+                result.putIfAbsent(key.substring(exercisePrefix.length()), null);
+            }
+        }
+        
+        for (Map.Entry<String, String> entry : result.entrySet()) {
+            entry.setValue(getProperty(entry.getKey(), submission));
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Creates the {@link ISvnInterface} that is configured by the user. If not explicitly configured, this is a
+     * {@link CliSvnInterface}.
+     * 
+     * @return The configured {@link ISvnInterface}.
+     * 
+     * @throws ConfigurationException If the configured value is invalid.
+     */
+    public ISvnInterface createSvnInterface() throws ConfigurationException {
+        String value = properties.getProperty("svnInterface", "cli").trim();
+        
+        ISvnInterface result;
+        switch (value) {
+        case "cli":
+            result = new CliSvnInterface();
+            break;
+            
+        case "fsfs":
+            result = new FsfsSvnInterface();
+            break;
+            
+        default:
+            throw new ConfigurationException("Invalid svnInterface setting: " + value);
+        }
+        
+        return result;
+    }
+    
     /**
      * Creates a {@link FileSizeCheck} with the parameters as configured by the user.
      * 
@@ -222,6 +530,7 @@ public class Configuration {
      */
     public EncodingCheck createEncodingCheck(Submission submission) throws ConfigurationException {
         EncodingCheck check = new EncodingCheck();
+        check.setParallelism(getFileCheckParallelism());
         
         ifPropertyNotNull("encoding", submission, (value) -> {
             try {
@@ -316,7 +625,9 @@ public class Configuration {
     }
     
     /**
-     * Creates an {@link CheckstyleCheck} with the parameters as configured by the user.
+     * Creates an {@link CheckstyleCheck} with the parameters as configured by the user. If a
+     * {@link #getStateDirectory()} is configured, the check keeps a cache file for the submission there (see
+     * {@link CheckstyleCheck#setCacheFile(File)}).
      * 
      * @param submission The submission that this check is for.
      * 
@@ -341,11 +652,18 @@ public class Configuration {
             }
         });
         
+        File stateDirectory = getStateDirectory();
+        if (stateDirectory != null) {
+            check.setCacheFile(new File(stateDirectory, "checkstyle/" + submission.getExercise() + '/'
+                    + submission.getGroup() + ".properties"));
+        }
+        
         return check;
     }
     
     /**
-     * Creates all checks that are configured for the given submission directory and hook phase.
+     * Creates all checks that are configured for the given submission directory and hook phase. All checks get the
+     * configured <code>checkTimeout</code> (see {@link Check#setTimeout(long)}).
      * 
      * @param submission The {@link Submission} that the {@link Check}s will run on.
      * @param hookPhase The phase that the checks will run at.
@@ -374,6 +692,22 @@ public class Configuration {
             throw new IllegalArgumentException("Invalid hook phase: " + hookPhase);
         }
         
+        ifPropertyNotNull("checkTimeout", submission, (value) -> {
+            long timeout;
+            try {
+                timeout = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException("Invalid checkTimeout setting: " + value, e);
+            }
+            if (timeout < 0) {
+                throw new ConfigurationException("Invalid checkTimeout setting: " + value);
+            }
+            
+            for (Check check : checks) {
+                check.setTimeout(timeout * 1000);
+            }
+        });
+        
         return checks; 
     }
     
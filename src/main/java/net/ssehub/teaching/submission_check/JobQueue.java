@@ -0,0 +1,616 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * A durable queue of {@link PostCommitJob}s on the local file system. Like the {@link ResultCache}, each job is a
+ * properties file in a directory, so the queue can safely be used by multiple processes at the same time. The state
+ * of a job is defined by the sub-directory that its file is in, and all state changes are atomic renames:
+ * <ul>
+ *      <li><code>pending</code>: Waiting to be processed.</li>
+ *      <li><code>leased</code>: Claimed by a worker with {@link #poll()}. The file name contains a random lease token
+ *      and the time that the lease expires. The worker renews the lease with {@link Lease#renew()} while processing
+ *      the job; an expired lease (e.g. because the worker crashed) is moved back to <code>pending</code> by
+ *      {@link #recoverExpiredLeases()}.</li>
+ *      <li><code>done</code>: Completed with {@link Lease#complete()}. Kept, so that the same job is never enqueued or
+ *      processed again.</li>
+ *      <li><code>superseded</code>: Replaced by a job for a newer revision of the same submission.</li>
+ *      <li><code>failed</code>: Claimed {@value #MAX_ATTEMPTS} times without being completed.</li>
+ * </ul>
+ * Since renames are atomic, only one worker can claim, renew or complete a job. A worker that lost its lease notices
+ * this the next time it renews or completes it.
+ * <p>
+ * Only the newest revision of each submission (see {@link PostCommitJob#getKey()}) is processed. The newest enqueued
+ * job of each submission is recorded in the <code>latest</code> directory. Enqueueing a job supersedes the older jobs
+ * of the same submission that are pending or leased; a worker processing such a job sees that its lease is lost
+ * ({@link Lease#isLost()}) and can cancel its work.
+ * 
+ * @author Adam
+ */
+public class JobQueue {
+    
+    /**
+     * The number of times a job is claimed before it is moved to <code>failed</code>.
+     */
+    public static final int MAX_ATTEMPTS = 3;
+    
+    /**
+     * The time in milliseconds that the result of {@link Lease#isLost()} is re-used before the job files are read
+     * again.
+     */
+    static final long LOST_CHECK_INTERVAL = 100;
+    
+    private static final Logger LOGGER = Logger.getLogger(JobQueue.class.getName());
+    
+    private static final String SUFFIX = ".job";
+    
+    private static final char SEPARATOR = '~';
+    
+    /**
+     * Serializes {@link #enqueue(PostCommitJob)} calls of different threads in this JVM; the file lock only works
+     * between processes.
+     */
+    private static final Object ENQUEUE_LOCK = new Object();
+    
+    private File pendingDirectory;
+    
+    private File leasedDirectory;
+    
+    private File doneDirectory;
+    
+    private File supersededDirectory;
+    
+    private File failedDirectory;
+    
+    private File latestDirectory;
+    
+    private File lockFile;
+    
+    private long leaseTimeout;
+    
+    /**
+     * Creates a {@link JobQueue} that stores the jobs in the given directory.
+     * 
+     * @param queueDirectory The directory to store the jobs in. Created if it does not exist.
+     * @param leaseTimeout The time in milliseconds that a lease is valid after it was taken or renewed.
+     * 
+     * @throws IOException If the directories cannot be created.
+     */
+    public JobQueue(File queueDirectory, long leaseTimeout) throws IOException {
+        this.pendingDirectory = createDirectory(new File(queueDirectory, "pending"));
+        this.leasedDirectory = createDirectory(new File(queueDirectory, "leased"));
+        this.doneDirectory = createDirectory(new File(queueDirectory, "done"));
+        this.supersededDirectory = createDirectory(new File(queueDirectory, "superseded"));
+        this.failedDirectory = createDirectory(new File(queueDirectory, "failed"));
+        this.latestDirectory = createDirectory(new File(queueDirectory, "latest"));
+        this.lockFile = new File(queueDirectory, "enqueue.lock");
+        this.leaseTimeout = leaseTimeout;
+    }
+    
+    /**
+     * Creates the given directory, if it does not exist.
+     * 
+     * @param directory The directory to create.
+     * 
+     * @return The directory.
+     * 
+     * @throws IOException If the directory cannot be created.
+     */
+    private static File createDirectory(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        return directory;
+    }
+    
+    /**
+     * Adds a job to the queue. The job is written to disk before this method returns. Pending and leased jobs for
+     * older revisions of the same submission are superseded.
+     * 
+     * @param job The job to add.
+     * 
+     * @return Whether the job was added; <code>false</code> if a job with the same {@link PostCommitJob#getId()} is
+     *      already in the queue or has already been processed, or if a job for a newer revision of the same
+     *      submission has already been added.
+     * 
+     * @throws IOException If writing the job fails.
+     */
+    public boolean enqueue(PostCommitJob job) throws IOException {
+        synchronized (ENQUEUE_LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+                
+                return enqueueLocked(job);
+            }
+        }
+    }
+    
+    /**
+     * Adds a job to the queue while the enqueue lock is held. See {@link #enqueue(PostCommitJob)}.
+     * 
+     * @param job The job to add.
+     * 
+     * @return Whether the job was added.
+     * 
+     * @throws IOException If writing the job fails.
+     */
+    private boolean enqueueLocked(PostCommitJob job) throws IOException {
+        boolean added = false;
+        String latest = readLatest(job.getKey());
+        
+        if (isKnown(job.getId())) {
+            LOGGER.log(Level.FINE, "Job {0} is already known", job.getId());
+            
+        } else if (latest != null && latest.compareTo(job.getId()) > 0) {
+            LOGGER.log(Level.INFO, "Revision {0} of {1} is superseded by revision {2}, not queueing it", new Object[] {
+                job.getRevision(), job.getSubmission(), getRevision(latest)});
+                
+        } else {
+            Properties properties = new Properties();
+            properties.setProperty("repository", job.getRepository().getPath());
+            properties.setProperty("revision", job.getRevision());
+            properties.setProperty("exercise", job.getSubmission().getExercise());
+            properties.setProperty("group", job.getSubmission().getGroup());
+            
+            // record the newest job first, so that workers see that older jobs are superseded
+            File temporary = File.createTempFile(job.getKey(), ".tmp", latestDirectory);
+            Files.writeString(temporary.toPath(), job.getId(), StandardCharsets.UTF_8);
+            Files.move(temporary.toPath(), new File(latestDirectory, job.getKey()).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            
+            supersede(pendingDirectory, job);
+            supersede(leasedDirectory, job);
+            
+            temporary = File.createTempFile(job.getKey(), ".tmp", pendingDirectory.getParentFile());
+            try {
+                try (OutputStream out = Files.newOutputStream(temporary.toPath())) {
+                    properties.store(out, null);
+                }
+                Files.move(temporary.toPath(), new File(pendingDirectory, job.getId() + SEPARATOR + "0" + SUFFIX)
+                        .toPath(), StandardCopyOption.ATOMIC_MOVE);
+                added = true;
+                
+            } finally {
+                if (!added) {
+                    FileUtils.deleteFile(temporary);
+                }
+            }
+        }
+        
+        return added;
+    }
+    
+    /**
+     * Moves all jobs in the given directory that are for an older revision of the submission of the given job to
+     * <code>superseded</code>.
+     * 
+     * @param directory The <code>pending</code> or <code>leased</code> directory.
+     * @param job The job for the new revision.
+     * 
+     * @throws IOException If moving a job fails.
+     */
+    private void supersede(File directory, PostCommitJob job) throws IOException {
+        String prefix = job.getKey() + "@";
+        for (String name : directory.list((dir, name) -> name.startsWith(prefix) && name.endsWith(SUFFIX))) {
+            String id = getId(name);
+            if (id.compareTo(job.getId()) < 0) {
+                try {
+                    Files.move(new File(directory, name).toPath(), new File(supersededDirectory, id + SUFFIX).toPath(),
+                            StandardCopyOption.ATOMIC_MOVE);
+                    LOGGER.log(Level.INFO, "Revision {0} of {1} is superseded by revision {2}", new Object[] {
+                        getRevision(id), job.getSubmission(), job.getRevision()});
+                        
+                } catch (NoSuchFileException e) {
+                    // claimed, renewed or completed concurrently; the worker notices via the latest job
+                    LOGGER.log(Level.FINE, "Job {0} changed concurrently", id);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reads the identifier of the newest job that was enqueued for the given submission.
+     * 
+     * @param key The {@link PostCommitJob#getKey()} of the submission.
+     * 
+     * @return The identifier of the newest job, or <code>null</code> if no job was enqueued for the submission.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    private String readLatest(String key) throws IOException {
+        String result = null;
+        try {
+            result = Files.readString(new File(latestDirectory, key).toPath(), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            // no job for this submission yet
+        }
+        return result;
+    }
+    
+    /**
+     * Checks whether a newer job than the given one has been enqueued for the same submission.
+     * 
+     * @param id The identifier of the job.
+     * 
+     * @return Whether the job is superseded.
+     * 
+     * @throws IOException If reading the newest job fails.
+     */
+    private boolean isSuperseded(String id) throws IOException {
+        String latest = readLatest(id.substring(0, id.indexOf('@')));
+        return latest != null && latest.compareTo(id) > 0;
+    }
+    
+    /**
+     * Checks whether a job with the given identifier is in any state in this queue.
+     * 
+     * @param id The identifier of the job.
+     * 
+     * @return Whether the job is pending, leased, done, superseded or failed.
+     */
+    private boolean isKnown(String id) {
+        boolean finished = new File(doneDirectory, id + SUFFIX).exists()
+                || new File(supersededDirectory, id + SUFFIX).exists()
+                || new File(failedDirectory, id + SUFFIX).exists();
+        return finished || hasFileWithPrefix(pendingDirectory, id + SEPARATOR)
+                || hasFileWithPrefix(leasedDirectory, id + SEPARATOR);
+    }
+    
+    /**
+     * Checks whether the given directory contains a file whose name starts with the given prefix.
+     * 
+     * @param directory The directory to search.
+     * @param prefix The prefix of the file name.
+     * 
+     * @return Whether such a file exists.
+     */
+    private static boolean hasFileWithPrefix(File directory, String prefix) {
+        String[] names = directory.list((dir, name) -> name.startsWith(prefix));
+        return names != null && names.length > 0;
+    }
+    
+    /**
+     * Returns the names of the job files in the given directory, oldest revision first.
+     * 
+     * @param directory The directory to list.
+     * 
+     * @return The sorted file names.
+     */
+    private static String[] listJobs(File directory) {
+        String[] names = directory.list((dir, name) -> name.endsWith(SUFFIX));
+        if (names == null) {
+            names = new String[0];
+        }
+        // the part after the key starts with the padded revision
+        Arrays.sort(names, Comparator.comparing((String name) -> name.substring(name.indexOf('@')))
+                .thenComparing(Comparator.naturalOrder()));
+        return names;
+    }
+    
+    /**
+     * Returns the job identifier part of a job file name.
+     * 
+     * @param name The name of the job file.
+     * 
+     * @return The {@link PostCommitJob#getId()} of the job.
+     */
+    private static String getId(String name) {
+        int end = name.indexOf(SEPARATOR);
+        if (end == -1) {
+            end = name.length() - SUFFIX.length();
+        }
+        return name.substring(0, end);
+    }
+    
+    /**
+     * Returns the revision part of a job identifier or file name, without the padding.
+     * 
+     * @param name The job identifier or the name of the job file.
+     * 
+     * @return The revision.
+     */
+    private static String getRevision(String name) {
+        String padded = getId(name + SEPARATOR);
+        padded = padded.substring(padded.indexOf("@r") + 2);
+        return padded.matches("[0-9]+") ? Long.toString(Long.parseLong(padded)) : padded;
+    }
+    
+    /**
+     * Claims the next pending job. Jobs for older revisions are claimed first. Jobs that have been superseded in the
+     * meantime are moved to <code>superseded</code> instead.
+     * 
+     * @return A {@link Lease} on the claimed job, or <code>null</code> if no job is pending.
+     * 
+     * @throws IOException If reading the job fails.
+     */
+    public Lease poll() throws IOException {
+        Lease lease = null;
+        
+        String[] pending = listJobs(pendingDirectory);
+        for (int i = 0; lease == null && i < pending.length; i++) {
+            String[] parts = pending[i].substring(0, pending[i].length() - SUFFIX.length())
+                    .split(String.valueOf(SEPARATOR));
+            String id = parts[0];
+            int attempt = Integer.parseInt(parts[1]) + 1;
+            
+            Lease candidate = new Lease(id, attempt, UUID.randomUUID().toString());
+            try {
+                Files.move(new File(pendingDirectory, pending[i]).toPath(), candidate.file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
+                
+                if (new File(doneDirectory, id + SUFFIX).exists()) {
+                    LOGGER.log(Level.WARNING, "Job {0} was already processed, dropping it", id);
+                    FileUtils.deleteFile(candidate.file);
+                    
+                } else if (isSuperseded(id)) {
+                    LOGGER.log(Level.INFO, "Job {0} is superseded, dropping it", id);
+                    Files.move(candidate.file.toPath(), new File(supersededDirectory, id + SUFFIX).toPath(),
+                            StandardCopyOption.ATOMIC_MOVE);
+                            
+                } else {
+                    candidate.job = readJob(candidate.file);
+                    lease = candidate;
+                }
+                
+            } catch (NoSuchFileException e) {
+                LOGGER.log(Level.FINE, "Job {0} was claimed concurrently", id);
+            }
+        }
+        
+        return lease;
+    }
+    
+    /**
+     * Moves all jobs whose lease has expired back to <code>pending</code>, or to <code>failed</code> if they have
+     * been claimed {@value #MAX_ATTEMPTS} times.
+     * 
+     * @return The number of recovered jobs.
+     * 
+     * @throws IOException If moving a job fails.
+     */
+    public int recoverExpiredLeases() throws IOException {
+        int recovered = 0;
+        long now = System.currentTimeMillis();
+        
+        for (String name : listJobs(leasedDirectory)) {
+            String[] parts = name.substring(0, name.length() - SUFFIX.length()).split(String.valueOf(SEPARATOR));
+            if (parts.length == 4 && Long.parseLong(parts[3]) < now) {
+                LOGGER.log(Level.WARNING, "Lease on job {0} expired, attempt {1}", new Object[] {parts[0], parts[1]});
+                if (moveBack(new File(leasedDirectory, name), parts[0], Integer.parseInt(parts[1]))) {
+                    recovered++;
+                }
+            }
+        }
+        
+        return recovered;
+    }
+    
+    /**
+     * Moves a leased job back to <code>pending</code>, or to <code>failed</code> if it has been claimed
+     * {@value #MAX_ATTEMPTS} times.
+     * 
+     * @param leasedFile The file of the leased job.
+     * @param id The identifier of the job.
+     * @param attempt The number of times that the job has been claimed.
+     * 
+     * @return Whether the job was moved; <code>false</code> if the lease was concurrently renewed, completed,
+     *      superseded or recovered.
+     * 
+     * @throws IOException If moving the job fails.
+     */
+    private boolean moveBack(File leasedFile, String id, int attempt) throws IOException {
+        File target;
+        if (attempt >= MAX_ATTEMPTS) {
+            LOGGER.log(Level.SEVERE, "Job {0} failed {1} times, giving up", new Object[] {id, attempt});
+            target = new File(failedDirectory, id + SUFFIX);
+        } else {
+            target = new File(pendingDirectory, id + SEPARATOR + attempt + SUFFIX);
+        }
+        
+        boolean moved;
+        try {
+            Files.move(leasedFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } catch (NoSuchFileException e) {
+            moved = false;
+        }
+        return moved;
+    }
+    
+    /**
+     * Reads a job file.
+     * 
+     * @param file The file to read.
+     * 
+     * @return The job.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    private static PostCommitJob readJob(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+        }
+        
+        String repository = properties.getProperty("repository");
+        String revision = properties.getProperty("revision");
+        String exercise = properties.getProperty("exercise");
+        String group = properties.getProperty("group");
+        if (repository == null || revision == null || exercise == null || group == null) {
+            throw new IOException("Invalid job file " + file);
+        }
+        
+        return new PostCommitJob(new File(repository), revision, new Submission(exercise, group));
+    }
+    
+    /**
+     * The exclusive claim of a worker on a job. Only valid until it expires or the job is superseded; see
+     * {@link #renew()} and {@link #isLost()}.
+     */
+    public class Lease {
+        
+        private String id;
+        
+        private int attempt;
+        
+        private String token;
+        
+        private File file;
+        
+        private PostCommitJob job;
+        
+        private boolean lost;
+        
+        private long lastLostCheck;
+        
+        /**
+         * Creates a new lease that expires after the lease timeout.
+         * 
+         * @param id The identifier of the job.
+         * @param attempt The number of times that the job has been claimed, including this time.
+         * @param token A random token that identifies this lease.
+         */
+        private Lease(String id, int attempt, String token) {
+            this.id = id;
+            this.attempt = attempt;
+            this.token = token;
+            this.file = createLeaseFile();
+        }
+        
+        /**
+         * Creates the name of the leased job file, with an expiry time of the lease timeout from now.
+         * 
+         * @return The file in the <code>leased</code> directory.
+         */
+        private File createLeaseFile() {
+            return new File(leasedDirectory, id + SEPARATOR + attempt + SEPARATOR + token + SEPARATOR
+                    + (System.currentTimeMillis() + leaseTimeout) + SUFFIX);
+        }
+        
+        /**
+         * Returns the job that this lease is on.
+         * 
+         * @return The job.
+         */
+        public PostCommitJob getJob() {
+            return job;
+        }
+        
+        /**
+         * Returns the number of times that the job has been claimed, including this time.
+         * 
+         * @return The attempt number, starting at 1.
+         */
+        public int getAttempt() {
+            return attempt;
+        }
+        
+        /**
+         * Checks whether this lease is lost, i.e. the job has been superseded by a newer revision of the same
+         * submission or has been given to another worker. Cheap enough to be used as the condition of a
+         * {@link net.ssehub.teaching.submission_check.utils.Deadline#cancelledWhen(java.util.function.BooleanSupplier)
+         * cancellable deadline}: the job files are read at most every {@value JobQueue#LOST_CHECK_INTERVAL}
+         * milliseconds.
+         * 
+         * @return Whether the lease is lost. Once lost, a lease stays lost.
+         */
+        public synchronized boolean isLost() {
+            long now = System.nanoTime();
+            if (!lost && now - lastLostCheck >= LOST_CHECK_INTERVAL * 1_000_000) {
+                lastLostCheck = now;
+                try {
+                    lost = !file.exists() || isSuperseded(id);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not check whether job " + id + " is superseded", e);
+                }
+            }
+            return lost;
+        }
+        
+        /**
+         * Extends this lease by the lease timeout.
+         * 
+         * @return Whether this lease is still held; <code>false</code> if it expired and was recovered or the job was
+         *      superseded.
+         * 
+         * @throws IOException If renaming the job file fails.
+         */
+        public synchronized boolean renew() throws IOException {
+            if (!lost) {
+                File renewed = createLeaseFile();
+                try {
+                    Files.move(file.toPath(), renewed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    file = renewed;
+                } catch (NoSuchFileException e) {
+                    lost = true;
+                }
+            }
+            return !lost;
+        }
+        
+        /**
+         * Marks the job as done. It will never be processed again. If the job has been superseded, it is moved to
+         * <code>superseded</code> instead.
+         * 
+         * @return Whether the job was completed; <code>false</code> if this lease was lost before or the job has been
+         *      superseded.
+         * 
+         * @throws IOException If renaming the job file fails.
+         */
+        public synchronized boolean complete() throws IOException {
+            boolean superseded = isSuperseded(id);
+            File target = new File(superseded ? supersededDirectory : doneDirectory, id + SUFFIX);
+            try {
+                Files.move(file.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                lost = true;
+            }
+            return !lost && !superseded;
+        }
+        
+        /**
+         * Gives the job back after processing it failed. It is moved back to <code>pending</code>, or to
+         * <code>failed</code> if it has been claimed {@value JobQueue#MAX_ATTEMPTS} times.
+         * 
+         * @throws IOException If renaming the job file fails.
+         */
+        public synchronized void release() throws IOException {
+            moveBack(file, id, attempt);
+        }
+        
+    }
+    
+}
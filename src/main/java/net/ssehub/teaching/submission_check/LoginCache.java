@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.backend.UnknownCredentialsException;
+import net.ssehub.teaching.submission_check.SubmissionHook.SubmitterFactory;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
+
+/**
+ * Keeps the logged-in {@link StudentManagementSubmitter}s of the Student Management System, so that hook invocations
+ * in the same process (e.g. in the {@link SubmissionHookDaemon} or the {@link PostCommitWorker}) do not log in again.
+ * Logins are re-used for at most {@link #MAX_AGE} milliseconds.
+ * <p>
+ * The underlying protocol of a {@link StudentManagementSubmitter} is not thread-safe, so each submitter is only
+ * handed to one thread at a time: {@link #create(StudentManagementConfig)} returns an idle login of the
+ * {@link StudentManagementConfig}, or logs in again if all are in use, and {@link #release(StudentManagementConfig,
+ * StudentManagementSubmitter)} makes it available again. There are thus at most as many logins per configuration as
+ * threads use it at the same time.
+ * When a request fails because of the login or the connection (see {@link #isLoginFailure(NetworkException)}), the
+ * login is dropped with {@link #invalidate(StudentManagementConfig, StudentManagementSubmitter)} and the next call to
+ * {@link #create(StudentManagementConfig)} logs in again.
+ * 
+ * @author Adam
+ */
+class LoginCache implements SubmitterFactory {
+    
+    /**
+     * The maximum time in milliseconds that a login is re-used. This also limits how long the assignments cached by a
+     * {@link StudentManagementSubmitter} are used.
+     */
+    static final long MAX_AGE = TimeUnit.MINUTES.toMillis(5);
+    
+    private static final Logger LOGGER = Logger.getLogger(LoginCache.class.getName());
+    
+    private SubmitterFactory login;
+    
+    private long maxAge;
+    
+    private Map<StudentManagementConfig, Session> sessions = new ConcurrentHashMap<>();
+    
+    /**
+     * The logins for one {@link StudentManagementConfig}. Access is synchronized on this object.
+     */
+    private static class Session {
+        
+        /**
+         * The logins that are not used by any thread, the most recently released first.
+         */
+        private Deque<Login> idle = new ArrayDeque<>();
+        
+        /**
+         * The logins that are currently used by a thread. Invalidated logins are removed, so that they are not
+         * released.
+         */
+        private Map<StudentManagementSubmitter, Login> inUse = new IdentityHashMap<>();
+        
+    }
+    
+    /**
+     * A single logged-in {@link StudentManagementSubmitter}.
+     */
+    private static class Login {
+        
+        private StudentManagementSubmitter submitter;
+        
+        private long loginTime;
+        
+        /**
+         * Creates a new login.
+         * 
+         * @param submitter The logged-in submitter.
+         * @param loginTime The time of the login in milliseconds.
+         */
+        Login(StudentManagementSubmitter submitter, long loginTime) {
+            this.submitter = submitter;
+            this.loginTime = loginTime;
+        }
+        
+    }
+    
+    /**
+     * Creates a new, empty {@link LoginCache} that re-uses logins for {@link #MAX_AGE} milliseconds.
+     * 
+     * @param login The factory that logs in to the Student Management System.
+     */
+    LoginCache(SubmitterFactory login) {
+        this(login, MAX_AGE);
+    }
+    
+    /**
+     * Creates a new, empty {@link LoginCache}. Package visibility for test cases.
+     * 
+     * @param login The factory that logs in to the Student Management System.
+     * @param maxAge The maximum time in milliseconds that a login is re-used.
+     */
+    LoginCache(SubmitterFactory login, long maxAge) {
+        this.login = login;
+        this.maxAge = maxAge;
+    }
+    
+    /**
+     * Returns an idle cached {@link StudentManagementSubmitter} for the given configuration. If there is none, or all
+     * are too old, this logs in again. The submitter is used exclusively by the caller until it passes it to
+     * {@link #release(StudentManagementConfig, StudentManagementSubmitter)}.
+     * 
+     * @param config The connection settings of the Student Management System.
+     * 
+     * @return A logged-in submitter.
+     * 
+     * @throws NetworkException If logging in fails.
+     */
+    @Override
+    public StudentManagementSubmitter create(StudentManagementConfig config) throws NetworkException {
+        Session session = sessions.computeIfAbsent(config, (key) -> new Session());
+        long now = System.currentTimeMillis();
+        
+        Login result = null;
+        synchronized (session) {
+            while (result == null && !session.idle.isEmpty()) {
+                Login candidate = session.idle.pop();
+                if (now - candidate.loginTime <= maxAge) {
+                    result = candidate;
+                }
+            }
+            if (result != null) {
+                session.inUse.put(result.submitter, result);
+            }
+        }
+        
+        if (result == null) {
+            LOGGER.log(Level.FINE, "Logging in to {0}", config.getUrl());
+            
+            // outside of the lock, so that a slow login does not block threads that could re-use an idle login
+            result = new Login(login.create(config), now);
+            synchronized (session) {
+                session.inUse.put(result.submitter, result);
+            }
+        }
+        
+        return result.submitter;
+    }
+    
+    /**
+     * Makes the given submitter available for other threads again. Does nothing if it has been invalidated.
+     * 
+     * @param config The connection settings of the Student Management System.
+     * @param submitter The submitter returned by {@link #create(StudentManagementConfig)}.
+     */
+    @Override
+    public void release(StudentManagementConfig config, StudentManagementSubmitter submitter) {
+        Session session = sessions.get(config);
+        if (session != null) {
+            synchronized (session) {
+                Login released = session.inUse.remove(submitter);
+                if (released != null) {
+                    session.idle.push(released);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Checks whether the given failure of a request may be caused by an expired login or a broken connection. Only
+     * then the login should be dropped and the request retried. Missing data on the server (e.g. an assignment that
+     * does not exist) or credentials that the server does not accept are not fixed by logging in again.
+     * 
+     * @param exception The failure of a request with a cached login.
+     * 
+     * @return Whether the login should be dropped and the request retried.
+     */
+    static boolean isLoginFailure(NetworkException exception) {
+        return !(exception instanceof DataNotFoundException) && !(exception instanceof UnknownCredentialsException);
+    }
+    
+    /**
+     * Drops the given login, so that it is not returned by {@link #create(StudentManagementConfig)} again. Does nothing
+     * if the given submitter has already been dropped.
+     * 
+     * @param config The connection settings of the Student Management System.
+     * @param submitter The submitter that the server rejected.
+     */
+    @Override
+    public void invalidate(StudentManagementConfig config, StudentManagementSubmitter submitter) {
+        Session session = sessions.get(config);
+        if (session != null) {
+            synchronized (session) {
+                session.inUse.remove(submitter);
+                session.idle.removeIf((login) -> login.submitter == submitter);
+            }
+        }
+    }
+    
+}
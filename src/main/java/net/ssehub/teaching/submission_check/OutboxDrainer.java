@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.ssehub.teaching.submission_check.SubmissionHook.ConfigurationSupplier;
+import net.ssehub.teaching.submission_check.SubmissionHook.SubmitterFactory;
+
+/**
+ * Regularly sends the results stored in the {@link UploadOutbox} to the Student Management System. Runs in the
+ * background of the long-running processes, i.e. the {@link SubmissionHookDaemon} and the {@link PostCommitWorker}.
+ * Does nothing if no {@link Configuration#getStateDirectory()} is configured. Each run is recorded in the outbox (see
+ * {@link UploadOutbox#isServedByDrainer()}), so that hooks without a drainer send the due results themselves.
+ * 
+ * @author Adam
+ */
+class OutboxDrainer implements Closeable {
+    
+    /**
+     * The time in milliseconds between two runs of the drainer.
+     */
+    static final long DRAIN_INTERVAL = 10 * 1000;
+    
+    private static final Logger LOGGER = Logger.getLogger(OutboxDrainer.class.getName());
+    
+    private ConfigurationSupplier configurationSupplier;
+    
+    private SubmitterFactory submitters;
+    
+    private ScheduledExecutorService scheduler;
+    
+    /**
+     * Creates a new drainer that uses the logins shared by all hooks in this process. Call {@link #start()} to start
+     * it.
+     * 
+     * @param configurationSupplier Supplies the current {@link Configuration}.
+     */
+    OutboxDrainer(ConfigurationSupplier configurationSupplier) {
+        this(configurationSupplier, SubmissionHook.LOGINS);
+    }
+    
+    /**
+     * Creates a new drainer. Call {@link #start()} to start it. Package visibility for test cases.
+     * 
+     * @param configurationSupplier Supplies the current {@link Configuration}.
+     * @param submitters Creates the submitters to send the results with.
+     */
+    OutboxDrainer(ConfigurationSupplier configurationSupplier, SubmitterFactory submitters) {
+        this.configurationSupplier = configurationSupplier;
+        this.submitters = submitters;
+    }
+    
+    /**
+     * Starts draining the outbox every {@link #DRAIN_INTERVAL} milliseconds in a background thread.
+     */
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL, DRAIN_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Sends all results in the outbox that are due. Failures are logged, so that the next run is not cancelled.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return The number of results that were sent.
+     */
+    int drain() {
+        int sent = 0;
+        // checkstyle: stop exception type check
+        try {
+            Configuration configuration = configurationSupplier.get();
+            File outboxDirectory = configuration.getOutboxDirectory();
+            if (outboxDirectory != null) {
+                UploadOutbox outbox = new UploadOutbox(outboxDirectory);
+                outbox.recordDrainer();
+                sent = outbox.drain(configuration, submitters);
+                if (sent > 0) {
+                    LOGGER.log(Level.INFO, "Sent {0} results from outbox", sent);
+                }
+            }
+            
+        } catch (IOException | ConfigurationException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to drain outbox", e);
+        }
+        // checkstyle: resume exception type check
+        return sent;
+    }
+    
+    /**
+     * Stops the background thread.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.File;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A post-commit hook execution for one {@link Submission} that is deferred to the {@link PostCommitWorker} via the
+ * {@link JobQueue}. Jobs for the same submission in the same repository have the same {@link #getKey()}; only the job
+ * for the newest revision of a submission needs to be processed. Instances are immutable.
+ * 
+ * @author Adam
+ */
+public class PostCommitJob {
+    
+    private File repository;
+    
+    private String revision;
+    
+    private Submission submission;
+    
+    /**
+     * Creates a new job.
+     * 
+     * @param repository The path of the SVN repository.
+     * @param revision The revision that was committed.
+     * @param submission The {@link Submission} that the revision modified.
+     */
+    public PostCommitJob(File repository, String revision, Submission submission) {
+        this.repository = repository.getAbsoluteFile();
+        this.revision = revision;
+        this.submission = submission;
+    }
+    
+    /**
+     * Returns an identifier for the submission of this job, which is the same for all revisions. It is safe to use as
+     * a file name and does not contain <code>@</code> or <code>~</code>.
+     * 
+     * @return The key of the submission.
+     */
+    public String getKey() {
+        // the exercise cannot contain a slash, so the encoded path is unique for each submission
+        return String.format("%08x", repository.getPath().hashCode()) + "-"
+                + URLEncoder.encode(submission.getExercise() + '/' + submission.getGroup(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Returns an identifier for this job that is unique for each repository, submission and revision. It is safe to
+     * use as a file name and consists of the {@link #getKey()}, an <code>@r</code> and the revision, padded so that
+     * identifiers of the same submission sort by revision.
+     * 
+     * @return The identifier.
+     */
+    public String getId() {
+        String paddedRevision = revision.matches("[0-9]+") ? String.format("%010d", Long.parseLong(revision))
+                : revision.replaceAll("[^A-Za-z0-9]", "_");
+        return getKey() + "@r" + paddedRevision;
+    }
+    
+    /**
+     * Returns the path of the SVN repository.
+     * 
+     * @return The absolute repository path.
+     */
+    public File getRepository() {
+        return repository;
+    }
+    
+    /**
+     * Returns the revision that was committed.
+     * 
+     * @return The revision.
+     */
+    public String getRevision() {
+        return revision;
+    }
+    
+    /**
+     * Returns the {@link Submission} that the revision modified.
+     * 
+     * @return The modified {@link Submission}.
+     */
+    public Submission getSubmission() {
+        return submission;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(repository, revision, submission);
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PostCommitJob)) {
+            return false;
+        }
+        PostCommitJob other = (PostCommitJob) obj;
+        return Objects.equals(repository, other.repository) && Objects.equals(revision, other.revision)
+                && Objects.equals(submission, other.submission);
+    }
+    
+    @Override
+    public String toString() {
+        return submission + " r" + revision + " in " + repository;
+    }
+    
+}
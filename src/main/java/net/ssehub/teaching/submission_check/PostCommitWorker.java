@@ -0,0 +1,320 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.ssehub.teaching.submission_check.svn.ISvnInterface;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+/**
+ * A long-running process that executes the post-commit {@link SubmissionHook}s that were put into the
+ * {@link JobQueue} (see {@link Configuration#getPostCommitQueue()}). This way, the SVN client does not have to wait
+ * for the checks and the upload to the Student Management System after a commit.
+ * <p>
+ * {@link Configuration#getQueueWorkerThreads()} threads each claim a job from the queue, run the hook for it and mark
+ * it as done. While a job is processed, its lease is renewed regularly. If a worker crashes, the lease of its job
+ * expires and the job is claimed again by the next worker that polls the queue. The results are only sent to the
+ * Student Management System if the lease is still held right before, so that a job that was taken over by another
+ * worker is not reported twice. When a newer revision of the same submission is queued, the lease is lost as well and
+ * the running checks are cancelled (see {@link JobQueue.Lease#isLost()}).
+ * 
+ * @author Adam
+ */
+public class PostCommitWorker implements Closeable {
+    
+    /**
+     * The time in milliseconds that a worker thread waits before polling the empty queue again.
+     */
+    static final long POLL_INTERVAL = 1000;
+    
+    private static final Logger LOGGER = Logger.getLogger(PostCommitWorker.class.getName());
+    
+    private File configurationFile;
+    
+    private Supplier<ISvnInterface> svnInterfaceFactory;
+    
+    private Configuration configuration;
+    
+    private long configurationTimestamp;
+    
+    private JobQueue queue;
+    
+    private Set<JobQueue.Lease> activeLeases;
+    
+    private ExecutorService executor;
+    
+    private ScheduledExecutorService heartbeat;
+    
+    private OutboxDrainer drainer;
+    
+    private volatile boolean running;
+    
+    /**
+     * Creates a new worker. Call {@link #start()} to start processing jobs.
+     * 
+     * @param configurationFile The {@link Configuration} file. Re-read when it is modified.
+     * @param svnInterfaceFactory Creates a new {@link ISvnInterface} for each job. If <code>null</code>, the
+     *      {@link ISvnInterface} configured in the {@link Configuration} is used.
+     */
+    public PostCommitWorker(File configurationFile, Supplier<ISvnInterface> svnInterfaceFactory) {
+        this.configurationFile = configurationFile;
+        this.svnInterfaceFactory = svnInterfaceFactory;
+        this.activeLeases = ConcurrentHashMap.newKeySet();
+    }
+    
+    /**
+     * Returns the {@link Configuration}. The configuration file is only parsed again if it has been modified since it
+     * was read last.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return The current {@link Configuration}.
+     * 
+     * @throws IOException If reading the configuration file fails.
+     */
+    synchronized Configuration getConfiguration() throws IOException {
+        long timestamp = configurationFile.lastModified();
+        if (configuration == null || timestamp != configurationTimestamp) {
+            LOGGER.log(Level.INFO, "(Re-)Reading configuration {0}", configurationFile);
+            configuration = new Configuration(configurationFile);
+            configurationTimestamp = timestamp;
+        }
+        return configuration;
+    }
+    
+    /**
+     * Opens the {@link JobQueue} and starts the worker threads. Also starts an {@link OutboxDrainer}.
+     * 
+     * @throws IOException If reading the configuration or creating the queue directories fails.
+     * @throws ConfigurationException If the queue settings are invalid.
+     */
+    public void start() throws IOException, ConfigurationException {
+        Configuration config = getConfiguration();
+        
+        long leaseTimeout = config.getQueueLeaseTimeout() * 1000L;
+        int threads = config.getQueueWorkerThreads();
+        
+        this.queue = new JobQueue(config.getQueueDirectory(), leaseTimeout);
+        this.running = true;
+        
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor();
+        long renewInterval = Math.max(1, leaseTimeout / 4);
+        heartbeat.scheduleWithFixedDelay(this::renewLeases, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+        
+        this.executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(this::processJobs);
+        }
+        
+        this.drainer = new OutboxDrainer(this::getConfiguration);
+        drainer.start();
+        
+        LOGGER.log(Level.INFO, "Worker processing {0} with {1} threads", new Object[] {
+            config.getQueueDirectory(), threads});
+    }
+    
+    /**
+     * Returns the {@link JobQueue} that this worker processes.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return The queue, or <code>null</code> if the worker is not started.
+     */
+    JobQueue getQueue() {
+        return queue;
+    }
+    
+    /**
+     * Processes jobs until this worker is closed. Waits {@link #POLL_INTERVAL} milliseconds whenever the queue is
+     * empty.
+     */
+    private void processJobs() {
+        while (running) {
+            boolean processed = false;
+            try {
+                processed = processNextJob();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to access job queue", e);
+                
+            // checkstyle: stop exception type check
+            } catch (Throwable e) {
+            // checkstyle: resume exception type check
+                // never let the loop end, otherwise this thread would not claim any further jobs
+                LOGGER.log(Level.SEVERE, "Unexpected error while processing jobs", e);
+            }
+            
+            if (!processed && running) {
+                try {
+                    Thread.sleep(POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Recovers expired leases, then claims and processes the next job.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return Whether a job was processed; <code>false</code> if the queue was empty.
+     * 
+     * @throws IOException If accessing the queue fails.
+     */
+    boolean processNextJob() throws IOException {
+        queue.recoverExpiredLeases();
+        
+        JobQueue.Lease lease = queue.poll();
+        if (lease != null) {
+            activeLeases.add(lease);
+            try {
+                process(lease);
+            } finally {
+                activeLeases.remove(lease);
+            }
+        }
+        return lease != null;
+    }
+    
+    /**
+     * Runs the post-commit {@link SubmissionHook} for the given job. Afterwards, the job is marked as done. If the hook
+     * reports an internal error (see {@link SubmissionHook#hadInternalError()}) or fails unexpectedly (including
+     * {@link Error}s like a {@link StackOverflowError}), the job is given back to the queue to be tried again.
+     * 
+     * @param lease The lease on the job to process.
+     * 
+     * @throws IOException If marking the job as done or giving it back fails.
+     */
+    private void process(JobQueue.Lease lease) throws IOException {
+        PostCommitJob job = lease.getJob();
+        LOGGER.log(Level.INFO, "Processing job {0}, attempt {1}", new Object[] {job.getId(), lease.getAttempt()});
+        
+        boolean success = false;
+        // checkstyle: stop exception type check
+        try {
+            SubmissionHook hook = new SubmissionHook(new String[] {
+                "POST", job.getRepository().getPath(), job.getRevision()},
+                svnInterfaceFactory != null ? svnInterfaceFactory.get() : null);
+            hook.setLease(lease);
+            
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            int exitCode;
+            try (PrintStream outputStream = new PrintStream(output, true, StandardCharsets.UTF_8)) {
+                exitCode = hook.execute(this::getConfiguration, outputStream);
+            }
+            LOGGER.log(Level.FINE, "Output of job {0}: {1}", new Object[] {
+                job.getId(), output.toString(StandardCharsets.UTF_8)});
+            
+            if (hook.hadInternalError()) {
+                LOGGER.log(Level.WARNING, "Job {0} failed with an internal error", job.getId());
+            } else {
+                LOGGER.log(Level.INFO, "Job {0} finished with exit code {1}", new Object[] {job.getId(), exitCode});
+                success = true;
+            }
+            
+        } catch (Throwable e) {
+            LOGGER.log(Level.SEVERE, "Processing job " + job.getId() + " failed", e);
+            
+        } finally {
+            if (success) {
+                if (!lease.complete()) {
+                    LOGGER.log(Level.INFO, "Job {0} was superseded or taken over before it was completed",
+                            job.getId());
+                }
+            } else {
+                lease.release();
+            }
+        }
+        // checkstyle: resume exception type check
+    }
+    
+    /**
+     * Renews the leases on all jobs that are currently processed. Called regularly by the heartbeat thread.
+     */
+    private void renewLeases() {
+        for (JobQueue.Lease lease : activeLeases) {
+            try {
+                if (!lease.renew()) {
+                    LOGGER.log(Level.WARNING, "Lease on job {0} lost", lease.getJob().getId());
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to renew lease on job " + lease.getJob().getId(), e);
+            }
+        }
+    }
+    
+    /**
+     * Stops claiming new jobs. Jobs that are currently processed are finished.
+     */
+    @Override
+    public void close() {
+        running = false;
+        
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        
+        if (drainer != null) {
+            drainer.close();
+        }
+    }
+    
+    /**
+     * Starts a worker that runs until the JVM shuts down.
+     * 
+     * @param configurationFile The {@link Configuration} file.
+     */
+    static void runWorker(File configurationFile) {
+        PostCommitWorker worker = new PostCommitWorker(configurationFile, null);
+        try {
+            LoggingSetup.setLevel(worker.getConfiguration().getLogLevel());
+            worker.start();
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(worker::close));
+            
+        } catch (IOException | ConfigurationException e) {
+            LOGGER.log(Level.SEVERE, "Could not start worker", e);
+            worker.close();
+            System.exit(1);
+        }
+    }
+    
+}
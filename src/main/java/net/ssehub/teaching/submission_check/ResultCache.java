@@ -0,0 +1,389 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.checks.Check;
+import net.ssehub.teaching.submission_check.checks.SubmissionIndex;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.HashUtils;
+
+/**
+ * Caches the results of the {@link Check}s for submissions, so that the {@link Check}s do not run again if an
+ * identical submission is committed again (e.g. if only a file of another submission is modified). The results are
+ * keyed by a hash of the content of the checked-out submission and a fingerprint of the exercise settings in the
+ * {@link Configuration} (including the content of the Checkstyle rules file). Each result is stored as a properties
+ * file in a directory; this can safely be used by multiple hook executions at the same time.
+ * 
+ * @author Adam
+ */
+public class ResultCache {
+    
+    private static final Logger LOGGER = Logger.getLogger(ResultCache.class.getName());
+    
+    /**
+     * The version of the stored results. Increment this to invalidate all previously stored results, e.g. if the
+     * {@link Check}s behave differently.
+     */
+    private static final String FORMAT_VERSION = "1";
+    
+    private File cacheDirectory;
+    
+    private AtomicInteger hits;
+    
+    private AtomicInteger misses;
+    
+    /**
+     * Creates a {@link ResultCache} that stores the results in the given directory.
+     * 
+     * @param cacheDirectory The directory to store the results in. Created if it does not exist.
+     * 
+     * @throws IOException If the directory cannot be created.
+     */
+    public ResultCache(File cacheDirectory) throws IOException {
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            throw new IOException("Could not create directory " + cacheDirectory);
+        }
+        this.cacheDirectory = cacheDirectory;
+        this.hits = new AtomicInteger();
+        this.misses = new AtomicInteger();
+    }
+    
+    /**
+     * Computes the key for the results of the given submission. Besides the submission and the effective settings,
+     * the key covers the version of the running Java platform (which provides the compiler) and the contents of the
+     * Checkstyle rules and the configured <code>javac.classpath</code> entries, as these change the results, too.
+     * 
+     * @param submission The submission that the {@link Check}s run on.
+     * @param phase The phase that the {@link Check}s run in.
+     * @param configuration The {@link Configuration} that the {@link Check}s are created with.
+     * @param submissionDirectory The directory that contains the complete checked-out submission.
+     * 
+     * @return A key for {@link #get(String, Submission, ResultCollector)} and
+     *      {@link #put(String, Submission, ResultCollector)}.
+     * 
+     * @throws IOException If reading the submission, the Checkstyle rules file or the classpath entries fails.
+     */
+    public String computeKey(Submission submission, Phase phase, Configuration configuration,
+            File submissionDirectory) throws IOException {
+        
+        return computeKey(submission, phase, configuration, new SubmissionIndex(submissionDirectory));
+    }
+    
+    /**
+     * Computes the key for the results of the given submission, like
+     * {@link #computeKey(Submission, Phase, Configuration, File)}. The files of the submission are taken from the
+     * given {@link SubmissionIndex}, so that the index can be shared with the {@link CheckRunner} and the submission
+     * directory is only walked once.
+     * 
+     * @param submission The submission that the {@link Check}s run on.
+     * @param phase The phase that the {@link Check}s run in.
+     * @param configuration The {@link Configuration} that the {@link Check}s are created with.
+     * @param submissionIndex The index of the directory that contains the complete checked-out submission.
+     * 
+     * @return A key for {@link #get(String, Submission, ResultCollector)} and
+     *      {@link #put(String, Submission, ResultCollector)}.
+     * 
+     * @throws IOException If reading the submission, the Checkstyle rules file or the classpath entries fails.
+     */
+    public String computeKey(Submission submission, Phase phase, Configuration configuration,
+            SubmissionIndex submissionIndex) throws IOException {
+        
+        MessageDigest digest = HashUtils.createDigest();
+        
+        update(digest, FORMAT_VERSION);
+        update(digest, phase.name());
+        update(digest, Runtime.version().toString());
+        
+        SortedMap<String, String> settings = configuration.getEffectiveSettings(submission);
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            update(digest, setting.getKey());
+            update(digest, setting.getValue());
+        }
+        
+        String rules = settings.get("checkstyle.rules");
+        if (rules != null && new File(rules).isFile()) {
+            updateWithContent(digest, new File(rules));
+        }
+        
+        String classpath = settings.get("javac.classpath");
+        if (classpath != null) {
+            for (String element : classpath.split(",")) {
+                File entry = new File(element.trim());
+                if (entry.isFile()) {
+                    updateWithContent(digest, entry);
+                } else if (entry.isDirectory()) {
+                    updateWithDirectory(digest, entry);
+                }
+            }
+        }
+        
+        updateWithFiles(digest, submissionIndex.getSubmissionDirectory(), submissionIndex.getFiles());
+        
+        return HashUtils.toHex(digest);
+    }
+    
+    /**
+     * Updates the digest with the given string. The string is terminated, so that consecutive strings cannot be
+     * confused with each other.
+     * 
+     * @param digest The digest to update.
+     * @param value The string to add. May be <code>null</code>.
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+    
+    /**
+     * Updates the digest with the length and content of the given file.
+     * 
+     * @param digest The digest to update.
+     * @param file The file to add.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    private static void updateWithContent(MessageDigest digest, File file) throws IOException {
+        update(digest, Long.toString(file.length()));
+        HashUtils.updateWithFile(digest, file);
+    }
+    
+    /**
+     * Updates the digest with the relative paths and contents of all files in the given directory.
+     * 
+     * @param digest The digest to update.
+     * @param directory The directory to add.
+     * 
+     * @throws IOException If reading the files fails.
+     */
+    private static void updateWithDirectory(MessageDigest digest, File directory) throws IOException {
+        updateWithFiles(digest, directory, FileUtils.findAllFiles(directory));
+    }
+    
+    /**
+     * Updates the digest with the relative paths and contents of the given files.
+     * 
+     * @param digest The digest to update.
+     * @param directory The directory that contains the files.
+     * @param allFiles All files in the directory.
+     * 
+     * @throws IOException If reading the files fails.
+     */
+    private static void updateWithFiles(MessageDigest digest, File directory, Collection<File> allFiles)
+            throws IOException {
+        // sort by the relative path, so that the key does not depend on the order of the file system
+        SortedMap<String, File> files = new TreeMap<>();
+        for (File file : allFiles) {
+            files.put(FileUtils.getRelativeFile(directory, file).getPath().replace(File.separatorChar, '/'), file);
+        }
+        for (Map.Entry<String, File> file : files.entrySet()) {
+            update(digest, file.getKey());
+            updateWithContent(digest, file.getValue());
+        }
+    }
+    
+    /**
+     * Looks up the stored results for the given key and adds them to the given {@link ResultCollector}.
+     * 
+     * @param key The key as computed by {@link #computeKey(Submission, Phase, Configuration, File)}.
+     * @param submission The submission to add the messages for.
+     * @param results The {@link ResultCollector} to add the stored results to.
+     * 
+     * @return Whether results were stored for this key. If <code>false</code>, nothing was added to the
+     *      {@link ResultCollector} and the {@link Check}s have to run.
+     */
+    public boolean get(String key, Submission submission, ResultCollector results) {
+        boolean found = false;
+        
+        File entry = new File(cacheDirectory, key + ".properties");
+        if (entry.isFile()) {
+            try {
+                Properties properties = new Properties();
+                try (InputStream input = FileUtils.newInputStream(entry)) {
+                    properties.load(input);
+                }
+                
+                ResultCollector stored = new ResultCollector();
+                stored.addCheckResult(Boolean.parseBoolean(getRequiredProperty(properties, "success")));
+                int numMessages = Integer.parseInt(getRequiredProperty(properties, "messages"));
+                for (int i = 0; i < numMessages; i++) {
+                    stored.addMessage(readMessage(properties, "message." + i + "."), submission);
+                }
+                
+                results.addAll(stored);
+                found = true;
+                
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Ignoring invalid cached result " + entry, e);
+            }
+        }
+        
+        if (found) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Stores the results of the {@link Check}s of a single submission.
+     * 
+     * @param key The key as computed by {@link #computeKey(Submission, Phase, Configuration, File)}.
+     * @param submission The submission that the {@link Check}s ran on.
+     * @param results The {@link ResultCollector} that contains only the results of the {@link Check}s for this
+     *      submission.
+     */
+    public void put(String key, Submission submission, ResultCollector results) {
+        Properties properties = new Properties();
+        properties.setProperty("success", Boolean.toString(results.getAllSuccessful()));
+        
+        int numMessages = 0;
+        for (ResultMessage message : results.getMessageForSubmission(submission)) {
+            writeMessage(properties, "message." + numMessages + ".", message);
+            numMessages++;
+        }
+        properties.setProperty("messages", Integer.toString(numMessages));
+        
+        try {
+            // write to a temporary file first, so that concurrent readers never see a partially written result
+            File temporary = File.createTempFile(key, ".tmp", cacheDirectory);
+            try (OutputStream output = Files.newOutputStream(temporary.toPath())) {
+                properties.store(output, null);
+            }
+            Files.move(temporary.toPath(), new File(cacheDirectory, key + ".properties").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not store result for " + submission, e);
+        }
+    }
+    
+    /**
+     * Writes a {@link ResultMessage} to the given properties.
+     * <p>
+     * Package visibility for the {@link UploadOutbox}.
+     * 
+     * @param properties The properties to write to.
+     * @param prefix The prefix of the keys for this message.
+     * @param message The message to write.
+     */
+    static void writeMessage(Properties properties, String prefix, ResultMessage message) {
+        properties.setProperty(prefix + "check", message.getCheckName());
+        properties.setProperty(prefix + "type", message.getType().name());
+        properties.setProperty(prefix + "message", message.getMessage());
+        if (message.getFile() != null) {
+            properties.setProperty(prefix + "file", message.getFile().getPath());
+        }
+        if (message.getLine() != null) {
+            properties.setProperty(prefix + "line", message.getLine().toString());
+        }
+        if (message.getColumn() != null) {
+            properties.setProperty(prefix + "column", message.getColumn().toString());
+        }
+    }
+    
+    /**
+     * Reads a {@link ResultMessage} that was written by {@link #writeMessage(Properties, String, ResultMessage)}.
+     * <p>
+     * Package visibility for the {@link UploadOutbox}.
+     * 
+     * @param properties The properties to read from.
+     * @param prefix The prefix of the keys for this message.
+     * 
+     * @return The message.
+     * 
+     * @throws IllegalArgumentException If the stored message is invalid.
+     */
+    static ResultMessage readMessage(Properties properties, String prefix) throws IllegalArgumentException {
+        ResultMessage message = new ResultMessage(getRequiredProperty(properties, prefix + "check"),
+                MessageType.valueOf(getRequiredProperty(properties, prefix + "type")),
+                getRequiredProperty(properties, prefix + "message"));
+        
+        String file = properties.getProperty(prefix + "file");
+        if (file != null) {
+            message.setFile(new File(file));
+        }
+        String line = properties.getProperty(prefix + "line");
+        if (line != null) {
+            message.setLine(Integer.parseInt(line));
+        }
+        String column = properties.getProperty(prefix + "column");
+        if (column != null) {
+            message.setColumn(Integer.parseInt(column));
+        }
+        
+        return message;
+    }
+    
+    /**
+     * Reads a property that must be present in a stored result.
+     * 
+     * @param properties The properties to read from.
+     * @param key The key of the property.
+     * 
+     * @return The value of the property.
+     * 
+     * @throws IllegalArgumentException If the property is missing.
+     */
+    private static String getRequiredProperty(Properties properties, String key) throws IllegalArgumentException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return value;
+    }
+    
+    /**
+     * Returns the number of lookups that found stored results.
+     * 
+     * @return The number of cache hits.
+     */
+    public int getHits() {
+        return hits.get();
+    }
+    
+    /**
+     * Returns the number of lookups that did not find stored results.
+     * 
+     * @return The number of cache misses.
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+    
+}
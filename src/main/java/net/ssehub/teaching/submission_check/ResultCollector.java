@@ -15,6 +15,7 @@
  */
 package net.ssehub.teaching.submission_check;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -25,7 +26,8 @@ import net.ssehub.teaching.submission_check.checks.Check;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
 
 /**
- * Collects all {@link ResultMessage}s and status of {@link Check}s during an execution.
+ * Collects all {@link ResultMessage}s, {@link CheckTiming}s and status of {@link Check}s during an execution. This
+ * class is thread-safe.
  * 
  * @author Adam
  */
@@ -37,6 +39,8 @@ public class ResultCollector {
     
     private boolean overallSuccess;
     
+    private List<CheckTiming> timings;
+    
     /**
      * Creates a new {@link ResultMessage} with no messages yet.
      */
@@ -44,6 +48,7 @@ public class ResultCollector {
         this.allMessages = new LinkedList<>();
         this.messagesBySubmission = new HashMap<>();
         this.overallSuccess = true;
+        this.timings = new LinkedList<>();
     }
     
     /**
@@ -52,7 +57,7 @@ public class ResultCollector {
      * 
      * @param message A {@link ResultMessage}.
      */
-    public void addMessage(ResultMessage message) {
+    public synchronized void addMessage(ResultMessage message) {
         this.allMessages.add(message);
     }
     
@@ -62,7 +67,7 @@ public class ResultCollector {
      * @param message A {@link ResultMessage}.
      * @param submission The {@link Submission} that the {@link ResultMessage} is created for.
      */
-    public void addMessage(ResultMessage message, Submission submission) {
+    public synchronized void addMessage(ResultMessage message, Submission submission) {
         this.allMessages.add(message);
         
         List<ResultMessage> submissionMessages = messagesBySubmission.get(submission);
@@ -78,40 +83,91 @@ public class ResultCollector {
      * 
      * @param success Whether the check execution was successful.
      */
-    public void addCheckResult(boolean success) {
+    public synchronized void addCheckResult(boolean success) {
         this.overallSuccess &= success;
     }
     
+    /**
+     * Adds the resources used by a single {@link Check} execution.
+     * 
+     * @param timing The {@link CheckTiming} of the execution.
+     */
+    public synchronized void addTiming(CheckTiming timing) {
+        this.timings.add(timing);
+    }
+    
+    /**
+     * Adds all messages, timings and check results of the given other {@link ResultCollector} to this one. The
+     * messages are appended in the order they were added to the other {@link ResultCollector}.
+     * 
+     * @param other The {@link ResultCollector} to add the results of.
+     */
+    public void addAll(ResultCollector other) {
+        List<ResultMessage> otherMessages;
+        Map<Submission, List<ResultMessage>> otherMessagesBySubmission;
+        boolean otherSuccess;
+        List<CheckTiming> otherTimings;
+        synchronized (other) {
+            otherMessages = new LinkedList<>(other.allMessages);
+            otherMessagesBySubmission = new HashMap<>();
+            for (Map.Entry<Submission, List<ResultMessage>> entry : other.messagesBySubmission.entrySet()) {
+                otherMessagesBySubmission.put(entry.getKey(), new LinkedList<>(entry.getValue()));
+            }
+            otherSuccess = other.overallSuccess;
+            otherTimings = new LinkedList<>(other.timings);
+        }
+        
+        synchronized (this) {
+            this.allMessages.addAll(otherMessages);
+            for (Map.Entry<Submission, List<ResultMessage>> entry : otherMessagesBySubmission.entrySet()) {
+                this.messagesBySubmission.computeIfAbsent(entry.getKey(), (submission) -> new LinkedList<>())
+                        .addAll(entry.getValue());
+            }
+            this.overallSuccess &= otherSuccess;
+            this.timings.addAll(otherTimings);
+        }
+    }
+    
     /**
      * Returns all messages for a given {@link Submission} that were previously added.
      * 
      * @param submission The {@link Submission} to get all messages for.
      * 
-     * @return An unmodifiable view on the messages for a given {@link Submission}.
+     * @return An unmodifiable copy of the messages for a given {@link Submission}.
      *      May be empty, but never <code>null</code>. 
      *      
      * @see #addMessage(ResultMessage, Submission)
      */
-    public List<ResultMessage> getMessageForSubmission(Submission submission) {
+    public synchronized List<ResultMessage> getMessageForSubmission(Submission submission) {
         List<ResultMessage> submissionMessages = messagesBySubmission.get(submission);
         if (submissionMessages == null) {
             submissionMessages = Collections.emptyList();
         }
-        return Collections.unmodifiableList(submissionMessages);
+        return Collections.unmodifiableList(new ArrayList<>(submissionMessages));
     }
     
     /**
      * Returns all previously added messages.
      * 
-     * @return An unmodifiable view on the previously added messages.
+     * @return An unmodifiable copy of the previously added messages.
      * 
      * @see #addMessage(ResultMessage)
      * @see #addMessage(ResultMessage, Submission)
      */
-    public List<ResultMessage> getAllMessages() {
-        return Collections.unmodifiableList(allMessages);
+    public synchronized List<ResultMessage> getAllMessages() {
+        return Collections.unmodifiableList(new ArrayList<>(allMessages));
     }
     
+    /**
+     * Returns all previously added timings.
+     * 
+     * @return An unmodifiable copy of the previously added {@link CheckTiming}s.
+     * 
+     * @see #addTiming(CheckTiming)
+     */
+    public synchronized List<CheckTiming> getTimings() {
+        return Collections.unmodifiableList(new ArrayList<>(timings));
+    }
     
     /**
      * Returns whether all previous check results are successful.
@@ -120,7 +176,7 @@ public class ResultCollector {
      * 
      * @see #addCheckResult(boolean)
      */
-    public boolean getAllSuccessful() {
+    public synchronized boolean getAllSuccessful() {
         return overallSuccess;
     }
     
@@ -140,7 +196,7 @@ public class ResultCollector {
      * 
      * @see System#exit(int)
      */
-    public int getExitCode(Phase phase) {
+    public synchronized int getExitCode(Phase phase) {
         int exitCode;
         
         switch (phase) {
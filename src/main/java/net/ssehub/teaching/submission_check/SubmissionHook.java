@@ -17,23 +17,44 @@ package net.ssehub.teaching.submission_check;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
 import net.ssehub.teaching.submission_check.checks.Check;
+import net.ssehub.teaching.submission_check.checks.IStreamingCheck;
+import net.ssehub.teaching.submission_check.checks.SourceFileCache;
+import net.ssehub.teaching.submission_check.checks.SubmissionIndex;
 import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
 import net.ssehub.teaching.submission_check.output.XmlOutputFormatter;
-import net.ssehub.teaching.submission_check.svn.CliSvnInterface;
+import net.ssehub.teaching.submission_check.svn.ICheckoutListener;
 import net.ssehub.teaching.submission_check.svn.ISvnInterface;
 import net.ssehub.teaching.submission_check.svn.SvnException;
+import net.ssehub.teaching.submission_check.svn.SvnTimeoutException;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.Deadline;
 import net.ssehub.teaching.submission_check.utils.FileUtils;
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+import net.ssehub.teaching.submission_check.utils.ResourceMeter;
 
 /**
  * The main class of this hook. This is called by the SVN hook mechanism. Talks to the {@link ISvnInterface} for the
@@ -44,8 +65,20 @@ import net.ssehub.teaching.submission_check.utils.LoggingSetup;
  */
 public class SubmissionHook {
     
+    /**
+     * The logins to the Student Management System, shared by all hooks that run in this process. Package visibility
+     * for the {@link OutboxDrainer}.
+     */
+    static final LoginCache LOGINS = new LoginCache(StudentManagementSubmitter::new);
+    
+    /**
+     * The message reported when an SVN operation was aborted because the commit exceeded its
+     * {@link Configuration#getCommitTimeout()}. Package visibility for test cases.
+     */
+    static final String TIMEOUT_MESSAGE = "The submission could not be checked within the time limit";
+    
     private static final Logger LOGGER = Logger.getLogger(SubmissionHook.class.getName());
-
+    
     private Phase phase;
     
     private File repositoryPath;
@@ -60,10 +93,60 @@ public class SubmissionHook {
     
     private Set<Submission> modifiedSubmissions;
     
-    private CheckRunner checkRunner;
-    
     private ResultCollector resultCollector;
     
+    private ResultCache resultCache;
+    
+    private Deadline deadline;
+    
+    private JobQueue.Lease lease;
+    
+    private boolean internalError;
+    
+    private SubmitterFactory submitterFactory = LOGINS;
+    
+    /**
+     * Creates the {@link StudentManagementSubmitter}s that send the results to the Student Management System. Creating
+     * a submitter logs in to the system. A submitter is only used by one thread, from its creation until it is
+     * released.
+     * <p>
+     * Package visibility for test cases.
+     */
+    interface SubmitterFactory {
+        
+        /**
+         * Creates a {@link StudentManagementSubmitter} for the given configuration.
+         * 
+         * @param config The connection settings of the Student Management System.
+         * 
+         * @return The submitter, already logged in.
+         * 
+         * @throws NetworkException If the system cannot be reached or the login fails.
+         */
+        StudentManagementSubmitter create(StudentManagementConfig config) throws NetworkException;
+        
+        /**
+         * Notifies this factory that the caller is done with the given submitter. Factories that re-use submitters
+         * may return it to another caller afterwards. By default, this does nothing.
+         * 
+         * @param config The configuration that the submitter was created for.
+         * @param submitter The submitter that is no longer used.
+         */
+        default void release(StudentManagementConfig config, StudentManagementSubmitter submitter) {
+        }
+        
+        /**
+         * Notifies this factory that the server rejected a request of the given submitter, e.g. because its login
+         * expired. Factories that re-use submitters must not return it again. By default, this does nothing.
+         * 
+         * @param config The configuration that the submitter was created for.
+         * @param submitter The rejected submitter.
+         */
+        default void invalidate(StudentManagementConfig config, StudentManagementSubmitter submitter) {
+        }
+        
+    }
+    
     /**
      * Creates a new {@link SubmissionHook} instance.
      * 
@@ -73,7 +156,9 @@ public class SubmissionHook {
      *          <li>[1]: The path of the SVN repository</li>
      *          <li>[2]: The transaction identifier (revision number if phase is "POST"</li>
      *      </ul>
-     * @param svnInterface The {@link ISvnInterface} that should be used for SVN operations.
+     * @param svnInterface The {@link ISvnInterface} that should be used for SVN operations. If <code>null</code>, the
+     *      {@link ISvnInterface} is created as configured in the {@link Configuration}
+     *      (see {@link Configuration#createSvnInterface()}).
      */
     public SubmissionHook(String[] args, ISvnInterface svnInterface)
             throws IllegalArgumentException {
@@ -105,10 +190,20 @@ public class SubmissionHook {
         this.transactionId = args[2];
         
         this.resultCollector = new ResultCollector();
-        this.checkRunner = new CheckRunner(resultCollector);
         this.svnInterface = svnInterface;
+        this.deadline = Deadline.NONE;
     }
 
+    /**
+     * Creates a new {@link SubmissionHook} instance that uses the {@link ISvnInterface} that is configured in the
+     * {@link Configuration}.
+     * 
+     * @param args Command line arguments. See {@link #SubmissionHook(String[], ISvnInterface)}.
+     */
+    public SubmissionHook(String[] args) throws IllegalArgumentException {
+        this(args, null);
+    }
+    
     /**
      * Returns the phase of this hook.
      * <p>
@@ -154,7 +249,43 @@ public class SubmissionHook {
     }
     
     /**
-     * Retrieves the metadata about the transaction and modified submissions from SVN.
+     * Returns the {@link ResultCache} used by this hook. Created in {@link #runChecksOnAllModifiedSubmissions()}.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return The {@link ResultCache}, or <code>null</code> if no state directory is configured.
+     */
+    ResultCache getResultCache() {
+        return resultCache;
+    }
+    
+    /**
+     * Sets the {@link JobQueue.Lease} on the queued job that this hook processes. The modified submission is then
+     * taken from the job, and the results are only sent to the Student Management System if the lease is still held.
+     * The checks are cancelled as soon as the lease is lost, e.g. because a newer revision of the submission was
+     * committed.
+     * <p>
+     * Package visibility for the {@link PostCommitWorker}.
+     * 
+     * @param lease The lease on the job for this hook's revision.
+     */
+    void setLease(JobQueue.Lease lease) {
+        this.lease = lease;
+    }
+    
+    /**
+     * Sets the factory that creates the {@link StudentManagementSubmitter}s in
+     * {@link #notifyStudentManagementSystem()}. Package visibility for test cases.
+     * 
+     * @param submitterFactory The factory to use instead of logging in to the real Student Management System.
+     */
+    void setSubmitterFactory(SubmitterFactory submitterFactory) {
+        this.submitterFactory = submitterFactory;
+    }
+    
+    /**
+     * Retrieves the metadata about the transaction and modified submissions from SVN. If this hook processes a queued
+     * job (see {@link #setLease(JobQueue.Lease)}), the modified submission is taken from the job instead.
      * <p>
      * Package visibility for test cases.
      * 
@@ -162,7 +293,11 @@ public class SubmissionHook {
      */
     void queryMetadataFromSvn() throws SvnException {
         this.transactionInfo = svnInterface.createTransactionInfo(phase, repositoryPath, transactionId);
-        this.modifiedSubmissions = svnInterface.getModifiedSubmissions(transactionInfo);
+        if (lease != null) {
+            this.modifiedSubmissions = Collections.singleton(lease.getJob().getSubmission());
+        } else {
+            this.modifiedSubmissions = svnInterface.getModifiedSubmissions(transactionInfo);
+        }
     }
     
     /**
@@ -215,7 +350,13 @@ public class SubmissionHook {
     
     /**
      * Runs the {@link Check}s on all submissions that are modified by this transaction (as queried by
-     * {@link #queryMetadataFromSvn()}).
+     * {@link #queryMetadataFromSvn()}). Up to {@link Configuration#getParallelSubmissions()} submissions are checked
+     * in parallel; the results are added to the {@link ResultCollector} in the iteration order of the modified
+     * submissions, regardless of which submission finishes first. If submissions are checked one after another, the
+     * next submission is already checked out while the checks of the current one run.
+     * <p>
+     * If a {@link Configuration#getStateDirectory()} is configured, the results are looked up in a {@link ResultCache}
+     * first, and the {@link Check}s only run for submissions that have not been checked in the same version before.
      * <p>
      * Package visibility for test cases.
      * 
@@ -226,60 +367,633 @@ public class SubmissionHook {
      * @see #getModifiedSubmissions()
      */
     void runChecksOnAllModifiedSubmissions() throws IOException, SvnException, ConfigurationException {
-        for (Submission submission : modifiedSubmissions) {
-            runChecksOnSubmission(submission);
+        File stateDirectory = configuration.getStateDirectory();
+        if (stateDirectory != null) {
+            this.resultCache = new ResultCache(new File(stateDirectory, "results"));
+        }
+        
+        int parallelism = Math.min(configuration.getParallelSubmissions(), modifiedSubmissions.size());
+        
+        if (parallelism <= 1) {
+            runChecksPipelined();
+            
+        } else {
+            LOGGER.log(Level.FINE, "Checking {0} submissions with {1} threads", new Object[] {
+                modifiedSubmissions.size(), parallelism});
+            
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<ResultCollector>> results = new LinkedList<>();
+                for (Submission submission : modifiedSubmissions) {
+                    results.add(executor.submit(() -> runChecks(checkoutSubmission(submission))));
+                }
+                
+                for (Future<ResultCollector> result : results) {
+                    resultCollector.addAll(waitForResult(result));
+                }
+                
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        
+        if (resultCache != null) {
+            LOGGER.log(Level.INFO, "Result cache: {0} hits, {1} misses", new Object[] {
+                resultCache.getHits(), resultCache.getMisses()});
         }
     }
     
     /**
-     * Runs the {@link Check}s on the given submission affected by this transaction.
+     * Runs the {@link Check}s on all modified submissions one after another. While the checks of one submission run,
+     * the next submission is checked out in a separate thread.
+     * 
+     * @throws IOException If creating a temporary checkout fails. 
+     * @throws SvnException If checking out the submission fails.
+     * @throws ConfigurationException If the {@link Check}s for any submission are not correctly configured.
+     */
+    private void runChecksPipelined() throws IOException, SvnException, ConfigurationException {
+        Iterator<Submission> submissions = modifiedSubmissions.iterator();
+        
+        ExecutorService checkoutExecutor = Executors.newSingleThreadExecutor();
+        Future<Checkout> next = null;
+        try {
+            Checkout current = null;
+            if (submissions.hasNext()) {
+                current = checkoutSubmission(submissions.next());
+            }
+            
+            while (current != null) {
+                if (submissions.hasNext()) {
+                    Submission nextSubmission = submissions.next();
+                    next = checkoutExecutor.submit(() -> checkoutSubmission(nextSubmission));
+                }
+                
+                resultCollector.addAll(runChecks(current));
+                
+                current = null;
+                if (next != null) {
+                    current = waitForResult(next);
+                    next = null;
+                }
+            }
+            
+        } finally {
+            checkoutExecutor.shutdown();
+            if (next != null) {
+                // an exception occurred while the next submission was checked out; clean up its checkout
+                try {
+                    FileUtils.deleteTemporaryDirectory(waitForResult(next).directory);
+                } catch (IOException | SvnException | ConfigurationException e) {
+                    LOGGER.log(Level.FINE, "Discarding failed checkout", e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Waits for the result of a {@link Future} and re-throws the exceptions that the checkout or the {@link Check}s
+     * may throw.
+     * 
+     * @param <T> The type of the result.
+     * 
+     * @param result The result of the parallel execution.
+     * 
+     * @return The result of the execution.
+     * 
+     * @throws IOException If creating the temporary checkout failed.
+     * @throws SvnException If checking out the submission failed.
+     * @throws ConfigurationException If the {@link Check}s are not correctly configured.
+     */
+    private static <T> T waitForResult(Future<T> result)
+            throws IOException, SvnException, ConfigurationException {
+        
+        try {
+            return result.get();
+            
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SvnException) {
+                throw (SvnException) cause;
+            } else if (cause instanceof ConfigurationException) {
+                throw (ConfigurationException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for checks", e);
+        }
+    }
+    
+    /**
+     * A submission that has been checked out into a temporary directory, together with the {@link CheckRunner} that
+     * already got the files of the checkout passed (see {@link CheckRunner#checkFile(SourceFileCache, File, String)}).
+     * File content that the {@link ISvnInterface} passes from memory is put into the {@link SourceFileCache}, so that
+     * the checks do not read these files from disk.
+     */
+    private static class Checkout implements ICheckoutListener {
+        
+        private Submission submission;
+        
+        private ResultCollector results;
+        
+        private CheckRunner checkRunner;
+        
+        private File directory;
+        
+        private SourceFileCache sourceFileCache;
+        
+        private boolean complete;
+        
+        @Override
+        public boolean fileCheckedOut(File file) {
+            return fileCheckedOut(file, null, null);
+        }
+        
+        @Override
+        public boolean fileCheckedOut(File file, String mimeType) {
+            return fileCheckedOut(file, mimeType, null);
+        }
+        
+        @Override
+        public boolean fileCheckedOut(File file, String mimeType, byte[] content) {
+            if (content != null) {
+                sourceFileCache.putBytes(file, content);
+            }
+            return checkRunner.checkFile(sourceFileCache, file, mimeType);
+        }
+        
+    }
+    
+    /**
+     * Checks out the given submission into a new temporary directory. The {@link Check}s for the submission are
+     * created first, so that {@link IStreamingCheck}s can check the files while they are written. The checkout is
+     * aborted as soon as one of these fails. The resources used by the checkout are recorded as a {@link CheckTiming}
+     * named <code>checkout</code>.
      * 
      * @param submission The {@link Submission} folder.
      * 
+     * @return The {@link Checkout}; pass this to {@link #runChecks(Checkout)}.
+     * 
      * @throws IOException If creating the temporary checkout fails.
      * @throws SvnException If checking out the submission fails.
      * @throws ConfigurationException If the {@link Check}s are not correctly configured.
      */
-    private void runChecksOnSubmission(Submission submission) throws IOException, SvnException, ConfigurationException {
-        LOGGER.log(Level.FINE, "Checking submission {0}", submission);
+    private Checkout checkoutSubmission(Submission submission)
+            throws IOException, SvnException, ConfigurationException {
         
-        File checkoutDirecotry = FileUtils.createTemporaryDirectory();
-        svnInterface.checkoutSubmission(transactionInfo, submission, checkoutDirecotry);
+        LOGGER.log(Level.FINE, "Checking out submission {0}", submission);
         
-        checkRunner.clearChecks();
+        Checkout checkout = new Checkout();
+        checkout.submission = submission;
+        checkout.results = new ResultCollector();
+        checkout.checkRunner = new CheckRunner(checkout.results);
+        checkout.checkRunner.setDeadline(deadline);
         for (Check check : configuration.createChecks(submission, phase)) {
-            checkRunner.addCheck(check);
+            checkout.checkRunner.addCheck(check);
+        }
+        
+        checkout.directory = FileUtils.createTemporaryDirectory();
+        checkout.sourceFileCache = new SourceFileCache(checkout.directory);
+        boolean success = false;
+        try {
+            ResourceMeter meter = new ResourceMeter();
+            checkout.complete = svnInterface.checkoutSubmission(transactionInfo, submission, checkout.directory,
+                    checkout);
+            checkout.results.addTiming(new CheckTiming("checkout", submission, meter.getWallTime(),
+                    meter.getCpuTime(), meter.getAllocatedBytes(), -1));
+            
+            if (!checkout.complete) {
+                LOGGER.log(Level.INFO, "Checkout of {0} aborted since a check already failed", submission);
+            }
+            success = true;
+            
+        } finally {
+            if (!success) {
+                FileUtils.deleteTemporaryDirectory(checkout.directory);
+            }
         }
-        boolean success = checkRunner.run(submission, checkoutDirecotry);
         
-        LOGGER.log(Level.INFO, "Check result for {0}: {1}", new Object[] {
-            submission, success ? "successful" : "unsuccessful"});
+        return checkout;
+    }
+    
+    /**
+     * Runs the {@link Check}s on the given checked out submission affected by this transaction. If the submission is
+     * completely checked out and its results are stored in the {@link ResultCache}, these are used instead. Deletes
+     * the checkout afterwards.
+     * 
+     * @param checkout The {@link Checkout} created by {@link #checkoutSubmission(Submission)}.
+     * 
+     * @return The {@link ResultCollector} with the results for this submission.
+     * 
+     * @throws IOException If reading the checkout to compute the {@link ResultCache} key fails.
+     */
+    private ResultCollector runChecks(Checkout checkout) throws IOException {
+        LOGGER.log(Level.FINE, "Checking submission {0}", checkout.submission);
+        
+        try {
+            // walk the checkout only once, for both the cache key and the checks
+            SubmissionIndex index = checkout.sourceFileCache.getSubmissionIndex();
+            
+            String cacheKey = null;
+            if (resultCache != null && checkout.complete) {
+                cacheKey = resultCache.computeKey(checkout.submission, phase, configuration, index);
+            }
+            
+            if (cacheKey != null && resultCache.get(cacheKey, checkout.submission, checkout.results)) {
+                LOGGER.log(Level.INFO, "Using cached result for {0}", checkout.submission);
+                
+            } else {
+                boolean success = checkout.checkRunner.run(checkout.submission, checkout.sourceFileCache);
+                
+                LOGGER.log(Level.INFO, "Check result for {0}: {1}", new Object[] {
+                    checkout.submission, success ? "successful" : "unsuccessful"});
+                
+                // results of aborted or cancelled runs depend on timing, so they are not cached
+                if (cacheKey != null && !deadline.isExpired() && checkout.checkRunner.isComplete()) {
+                    resultCache.put(cacheKey, checkout.submission, checkout.results);
+                }
+            }
+            
+        } finally {
+            // delete right away instead of on shutdown, since the process may be a long-running daemon
+            FileUtils.deleteTemporaryDirectory(checkout.directory);
+        }
+        
+        return checkout.results;
     }
     
     /**
      * Notifies the Student Management System about the results of this commit hook.
      * <p>
+     * Submissions with the same connection settings share one {@link StudentManagementSubmitter}, so that the hook
+     * logs in only once for them. The results are then sent in parallel (see
+     * {@link Configuration#getUploadParallelism()}). A failure to send the result of one submission does not affect
+     * the others. The hook waits at most {@link Configuration#getUploadTimeout()} seconds for the uploads; results
+     * that could not be sent in this time are stored in the {@link UploadOutbox} and sent later. The uploads go through
+     * {@link UploadOutbox#sendIfNewest(PostCommitJob, UploadOutbox.Upload)}, so that they never overwrite the result of
+     * a newer revision.
+     * <p>
+     * If no {@link OutboxDrainer} serves the outbox (i.e. neither the {@link SubmissionHookDaemon} nor the
+     * {@link PostCommitWorker} runs), the hook also sends the due results of the outbox within the rest of the upload
+     * timeout, so that they are not stuck.
+     * <p>
      * Package visibility for test cases.
      * 
      * @see StudentManagementSubmitter
      */
     void notifyStudentManagementSystem() {
-        if (phase == Phase.POST_COMMIT) {
+        if (phase == Phase.POST_COMMIT && !leaseLost()) {
+            Map<StudentManagementConfig, List<Submission>> submissionsByConfig = new LinkedHashMap<>();
             for (Submission submission : modifiedSubmissions) {
                 try {
-                    StudentManagementSubmitter submitter = new StudentManagementSubmitter(
-                            configuration.getStudentManagementSystemConfiguration(submission));
-                    
-                    submitter.submit(submission, resultCollector.getMessageForSubmission(submission));
-                    
-                } catch (NetworkException e) {
-                    LOGGER.log(Level.SEVERE, "Failed to send result to Student Management System", e);
+                    StudentManagementConfig config = configuration.getStudentManagementSystemConfiguration(submission);
+                    submissionsByConfig.computeIfAbsent(config, (key) -> new LinkedList<>()).add(submission);
                     
                 } catch (ConfigurationException e) {
                     LOGGER.log(Level.WARNING, "Student Management System connection not configured properly", e);
                 }
             }
+            
+            try {
+                UploadOutbox outbox = openOutbox();
+                Deadline uploadDeadline = Deadline.after(configuration.getUploadTimeout() * 1000L);
+                
+                Set<Submission> sent = runUploads(submissionsByConfig, outbox, configuration.getUploadParallelism(),
+                        uploadDeadline);
+                
+                updateOutbox(outbox, submissionsByConfig, sent);
+                
+                if (outbox != null && !outbox.isServedByDrainer()) {
+                    drainOutbox(outbox, uploadDeadline);
+                }
+                
+            } catch (ConfigurationException e) {
+                LOGGER.log(Level.WARNING, "Student Management System connection not configured properly", e);
+            }
+        }
+    }
+    
+    /**
+     * Opens the {@link UploadOutbox} in the configured {@link Configuration#getOutboxDirectory()}.
+     * 
+     * @return The {@link UploadOutbox}, or <code>null</code> if there is none or it cannot be opened.
+     * 
+     * @throws ConfigurationException If the outbox directory is not correctly configured.
+     */
+    private UploadOutbox openOutbox() throws ConfigurationException {
+        UploadOutbox outbox = null;
+        File outboxDirectory = configuration.getOutboxDirectory();
+        if (outboxDirectory != null) {
+            try {
+                outbox = new UploadOutbox(outboxDirectory);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Could not open outbox " + outboxDirectory, e);
+            }
+        }
+        return outbox;
+    }
+    
+    /**
+     * Sends the results of the given submissions to the Student Management System. Each upload uses its own
+     * submitter from the {@link SubmitterFactory}, since a submitter must not be used by multiple threads at the same
+     * time. The {@link LoginCache} re-uses idle logins, so a hook logs in at most once per upload thread and
+     * configuration, and not at all if earlier hooks in the same process left enough logins.
+     * 
+     * @param submissionsByConfig The submissions to send the results of, grouped by their connection settings.
+     * @param outbox The {@link UploadOutbox} that records the newest sent revisions. <code>null</code> if there is
+     *      none.
+     * @param parallelism The maximum number of threads to use.
+     * @param deadline The deadline until which to wait for the uploads.
+     * 
+     * @return The submissions whose results were sent, or are outdated because a newer result was sent.
+     */
+    private Set<Submission> runUploads(Map<StudentManagementConfig, List<Submission>> submissionsByConfig,
+            UploadOutbox outbox, int parallelism, Deadline deadline) {
+        
+        int numSubmissions = 0;
+        for (List<Submission> submissions : submissionsByConfig.values()) {
+            numSubmissions += submissions.size();
+        }
+        
+        Set<Submission> sent = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, numSubmissions)),
+                SubmissionHook::createUploadThread);
+        try {
+            Map<Submission, Future<Boolean>> uploads = new LinkedHashMap<>();
+            for (Map.Entry<StudentManagementConfig, List<Submission>> entry : submissionsByConfig.entrySet()) {
+                StudentManagementConfig config = entry.getKey();
+                for (Submission submission : entry.getValue()) {
+                    uploads.put(submission, executor.submit(() -> sendResult(config, submission, outbox)));
+                }
+            }
+            
+            for (Map.Entry<Submission, Future<Boolean>> upload : uploads.entrySet()) {
+                if (waitForUpload(upload.getKey(), upload.getValue(), deadline)) {
+                    sent.add(upload.getKey());
+                }
+            }
+            
+        } finally {
+            executor.shutdownNow();
         }
+        
+        return sent;
+    }
+    
+    /**
+     * Creates a thread for uploads to the Student Management System. These are daemon threads, so that uploads still
+     * running after the upload timeout do not keep the JVM alive.
+     * 
+     * @param runnable The task of the thread.
+     * 
+     * @return The new thread.
+     */
+    private static Thread createUploadThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "student-management-upload");
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    /**
+     * Sends the due results stored in the {@link UploadOutbox}, for the case that no {@link OutboxDrainer} does. Waits
+     * at most until the given deadline; results that are not sent until then stay in the outbox. Failures are logged.
+     * 
+     * @param outbox The {@link UploadOutbox} to drain.
+     * @param deadline The deadline of the uploads of this hook.
+     */
+    private void drainOutbox(UploadOutbox outbox, Deadline deadline) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(SubmissionHook::createUploadThread);
+        try {
+            if (!outbox.getPending().isEmpty() && !deadline.isExpired()) {
+                LOGGER.log(Level.WARNING, "No daemon or worker drains the outbox, sending due results in the hook");
+                
+                Future<Integer> drain = executor.submit(() -> outbox.drain(configuration, submitterFactory));
+                int sent = drain.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+                if (sent > 0) {
+                    LOGGER.log(Level.INFO, "Sent {0} results from outbox", sent);
+                }
+            }
+            
+        } catch (TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Upload timeout exceeded while draining outbox, the rest is sent later");
+            
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to drain outbox", e);
+            
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Failed to drain outbox", e.getCause());
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Sends the results of a single submission to the Student Management System. Failures are logged.
+     * <p>
+     * The submitter may come from an earlier hook invocation (see {@link LoginCache}), so its login may have expired.
+     * The protocol does not report rejected logins with a dedicated exception, so an upload that failed because of
+     * the login or the connection (see {@link LoginCache#isLoginFailure(NetworkException)}) is retried once after
+     * logging in again. Other failures, like missing data on the server, are not retried.
+     * 
+     * @param config The configuration that the submitter is created for.
+     * @param submission The submission to send the results of.
+     * @param outbox The {@link UploadOutbox} that records the newest sent revisions. <code>null</code> if there is
+     *      none.
+     * 
+     * @return Whether the results were sent, or are outdated because a newer result was sent.
+     */
+    private boolean sendResult(StudentManagementConfig config, Submission submission, UploadOutbox outbox) {
+        boolean sent = false;
+        List<ResultMessage> messages = resultCollector.getMessageForSubmission(submission);
+        try {
+            UploadOutbox.Upload upload = () -> submit(config, submission, messages);
+            
+            if (outbox != null) {
+                outbox.sendIfNewest(new PostCommitJob(repositoryPath, transactionId, submission), upload);
+            } else {
+                upload.send();
+            }
+            sent = true;
+            
+        } catch (NetworkException e) {
+            LOGGER.log(Level.SEVERE, "Failed to send result to Student Management System", e);
+            
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to record sent result of " + submission + " in outbox", e);
+            
+        // checkstyle: stop exception type check
+        } catch (RuntimeException e) {
+        // checkstyle: resume exception type check
+            LOGGER.log(Level.SEVERE, "Failed to send result of " + submission + " to Student Management System", e);
+        }
+        return sent;
+    }
+    
+    /**
+     * Sends the given messages with a submitter of the {@link SubmitterFactory}, and retries once with a new login if
+     * this fails because of the login (see {@link #sendResult(StudentManagementConfig, Submission, UploadOutbox)}).
+     * 
+     * @param config The configuration that the submitter is created for.
+     * @param submission The submission to send the results of.
+     * @param messages The results to send.
+     * 
+     * @throws NetworkException If logging in or sending the results fails.
+     */
+    private void submit(StudentManagementConfig config, Submission submission, List<ResultMessage> messages)
+            throws NetworkException {
+        
+        StudentManagementSubmitter submitter = submitterFactory.create(config);
+        try {
+            submitter.submit(submission, messages);
+            
+        } catch (NetworkException e) {
+            if (!LoginCache.isLoginFailure(e)) {
+                throw e;
+            }
+            LOGGER.log(Level.FINE, "Sending result of " + submission + " failed, logging in again", e);
+            submitterFactory.invalidate(config, submitter);
+            submitter = submitterFactory.create(config);
+            submitter.submit(submission, messages);
+            
+        } finally {
+            // does nothing for an invalidated submitter, if logging in again failed
+            submitterFactory.release(config, submitter);
+        }
+    }
+    
+    /**
+     * Waits until an upload is done or the deadline has passed.
+     * 
+     * @param submission The submission that the results are sent for.
+     * @param upload The upload, as returned by
+     *      {@link #sendResult(StudentManagementConfig, Submission, UploadOutbox)}.
+     * @param deadline The deadline for all uploads.
+     * 
+     * @return Whether the results were sent.
+     */
+    private static boolean waitForUpload(Submission submission, Future<Boolean> upload, Deadline deadline) {
+        boolean sent = false;
+        try {
+            sent = upload.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+            
+        } catch (TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Sending result of {0} to Student Management System timed out", submission);
+            
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.SEVERE, "Failed to send result to Student Management System", e.getCause());
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.WARNING, "Interrupted while sending results to Student Management System", e);
+        }
+        return sent;
+    }
+    
+    /**
+     * Stores the results that could not be sent in the {@link UploadOutbox}, and removes older results of the
+     * submissions that were sent from it. If no {@link Configuration#getStateDirectory()} is configured, there is no
+     * outbox and the results that could not be sent are lost.
+     * 
+     * @param outbox The {@link UploadOutbox}. <code>null</code> if there is none.
+     * @param submissionsByConfig The submissions that the results were tried to send for.
+     * @param sent The submissions whose results were sent.
+     */
+    private void updateOutbox(UploadOutbox outbox,
+            Map<StudentManagementConfig, List<Submission>> submissionsByConfig, Set<Submission> sent) {
+        
+        if (outbox != null) {
+            try {
+                for (List<Submission> submissions : submissionsByConfig.values()) {
+                    for (Submission submission : submissions) {
+                        PostCommitJob job = new PostCommitJob(repositoryPath, transactionId, submission);
+                        if (sent.contains(submission)) {
+                            outbox.remove(job);
+                        } else if (outbox.put(job, resultCollector.getMessageForSubmission(submission))) {
+                            LOGGER.log(Level.INFO, "Stored result {0} in outbox", job.getId());
+                        }
+                    }
+                }
+                
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Could not update outbox", e);
+            }
+            
+        } else if (sent.size() < modifiedSubmissions.size()) {
+            LOGGER.log(Level.WARNING, "No outbox available, results that could not be sent are lost");
+        }
+    }
+    
+    /**
+     * Checks whether this hook processes a queued job and the job has been superseded by a newer revision or another
+     * worker has taken over the job in the meantime. In this case, the results of this hook are outdated or the other
+     * worker sends them to the Student Management System, so this hook must not.
+     * 
+     * @return Whether the {@link JobQueue.Lease} of this hook was lost.
+     */
+    private boolean leaseLost() {
+        boolean lost = false;
+        if (lease != null) {
+            try {
+                lost = lease.isLost() || !lease.renew();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not renew lease", e);
+                lost = true;
+            }
+            
+            if (lost) {
+                LOGGER.log(Level.WARNING, "Lease on job {0} lost, not sending results", lease.getJob().getId());
+            }
+        }
+        return lost;
+    }
+    
+    /**
+     * Puts the work of this post-commit hook into the {@link JobQueue}, one job for each modified submission, so that
+     * a {@link PostCommitWorker} runs the checks later. Jobs for older revisions of the same submissions are
+     * superseded.
+     * 
+     * @throws IOException If writing a job fails.
+     * @throws ConfigurationException If the queue is not correctly configured.
+     */
+    private void enqueue() throws IOException, ConfigurationException {
+        JobQueue queue = new JobQueue(configuration.getQueueDirectory(),
+                configuration.getQueueLeaseTimeout() * 1000L);
+        
+        for (Submission submission : modifiedSubmissions) {
+            PostCommitJob job = new PostCommitJob(repositoryPath, transactionId, submission);
+            if (queue.enqueue(job)) {
+                LOGGER.log(Level.INFO, "Queued job {0}", job.getId());
+            } else {
+                LOGGER.log(Level.INFO, "Job {0} is already queued, done or superseded", job.getId());
+            }
+        }
+    }
+    
+    /**
+     * Supplies the {@link Configuration} for {@link SubmissionHook#execute(ConfigurationSupplier, PrintStream)}. This
+     * allows the {@link SubmissionHookDaemon} to re-use an already parsed {@link Configuration}.
+     */
+    interface ConfigurationSupplier {
+        
+        /**
+         * Returns the {@link Configuration} that the hook should use.
+         * 
+         * @return The {@link Configuration}.
+         * 
+         * @throws IOException If reading the configuration fails.
+         */
+        public Configuration get() throws IOException;
+        
     }
     
     /**
@@ -290,34 +1004,88 @@ public class SubmissionHook {
      * @return The exit code that this process should exit with.
      */
     public int execute(File configurationFile) {
+        return execute(() -> new Configuration(configurationFile), System.err);
+    }
+    
+    /**
+     * Runs the complete hook process. All SVN operations and checks must finish within the configured
+     * {@link Configuration#getCommitTimeout()}. If {@link Configuration#getPostCommitQueue()} is enabled, a
+     * post-commit hook only adds a {@link PostCommitJob} to the {@link JobQueue}.
+     * <p>
+     * Package visibility for the {@link SubmissionHookDaemon} and {@link PostCommitWorker}.
+     * 
+     * @param configurationSupplier Supplies the {@link Configuration} to use.
+     * @param output The stream to write the XML output for the SVN client to.
+     * 
+     * @return The exit code that the hook should exit with.
+     */
+    int execute(ConfigurationSupplier configurationSupplier, PrintStream output) {
         try {
-            readConfiguration(configurationFile);
+            this.configuration = configurationSupplier.get();
             LoggingSetup.setLevel(configuration.getLogLevel());
             
+            if (svnInterface == null) {
+                svnInterface = configuration.createSvnInterface();
+            }
+            
+            this.deadline = Deadline.after(configuration.getCommitTimeout() * 1000L);
+            if (lease != null) {
+                this.deadline = deadline.cancelledWhen(lease::isLost);
+            }
+            svnInterface.setDeadline(deadline);
+            
             queryMetadataFromSvn();
             
             LOGGER.log(Level.INFO, "Commit author: {0}, affected submissions: {1}", new Object[] {
                     transactionInfo.getAuthor(), getModifiedSubmissions()});
             
-            if (!configuration.getUnrestrictedUsers().contains(transactionInfo.getAuthor())) {
-                runChecksOnAllModifiedSubmissions();
-                notifyStudentManagementSystem();
+            if (configuration.getUnrestrictedUsers().contains(transactionInfo.getAuthor())) {
+                LOGGER.log(Level.INFO, "{0} is an unrestrited user, skipping all checks", transactionInfo.getAuthor());
+                
+            } else if (phase == Phase.POST_COMMIT && lease == null && configuration.getPostCommitQueue()) {
+                enqueue();
                 
             } else {
-                LOGGER.log(Level.INFO, "{0} is an unrestrited user, skipping all checks", transactionInfo.getAuthor());
+                runChecksOnAllModifiedSubmissions();
+                notifyStudentManagementSystem();
             }
             
+        } catch (SvnTimeoutException e) {
+            LOGGER.log(Level.SEVERE, "SVN operation exceeded the time limit of the commit", e);
+            
+            internalError = true;
+            resultCollector.addCheckResult(false);
+            resultCollector.addMessage(new ResultMessage("hook", MessageType.ERROR, TIMEOUT_MESSAGE));
+            
         } catch (SvnException | IOException | ConfigurationException e) {
             LOGGER.log(Level.SEVERE, "Exception in main", e);
             
+            internalError = true;
             resultCollector.addCheckResult(false);
             resultCollector.addMessage(new ResultMessage("hook", MessageType.ERROR, "An internal error occurred"));
         }
 
-        System.err.println(new XmlOutputFormatter().format(resultCollector.getAllMessages()));
+        List<CheckTiming> timings = Collections.emptyList();
+        if (configuration != null && configuration.getTimingsInOutput()) {
+            timings = resultCollector.getTimings();
+        }
+        output.println(new XmlOutputFormatter().format(resultCollector.getAllMessages(), timings));
         return resultCollector.getExitCode(phase);
     }
     
+    /**
+     * Returns whether {@link #execute(ConfigurationSupplier, PrintStream)} failed with an internal error, e.g. because
+     * SVN or the file system could not be accessed or the commit timeout passed. In this case, the checks did not run
+     * completely and the Student Management System was not notified.
+     * <p>
+     * Package visibility for the {@link PostCommitWorker}.
+     * 
+     * @return Whether an internal error occurred.
+     */
+    boolean hadInternalError() {
+        return internalError;
+    }
+    
     /**
      * The main method called by the hook mechanism of SVN.
      * 
@@ -327,13 +1095,27 @@ public class SubmissionHook {
      *          <li>[1]: The path of the SVN repository</li>
      *          <li>[2]: The transaction identifier (revision number if phase is "POST"</li>
      *      </ul>
+     *      Alternatively, the single argument "DAEMON" starts a {@link SubmissionHookDaemon} instead, and the single
+     *      argument "WORKER" starts a {@link PostCommitWorker}.
      */
     public static void main(String[] args) {
         LoggingSetup.setupFileLogging(new File("submission-check.log"));
-        SubmissionHook hook = new SubmissionHook(args, new CliSvnInterface());
-        int exitCode = hook.execute(new File("config.properties"));
-        LOGGER.log(Level.INFO, "Exiting with exit code {0}", exitCode);
-        System.exit(exitCode);
+        
+        if (args.length == 1 && args[0].equals("DAEMON")) {
+            SubmissionHookDaemon.runDaemon(new File("config.properties"), new File(SubmissionHookDaemon.TOKEN_FILE),
+                    new File(SubmissionHookDaemon.PORT_FILE));
+            return;
+        }
+        
+        if (args.length == 1 && args[0].equals("WORKER")) {
+            PostCommitWorker.runWorker(new File("config.properties"));
+            
+        } else {
+            SubmissionHook hook = new SubmissionHook(args);
+            int exitCode = hook.execute(new File("config.properties"));
+            LOGGER.log(Level.INFO, "Exiting with exit code {0}", exitCode);
+            System.exit(exitCode);
+        }
     }
     
 }
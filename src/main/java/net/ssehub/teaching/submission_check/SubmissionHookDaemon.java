@@ -0,0 +1,421 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.output.XmlOutputFormatter;
+import net.ssehub.teaching.submission_check.svn.ISvnInterface;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+/**
+ * A long-running process that executes {@link SubmissionHook}s on request. This avoids starting a new JVM (and
+ * loading all classes and the {@link Configuration}) for every commit.
+ * <p>
+ * The daemon listens on a TCP port on the loopback interface. A client sends four lines (UTF-8): the token of the
+ * daemon (see {@link #getToken()}), followed by the command line arguments of {@link SubmissionHook#main(String[])}:
+ * the phase ("PRE" or "POST"), the repository path and the transaction identifier. The daemon answers with the exit
+ * code of the hook on the first line, followed by the XML output for the SVN client. Then the connection is closed.
+ * If the token is wrong, the daemon answers with {@link #DENIED} and does not run the hook.
+ * <p>
+ * The token keeps other local users, which can connect to the loopback interface as well, from running hooks (and
+ * thus uploads to the Student Management System) for arbitrary transactions. It is written to a file that only the
+ * user running the daemon can read. A client has to send each of its lines within 10 seconds, and each line may be at
+ * most {@link #MAX_LINE_LENGTH} characters long; otherwise the connection is closed without an answer.
+ * This keeps idle or malicious connections from occupying the threads of the daemon.
+ * 
+ * @author Adam
+ */
+public class SubmissionHookDaemon implements Closeable {
+    
+    /**
+     * The name of the file that the port of a running daemon is written to. Read by the hook scripts.
+     */
+    public static final String PORT_FILE = "submission-check.port";
+    
+    /**
+     * The name of the file that the token of a running daemon is written to. Read by the hook scripts.
+     */
+    public static final String TOKEN_FILE = "submission-check.token";
+    
+    /**
+     * The answer to a client that sent a wrong token. The hook was not executed.
+     */
+    public static final String DENIED = "DENIED";
+    
+    /**
+     * The maximum length of a line sent by a client.
+     */
+    public static final int MAX_LINE_LENGTH = 4096;
+    
+    /**
+     * The default time in milliseconds that a client has for sending each of its lines.
+     */
+    private static final int CLIENT_TIMEOUT_MILLIS = 10000;
+    
+    /**
+     * The time in seconds that {@link #close()} waits for running hooks to finish.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 300;
+    
+    private static final Logger LOGGER = Logger.getLogger(SubmissionHookDaemon.class.getName());
+    
+    private File configurationFile;
+    
+    private Supplier<ISvnInterface> svnInterfaceFactory;
+    
+    private String token;
+    
+    private int clientTimeoutMillis = CLIENT_TIMEOUT_MILLIS;
+    
+    private Configuration configuration;
+    
+    private long configurationTimestamp;
+    
+    private ServerSocket serverSocket;
+    
+    private ExecutorService executor;
+    
+    private OutboxDrainer drainer;
+    
+    /**
+     * Creates a new daemon. Call {@link #start()} to start listening.
+     * 
+     * @param configurationFile The {@link Configuration} file. Re-read when it is modified.
+     * @param svnInterfaceFactory Creates a new {@link ISvnInterface} for each hook invocation. If <code>null</code>,
+     *      the {@link ISvnInterface} configured in the {@link Configuration} is used.
+     */
+    public SubmissionHookDaemon(File configurationFile, Supplier<ISvnInterface> svnInterfaceFactory) {
+        this.configurationFile = configurationFile;
+        this.svnInterfaceFactory = svnInterfaceFactory;
+        
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+    }
+    
+    /**
+     * Returns the random token that clients have to send as their first line. A new token is created for each
+     * daemon.
+     * 
+     * @return The token.
+     */
+    public String getToken() {
+        return token;
+    }
+    
+    /**
+     * Sets the time that a client has for sending each of its lines. Must be called before {@link #start()}.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param clientTimeoutMillis The timeout in milliseconds.
+     */
+    void setClientTimeout(int clientTimeoutMillis) {
+        this.clientTimeoutMillis = clientTimeoutMillis;
+    }
+    
+    /**
+     * Returns the {@link Configuration}. The configuration file is only parsed again if it has been modified since it
+     * was read last.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return The current {@link Configuration}.
+     * 
+     * @throws IOException If reading the configuration file fails.
+     */
+    synchronized Configuration getConfiguration() throws IOException {
+        long timestamp = configurationFile.lastModified();
+        if (configuration == null || timestamp != configurationTimestamp) {
+            LOGGER.log(Level.INFO, "(Re-)Reading configuration {0}", configurationFile);
+            configuration = new Configuration(configurationFile);
+            configurationTimestamp = timestamp;
+        }
+        return configuration;
+    }
+    
+    /**
+     * Binds the server socket and starts accepting connections in a new thread. Also starts an {@link OutboxDrainer}.
+     * 
+     * @throws IOException If reading the configuration or binding the socket fails.
+     * @throws ConfigurationException If the daemon settings are invalid.
+     */
+    public void start() throws IOException, ConfigurationException {
+        Configuration config = getConfiguration();
+        
+        this.executor = Executors.newFixedThreadPool(config.getDaemonThreads());
+        this.serverSocket = new ServerSocket(config.getDaemonPort(), 50, InetAddress.getLoopbackAddress());
+        
+        LOGGER.log(Level.INFO, "Daemon listening on port {0} with {1} threads", new Object[] {
+            String.valueOf(serverSocket.getLocalPort()), config.getDaemonThreads()});
+        
+        Thread acceptThread = new Thread(this::acceptConnections, "submission-check-daemon");
+        acceptThread.start();
+        
+        this.drainer = new OutboxDrainer(this::getConfiguration);
+        drainer.start();
+    }
+    
+    /**
+     * Returns the port that this daemon is listening on.
+     * 
+     * @return The port.
+     * 
+     * @throws IllegalStateException If the daemon is not started.
+     */
+    public int getPort() throws IllegalStateException {
+        if (serverSocket == null) {
+            throw new IllegalStateException("Daemon not started");
+        }
+        return serverSocket.getLocalPort();
+    }
+    
+    /**
+     * Accepts connections until the server socket is closed. Each connection is handled by the thread pool.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> handleConnection(socket));
+            
+            } catch (SocketException e) {
+                LOGGER.log(Level.FINE, "Server socket closed", e);
+            
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to accept connection", e);
+            }
+        }
+    }
+    
+    /**
+     * Handles a single client connection: checks the token, reads the hook arguments, runs the hook and writes the
+     * exit code and output back.
+     * 
+     * @param socket The client connection.
+     */
+    private void handleConnection(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            socket.setSoTimeout(clientTimeoutMillis);
+            
+            String clientToken = readLine(in);
+            if (clientToken != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                    clientToken.getBytes(StandardCharsets.UTF_8))) {
+                runHook(in, out);
+                
+            } else {
+                LOGGER.log(Level.WARNING, "Rejecting connection with invalid token from {0}",
+                        socket.getRemoteSocketAddress());
+                out.write((DENIED + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+        
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to handle connection", e);
+        }
+    }
+    
+    /**
+     * Reads the hook arguments of an authenticated client, runs the hook and writes the exit code and output back.
+     * 
+     * @param in The input of the client, after the token.
+     * @param out The output to the client.
+     * 
+     * @throws IOException If communicating with the client fails.
+     */
+    private void runHook(BufferedReader in, OutputStream out) throws IOException {
+        String[] args = new String[3];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readLine(in);
+            if (args[i] == null) {
+                throw new IOException("Client sent only " + i + " arguments");
+            }
+        }
+        
+        int exitCode;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PrintStream outputStream = new PrintStream(output, true, StandardCharsets.UTF_8)) {
+            SubmissionHook hook = new SubmissionHook(args,
+                    svnInterfaceFactory != null ? svnInterfaceFactory.get() : null);
+            exitCode = hook.execute(this::getConfiguration, outputStream);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid arguments from client", e);
+            exitCode = 1;
+            output.reset();
+            
+        // checkstyle: stop exception type check
+        } catch (RuntimeException e) {
+        // checkstyle: resume exception type check
+            // always answer, otherwise the pre-commit script would run the hook a second time
+            LOGGER.log(Level.SEVERE, "Exception while running hook " + Arrays.toString(args), e);
+            exitCode = 1;
+            output.reset();
+            output.write((new XmlOutputFormatter().format(Collections.singletonList(
+                    new ResultMessage("hook", MessageType.ERROR, "An internal error occurred"))) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        
+        LOGGER.log(Level.INFO, "Answering with exit code {0}", exitCode);
+        
+        out.write((exitCode + "\n").getBytes(StandardCharsets.UTF_8));
+        output.writeTo(out);
+    }
+    
+    /**
+     * Reads a single line sent by a client.
+     * 
+     * @param in The input of the client.
+     * 
+     * @return The line without the line terminator, or <code>null</code> if the client closed the connection before
+     *      sending any character.
+     * 
+     * @throws IOException If reading fails, the client did not send anything within the client timeout, or the line
+     *      is longer than {@link #MAX_LINE_LENGTH}.
+     */
+    private static String readLine(BufferedReader in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int read = in.read();
+        boolean empty = read == -1;
+        
+        while (read != -1 && read != '\n') {
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("Client sent a line longer than " + MAX_LINE_LENGTH + " characters");
+            }
+            line.append((char) read);
+            read = in.read();
+        }
+        
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return empty ? null : line.toString();
+    }
+    
+    /**
+     * Stops accepting new connections and waits for running hook executions to finish.
+     */
+    @Override
+    public void close() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close server socket", e);
+        }
+        
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    LOGGER.log(Level.WARNING, "Hooks still running after {0} seconds, stopping anyway",
+                            SHUTDOWN_TIMEOUT_SECONDS);
+                }
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.WARNING, "Interrupted while waiting for running hooks", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        if (drainer != null) {
+            drainer.close();
+        }
+    }
+    
+    /**
+     * Writes the token of this daemon to the given file. The file is created so that only the current user can read
+     * it; an existing file is replaced.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param tokenFile The file to write the token to.
+     * 
+     * @throws IOException If writing the file fails.
+     */
+    void writeTokenFile(File tokenFile) throws IOException {
+        Path path = tokenFile.toPath();
+        Files.deleteIfExists(path);
+        Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        Files.writeString(path, token + "\n", StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Starts a daemon and writes its token and port to the given files. The files are removed when the JVM shuts
+     * down.
+     * 
+     * @param configurationFile The {@link Configuration} file.
+     * @param tokenFile The file to write the token to.
+     * @param portFile The file to write the port to.
+     */
+    static void runDaemon(File configurationFile, File tokenFile, File portFile) {
+        SubmissionHookDaemon daemon = new SubmissionHookDaemon(configurationFile, null);
+        try {
+            LoggingSetup.setLevel(daemon.getConfiguration().getLogLevel());
+            daemon.start();
+            
+            daemon.writeTokenFile(tokenFile);
+            Files.writeString(portFile.toPath(), Integer.toString(daemon.getPort()) + "\n", StandardCharsets.UTF_8);
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                daemon.close();
+                try {
+                    FileUtils.deleteFile(portFile);
+                    FileUtils.deleteFile(tokenFile);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not delete port or token file", e);
+                }
+            }));
+        
+        } catch (IOException | ConfigurationException e) {
+            LOGGER.log(Level.SEVERE, "Could not start daemon", e);
+            daemon.close();
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,650 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.teaching.submission_check.SubmissionHook.SubmitterFactory;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
+
+/**
+ * Stores results that could not be sent to the Student Management System, so that they are sent later by
+ * {@link #drain(Configuration, SubmitterFactory)}. Each result is stored as a properties file in the
+ * <code>pending</code> directory. Like the {@link JobQueue}, this can safely be used by multiple processes at the same
+ * time.
+ * <p>
+ * Only the newest result of each submission (see {@link PostCommitJob#getKey()}) is kept: storing a result replaces
+ * the result of an older revision, and sending a newer result directly removes the stored one with
+ * {@link #remove(PostCommitJob)}. All results are sent through {@link #sendIfNewest(PostCommitJob, Upload)}, which
+ * records the newest sent revision of each submission in the <code>sent</code> directory and refuses to send older
+ * ones, so that a slow upload of an older revision never overwrites a newer result on the server.
+ * <p>
+ * Failed retries are delayed with an exponential backoff with random jitter; after {@link #MAX_ATTEMPTS} attempts
+ * the result is moved to the <code>failed</code> directory.
+ * 
+ * @author Adam
+ */
+public class UploadOutbox {
+    
+    /**
+     * The number of times that sending a stored result is tried before it is moved to <code>failed</code>.
+     */
+    public static final int MAX_ATTEMPTS = 12;
+    
+    /**
+     * The delay in milliseconds before the first retry. Doubled for each further attempt.
+     */
+    static final long INITIAL_BACKOFF = 30 * 1000;
+    
+    /**
+     * The maximum delay in milliseconds between two attempts.
+     */
+    static final long MAX_BACKOFF = 60 * 60 * 1000;
+    
+    private static final Logger LOGGER = Logger.getLogger(UploadOutbox.class.getName());
+    
+    private static final String SUFFIX = ".result";
+    
+    /**
+     * Serializes modifications of different threads in this JVM; the file lock only works between processes.
+     */
+    private static final Object LOCK = new Object();
+    
+    /**
+     * Serializes the uploads of the same submission (see {@link PostCommitJob#getKey()}) of different threads in this
+     * JVM, before the file lock serializes them between processes.
+     */
+    private static final Map<String, Object> SEND_LOCKS = new ConcurrentHashMap<>();
+    
+    private File pendingDirectory;
+    
+    private File failedDirectory;
+    
+    private File sentDirectory;
+    
+    private File lockFile;
+    
+    private File drainerFile;
+    
+    private Random random;
+    
+    /**
+     * Sends a single result to the Student Management System.
+     */
+    @FunctionalInterface
+    public interface Upload {
+        
+        /**
+         * Sends the result.
+         * 
+         * @throws NetworkException If sending the result fails.
+         */
+        public void send() throws NetworkException;
+        
+    }
+    
+    /**
+     * The outcome of sending a stored result.
+     */
+    private enum Outcome {
+        SENT,
+        OUTDATED,
+        FAILED
+    }
+    
+    /**
+     * A stored result.
+     */
+    private static class Entry {
+        
+        private PostCommitJob job;
+        
+        private int attempt;
+        
+        private long nextAttempt;
+        
+        private List<ResultMessage> messages;
+        
+    }
+    
+    /**
+     * Creates an {@link UploadOutbox} that stores the results in the given directory.
+     * 
+     * @param outboxDirectory The directory to store the results in. Created if it does not exist.
+     * 
+     * @throws IOException If the directories cannot be created.
+     */
+    public UploadOutbox(File outboxDirectory) throws IOException {
+        this.pendingDirectory = createDirectory(new File(outboxDirectory, "pending"));
+        this.failedDirectory = createDirectory(new File(outboxDirectory, "failed"));
+        this.sentDirectory = createDirectory(new File(outboxDirectory, "sent"));
+        this.lockFile = new File(outboxDirectory, "outbox.lock");
+        this.drainerFile = new File(outboxDirectory, "drainer.alive");
+        this.random = new Random();
+    }
+    
+    /**
+     * Creates the given directory, if it does not exist.
+     * 
+     * @param directory The directory to create.
+     * 
+     * @return The directory.
+     * 
+     * @throws IOException If the directory cannot be created.
+     */
+    private static File createDirectory(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        return directory;
+    }
+    
+    /**
+     * Stores the result of a submission, so that it is sent later. The first retry is after
+     * {@link #INITIAL_BACKOFF}. A stored result of an older revision of the same submission is replaced.
+     * 
+     * @param job Identifies the submission and the revision that the result is for.
+     * @param messages The result to send.
+     * 
+     * @return Whether the result was stored; <code>false</code> if a result of a newer revision is already stored or
+     *      sent.
+     * 
+     * @throws IOException If writing the result fails.
+     */
+    public boolean put(PostCommitJob job, List<ResultMessage> messages) throws IOException {
+        synchronized (LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+                
+                boolean stored = false;
+                Entry existing = readIfExists(job.getKey());
+                String newestSent = readNewestSent(job.getKey());
+                if (existing != null && existing.job.getId().compareTo(job.getId()) > 0) {
+                    LOGGER.log(Level.INFO, "Newer result {0} already in outbox, not storing {1}", new Object[] {
+                        existing.job.getId(), job.getId()});
+                    
+                } else if (newestSent != null && newestSent.compareTo(job.getId()) > 0) {
+                    LOGGER.log(Level.INFO, "Newer result {0} already sent, not storing {1}", new Object[] {
+                        newestSent, job.getId()});
+                        
+                } else {
+                    Entry entry = new Entry();
+                    entry.job = job;
+                    entry.attempt = 1;
+                    entry.nextAttempt = System.currentTimeMillis() + getBackoff(entry.attempt);
+                    entry.messages = messages;
+                    write(entry);
+                    stored = true;
+                }
+                return stored;
+            }
+        }
+    }
+    
+    /**
+     * Removes the stored result of the given submission, because a result of the given or a newer revision has been
+     * sent. Does nothing if no result or a result of a newer revision is stored.
+     * 
+     * @param job Identifies the submission and the revision that was sent.
+     * 
+     * @throws IOException If removing the result fails.
+     */
+    public void remove(PostCommitJob job) throws IOException {
+        synchronized (LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+                
+                Entry existing = readIfExists(job.getKey());
+                if (existing != null && existing.job.getId().compareTo(job.getId()) <= 0) {
+                    LOGGER.log(Level.FINE, "Removing {0} from outbox, {1} was sent", new Object[] {
+                        existing.job.getId(), job.getId()});
+                    Files.deleteIfExists(getFile(job.getKey()).toPath());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sends a result to the Student Management System, unless a result of a newer revision of the same submission has
+     * already been sent. The uploads of the same submission are serialized between all threads and processes that use
+     * this outbox, and the newest sent revision is recorded after each successful upload. This way, an older result
+     * never overwrites a newer one on the server, even if its upload started earlier or took longer.
+     * 
+     * @param job Identifies the submission and the revision that the result is for.
+     * @param upload Sends the result.
+     * 
+     * @return Whether the result was sent; <code>false</code> if a result of a newer revision was already sent.
+     * 
+     * @throws NetworkException If sending the result fails.
+     * @throws IOException If accessing the record of the newest sent revision fails.
+     */
+    public boolean sendIfNewest(PostCommitJob job, Upload upload) throws NetworkException, IOException {
+        String key = job.getKey();
+        boolean sent = false;
+        synchronized (SEND_LOCKS.computeIfAbsent(key, (k) -> new Object())) {
+            try (FileChannel channel = FileChannel.open(new File(sentDirectory, key + ".lock").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+                
+                String newestSent = readNewestSent(key);
+                if (newestSent != null && newestSent.compareTo(job.getId()) > 0) {
+                    LOGGER.log(Level.INFO, "Newer result {0} already sent, not sending {1}", new Object[] {
+                        newestSent, job.getId()});
+                    
+                } else {
+                    upload.send();
+                    writeNewestSent(job);
+                    sent = true;
+                }
+            }
+        }
+        return sent;
+    }
+    
+    /**
+     * Returns the identifiers ({@link PostCommitJob#getId()}) of all stored results that are not yet sent.
+     * 
+     * @return The identifiers of the pending results, sorted by their key.
+     * 
+     * @throws IOException If reading the results fails.
+     */
+    public List<String> getPending() throws IOException {
+        List<String> result = new ArrayList<>();
+        for (File file : listPending()) {
+            try {
+                result.add(read(file).job.getId());
+            } catch (NoSuchFileException e) {
+                // removed in the meantime
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Tries to send all stored results that are due. Sent results, and results that are outdated because a newer
+     * revision has been sent in the meantime, are removed; for results that could not be sent, the next attempt is
+     * delayed.
+     * 
+     * @param configuration The {@link Configuration} that contains the connection settings of the Student Management
+     *      System.
+     * @param submitters Creates the {@link StudentManagementSubmitter}s to send the results with.
+     * 
+     * @return The number of results that were sent.
+     * 
+     * @throws IOException If reading or updating the stored results fails.
+     */
+    public int drain(Configuration configuration, SubmitterFactory submitters) throws IOException {
+        return drain(configuration, submitters, System.currentTimeMillis());
+    }
+    
+    /**
+     * Tries to send all stored results that are due at the given time. See
+     * {@link #drain(Configuration, SubmitterFactory)}.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param configuration The {@link Configuration} with the connection settings of the Student Management System.
+     * @param submitters Creates the {@link StudentManagementSubmitter}s to send the results with.
+     * @param now The current time in milliseconds.
+     * 
+     * @return The number of results that were sent.
+     * 
+     * @throws IOException If reading or updating the stored results fails.
+     */
+    int drain(Configuration configuration, SubmitterFactory submitters, long now) throws IOException {
+        int sent = 0;
+        for (File file : listPending()) {
+            Entry entry;
+            try {
+                entry = read(file);
+            } catch (NoSuchFileException e) {
+                entry = null; // removed in the meantime
+            }
+            
+            if (entry != null && entry.nextAttempt <= now) {
+                Outcome outcome = send(entry, configuration, submitters);
+                if (outcome == Outcome.SENT) {
+                    sent++;
+                }
+                update(entry, outcome != Outcome.FAILED, now);
+            }
+        }
+        return sent;
+    }
+    
+    /**
+     * Sends a stored result to the Student Management System (see {@link #sendIfNewest(PostCommitJob, Upload)}).
+     * Failures are logged.
+     * 
+     * @param entry The stored result.
+     * @param configuration The {@link Configuration} with the connection settings of the Student Management System.
+     * @param submitters Creates the {@link StudentManagementSubmitter}s to send the result with.
+     * 
+     * @return Whether the result was sent, is outdated or could not be sent.
+     */
+    private Outcome send(Entry entry, Configuration configuration, SubmitterFactory submitters) {
+        Outcome outcome = Outcome.FAILED;
+        Submission submission = entry.job.getSubmission();
+        StudentManagementConfig config = null;
+        StudentManagementSubmitter submitter = null;
+        
+        // checkstyle: stop exception type check
+        try {
+            config = configuration.getStudentManagementSystemConfiguration(submission);
+            submitter = submitters.create(config);
+            StudentManagementSubmitter finalSubmitter = submitter;
+            if (sendIfNewest(entry.job, () -> finalSubmitter.submit(submission, entry.messages))) {
+                outcome = Outcome.SENT;
+                LOGGER.log(Level.INFO, "Sent result {0} from outbox, attempt {1}", new Object[] {
+                    entry.job.getId(), entry.attempt});
+            } else {
+                outcome = Outcome.OUTDATED;
+            }
+                
+        } catch (NetworkException e) {
+            LOGGER.log(Level.WARNING, "Sending result " + entry.job.getId() + " from outbox failed, attempt "
+                    + entry.attempt, e);
+            if (submitter != null && LoginCache.isLoginFailure(e)) {
+                submitters.invalidate(config, submitter);
+            }
+            
+        } catch (ConfigurationException | IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Sending result " + entry.job.getId() + " from outbox failed, attempt "
+                    + entry.attempt, e);
+            
+        } finally {
+            if (submitter != null) {
+                submitters.release(config, submitter);
+            }
+        }
+        // checkstyle: resume exception type check
+        
+        return outcome;
+    }
+    
+    /**
+     * Removes a sent result, or schedules the next attempt for a result that could not be sent. Does nothing if the
+     * stored result has been replaced or removed in the meantime.
+     * 
+     * @param sentEntry The result that was tried to send.
+     * @param success Whether the result was sent or is outdated.
+     * @param now The current time in milliseconds.
+     * 
+     * @throws IOException If updating the stored result fails.
+     */
+    private void update(Entry sentEntry, boolean success, long now) throws IOException {
+        synchronized (LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+                
+                String key = sentEntry.job.getKey();
+                Entry current = readIfExists(key);
+                if (current != null && current.job.getId().equals(sentEntry.job.getId())
+                        && current.attempt == sentEntry.attempt) {
+                    
+                    if (success) {
+                        Files.deleteIfExists(getFile(key).toPath());
+                        
+                    } else if (current.attempt >= MAX_ATTEMPTS) {
+                        LOGGER.log(Level.SEVERE, "Result {0} could not be sent {1} times, giving up", new Object[] {
+                            current.job.getId(), current.attempt});
+                        Files.move(getFile(key).toPath(), new File(failedDirectory, key + SUFFIX).toPath(),
+                                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                                
+                    } else {
+                        current.attempt++;
+                        current.nextAttempt = now + getBackoff(current.attempt);
+                        write(current);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Records that an {@link OutboxDrainer} serves this outbox. Called on each run of the drainer.
+     * <p>
+     * Package visibility for the {@link OutboxDrainer}.
+     * 
+     * @throws IOException If writing the record fails.
+     */
+    void recordDrainer() throws IOException {
+        if (!drainerFile.createNewFile()) {
+            Files.setLastModifiedTime(drainerFile.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+        }
+    }
+    
+    /**
+     * Checks whether an {@link OutboxDrainer} served this outbox recently (see {@link #recordDrainer()}). If not
+     * (e.g. if neither a {@link SubmissionHookDaemon} nor a {@link PostCommitWorker} runs), stored results are only
+     * sent if the hook drains the outbox itself.
+     * <p>
+     * Package visibility for the {@link SubmissionHook}.
+     * 
+     * @return Whether a drainer ran in the last three {@link OutboxDrainer#DRAIN_INTERVAL}s.
+     */
+    boolean isServedByDrainer() {
+        long lastDrain = drainerFile.lastModified(); // 0 if it does not exist
+        return System.currentTimeMillis() - lastDrain < 3 * OutboxDrainer.DRAIN_INTERVAL;
+    }
+    
+    /**
+     * Computes the delay before the given attempt. The delay doubles with each attempt, up to {@link #MAX_BACKOFF}. A
+     * random jitter of up to half of the delay is subtracted, so that the results that failed at the same time (e.g.
+     * because the server was down) are not all retried at the same time.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param attempt The attempt, starting with 1 for the first retry.
+     * 
+     * @return The delay in milliseconds.
+     */
+    long getBackoff(int attempt) {
+        long delay = Math.min(MAX_BACKOFF, INITIAL_BACKOFF << Math.min(attempt - 1, 20));
+        return delay - (long) (random.nextDouble() * delay / 2);
+    }
+    
+    /**
+     * Lists the files of all pending results.
+     * 
+     * @return The files, sorted by name.
+     * 
+     * @throws IOException If listing the directory fails.
+     */
+    private List<File> listPending() throws IOException {
+        File[] files = pendingDirectory.listFiles((directory, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            throw new IOException("Could not list " + pendingDirectory);
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+    
+    /**
+     * Returns the file that the result of the submission with the given key is stored in.
+     * 
+     * @param key The {@link PostCommitJob#getKey()} of the submission.
+     * 
+     * @return The file in the <code>pending</code> directory.
+     */
+    private File getFile(String key) {
+        return new File(pendingDirectory, key + SUFFIX);
+    }
+    
+    /**
+     * Reads the stored result of the submission with the given key.
+     * 
+     * @param key The {@link PostCommitJob#getKey()} of the submission.
+     * 
+     * @return The stored result, or <code>null</code> if none is stored.
+     * 
+     * @throws IOException If reading the result fails.
+     */
+    private Entry readIfExists(String key) throws IOException {
+        Entry entry;
+        try {
+            entry = read(getFile(key));
+        } catch (NoSuchFileException e) {
+            entry = null;
+        }
+        return entry;
+    }
+    
+    /**
+     * Reads the identifier ({@link PostCommitJob#getId()}) of the newest result of the submission with the given key
+     * that has been sent.
+     * 
+     * @param key The {@link PostCommitJob#getKey()} of the submission.
+     * 
+     * @return The identifier of the newest sent result, or <code>null</code> if no result has been sent yet.
+     * 
+     * @throws IOException If reading the record fails.
+     */
+    private String readNewestSent(String key) throws IOException {
+        String id;
+        try {
+            id = Files.readString(new File(sentDirectory, key + ".sent").toPath()).trim();
+        } catch (NoSuchFileException e) {
+            id = null;
+        }
+        return id;
+    }
+    
+    /**
+     * Records the given job as the newest sent result of its submission. Must only be called while the lock of
+     * {@link #sendIfNewest(PostCommitJob, Upload)} is held.
+     * 
+     * @param job The job whose result was sent.
+     * 
+     * @throws IOException If writing the record fails.
+     */
+    private void writeNewestSent(PostCommitJob job) throws IOException {
+        // write to a temporary file first, so that concurrent readers never see a partially written record
+        File temporary = File.createTempFile(job.getKey(), ".tmp", sentDirectory);
+        Files.writeString(temporary.toPath(), job.getId() + "\n");
+        Files.move(temporary.toPath(), new File(sentDirectory, job.getKey() + ".sent").toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Reads a stored result.
+     * 
+     * @param file The file to read.
+     * 
+     * @return The stored result.
+     * 
+     * @throws NoSuchFileException If the file does not exist.
+     * @throws IOException If reading the file fails or its content is invalid.
+     */
+    private static Entry read(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+        }
+        
+        Entry entry = new Entry();
+        try {
+            entry.job = new PostCommitJob(new File(getRequiredProperty(properties, "repository")),
+                    getRequiredProperty(properties, "revision"), new Submission(
+                            getRequiredProperty(properties, "exercise"), getRequiredProperty(properties, "group")));
+            entry.attempt = Integer.parseInt(getRequiredProperty(properties, "attempt"));
+            entry.nextAttempt = Long.parseLong(getRequiredProperty(properties, "nextAttempt"));
+            
+            int numMessages = Integer.parseInt(getRequiredProperty(properties, "messages"));
+            entry.messages = new ArrayList<>(numMessages);
+            for (int i = 0; i < numMessages; i++) {
+                entry.messages.add(ResultCache.readMessage(properties, "message." + i + "."));
+            }
+            
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid result file " + file, e);
+        }
+        
+        return entry;
+    }
+    
+    /**
+     * Reads a property that must be present in a stored result.
+     * 
+     * @param properties The properties to read from.
+     * @param key The key of the property.
+     * 
+     * @return The value of the property.
+     * 
+     * @throws IllegalArgumentException If the property is missing.
+     */
+    private static String getRequiredProperty(Properties properties, String key) throws IllegalArgumentException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return value;
+    }
+    
+    /**
+     * Writes a result to the <code>pending</code> directory, replacing the stored result of the same submission. Must
+     * only be called while the lock is held.
+     * 
+     * @param entry The result to write.
+     * 
+     * @throws IOException If writing the result fails.
+     */
+    private void write(Entry entry) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("repository", entry.job.getRepository().getPath());
+        properties.setProperty("revision", entry.job.getRevision());
+        properties.setProperty("exercise", entry.job.getSubmission().getExercise());
+        properties.setProperty("group", entry.job.getSubmission().getGroup());
+        properties.setProperty("attempt", Integer.toString(entry.attempt));
+        properties.setProperty("nextAttempt", Long.toString(entry.nextAttempt));
+        
+        int numMessages = 0;
+        for (ResultMessage message : entry.messages) {
+            ResultCache.writeMessage(properties, "message." + numMessages + ".", message);
+            numMessages++;
+        }
+        properties.setProperty("messages", Integer.toString(numMessages));
+        
+        // write to a temporary file first, so that concurrent readers never see a partially written result
+        File temporary = File.createTempFile(entry.job.getKey(), ".tmp", pendingDirectory.getParentFile());
+        try (OutputStream output = Files.newOutputStream(temporary.toPath())) {
+            properties.store(output, null);
+        }
+        Files.move(temporary.toPath(), getFile(entry.job.getKey()).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+}
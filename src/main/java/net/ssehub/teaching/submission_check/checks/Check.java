@@ -18,25 +18,53 @@ package net.ssehub.teaching.submission_check.checks;
 import java.io.File;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.utils.Deadline;
 
 /**
  * A check that runs on a submission directory. Checks whether a certain requirement is fulfilled by the submission.
  * Can either fail or succeed (return value of {@link #run(File)}) and creates {@link ResultMessage}s with further
  * information (see {@link #getResultMessages()}).
+ * <p>
+ * A run may have a time limit (see {@link #setTimeout(long)} and {@link #setDeadline(Deadline)}). Checks that may
+ * take long should stop when {@link #getDeadline()} has expired and add a message via
+ * {@link #addTimeoutMessage(String)}.
  * 
  * @author Adam
  */
 public abstract class Check {
     
+    private static final Logger LOGGER = Logger.getLogger(Check.class.getName());
+    
     private List<ResultMessage> messages;
     
+    private SourceFileCache sourceFileCache;
+    
+    private long timeout;
+    
+    private Deadline deadline;
+    
+    private long childCpuTime;
+    
+    private long workerCpuTime;
+    
+    private long workerAllocatedBytes;
+    
+    private boolean incomplete;
+    
     /**
      * Creates a re-usable {@link Check}.
      */
     public Check() {
         this.messages = new LinkedList<>();
+        this.deadline = Deadline.NONE;
+        this.childCpuTime = -1;
+        this.workerCpuTime = -1;
+        this.workerAllocatedBytes = -1;
     }
 
     /**
@@ -69,4 +97,191 @@ public abstract class Check {
         return result;
     }
     
+    /**
+     * Adds the CPU time of a process that this check started during a {@link #run(File)} execution.
+     * 
+     * @param cpuTime The CPU time of the process in nanoseconds. -1 (i.e. unknown) is ignored.
+     * 
+     * @see net.ssehub.teaching.submission_check.utils.ProcessWatchdog#getCpuTime()
+     */
+    protected void addChildCpuTime(long cpuTime) {
+        if (cpuTime != -1) {
+            this.childCpuTime = Math.max(this.childCpuTime, 0) + cpuTime;
+        }
+    }
+    
+    /**
+     * Retrieves the CPU time of the processes that the previous {@link #run(File)} started. Like
+     * {@link #getResultMessages()}, this is reset after this method is invoked.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if no processes were started (or their CPU time is unknown).
+     */
+    public long getChildCpuTime() {
+        long result = this.childCpuTime;
+        this.childCpuTime = -1;
+        return result;
+    }
+    
+    /**
+     * Sub-classes that process files in other threads of this JVM call this to record the resources that these
+     * threads used, since they are not visible to a meter of the thread that runs this check.
+     * 
+     * @param cpuTime The CPU time of the other threads in nanoseconds. Ignored if -1.
+     * @param allocatedBytes The bytes that the other threads allocated on the heap. Ignored if -1.
+     */
+    protected void addWorkerUsage(long cpuTime, long allocatedBytes) {
+        if (cpuTime != -1) {
+            this.workerCpuTime = Math.max(this.workerCpuTime, 0) + cpuTime;
+        }
+        if (allocatedBytes != -1) {
+            this.workerAllocatedBytes = Math.max(this.workerAllocatedBytes, 0) + allocatedBytes;
+        }
+    }
+    
+    /**
+     * Retrieves the CPU time of the other threads that the previous {@link #run(File)} used (see
+     * {@link #addWorkerUsage(long, long)}). Like {@link #getResultMessages()}, this is reset after this method is
+     * invoked.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if no other threads were used (or their CPU time is unknown).
+     */
+    public long getWorkerCpuTime() {
+        long result = this.workerCpuTime;
+        this.workerCpuTime = -1;
+        return result;
+    }
+    
+    /**
+     * Retrieves the bytes that the other threads that the previous {@link #run(File)} used allocated on the heap (see
+     * {@link #addWorkerUsage(long, long)}). Like {@link #getResultMessages()}, this is reset after this method is
+     * invoked.
+     * 
+     * @return The allocated bytes, or -1 if no other threads were used (or their allocations are unknown).
+     */
+    public long getWorkerAllocatedBytes() {
+        long result = this.workerAllocatedBytes;
+        this.workerAllocatedBytes = -1;
+        return result;
+    }
+    
+    /**
+     * Retrieves whether the previous {@link #run(File)} did not complete, because it exceeded its time limit (see
+     * {@link #addTimeoutMessage(String)}) or an internal error occurred (see
+     * {@link #addInternalErrorMessage(String, String)}). The result of such a run depends on the circumstances of this
+     * execution (like the load of the machine), so it must not be re-used for an identical submission. Like
+     * {@link #getResultMessages()}, this is reset after this method is invoked.
+     * 
+     * @return Whether the previous run was incomplete.
+     */
+    public boolean wasIncomplete() {
+        boolean result = this.incomplete;
+        this.incomplete = false;
+        return result;
+    }
+    
+    /**
+     * Sets the {@link SourceFileCache} that this check should use in the following {@link #run(File)} executions. This
+     * allows sharing the source files between all {@link Check}s that run on the same submission.
+     * 
+     * @param sourceFileCache The cache to use, or <code>null</code> to not use a shared cache anymore.
+     */
+    public void setSourceFileCache(SourceFileCache sourceFileCache) {
+        this.sourceFileCache = sourceFileCache;
+    }
+    
+    /**
+     * Returns the {@link SourceFileCache} for the given submission directory. If no cache has been set via
+     * {@link #setSourceFileCache(SourceFileCache)}, or the cache is for a different directory, a new cache is created
+     * that is only used by the current caller.
+     * 
+     * @param submissionDirectory The directory that this check runs on.
+     * 
+     * @return The {@link SourceFileCache} for the given directory.
+     */
+    protected SourceFileCache getSourceFileCache(File submissionDirectory) {
+        SourceFileCache result = this.sourceFileCache;
+        if (result == null || !result.getSubmissionDirectory().equals(submissionDirectory)) {
+            result = new SourceFileCache(submissionDirectory);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the {@link SubmissionIndex} of the given submission directory. This is the index of the
+     * {@link #getSourceFileCache(File)}, so all {@link Check}s of a run share it.
+     * 
+     * @param submissionDirectory The directory that this check runs on.
+     * 
+     * @return The {@link SubmissionIndex} for the given directory.
+     */
+    protected SubmissionIndex getSubmissionIndex(File submissionDirectory) {
+        return getSourceFileCache(submissionDirectory).getSubmissionIndex();
+    }
+    
+    /**
+     * Sets the time budget for a single {@link #run(File)}. This is enforced by the
+     * {@link net.ssehub.teaching.submission_check.CheckRunner} via {@link #setDeadline(Deadline)}.
+     * 
+     * @param timeout The time budget in milliseconds. 0 means no limit.
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+    
+    /**
+     * Returns the time budget for a single {@link #run(File)}.
+     * 
+     * @return The time budget in milliseconds; 0 means no limit.
+     * 
+     * @see #setTimeout(long)
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+    
+    /**
+     * Sets the {@link Deadline} for the following {@link #run(File)} executions.
+     * 
+     * @param deadline The deadline; {@link Deadline#NONE} for no limit.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Returns the {@link Deadline} of the current {@link #run(File)}.
+     * 
+     * @return The deadline; {@link Deadline#NONE} if there is no limit.
+     */
+    protected Deadline getDeadline() {
+        return deadline;
+    }
+    
+    /**
+     * Adds the {@link ResultMessage} for a run that has been aborted because its {@link #getDeadline()} expired. The
+     * run is marked as incomplete (see {@link #wasIncomplete()}).
+     * 
+     * @param checkName The name of the check, used in the message.
+     */
+    protected void addTimeoutMessage(String checkName) {
+        LOGGER.log(Level.WARNING, "{0} aborted since its time limit is exceeded", checkName);
+        
+        incomplete = true;
+        addResultMessage(new ResultMessage(checkName, MessageType.ERROR,
+                "Check aborted since it exceeded its time limit"));
+    }
+    
+    /**
+     * Adds the {@link ResultMessage} for a run that failed because of an internal error (e.g. an I/O error
+     * that is not caused by the submission). The run is marked as incomplete (see {@link #wasIncomplete()}).
+     * 
+     * @param checkName The name of the check, used in the message.
+     * @param description The description of the failed action, e.g. <code>"running javac"</code>.
+     */
+    protected void addInternalErrorMessage(String checkName, String description) {
+        incomplete = true;
+        addResultMessage(new ResultMessage(checkName, MessageType.ERROR,
+                "An internal error occurred while " + description));
+    }
+    
 }
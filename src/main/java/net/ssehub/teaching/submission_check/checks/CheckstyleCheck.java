@@ -16,10 +16,12 @@
 package net.ssehub.teaching.submission_check.checks;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -27,11 +29,9 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.puppycrawl.tools.checkstyle.Checker;
-import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
 import com.puppycrawl.tools.checkstyle.api.AuditEvent;
 import com.puppycrawl.tools.checkstyle.api.AuditListener;
 import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
-import com.puppycrawl.tools.checkstyle.api.Configuration;
 
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
@@ -39,7 +39,15 @@ import net.ssehub.teaching.submission_check.utils.FileUtils;
 
 /**
  * Runs Checkstyle on all Java source files. Fails if there are any Checkstyle errors. Creates {@link ResultMessage}s
- * for all Checkstyle errors and warnings.
+ * for all Checkstyle errors and warnings. The configured Checkstyle {@link Checker}s are re-used across runs (see
+ * {@link CheckstyleCheckerPool}).
+ * <p>
+ * Optionally, a cache file can be set (see {@link #setCacheFile(File)}). Files that Checkstyle already analyzed
+ * without any messages in a previous run are then not analyzed again, as long as their content, the Checkstyle version,
+ * the rules file, the charset and the resources referenced by the rules are unchanged (see
+ * {@link CheckstyleFileCache}).
+ * <p>
+ * Checkstyle is aborted before it starts the next file once the {@link #getDeadline()} has expired.
  * 
  * @author Adam
  */
@@ -49,10 +57,18 @@ public class CheckstyleCheck extends Check {
     
     private static final Logger LOGGER = Logger.getLogger(CheckstyleCheck.class.getName());
     
+    /**
+     * The configured {@link Checker}s shared by all instances, so that the rules are not loaded again for every run.
+     */
+    private static final CheckstyleCheckerPool CHECKER_POOL = new CheckstyleCheckerPool(
+            Runtime.getRuntime().availableProcessors());
+    
     private File checkstyleRules;
 
     private Charset charset;
     
+    private File cacheFile;
+    
     /**
      * Creates a re-usable {@link CheckstyleCheck}.
      * 
@@ -93,14 +109,53 @@ public class CheckstyleCheck extends Check {
         return charset;
     }
     
+    /**
+     * Sets the file that the results of previous runs are cached in. Files that have been analyzed without any
+     * messages and have not changed since then are skipped. The cache is discarded if the rules file or the charset
+     * change. By default, this is <code>null</code>, i.e. all files are analyzed in every run.
+     * 
+     * @param cacheFile The cache file. Does not have to exist yet. <code>null</code> disables the cache.
+     */
+    public void setCacheFile(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+    
+    /**
+     * Returns the file that the results of previous runs are cached in.
+     * 
+     * @return The cache file, or <code>null</code> if no cache is used.
+     * 
+     * @see #setCacheFile(File)
+     */
+    public File getCacheFile() {
+        return cacheFile;
+    }
+    
     @Override
     public boolean run(File submissionDirectory) {
         boolean success;
         
-        Set<File> javaFiles = FileUtils.findFilesBySuffix(submissionDirectory, ".java");
+        Set<File> javaFiles = getSourceFileCache(submissionDirectory).getFilesBySuffix(".java");
+        
+        CheckstyleFileCache cache = null;
+        if (cacheFile != null && !javaFiles.isEmpty()) {
+            try {
+                cache = new CheckstyleFileCache(cacheFile, checkstyleRules, charset,
+                        CHECKER_POOL.getConfiguration(checkstyleRules, charset));
+                Set<File> changedFiles = cache.getChangedFiles(submissionDirectory, javaFiles);
+                
+                LOGGER.log(Level.FINE, "Skipping {0} of {1} files that are unchanged since the last run",
+                        new Object[] {javaFiles.size() - changedFiles.size(), javaFiles.size()});
+                javaFiles = changedFiles;
+                
+            } catch (IOException | CheckstyleException e) {
+                LOGGER.log(Level.WARNING, "Could not read Checkstyle cache " + cacheFile + ", analyzing all files", e);
+                cache = null;
+            }
+        }
         
         if (!javaFiles.isEmpty()) {
-            success = runCheckstyle(submissionDirectory, javaFiles);
+            success = runCheckstyle(submissionDirectory, javaFiles, cache);
             
         } else {
             success = true;
@@ -113,46 +168,88 @@ public class CheckstyleCheck extends Check {
      * Runs Checkstyle on the given Java source files in the given directory.
      * 
      * @param submissionDirectory The directory to work in.
-     * @param javaFiles All Java source files in that directory.
+     * @param javaFiles The Java source files in that directory to analyze.
+     * @param cache The {@link CheckstyleFileCache} to update with the results, or <code>null</code>.
      * 
      * @return Whether the check was successful.
      */
-    private boolean runCheckstyle(File submissionDirectory, Set<File> javaFiles) {
+    private boolean runCheckstyle(File submissionDirectory, Set<File> javaFiles, CheckstyleFileCache cache) {
         boolean success;
         
         LOGGER.log(Level.FINER, "Using rules: {0}", checkstyleRules);
         LOGGER.log(Level.FINER, "Running on files: {0}...", javaFiles);
         
+        Checker checkstyle = null;
+        boolean reusable = false;
         try {
-            Configuration configuration = ConfigurationLoader.loadConfiguration(
-                    checkstyleRules.getAbsolutePath(), null);
-            
-            Checker checkstyle = new Checker();
-            checkstyle.setModuleClassLoader(Checker.class.getClassLoader());
-            checkstyle.configure(configuration);
+            checkstyle = CHECKER_POOL.acquire(checkstyleRules, this.charset);
             checkstyle.setBasedir(submissionDirectory.getAbsolutePath());
-            checkstyle.setCharset(this.charset.name());
-            checkstyle.setHaltOnException(false);
             
             CheckstyleOutputListener listener = new CheckstyleOutputListener();
             checkstyle.addListener(listener);
+            try {
+                checkstyle.process(new ArrayList<>(javaFiles));
+                reusable = true;
+            } catch (CheckstyleException e) {
+                if (!listener.hasCancelled()) {
+                    throw e;
+                }
+            } finally {
+                checkstyle.removeListener(listener);
+            }
             
-            checkstyle.process(new ArrayList<>(javaFiles));
-            checkstyle.destroy();
-            
-            success = listener.getNumErrors() == 0;
+            if (listener.hasCancelled()) {
+                // messages of the files analyzed so far are kept; the cache is not updated for an incomplete run
+                success = false;
+                addTimeoutMessage(CHECK_NAME);
+                
+            } else {
+                success = listener.getNumErrors() == 0;
+                
+                if (cache != null) {
+                    updateCache(cache, submissionDirectory, javaFiles, listener.getFilesWithMessages());
+                }
+            }
             
         } catch (CheckstyleException | UnsupportedEncodingException e) {
             LOGGER.log(Level.WARNING, "Exception while running Checkstyle", e);
             
-            addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR,
-                    "An internal error occurred while running Checkstyle"));
+            addInternalErrorMessage(CHECK_NAME, "running Checkstyle");
             success = false;
+            
+        } finally {
+            if (checkstyle != null) {
+                CHECKER_POOL.release(checkstyle, reusable);
+            }
         }
         
         return success;
     }
     
+    /**
+     * Updates the given cache with the results of a Checkstyle run and writes it back to its file. Failures to write
+     * the cache are only logged, since they do not affect the result of this check.
+     * 
+     * @param cache The {@link CheckstyleFileCache} to update.
+     * @param submissionDirectory The directory that Checkstyle ran in.
+     * @param javaFiles The files that Checkstyle analyzed.
+     * @param filesWithMessages The files (relative to the submission directory) that Checkstyle created messages for.
+     */
+    private void updateCache(CheckstyleFileCache cache, File submissionDirectory, Set<File> javaFiles,
+            Set<File> filesWithMessages) {
+        
+        for (File file : javaFiles) {
+            File relativeFile = FileUtils.getRelativeFile(submissionDirectory, file);
+            cache.update(relativeFile, !filesWithMessages.contains(relativeFile));
+        }
+        
+        try {
+            cache.persist();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write Checkstyle cache " + cacheFile, e);
+        }
+    }
+    
     /**
      * A listener that processes the audit events that Checkstyle produces.
      */
@@ -169,6 +266,10 @@ public class CheckstyleCheck extends Check {
         
         private int numErrors = 0;
         
+        private Set<File> filesWithMessages = new HashSet<>();
+        
+        private boolean cancelled;
+        
         /**
          * Returns the number of errors that occurred during the audit.
          * 
@@ -178,6 +279,24 @@ public class CheckstyleCheck extends Check {
             return numErrors;
         }
         
+        /**
+         * Returns the files that {@link ResultMessage}s were created for.
+         * 
+         * @return The files, relative to the submission directory.
+         */
+        public Set<File> getFilesWithMessages() {
+            return filesWithMessages;
+        }
+        
+        /**
+         * Returns whether this listener aborted the audit because the {@link #getDeadline()} expired.
+         * 
+         * @return Whether the audit was aborted.
+         */
+        public boolean hasCancelled() {
+            return cancelled;
+        }
+        
         @Override
         public void auditStarted(AuditEvent event) {
         }
@@ -186,8 +305,16 @@ public class CheckstyleCheck extends Check {
         public void auditFinished(AuditEvent event) {
         }
 
+        /**
+         * Aborts the audit by throwing an exception, if the {@link #getDeadline()} has expired. {@link Checker} passes
+         * this on wrapped in a {@link CheckstyleException}.
+         */
         @Override
         public void fileStarted(AuditEvent event) {
+            if (getDeadline().isExpired()) {
+                cancelled = true;
+                throw new IllegalStateException("Deadline expired before " + event.getFileName());
+            }
         }
 
         @Override
@@ -231,6 +358,7 @@ public class CheckstyleCheck extends Check {
                 
                 if (event.getFileName() != null) {
                     resultMessage.setFile(new File(event.getFileName()));
+                    filesWithMessages.add(new File(event.getFileName()));
                 }
                 if (line != 0) {
                     resultMessage.setLine(line);
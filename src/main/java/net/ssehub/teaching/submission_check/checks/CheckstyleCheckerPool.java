@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+/**
+ * A bounded pool of configured Checkstyle {@link Checker}s for the {@link CheckstyleCheck}. Parsing the rules file and
+ * instantiating all modules is a large part of each Checkstyle run; this pool caches the parsed {@link Configuration}
+ * and keeps idle {@link Checker}s to hand them out again for runs with the same rules file and charset. The rules
+ * file is identified by its path and its modification time, so a modified rules file is loaded again.
+ * <p>
+ * A {@link Checker} is used by only one run at a time; it is only handed out again after it has been passed back via
+ * {@link #release(Checker, boolean)}. The least recently used idle {@link Checker}s are destroyed if there are more
+ * than the maximum number of idle {@link Checker}s (see {@link KeyedLruPool}).
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author Adam
+ */
+class CheckstyleCheckerPool {
+    
+    private static final Logger LOGGER = Logger.getLogger(CheckstyleCheckerPool.class.getName());
+    
+    /**
+     * The rules file and charset that a {@link Checker} was configured with.
+     */
+    private static class Key {
+        
+        private String rulesPath;
+        
+        private long rulesTimestamp;
+        
+        private Charset charset;
+        
+        /**
+         * Creates a new key.
+         * 
+         * @param rules The Checkstyle rules file.
+         * @param charset The charset of the source files.
+         */
+        Key(File rules, Charset charset) {
+            this.rulesPath = rules.getAbsolutePath();
+            this.rulesTimestamp = rules.lastModified();
+            this.charset = charset;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(rulesPath, rulesTimestamp, charset);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            boolean equal = false;
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                equal = rulesPath.equals(other.rulesPath) && rulesTimestamp == other.rulesTimestamp
+                        && charset.equals(other.charset);
+            }
+            return equal;
+        }
+        
+    }
+    
+    private Map<Key, Configuration> configurations;
+    
+    private KeyedLruPool<Key, Checker> pool;
+    
+    /**
+     * Creates a new, empty pool.
+     * 
+     * @param maxIdle The maximum number of idle {@link Checker}s and cached {@link Configuration}s to keep.
+     */
+    CheckstyleCheckerPool(int maxIdle) {
+        this.configurations = new LinkedHashMap<>(16, 0.75f, true) {
+            
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Configuration> eldest) {
+                return size() > maxIdle;
+            }
+            
+        };
+        this.pool = new KeyedLruPool<>(maxIdle, Checker::destroy);
+    }
+    
+    /**
+     * Returns a {@link Checker} that is configured with the given rules file and charset. If there is an idle
+     * {@link Checker} for these settings, it is re-used; otherwise a new one is created. The caller has to set the
+     * base directory and add its listener before processing files, and remove the listener again afterwards.
+     * 
+     * @param rules The Checkstyle rules file.
+     * @param charset The charset of the source files.
+     * 
+     * @return A {@link Checker} that is exclusively used by the caller until it is passed to
+     *      {@link #release(Checker, boolean)}.
+     * 
+     * @throws CheckstyleException If loading the rules or configuring the {@link Checker} fails.
+     * @throws UnsupportedEncodingException If the charset is not supported by Checkstyle.
+     */
+    Checker acquire(File rules, Charset charset) throws CheckstyleException, UnsupportedEncodingException {
+        Key key = new Key(rules, charset);
+        
+        Checker checker = pool.takeIdle(key);
+        if (checker == null) {
+            Configuration configuration = getConfiguration(key);
+            
+            checker = new Checker();
+            checker.setModuleClassLoader(Checker.class.getClassLoader());
+            checker.configure(configuration);
+            checker.setCharset(charset.name());
+            checker.setHaltOnException(false);
+            pool.addInUse(key, checker);
+        }
+        
+        return checker;
+    }
+    
+    /**
+     * Returns the parsed Checkstyle configuration of the given rules file. Configurations are cached like in
+     * {@link #acquire(File, Charset)}.
+     * 
+     * @param rules The Checkstyle rules file.
+     * @param charset The charset of the source files.
+     * 
+     * @return The parsed configuration.
+     * 
+     * @throws CheckstyleException If loading the rules fails.
+     */
+    Configuration getConfiguration(File rules, Charset charset) throws CheckstyleException {
+        return getConfiguration(new Key(rules, charset));
+    }
+    
+    /**
+     * Returns the cached configuration for the given key, or loads it if it is not cached.
+     * 
+     * @param key The key of the rules file and charset.
+     * 
+     * @return The parsed configuration.
+     * 
+     * @throws CheckstyleException If loading the rules fails.
+     */
+    private Configuration getConfiguration(Key key) throws CheckstyleException {
+        Configuration configuration;
+        synchronized (this) {
+            configuration = configurations.get(key);
+        }
+        
+        if (configuration == null) {
+            LOGGER.log(Level.FINE, "Loading Checkstyle rules {0}", key.rulesPath);
+            
+            configuration = ConfigurationLoader.loadConfiguration(key.rulesPath, null);
+            synchronized (this) {
+                configurations.put(key, configuration);
+            }
+        }
+        
+        return configuration;
+    }
+    
+    /**
+     * Passes a {@link Checker} retrieved by {@link #acquire(File, Charset)} back to this pool.
+     * 
+     * @param checker The {@link Checker} that is no longer used by the caller. All listeners added by the caller must
+     *      have been removed.
+     * @param reusable Whether the {@link Checker} may be re-used. Should be <code>false</code> if processing failed
+     *      with an exception, since the state of the {@link Checker} is unknown in that case.
+     */
+    void release(Checker checker, boolean reusable) {
+        pool.release(checker, reusable);
+    }
+    
+    /**
+     * Returns the number of idle {@link Checker}s in this pool.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return The number of idle {@link Checker}s.
+     */
+    int getNumIdle() {
+        return pool.getNumIdle();
+    }
+    
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.utils.CommonUtil;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.HashUtils;
+
+/**
+ * A persistent cache of the Java files that Checkstyle has already analyzed without any messages. Files that have not
+ * changed since then do not have to be analyzed again. This works like the cache file of Checkstyle, but the files are
+ * identified by their path relative to the submission directory and a hash of their content, instead of their
+ * absolute path and modification time (which are different for every checkout).
+ * <p>
+ * All entries are discarded if the Checkstyle version, the rules file, the charset, or one of the external resources
+ * that the rules reference (e.g. a suppressions or header file) change. As with the cache of Checkstyle, checks that
+ * depend on multiple files are only re-evaluated for the changed files.
+ * 
+ * @author Adam
+ */
+class CheckstyleFileCache {
+    
+    /**
+     * The key of the entry that stores the hash of the Checkstyle version, the rules file, the charset and the
+     * external resources. Cannot be confused with a file path, since the file paths are relative.
+     */
+    private static final String CONFIGURATION_KEY = "/configuration";
+    
+    /**
+     * The resource that contains the version of the Checkstyle library.
+     */
+    private static final String CHECKSTYLE_PROPERTIES
+            = "/META-INF/maven/com.puppycrawl.tools/checkstyle/pom.properties";
+    
+    /**
+     * The version of the Checkstyle library. A new version may report files that an older version found clean.
+     */
+    private static final String CHECKSTYLE_VERSION = readCheckstyleVersion();
+    
+    private File cacheFile;
+    
+    private Properties entries;
+    
+    private Map<String, String> currentHashes;
+    
+    /**
+     * Loads the cache from the given file. If the file does not exist, or was created for a different Checkstyle
+     * version, different rules, a different charset or different external resources, the cache is empty.
+     * 
+     * @param cacheFile The file that the cache is stored in.
+     * @param rules The Checkstyle rules file.
+     * @param charset The charset of the source files.
+     * @param configuration The configuration parsed from the rules file. Used to find the external resources.
+     * 
+     * @throws IOException If reading the cache file, the rules file or an external resource fails.
+     */
+    CheckstyleFileCache(File cacheFile, File rules, Charset charset, Configuration configuration)
+            throws IOException {
+        this.cacheFile = cacheFile;
+        this.entries = new Properties();
+        this.currentHashes = new HashMap<>();
+        
+        MessageDigest digest = HashUtils.createDigest();
+        updateWithString(digest, CHECKSTYLE_VERSION);
+        updateWithString(digest, charset.name());
+        HashUtils.updateWithFile(digest, rules);
+        digest.update((byte) 0);
+        for (Map.Entry<String, URI> resource : getExternalResources(configuration).entrySet()) {
+            updateWithString(digest, resource.getKey());
+            try (InputStream input = resource.getValue().toURL().openStream()) {
+                HashUtils.updateWithStream(digest, input);
+            }
+            digest.update((byte) 0);
+        }
+        String configurationHash = HashUtils.toHex(digest);
+        
+        if (cacheFile.isFile()) {
+            try (InputStream input = FileUtils.newInputStream(cacheFile)) {
+                entries.load(input);
+            }
+            
+            if (!configurationHash.equals(entries.getProperty(CONFIGURATION_KEY))) {
+                entries.clear();
+            }
+        }
+        
+        entries.setProperty(CONFIGURATION_KEY, configurationHash);
+    }
+    
+    /**
+     * Determines which of the given files have changed since they were last analyzed without any messages. Entries
+     * for files that are no longer part of the submission are removed.
+     * 
+     * @param submissionDirectory The directory that contains the submission.
+     * @param files The Java files in the submission directory.
+     * 
+     * @return The files that need to be analyzed.
+     * 
+     * @throws IOException If reading a file fails.
+     */
+    Set<File> getChangedFiles(File submissionDirectory, Set<File> files) throws IOException {
+        Set<File> changed = new HashSet<>();
+        
+        currentHashes.clear();
+        for (File file : files) {
+            String path = getKey(FileUtils.getRelativeFile(submissionDirectory, file));
+            String hash = hash(HashUtils.createDigest(), file);
+            currentHashes.put(path, hash);
+            
+            if (!hash.equals(entries.getProperty(path))) {
+                changed.add(file);
+            }
+        }
+        
+        entries.keySet().removeIf((key) -> !key.equals(CONFIGURATION_KEY) && !currentHashes.containsKey(key));
+        
+        return changed;
+    }
+    
+    /**
+     * Updates the entry of an analyzed file. Must be called for all files returned by
+     * {@link #getChangedFiles(File, Set)}.
+     * 
+     * @param relativeFile The file, relative to the submission directory.
+     * @param clean Whether Checkstyle created no messages for the file. Only these files are not analyzed again.
+     */
+    void update(File relativeFile, boolean clean) {
+        String path = getKey(relativeFile);
+        if (clean && currentHashes.containsKey(path)) {
+            entries.setProperty(path, currentHashes.get(path));
+        } else {
+            entries.remove(path);
+        }
+    }
+    
+    /**
+     * Writes the cache back to its file.
+     * 
+     * @throws IOException If writing the file fails.
+     */
+    void persist() throws IOException {
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        
+        // write to a temporary file first, so that concurrent readers never see a partially written cache
+        File temporary = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+        try (OutputStream output = Files.newOutputStream(temporary.toPath())) {
+            entries.store(output, null);
+        }
+        Files.move(temporary.toPath(), cacheFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Converts a relative file to the key of its entry. Always uses forward slashes, so that the cache does not
+     * depend on the platform.
+     * 
+     * @param relativeFile The file relative to the submission directory.
+     * 
+     * @return The key of the entry.
+     */
+    private static String getKey(File relativeFile) {
+        return relativeFile.getPath().replace(File.separatorChar, '/');
+    }
+    
+    /**
+     * Reads the version of the Checkstyle library.
+     * 
+     * @return The version, or <code>"unknown"</code> if it cannot be determined.
+     */
+    private static String readCheckstyleVersion() {
+        String version = null;
+        try (InputStream input = Checker.class.getResourceAsStream(CHECKSTYLE_PROPERTIES)) {
+            if (input != null) {
+                Properties properties = new Properties();
+                properties.load(input);
+                version = properties.getProperty("version");
+            }
+        } catch (IOException e) {
+            // fall back to the manifest below
+        }
+        
+        if (version == null) {
+            version = Checker.class.getPackage().getImplementationVersion();
+        }
+        return version != null ? version : "unknown";
+    }
+    
+    /**
+     * Finds the external resources that the modules of the given configuration reference, e.g. the file of a
+     * suppression filter or the header file of a header check. Like Checkstyle does for its own cache, every attribute
+     * value that resolves to a file or a resource on the classpath is considered. Remote locations are not
+     * considered, so that creating the cache never needs network access.
+     * 
+     * @param configuration The configuration to search.
+     * 
+     * @return The external resources, sorted by the attribute value that references them.
+     */
+    private static SortedMap<String, URI> getExternalResources(Configuration configuration) {
+        SortedMap<String, URI> resources = new TreeMap<>();
+        addExternalResources(configuration, resources);
+        return resources;
+    }
+    
+    /**
+     * Adds the external resources of the given module and all of its children.
+     * 
+     * @param configuration The configuration of the module.
+     * @param resources The map to add the resources to.
+     */
+    private static void addExternalResources(Configuration configuration, Map<String, URI> resources) {
+        for (String name : configuration.getAttributeNames()) {
+            try {
+                String value = configuration.getAttribute(name);
+                if (!value.isEmpty() && !resources.containsKey(value)) {
+                    URI location = CommonUtil.getUriByFilename(value);
+                    if (isLocalResource(location)) {
+                        resources.put(value, location);
+                    }
+                }
+            } catch (CheckstyleException | IllegalArgumentException e) {
+                // most attribute values are not resources; malformed file URIs cannot be read either
+            }
+        }
+        
+        for (Configuration child : configuration.getChildren()) {
+            addExternalResources(child, resources);
+        }
+    }
+    
+    /**
+     * Checks whether the given location is a local file or a resource in a JAR archive on the classpath.
+     * 
+     * @param location The location to check.
+     * 
+     * @return Whether the location is a regular local file or JAR resource.
+     */
+    private static boolean isLocalResource(URI location) {
+        boolean result;
+        if ("file".equals(location.getScheme())) {
+            result = new File(location).isFile();
+        } else {
+            result = "jar".equals(location.getScheme()) && !location.toString().endsWith("/");
+        }
+        return result;
+    }
+    
+    /**
+     * Updates the digest with the given string, followed by a separator.
+     * 
+     * @param digest The digest to update.
+     * @param value The string to add.
+     */
+    private static void updateWithString(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+    
+    /**
+     * Updates the digest with the content of the given file and returns the resulting hash.
+     * 
+     * @param digest The digest to update.
+     * @param file The file to hash.
+     * 
+     * @return The hash as a hexadecimal string.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    private static String hash(MessageDigest digest, File file) throws IOException {
+        HashUtils.updateWithFile(digest, file);
+        return HashUtils.toHex(digest);
+    }
+    
+}
@@ -32,9 +32,11 @@ import java.util.regex.Pattern;
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
 import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.ProcessWatchdog;
 
 /**
  * Implements a {@link JavacCheck} that uses standard command-line process <code>javac</code> to run the Java compiler.
+ * The process is killed if it exceeds the {@link #getDeadline()} (see {@link ProcessWatchdog}).
  *  
  * @author Adam
  */
@@ -90,28 +92,41 @@ public class CliJavacCheck extends JavacCheck {
         try {
             Process process = processBuilder.start();
             
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
             List<String> output = new LinkedList<>();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.add(line);
+            int exitCode;
+            boolean killed;
+            try (ProcessWatchdog watchdog = new ProcessWatchdog(process, getDeadline(), true)) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.add(line);
+                }
+                
+                exitCode = process.waitFor();
+                killed = watchdog.hasKilled();
+                addChildCpuTime(watchdog.getCpuTime());
             }
             
-            int exitCode = process.waitFor();
-            success = exitCode == 0;
-            
-            int numCreated = createMessagesFromOutput(output);
-            
-            if (!success && numCreated == 0) {
-                addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR, "javac failed without message"));
+            if (killed) {
+                success = false;
+                addTimeoutMessage(CHECK_NAME);
+                
+            } else {
+                success = exitCode == 0;
+                
+                int numCreated = createMessagesFromOutput(output);
+                
+                if (!success && numCreated == 0) {
+                    addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR,
+                            "javac failed without message"));
+                }
             }
             
         } catch (IOException | InterruptedException e) {
             LOGGER.log(Level.WARNING, "Exception while running javac", e);
             
             success = false;
-            addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR,
-                    "An internal error occurred while running javac"));
+            addInternalErrorMessage(CHECK_NAME, "running javac");
         }
         
         return success;
@@ -142,6 +157,10 @@ public class CliJavacCheck extends JavacCheck {
             command.add("-Xlint");
         }
         
+        // only the diagnostics are needed; don't write class files next to the sources
+        command.add("-proc:none");
+        command.add(SKIP_CODE_GENERATION_OPTION);
+        
         if (!getClasspath().isEmpty()) {
             command.add("--class-path");
             
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * Determines the mime-type of submission files without asking the operating system. The mime-type is determined by
+ * (in this order):
+ * <ol>
+ *      <li>The <code>svn:mime-type</code> property of the file, if the SVN layer provides it.</li>
+ *      <li>A fixed table of file extensions that are common in submissions.</li>
+ *      <li>The first {@value #SNIFF_LENGTH} bytes of the file: known magic numbers and control characters mark binary
+ *      files.</li>
+ * </ol>
+ * All <code>text/*</code> types are considered as text (see {@link #isText(String)}), including XML, JSON, JavaScript
+ * and shell scripts, which <code>Files.probeContentType()</code> reports as <code>application/*</code> on Linux.
+ * Only {@link net.ssehub.teaching.submission_check.svn.FsfsSvnInterface} provides the <code>svn:mime-type</code>
+ * property; with the command line tools, the classification is based on the extension and content only.
+ * 
+ * @author Adam
+ */
+class ContentTypeClassifier {
+    
+    static final int SNIFF_LENGTH = 512;
+    
+    private static final String OCTET_STREAM = "application/octet-stream";
+    
+    private static final Map<String, String> EXTENSIONS = new HashMap<>();
+    
+    /**
+     * Mime-types and the magic numbers at the start of such files. Byte order marks come first, since UTF-16 and
+     * UTF-32 text contains NUL bytes.
+     */
+    private static final Map<String, byte[]> MAGIC_NUMBERS = new LinkedHashMap<>();
+    
+    static {
+        MAGIC_NUMBERS.put("text/plain; charset=utf-8", new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        MAGIC_NUMBERS.put("text/plain; charset=utf-16be", new byte[] {(byte) 0xFE, (byte) 0xFF});
+        MAGIC_NUMBERS.put("text/plain; charset=utf-16le", new byte[] {(byte) 0xFF, (byte) 0xFE});
+        MAGIC_NUMBERS.put("application/pdf", new byte[] {'%', 'P', 'D', 'F', '-'});
+        MAGIC_NUMBERS.put("application/zip", new byte[] {'P', 'K', 3, 4});
+        MAGIC_NUMBERS.put("image/png", new byte[] {(byte) 0x89, 'P', 'N', 'G'});
+        MAGIC_NUMBERS.put("image/jpeg", new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF});
+        MAGIC_NUMBERS.put("image/gif", new byte[] {'G', 'I', 'F', '8'});
+        MAGIC_NUMBERS.put("application/java-vm", new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+        MAGIC_NUMBERS.put("application/x-executable", new byte[] {0x7F, 'E', 'L', 'F'});
+        
+        for (String extension : new String[] {"java", "txt", "md", "properties", "csv", "sh", "bat", "gradle",
+            "py", "c", "h", "cpp", "hpp", "tex", "bib", "sql", "yml", "yaml", "prefs", "mf", "gitignore"}) {
+            EXTENSIONS.put(extension, "text/plain");
+        }
+        for (String extension : new String[] {"xml", "classpath", "project", "xsd", "xsl", "fxml"}) {
+            EXTENSIONS.put(extension, "text/xml");
+        }
+        EXTENSIONS.put("html", "text/html");
+        EXTENSIONS.put("htm", "text/html");
+        EXTENSIONS.put("css", "text/css");
+        EXTENSIONS.put("js", "text/javascript");
+        EXTENSIONS.put("json", "text/json");
+        
+        for (String extension : new String[] {"bin", "class", "exe", "dll", "so", "o", "ser", "dat"}) {
+            EXTENSIONS.put(extension, OCTET_STREAM);
+        }
+        for (String extension : new String[] {"jar", "zip", "war", "ear"}) {
+            EXTENSIONS.put(extension, "application/zip");
+        }
+        EXTENSIONS.put("pdf", "application/pdf");
+        EXTENSIONS.put("png", "image/png");
+        EXTENSIONS.put("jpg", "image/jpeg");
+        EXTENSIONS.put("jpeg", "image/jpeg");
+        EXTENSIONS.put("gif", "image/gif");
+        EXTENSIONS.put("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+        EXTENSIONS.put("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        EXTENSIONS.put("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+    }
+    
+    /**
+     * No instances.
+     */
+    private ContentTypeClassifier() {
+    }
+    
+    /**
+     * Determines the mime-type of the given file.
+     * 
+     * @param file The file to classify.
+     * @param svnMimeType The <code>svn:mime-type</code> property of the file. <code>null</code> if the file does not
+     *      have this property, or the property is not known.
+     * 
+     * @return The mime-type of the file. <code>null</code> if it is unknown, e.g. for empty files.
+     * 
+     * @throws IOException If reading the start of the file fails.
+     */
+    static String getMimeType(File file, String svnMimeType) throws IOException {
+        return getMimeType(file, svnMimeType, null);
+    }
+    
+    /**
+     * Determines the mime-type of the given file, like {@link #getMimeType(File, String)}. If the start of the file
+     * has to be read, it is read through the given {@link SourceFileCache}, so that content in memory is used.
+     * 
+     * @param file The file to classify.
+     * @param svnMimeType The <code>svn:mime-type</code> property of the file, or <code>null</code>.
+     * @param sourceFileCache The cache to read the file through, or <code>null</code> to read it from disk.
+     * 
+     * @return The mime-type of the file. <code>null</code> if it is unknown, e.g. for empty files.
+     * 
+     * @throws IOException If reading the start of the file fails.
+     */
+    static String getMimeType(File file, String svnMimeType, SourceFileCache sourceFileCache) throws IOException {
+        String result = svnMimeType;
+        
+        if (result == null) {
+            result = getMimeTypeByExtension(file.getName());
+        }
+        
+        if (result == null) {
+            result = sniffMimeType(file, sourceFileCache);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Determines whether the given mime-type denotes a text file. Like SVN, this considers all
+     * <code>text/*</code> types as text.
+     * 
+     * @param mimeType The mime-type. May be <code>null</code>.
+     * 
+     * @return Whether files of this mime-type are text files.
+     */
+    static boolean isText(String mimeType) {
+        return mimeType != null && mimeType.startsWith("text/");
+    }
+    
+    /**
+     * Looks up the mime-type for the extension of the given file name in the extension table.
+     * 
+     * @param fileName The name of the file.
+     * 
+     * @return The mime-type, or <code>null</code> if the extension is not in the table.
+     */
+    static String getMimeTypeByExtension(String fileName) {
+        String result = null;
+        
+        int dot = fileName.lastIndexOf('.');
+        if (dot != -1) {
+            result = EXTENSIONS.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Determines the mime-type from the first {@value #SNIFF_LENGTH} bytes of the given file.
+     * 
+     * @param file The file to read.
+     * @param sourceFileCache The cache to read the file through, or <code>null</code> to read it from disk.
+     * 
+     * @return The mime-type, or <code>null</code> if the file is empty.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    private static String sniffMimeType(File file, SourceFileCache sourceFileCache) throws IOException {
+        byte[] start;
+        try (InputStream input = sourceFileCache != null
+                ? sourceFileCache.openStream(file) : FileUtils.newInputStream(file)) {
+            start = input.readNBytes(SNIFF_LENGTH);
+        }
+        
+        String result = null;
+        if (start.length > 0) {
+            for (Map.Entry<String, byte[]> magicNumber : MAGIC_NUMBERS.entrySet()) {
+                if (result == null && startsWith(start, magicNumber.getValue())) {
+                    result = magicNumber.getKey();
+                }
+            }
+            
+            for (int i = 0; result == null && i < start.length; i++) {
+                if (isBinaryControlCharacter(start[i])) {
+                    result = OCTET_STREAM;
+                }
+            }
+            
+            if (result == null) {
+                result = "text/plain";
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Checks whether the given data starts with the given prefix.
+     * 
+     * @param data The data to check.
+     * @param prefix The prefix.
+     * 
+     * @return Whether the data starts with the prefix.
+     */
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        boolean result = data.length >= prefix.length;
+        for (int i = 0; result && i < prefix.length; i++) {
+            result = data[i] == prefix[i];
+        }
+        return result;
+    }
+    
+    /**
+     * Checks whether the given byte is a control character that does not occur in text files. Tabs, line breaks, form
+     * feeds and escape characters are considered as text.
+     * 
+     * @param b The byte to check.
+     * 
+     * @return Whether the byte marks a binary file.
+     */
+    private static boolean isBinaryControlCharacter(byte b) {
+        boolean result;
+        
+        switch (b) {
+        case '\t':
+        case '\n':
+        case '\r':
+        case '\f':
+        case 0x1B:
+            result = false;
+            break;
+        
+        default:
+            result = b >= 0 && b < 0x20;
+            break;
+        }
+        
+        return result;
+    }
+    
+}
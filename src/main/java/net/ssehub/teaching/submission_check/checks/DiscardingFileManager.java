@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * A {@link StandardJavaFileManager} that discards all class files generated by the compiler. Everything else is
+ * forwarded to the wrapped {@link StandardJavaFileManager}. The {@link InternalJavacCheck} only needs the diagnostics
+ * of the compiler, so writing class files next to the submission sources would be wasted I/O.
+ * <p>
+ * This implements {@link StandardJavaFileManager} (and not only {@link javax.tools.JavaFileManager}), since the
+ * compiler only supports <code>--release</code> with standard file managers.
+ * 
+ * @author Adam
+ */
+class DiscardingFileManager extends ForwardingJavaFileManager<StandardJavaFileManager>
+        implements StandardJavaFileManager {
+    
+    /**
+     * A class file that ignores everything that is written to it.
+     */
+    private static class DiscardedClassFile extends SimpleJavaFileObject {
+        
+        /**
+         * Creates a discarded class file for the given class.
+         * 
+         * @param className The binary name of the class.
+         */
+        DiscardedClassFile(String className) {
+            super(URI.create("discarded:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+        
+        @Override
+        public OutputStream openOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+        
+    }
+    
+    /**
+     * Creates a new {@link DiscardingFileManager}.
+     * 
+     * @param fileManager The file manager to forward everything but the class output to.
+     */
+    DiscardingFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+    
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling)
+            throws IOException {
+        
+        JavaFileObject result;
+        if (location.isOutputLocation() && kind == Kind.CLASS) {
+            result = new DiscardedClassFile(className);
+        } else {
+            result = super.getJavaFileForOutput(location, className, kind, sibling);
+        }
+        return result;
+    }
+    
+    /**
+     * Does not close the wrapped file manager, since it is re-used by the {@link JavacFileManagerPool}.
+     */
+    @Override
+    public void close() {
+    }
+    
+    @Override
+    public Iterable<? extends JavaFileObject> getJavaFileObjectsFromFiles(Iterable<? extends File> files) {
+        return fileManager.getJavaFileObjectsFromFiles(files);
+    }
+    
+    @Override
+    public Iterable<? extends JavaFileObject> getJavaFileObjectsFromPaths(Iterable<? extends Path> paths) {
+        return fileManager.getJavaFileObjectsFromPaths(paths);
+    }
+    
+    @Override
+    public Iterable<? extends JavaFileObject> getJavaFileObjects(File... files) {
+        return fileManager.getJavaFileObjects(files);
+    }
+    
+    @Override
+    public Iterable<? extends JavaFileObject> getJavaFileObjects(Path... paths) {
+        return fileManager.getJavaFileObjects(paths);
+    }
+    
+    @Override
+    public Iterable<? extends JavaFileObject> getJavaFileObjectsFromStrings(Iterable<String> names) {
+        return fileManager.getJavaFileObjectsFromStrings(names);
+    }
+    
+    @Override
+    public Iterable<? extends JavaFileObject> getJavaFileObjects(String... names) {
+        return fileManager.getJavaFileObjects(names);
+    }
+    
+    @Override
+    public void setLocation(Location location, Iterable<? extends File> files) throws IOException {
+        fileManager.setLocation(location, files);
+    }
+    
+    @Override
+    public void setLocationFromPaths(Location location, Collection<? extends Path> paths) throws IOException {
+        fileManager.setLocationFromPaths(location, paths);
+    }
+    
+    @Override
+    public void setLocationForModule(Location location, String moduleName, Collection<? extends Path> paths)
+            throws IOException {
+        fileManager.setLocationForModule(location, moduleName, paths);
+    }
+    
+    @Override
+    public Iterable<? extends File> getLocation(Location location) {
+        return fileManager.getLocation(location);
+    }
+    
+    @Override
+    public Iterable<? extends Path> getLocationAsPaths(Location location) {
+        return fileManager.getLocationAsPaths(location);
+    }
+    
+    @Override
+    public Path asPath(FileObject file) {
+        return fileManager.asPath(file);
+    }
+    
+    @Override
+    public void setPathFactory(PathFactory factory) {
+        fileManager.setPathFactory(factory);
+    }
+    
+}
@@ -116,8 +116,7 @@ public class EclipseConfigCheck extends Check {
                 LOGGER.log(Level.WARNING, "Exception while parsing eclipse configuration", e);
                 
                 success = false;
-                addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR,
-                        "An internal error occurred while checking eclipse project"));
+                addInternalErrorMessage(CHECK_NAME, "checking eclipse project");
             }
         }
         
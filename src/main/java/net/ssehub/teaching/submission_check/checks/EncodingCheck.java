@@ -18,27 +18,34 @@ package net.ssehub.teaching.submission_check.checks;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.checks.ParallelFileProcessor.Result;
 import net.ssehub.teaching.submission_check.utils.FileUtils;
 
 /**
  * Checks that all text files in the submission have a valid encoding. Fails if any text file cannot be decoded with the
  * required encoding. Creates {@link ResultMessage}s for each such incorrectly encoded file. Which files are text files
- * is determined via {@link Files#probeContentType(java.nio.file.Path)}.
+ * is determined by the {@link ContentTypeClassifier}, using the <code>svn:mime-type</code> property if the checkout
+ * provides it (only the FSFS access does). This includes files that the platform detectors of Linux do not report as
+ * text, e.g. <code>.xml</code>, <code>.json</code>, <code>.js</code> and <code>.sh</code> files and text files without
+ * an extension. Files can be checked while the submission is checked out (see {@link IStreamingCheck}). The files are
+ * validated in fixed-size chunks (see {@link EncodingValidator}); the messages contain the line and byte offset of the
+ * first invalid byte sequence. The files that were not checked while streaming can be checked by multiple threads
+ * (see {@link #setParallelism(int)}); the messages are the same and in the same order as with a single thread.
  * 
  * @author Adam
  */
-public class EncodingCheck extends Check {
+public class EncodingCheck extends Check implements IStreamingCheck {
     
     public static final String CHECK_NAME = "encoding";
     
@@ -46,11 +53,22 @@ public class EncodingCheck extends Check {
     
     private Charset wantedCharset;
     
+    private int parallelism;
+    
+    private EncodingValidator validator;
+    
+    private Set<File> checkedFiles;
+    
+    private boolean streamingSuccess;
+    
     /**
      * Creates a re-usable {@link EncodingCheck} with UTF-8 as the required charset (encoding).
      */
     public EncodingCheck() {
         this.wantedCharset = StandardCharsets.UTF_8;
+        this.parallelism = 1;
+        this.checkedFiles = new HashSet<>();
+        this.streamingSuccess = true;
     }
     
     /**
@@ -70,64 +88,168 @@ public class EncodingCheck extends Check {
     public Charset getWantedCharset() {
         return wantedCharset;
     }
+    
+    /**
+     * Sets the number of threads that check the files in {@link #run(File)}. Files are only split across threads if
+     * there are enough of them to be worth it.
+     * 
+     * @param parallelism The maximum number of threads. 1 means that all files are checked in the calling thread.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Returns the number of threads that check the files in {@link #run(File)}.
+     * 
+     * @return The maximum number of threads.
+     * 
+     * @see #setParallelism(int)
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
 
+    @Override
+    public boolean checkFile(File submissionDirectory, File file) {
+        return checkFile(submissionDirectory, file, null);
+    }
+    
+    @Override
+    public boolean checkFile(File submissionDirectory, File file, String svnMimeType) {
+        checkedFiles.add(FileUtils.getRelativeFile(submissionDirectory, file));
+        
+        if (validator == null || !validator.getCharset().equals(wantedCharset)) {
+            validator = new EncodingValidator(wantedCharset);
+        }
+        
+        try {
+            ResultMessage message = checkFileIfText(file, svnMimeType, submissionDirectory, validator);
+            if (message != null) {
+                streamingSuccess = false;
+                addResultMessage(message);
+            }
+            
+        } catch (IOException e) {
+            streamingSuccess = false;
+            addInternalError(e);
+        }
+        
+        return streamingSuccess;
+    }
+    
     @Override
     public boolean run(File submissionDirectory) {
-        boolean success = true;
+        boolean success = streamingSuccess;
+        
+        List<File> files = new ArrayList<>();
+        for (File file : getSubmissionIndex(submissionDirectory).getFiles()) {
+            if (!checkedFiles.contains(FileUtils.getRelativeFile(submissionDirectory, file))) {
+                files.add(file);
+            }
+        }
+        
+        // validators are not thread-safe, so each thread gets its own
+        Charset charset = this.wantedCharset;
+        ThreadLocal<EncodingValidator> validators = ThreadLocal.withInitial(() -> new EncodingValidator(charset));
+        
+        ParallelFileProcessor processor = new ParallelFileProcessor(parallelism);
+        List<Result<ResultMessage>> results = processor.process(files,
+            (file) -> checkFileIfText(file, null, submissionDirectory, validators.get()));
+        addWorkerUsage(processor.getWorkerCpuTime(), processor.getWorkerAllocatedBytes());
         
         try {
-            for (File file : FileUtils.findAllFiles(submissionDirectory)) {
-                String mimeType = Files.probeContentType(file.toPath());
-                if (mimeType != null && mimeType.startsWith("text")) {
-                    LOGGER.log(Level.FINER, "Checking file {0}...", file);
-                    success &= checkFile(file, submissionDirectory);
-                } else {
-                    LOGGER.log(Level.FINER, "Skipping file {0} with non-text mime-type {1}", new Object[] {
-                        file, mimeType});
+            for (Result<ResultMessage> result : results) {
+                ResultMessage message = result.get();
+                if (message != null) {
+                    success = false;
+                    addResultMessage(message);
                 }
             }
             
         }  catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Exception while checking encoding", e);
-            
             success = false;
-            addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR,
-                    "An internal error occurred while checking file encoding"));
+            addInternalError(e);
         }
         
+        // reset for next run
+        this.checkedFiles.clear();
+        this.streamingSuccess = true;
+        
         return success;
     }
+    
+    /**
+     * Checks the encoding of the given file, if it is a text file. Does not add the {@link ResultMessage} itself, so
+     * that this can be called from multiple threads.
+     * 
+     * @param file The file to check.
+     * @param svnMimeType The <code>svn:mime-type</code> property of the file, or <code>null</code> if not known.
+     * @param submissionDirectory The submission directory where this file comes from.
+     * @param validator The {@link EncodingValidator} to use; must not be used by other threads at the same time.
+     * 
+     * @return A {@link ResultMessage} if this file is a text file with the wrong encoding, <code>null</code> otherwise.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    private ResultMessage checkFileIfText(File file, String svnMimeType, File submissionDirectory,
+            EncodingValidator validator) throws IOException {
+        
+        ResultMessage result = null;
+        
+        String mimeType = ContentTypeClassifier.getMimeType(file, svnMimeType,
+                getSourceFileCache(submissionDirectory));
+        if (ContentTypeClassifier.isText(mimeType)) {
+            LOGGER.log(Level.FINER, "Checking file {0}...", file);
+            result = checkEncoding(file, submissionDirectory, validator);
+        } else {
+            LOGGER.log(Level.FINER, "Skipping file {0} with non-text mime-type {1}", new Object[] {
+                file, mimeType});
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Adds an internal error message for the given exception.
+     * 
+     * @param exception The exception that occurred while checking the encoding.
+     */
+    private void addInternalError(IOException exception) {
+        LOGGER.log(Level.WARNING, "Exception while checking encoding", exception);
+        
+        addInternalErrorMessage(CHECK_NAME, "checking file encoding");
+    }
 
     /**
-     * Checks the encoding of a single file. Creates and adds a {@link ResultMessage} if the file has a wrong encoding. 
+     * Checks the encoding of a single file. Creates a {@link ResultMessage} if the file has a wrong encoding. The file
+     * is read in chunks into the buffers of the given {@link EncodingValidator}, which is re-used for multiple files.
+     * The file is read from memory if the checkout put its content into the {@link SourceFileCache}.
      * 
      * @param file The file to check.
      * @param submissionDirectory The submission directory where this file comes from.
+     * @param validator The {@link EncodingValidator} for the wanted charset.
      *  
-     * @return Whether this file has the correct encoding.
+     * @return A {@link ResultMessage} if this file has the wrong encoding, <code>null</code> otherwise.
      * 
      * @throws IOException If reading the file fails.
      */
-    private boolean checkFile(File file, File submissionDirectory) throws IOException {
-        boolean result;
+    private ResultMessage checkEncoding(File file, File submissionDirectory, EncodingValidator validator)
+            throws IOException {
         
-        CharsetDecoder decoder = wantedCharset.newDecoder();
+        ResultMessage result = null;
         
-        try (InputStream input = FileUtils.newInputStream(file)) {
-            ByteBuffer buffer = ByteBuffer.wrap(input.readAllBytes());
-            
-            decoder.decode(buffer);
-            
-            result = true;
-            
-        } catch (CharacterCodingException e) {
-            result = false;
-            
-            ResultMessage resultMessage = new ResultMessage(CHECK_NAME, MessageType.ERROR,
-                    "File has invalid encoding; expected " + wantedCharset.displayName());
-            resultMessage.setFile(FileUtils.getRelativeFile(submissionDirectory, file));
-            
-            addResultMessage(resultMessage);
+        boolean valid;
+        try (InputStream input = getSourceFileCache(submissionDirectory).openStream(file)) {
+            valid = validator.validate(input);
+        }
+        
+        if (!valid) {
+            result = new ResultMessage(CHECK_NAME, MessageType.ERROR,
+                    "File has invalid encoding; expected " + validator.getCharset().displayName()
+                    + " (invalid byte sequence at offset " + validator.getInvalidOffset() + ")");
+            result.setFile(FileUtils.getRelativeFile(submissionDirectory, file));
+            result.setLine(validator.getInvalidLine());
         }
         
         return result;
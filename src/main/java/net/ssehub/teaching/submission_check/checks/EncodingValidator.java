@@ -0,0 +1,255 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Validates that streams can be decoded with a given charset. The content is read in chunks into fixed-size buffers
+ * that are re-used for all streams, so the memory used does not depend on the size of the files. Validation stops at
+ * the first invalid byte sequence; its byte offset and line are available afterwards.
+ * <p>
+ * For UTF-8 and single-byte charsets that are a superset of ASCII, runs of ASCII bytes are skipped without decoding
+ * them, since these are always valid.
+ * <p>
+ * Instances are not thread-safe.
+ * 
+ * @author Adam
+ */
+class EncodingValidator {
+    
+    static final int BUFFER_SIZE = 8192;
+    
+    private Charset charset;
+    
+    private CharsetDecoder decoder;
+    
+    private boolean asciiCompatible;
+    
+    private ByteBuffer input;
+    
+    private CharBuffer output;
+    
+    private long invalidOffset;
+    
+    private int invalidLine;
+    
+    /**
+     * Creates a validator for the given charset.
+     * 
+     * @param charset The charset that the streams must be encoded in.
+     */
+    EncodingValidator(Charset charset) {
+        this.charset = charset;
+        this.decoder = charset.newDecoder();
+        this.asciiCompatible = isAsciiCompatible(charset);
+        this.input = ByteBuffer.allocate(BUFFER_SIZE);
+        this.output = CharBuffer.allocate(BUFFER_SIZE);
+    }
+    
+    /**
+     * Returns the charset that this validator checks.
+     * 
+     * @return The charset.
+     */
+    Charset getCharset() {
+        return charset;
+    }
+    
+    /**
+     * Checks whether the given stream can be decoded with the charset of this validator. If not, the position of the
+     * first invalid byte sequence can be queried with {@link #getInvalidOffset()} and {@link #getInvalidLine()}.
+     * 
+     * @param stream The stream to read. Not closed by this method.
+     * 
+     * @return Whether the complete content of the stream is valid.
+     * 
+     * @throws IOException If reading the stream fails.
+     */
+    boolean validate(InputStream stream) throws IOException {
+        decoder.reset();
+        input.clear();
+        output.clear();
+        
+        long bufferOffset = 0; // the offset of the first byte in the input buffer
+        int line = 1;
+        boolean valid = true;
+        boolean endOfInput = false;
+        
+        while (valid && !endOfInput) {
+            int read = stream.read(input.array(), input.position(), input.remaining());
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                input.position(input.position() + read);
+            }
+            input.flip();
+            
+            int limit = input.limit();
+            boolean needsInput = false;
+            while (valid && !needsInput) {
+                input.limit(limit);
+                if (asciiCompatible) {
+                    line += skipAscii();
+                }
+                
+                CoderResult result = decoder.decode(input, output, endOfInput && input.limit() == limit);
+                line += countNewlines();
+                
+                if (result.isError()) {
+                    valid = false;
+                    
+                } else if (result.isUnderflow()) {
+                    if (input.limit() < limit) {
+                        // the decoder stopped before the next ASCII byte; left-over bytes are an incomplete sequence
+                        valid = !input.hasRemaining();
+                    } else {
+                        needsInput = true;
+                    }
+                }
+            }
+            
+            if (valid && endOfInput) {
+                valid = !decoder.flush(output).isError();
+            }
+            
+            if (!valid) {
+                invalidOffset = bufferOffset + input.position();
+                invalidLine = line;
+            }
+            
+            bufferOffset += input.position();
+            input.limit(limit);
+            input.compact();
+        }
+        
+        return valid;
+    }
+    
+    /**
+     * Returns the byte offset of the first invalid byte sequence found by the last call to
+     * {@link #validate(InputStream)}.
+     * 
+     * @return The offset from the start of the stream.
+     */
+    long getInvalidOffset() {
+        return invalidOffset;
+    }
+    
+    /**
+     * Returns the line of the first invalid byte sequence found by the last call to {@link #validate(InputStream)}.
+     * 
+     * @return The line number, starting at 1.
+     */
+    int getInvalidLine() {
+        return invalidLine;
+    }
+    
+    /**
+     * Advances the input buffer over the following ASCII bytes, and limits it to the end of the following non-ASCII
+     * bytes. Thus the decoder only needs to decode the non-ASCII bytes.
+     * 
+     * @return The number of line feeds in the skipped bytes.
+     */
+    private int skipAscii() {
+        byte[] bytes = input.array();
+        int position = input.position();
+        int limit = input.limit();
+        int newlines = 0;
+        
+        while (position < limit && bytes[position] >= 0) {
+            if (bytes[position] == '\n') {
+                newlines++;
+            }
+            position++;
+        }
+        input.position(position);
+        
+        while (position < limit && bytes[position] < 0) {
+            position++;
+        }
+        input.limit(position);
+        
+        return newlines;
+    }
+    
+    /**
+     * Counts the line feeds in the decoded characters and clears the output buffer.
+     * 
+     * @return The number of line feeds.
+     */
+    private int countNewlines() {
+        int newlines = 0;
+        output.flip();
+        while (output.hasRemaining()) {
+            if (output.get() == '\n') {
+                newlines++;
+            }
+        }
+        output.clear();
+        return newlines;
+    }
+    
+    /**
+     * Determines whether ASCII bytes always decode to the same ASCII characters with the given charset, regardless of
+     * the surrounding bytes. This is the case for UTF-8 and single-byte charsets that encode ASCII characters as
+     * themselves, but not for multi-byte charsets like Shift_JIS, where ASCII bytes can be part of a longer sequence.
+     * 
+     * @param charset The charset to check.
+     * 
+     * @return Whether ASCII bytes can be skipped without decoding them.
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        boolean result;
+        
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)) {
+            result = true;
+            
+        } else if (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f) {
+            CharBuffer ascii = CharBuffer.allocate(128);
+            for (char c = 0; c < 128; c++) {
+                ascii.put(c);
+            }
+            ascii.flip();
+            
+            CharsetEncoder encoder = charset.newEncoder();
+            try {
+                ByteBuffer encoded = encoder.encode(ascii);
+                result = encoded.remaining() == 128;
+                for (int i = 0; result && i < 128; i++) {
+                    result = encoded.get(i) == i;
+                }
+            } catch (CharacterCodingException e) {
+                result = false;
+            }
+            
+        } else {
+            result = false;
+        }
+        
+        return result;
+    }
+    
+}
@@ -17,6 +17,8 @@ package net.ssehub.teaching.submission_check.checks;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,11 +29,14 @@ import net.ssehub.teaching.submission_check.utils.FileUtils;
 /**
  * Checks that file-size restrictions are not violated. Fails if any file is larger than {@link #setMaxFileSize(long)}
  * or if the whole submission is larger than {@link #setMaxSubmissionSize(long)}. Creates appropriate
- * {@link ResultMessage}s for all files (or the whole submission) that are too large.
+ * {@link ResultMessage}s for all files (or the whole submission) that are too large. Files can be checked while the
+ * submission is checked out (see {@link IStreamingCheck}), so that a too large submission is rejected early; their size
+ * is taken from the content in the {@link SourceFileCache}, if the checkout put it into memory. The sizes of the
+ * remaining files are taken from the {@link SubmissionIndex}.
  * 
  * @author Adma
  */
-public class FileSizeCheck extends Check {
+public class FileSizeCheck extends Check implements IStreamingCheck {
     
     public static final String CHECK_NAME = "file-size";
     
@@ -41,6 +46,12 @@ public class FileSizeCheck extends Check {
     
     private long maxSubmissionSize;
     
+    private Set<File> checkedFiles;
+    
+    private int numErrors;
+    
+    private long submissionSize;
+    
     /**
      * Creates a re-usable {@link FileSizeCheck} with 10 MiB as the limit for both, the single file and the overall
      * submission size.
@@ -48,6 +59,7 @@ public class FileSizeCheck extends Check {
     public FileSizeCheck() {
         this.maxFileSize = 1024 * 1024 * 10;
         this.maxSubmissionSize = 1024 * 1024 * 10;
+        this.checkedFiles = new HashSet<>();
     }
     
     /**
@@ -92,34 +104,25 @@ public class FileSizeCheck extends Check {
 
 
     @Override
-    public boolean run(File submissionDirectory) {
-        int numErrors = 0;
-        long submissionSize = 0;
+    public boolean checkFile(File submissionDirectory, File file) {
+        checkedFiles.add(FileUtils.getRelativeFile(submissionDirectory, file));
         
         try {
-            for (File file : FileUtils.findAllFiles(submissionDirectory)) {
-                long fileSize = FileUtils.getFileSize(file);
-                
-                LOGGER.log(Level.FINER, "File {0} has size of {1} bytes", new Object[] {
-                    file, fileSize});
-                
-                submissionSize += fileSize;
-                
-                if (fileSize > this.maxFileSize) {
-                    numErrors++;
-                    
-                    ResultMessage message = new ResultMessage(CHECK_NAME, MessageType.ERROR, "File is too large");
-                    message.setFile(FileUtils.getRelativeFile(submissionDirectory, file));
-                    addResultMessage(message);
-                }
-                
-            }
+            checkSingleFile(submissionDirectory, file, getSourceFileCache(submissionDirectory).getSize(file));
         } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Exception while checking file-size", e);
-            
-            numErrors++;
-            addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR,
-                    "An internal error occurred while checking file-sizes"));
+            addInternalError(e);
+        }
+        
+        return numErrors == 0 && submissionSize <= this.maxSubmissionSize;
+    }
+    
+    @Override
+    public boolean run(File submissionDirectory) {
+        SubmissionIndex index = getSubmissionIndex(submissionDirectory);
+        for (File file : index.getFiles()) {
+            if (!checkedFiles.contains(FileUtils.getRelativeFile(submissionDirectory, file))) {
+                checkSingleFile(submissionDirectory, file, index.getSize(file));
+            }
         }
         
         LOGGER.log(Level.FINER, "Submission has total size of {0} bytes", submissionSize);
@@ -129,7 +132,49 @@ public class FileSizeCheck extends Check {
             addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR, "Submission size is too large"));
         }
         
-        return numErrors == 0;
+        boolean success = numErrors == 0;
+        
+        // reset for next run
+        this.checkedFiles.clear();
+        this.numErrors = 0;
+        this.submissionSize = 0;
+        
+        return success;
+    }
+    
+    /**
+     * Checks the size of a single file and adds it to the total submission size. Creates a {@link ResultMessage} if
+     * the file is too large.
+     * 
+     * @param submissionDirectory The submission directory where this file comes from.
+     * @param file The file to check.
+     * @param fileSize The size of the file in bytes.
+     */
+    private void checkSingleFile(File submissionDirectory, File file, long fileSize) {
+        LOGGER.log(Level.FINER, "File {0} has size of {1} bytes", new Object[] {
+            file, fileSize});
+        
+        submissionSize += fileSize;
+        
+        if (fileSize > this.maxFileSize) {
+            numErrors++;
+            
+            ResultMessage message = new ResultMessage(CHECK_NAME, MessageType.ERROR, "File is too large");
+            message.setFile(FileUtils.getRelativeFile(submissionDirectory, file));
+            addResultMessage(message);
+        }
+    }
+    
+    /**
+     * Adds an internal error message for the given exception.
+     * 
+     * @param exception The exception that occurred while checking file-sizes.
+     */
+    private void addInternalError(IOException exception) {
+        LOGGER.log(Level.WARNING, "Exception while checking file-size", exception);
+        
+        numErrors++;
+        addInternalErrorMessage(CHECK_NAME, "checking file-sizes");
     }
     
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+
+import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.svn.ICheckoutListener;
+
+/**
+ * A {@link Check} that can check single files while the submission is still being checked out (see
+ * {@link ICheckoutListener}). This allows rejecting a submission before all of its files are written to disk.
+ * <p>
+ * Files that have been passed to {@link #checkFile(File, File)} are not checked again in the next
+ * {@link Check#run(File)}; the run only checks the remaining files and creates the result for the whole submission.
+ * 
+ * @author Adam
+ */
+public interface IStreamingCheck {
+    
+    /**
+     * Checks a single file directly after it has been checked out. {@link ResultMessage}s for this file are added
+     * to the messages of the next {@link Check#run(File)}.
+     * 
+     * @param submissionDirectory The directory that the submission is checked out to.
+     * @param file The file that has just been checked out.
+     * 
+     * @return Whether the submission still may pass this check. If <code>false</code>, the next
+     *      {@link Check#run(File)} will fail, so the checkout can be aborted.
+     */
+    public boolean checkFile(File submissionDirectory, File file);
+    
+    /**
+     * Checks a single file directly after it has been checked out, with the <code>svn:mime-type</code> property that
+     * the checkout provided for it. The default implementation ignores the property and calls
+     * {@link #checkFile(File, File)}.
+     * 
+     * @param submissionDirectory The directory that the submission is checked out to.
+     * @param file The file that has just been checked out.
+     * @param svnMimeType The <code>svn:mime-type</code> property of the file, or <code>null</code> if it is not set or
+     *      not known.
+     * 
+     * @return Whether the submission still may pass this check.
+     */
+    public default boolean checkFile(File submissionDirectory, File file, String svnMimeType) {
+        return checkFile(submissionDirectory, file);
+    }
+    
+}
@@ -16,12 +16,12 @@
 package net.ssehub.teaching.submission_check.checks;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Writer;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.StringJoiner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,22 +30,38 @@ import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaCompiler.CompilationTask;
 import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
 
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.utils.Deadline;
 import net.ssehub.teaching.submission_check.utils.FileUtils;
 
 /**
  * A {@link JavacCheck} that uses the internal {@link JavaCompiler} interface. Use {@link #isSupported()} to check
- * if the current runtime supports the internal {@link JavaCompiler}.
+ * if the current runtime supports the internal {@link JavaCompiler}. The file managers of the compiler are re-used
+ * across compilations (see {@link JavacFileManagerPool}). No class files are written (see
+ * {@link DiscardingFileManager}). The source files are read from the {@link SourceFileCache}. The compilation is
+ * aborted at the start of the next compilation phase of a file once the {@link #getDeadline()} has expired.
  * 
  * @author Adam
  */
 public class InternalJavacCheck extends JavacCheck {
     
     private static final Logger LOGGER = Logger.getLogger(InternalJavacCheck.class.getName());
+    
+    /**
+     * The file managers shared by all instances, so that the platform classes and classpath archives are not
+     * re-indexed for every compilation.
+     */
+    private static final JavacFileManagerPool FILE_MANAGER_POOL = new JavacFileManagerPool(
+            ToolProvider.getSystemJavaCompiler(), Runtime.getRuntime().availableProcessors());
 
     /**
      * Checks whether the internal compiler is supported by this runtime.
@@ -58,46 +74,97 @@ public class InternalJavacCheck extends JavacCheck {
     
     @Override
     protected boolean runJavac(File submissionDirectory, Set<File> javaFiles) {
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(
-                new DiagnosticCollector<>(), // discard error messages from FileManager
-                Locale.ROOT, getCharset());
-        Iterable<? extends JavaFileObject> javaFileObjects
-                = fileManager.getJavaFileObjects(javaFiles.toArray(new File[0]));
-        
-        DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
-        
         boolean success;
+        
+        StandardJavaFileManager fileManager = null;
+        boolean reusable = false;
+        DeadlineListener deadlineListener = new DeadlineListener(getDeadline());
         try {
-            CompilationTask task = compiler.getTask(
+            fileManager = FILE_MANAGER_POOL.acquire(getJavaVersion(), getCharset(), getClasspath());
+            
+            List<JavaFileObject> javaFileObjects = createJavaFileObjects(
+                    getSourceFileCache(submissionDirectory), javaFiles, fileManager);
+            
+            DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+            
+            CompilationTask task = FILE_MANAGER_POOL.getCompiler().getTask(
                     Writer.nullWriter(), // discard additional output
-                    fileManager,
+                    new DiscardingFileManager(fileManager), // only the diagnostics are needed
                     diagnosticCollector,
                     buildOptions(),
                     null, // no additional classes for annotation processing
                     javaFileObjects
             );
-    
+            if (task instanceof JavacTask) {
+                ((JavacTask) task).addTaskListener(deadlineListener);
+            }
+            
             success = task.call();
+            reusable = true;
+            
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnosticCollector.getDiagnostics()) {
+                convertDiagnostToResultMessage(diagnostic, submissionDirectory);
+            }
             
-        } catch (IllegalArgumentException e) {
+        } catch (IOException | IllegalArgumentException e) {
             LOGGER.log(Level.WARNING, "Exception while setting up compilaton task", e);
             
             success = false;
-            addResultMessage(new ResultMessage(CHECK_NAME, MessageType.ERROR,
-                    "An internal error occurred while running javac"));
+            addInternalErrorMessage(CHECK_NAME, "running javac");
+            
+        // checkstyle: stop exception type check
+        } catch (RuntimeException e) {
+        // checkstyle: resume exception type check
+            // the compiler wraps the exception of the DeadlineListener in a plain RuntimeException
+            if (!deadlineListener.hasCancelled()) {
+                throw e;
+            }
+            // the file manager may be in an inconsistent state, so it is not re-used
+            success = false;
+            addTimeoutMessage(CHECK_NAME);
+            
+        } finally {
+            if (fileManager != null) {
+                FILE_MANAGER_POOL.release(fileManager, reusable);
+            }
         }
         
-        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnosticCollector.getDiagnostics()) {
-            convertDiagnostToResultMessage(diagnostic, submissionDirectory);
+        return success;
+    }
+    
+    /**
+     * Creates the {@link JavaFileObject}s for the given source files. The content of the files is taken from the
+     * {@link SourceFileCache}, so that the files are not read again. Files that cannot be decoded with the configured
+     * charset are read by the file manager instead, so that the compiler reports the invalid characters.
+     * 
+     * @param sourceFileCache The cache that contains the source files.
+     * @param javaFiles The Java source files to compile.
+     * @param fileManager The file manager to read files that are not decodable.
+     * 
+     * @return The {@link JavaFileObject}s to pass to the compiler.
+     * 
+     * @throws IOException If reading a file fails.
+     */
+    private List<JavaFileObject> createJavaFileObjects(SourceFileCache sourceFileCache, Set<File> javaFiles,
+            StandardJavaFileManager fileManager) throws IOException {
+        
+        List<JavaFileObject> result = new LinkedList<>();
+        
+        for (File javaFile : javaFiles) {
+            String content = sourceFileCache.getContent(javaFile, getCharset());
+            if (content != null) {
+                result.add(new CachedSourceFileObject(javaFile, content));
+            } else {
+                fileManager.getJavaFileObjects(javaFile).forEach(result::add);
+            }
         }
         
-        return success;
+        return result;
     }
     
     /**
-     * Builds the options to pass to the compiler.
+     * Builds the options to pass to the compiler. The classpath is not part of the options, since it is set on the
+     * file manager by the {@link JavacFileManagerPool}.
      * 
      * @return A list of options.
      */
@@ -114,18 +181,9 @@ public class InternalJavacCheck extends JavacCheck {
         // disable warnings about possibly deprecated options
         options.add("-Xlint:-options");
         
-        if (!getClasspath().isEmpty()) {
-            options.add("--class-path");
-            
-            StringJoiner classpath = new StringJoiner(File.pathSeparator);
-            for (File classpathEntry : getClasspath()) {
-                classpath.add(classpathEntry.getPath());
-            }
-            options.add(classpath.toString());
-        } else {
-            options.add("--class-path");
-            options.add("");
-        }
+        // only the diagnostics are needed
+        options.add("-proc:none");
+        options.add(SKIP_CODE_GENERATION_OPTION);
         
         return options;
     }
@@ -182,4 +240,80 @@ public class InternalJavacCheck extends JavacCheck {
         }
     }
     
+    /**
+     * Aborts the compilation by throwing an exception at the start of a compilation phase, if the {@link Deadline} has
+     * expired. The compiler passes this exception on to the caller of {@link CompilationTask#call()}, possibly
+     * wrapped.
+     */
+    private static class DeadlineListener implements TaskListener {
+        
+        private Deadline deadline;
+        
+        private boolean cancelled;
+        
+        /**
+         * Creates a listener.
+         * 
+         * @param deadline The deadline that the compilation must finish before.
+         */
+        DeadlineListener(Deadline deadline) {
+            this.deadline = deadline;
+        }
+        
+        /**
+         * Returns whether this listener aborted the compilation.
+         * 
+         * @return Whether the deadline expired during the compilation.
+         */
+        boolean hasCancelled() {
+            return cancelled;
+        }
+        
+        @Override
+        public void started(TaskEvent event) {
+            if (deadline.isExpired()) {
+                cancelled = true;
+                throw new IllegalStateException("Deadline expired during " + event.getKind());
+            }
+        }
+        
+    }
+    
+    /**
+     * A Java source file with content from the {@link SourceFileCache}.
+     */
+    private static class CachedSourceFileObject extends SimpleJavaFileObject {
+        
+        private File file;
+        
+        private String content;
+        
+        /**
+         * Creates a new source file object.
+         * 
+         * @param file The source file.
+         * @param content The decoded content of the source file.
+         */
+        CachedSourceFileObject(File file, String content) {
+            super(file.toURI(), Kind.SOURCE);
+            this.file = file;
+            this.content = content;
+        }
+        
+        /**
+         * Returns the path of the file, as the file manager does for files on disk. This is used as the source of
+         * the {@link Diagnostic}s.
+         */
+        @Override
+        public String getName() {
+            return file.getPath();
+        }
+        
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+        
+    }
+    
 }
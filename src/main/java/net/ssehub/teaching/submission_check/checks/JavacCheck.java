@@ -27,11 +27,10 @@ import java.util.logging.Logger;
 
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
-import net.ssehub.teaching.submission_check.utils.FileUtils;
 
 /**
  * Compiles all Java source files. Fails if any file does not compile. Creates {@link ResultMessage}s for all
- * compilation errors and warnings.
+ * compilation errors and warnings. Only the diagnostics of the compiler are used; no class files are written.
  * 
  * @author Adam
  */
@@ -39,6 +38,13 @@ public abstract class JavacCheck extends Check {
     
     public static final String CHECK_NAME = "javac";
     
+    /**
+     * Compiler option that makes <code>javac</code> stop after flow analysis if there are no errors, i.e. no class
+     * files are generated. The check only needs the diagnostics, and all errors and warnings relevant for the
+     * submissions are created in the earlier phases.
+     */
+    protected static final String SKIP_CODE_GENERATION_OPTION = "-XDshould-stop.ifNoError=FLOW";
+    
     private static final Logger LOGGER = Logger.getLogger(JavacCheck.class.getName());
     
     private int javaVersion;
@@ -155,7 +161,7 @@ public abstract class JavacCheck extends Check {
     public boolean run(File submissionDirectory) {
         boolean success;
         
-        Set<File> javaFiles = FileUtils.findFilesBySuffix(submissionDirectory, ".java");
+        Set<File> javaFiles = getSourceFileCache(submissionDirectory).getFilesBySuffix(".java");
         
         if (!javaFiles.isEmpty()) {
             LOGGER.log(Level.FINER, "Compiling files {0}...", javaFiles);
@@ -173,7 +179,8 @@ public abstract class JavacCheck extends Check {
      * Runs the Java compiler on the given Java source files in the given directory.
      * 
      * @param submissionDirectory The directory to work in.
-     * @param javaFiles All Java source files in that directory.
+     * @param javaFiles All Java source files in that directory. Their content is available via
+     *      {@link #getSourceFileCache(File)}.
      * 
      * @return Whether the compilation was successful.
      */
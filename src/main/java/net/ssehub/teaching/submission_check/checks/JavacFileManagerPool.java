@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * A bounded pool of {@link StandardJavaFileManager}s for the {@link InternalJavacCheck}. Creating a new file manager
+ * for each compilation means that the platform classes for <code>--release</code> and the classpath archives are
+ * opened and indexed again every time. This pool keeps idle file managers and hands them out again for compilations
+ * with the same Java version, charset and classpath.
+ * <p>
+ * A file manager is used by only one compilation at a time; it is only handed out again after it has been passed back
+ * via {@link #release(StandardJavaFileManager, boolean)}. The least recently used idle file managers are closed if
+ * there are more than the maximum number of idle file managers (see {@link KeyedLruPool}).
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author Adam
+ */
+class JavacFileManagerPool {
+    
+    private static final Logger LOGGER = Logger.getLogger(JavacFileManagerPool.class.getName());
+    
+    /**
+     * The settings that a pooled {@link StandardJavaFileManager} was created for.
+     */
+    private static class Key {
+        
+        private int javaVersion;
+        
+        private Charset charset;
+        
+        private List<File> classpath;
+        
+        /**
+         * Creates a new key.
+         * 
+         * @param javaVersion The Java version that is compiled for.
+         * @param charset The charset of the source files.
+         * @param classpath The classpath entries.
+         */
+        Key(int javaVersion, Charset charset, List<File> classpath) {
+            this.javaVersion = javaVersion;
+            this.charset = charset;
+            this.classpath = new ArrayList<>(classpath);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(javaVersion, charset, classpath);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            boolean equal = false;
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                equal = javaVersion == other.javaVersion && charset.equals(other.charset)
+                        && classpath.equals(other.classpath);
+            }
+            return equal;
+        }
+        
+    }
+    
+    private JavaCompiler compiler;
+    
+    private KeyedLruPool<Key, StandardJavaFileManager> pool;
+    
+    /**
+     * Creates a new, empty pool.
+     * 
+     * @param compiler The {@link JavaCompiler} to create the {@link StandardJavaFileManager}s with.
+     * @param maxIdle The maximum number of idle file managers to keep.
+     */
+    JavacFileManagerPool(JavaCompiler compiler, int maxIdle) {
+        this.compiler = compiler;
+        this.pool = new KeyedLruPool<>(maxIdle, JavacFileManagerPool::close);
+    }
+    
+    /**
+     * Returns the {@link JavaCompiler} that the file managers of this pool belong to.
+     * 
+     * @return The {@link JavaCompiler}.
+     */
+    JavaCompiler getCompiler() {
+        return compiler;
+    }
+    
+    /**
+     * Returns a {@link StandardJavaFileManager} for a compilation with the given settings. If there is an idle file
+     * manager for these settings, it is re-used; otherwise a new one is created. The
+     * {@link StandardLocation#CLASS_PATH} is set to the given classpath, so it must not be passed as an option to the
+     * compilation task.
+     * 
+     * @param javaVersion The Java version that is compiled for.
+     * @param charset The charset of the source files.
+     * @param classpath The classpath entries.
+     * 
+     * @return A {@link StandardJavaFileManager} that is exclusively used by the caller until it is passed to
+     *      {@link #release(StandardJavaFileManager, boolean)}.
+     * 
+     * @throws IOException If setting the classpath of a new file manager fails.
+     */
+    StandardJavaFileManager acquire(int javaVersion, Charset charset, List<File> classpath) throws IOException {
+        Key key = new Key(javaVersion, charset, classpath);
+        
+        StandardJavaFileManager fileManager = pool.takeIdle(key);
+        if (fileManager == null) {
+            LOGGER.log(Level.FINE, "Creating new file manager for Java {0} with classpath {1}", new Object[] {
+                javaVersion, classpath});
+            
+            fileManager = compiler.getStandardFileManager(
+                    new DiagnosticCollector<>(), // discard error messages from FileManager
+                    Locale.ROOT, charset);
+            fileManager.setLocation(StandardLocation.CLASS_PATH, key.classpath);
+            pool.addInUse(key, fileManager);
+        }
+        
+        return fileManager;
+    }
+    
+    /**
+     * Passes a {@link StandardJavaFileManager} retrieved by {@link #acquire(int, Charset, List)} back to this pool.
+     * 
+     * @param fileManager The file manager that is no longer used by the caller.
+     * @param reusable Whether the file manager may be re-used. Should be <code>false</code> if the compilation
+     *      failed with an exception, since the state of the file manager is unknown in that case.
+     */
+    void release(StandardJavaFileManager fileManager, boolean reusable) {
+        if (reusable) {
+            try {
+                // clears the cached content of the source files of the last compilation
+                fileManager.flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to flush file manager", e);
+                reusable = false;
+            }
+        }
+        
+        pool.release(fileManager, reusable);
+    }
+    
+    /**
+     * Returns the number of idle file managers in this pool.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @return The number of idle file managers.
+     */
+    int getNumIdle() {
+        return pool.getNumIdle();
+    }
+    
+    /**
+     * Closes the given file manager. Logs a warning if closing fails.
+     * 
+     * @param fileManager The file manager to close.
+     */
+    private static void close(StandardJavaFileManager fileManager) {
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close file manager", e);
+        }
+    }
+    
+}
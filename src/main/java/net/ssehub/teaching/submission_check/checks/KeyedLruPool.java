@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A bounded pool of expensive objects that are created for a key (e.g. the settings they are configured with). An
+ * object is used by only one caller at a time: {@link #takeIdle(Object)} hands out an idle object for a key, and the
+ * caller passes it back via {@link #release(Object, boolean)}. Objects that the caller created itself because no idle
+ * one was available are registered via {@link #addInUse(Object, Object)}. The least recently used idle objects are
+ * destroyed if there are more than the maximum number of idle objects.
+ * <p>
+ * Creating the objects is left to the caller, so that it can do this outside of the lock of this pool and throw its
+ * own exceptions.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @param <K> The type of the keys. Must implement {@link Object#equals(Object)}.
+ * @param <V> The type of the pooled objects. Compared by identity.
+ * 
+ * @author Adam
+ */
+class KeyedLruPool<K, V> {
+    
+    /**
+     * An idle object together with the key that it was created for.
+     * 
+     * @param <K> The type of the key.
+     * @param <V> The type of the object.
+     */
+    private static class Entry<K, V> {
+        
+        private K key;
+        
+        private V value;
+        
+        /**
+         * Creates a new entry.
+         * 
+         * @param key The key that the object was created for.
+         * @param value The object.
+         */
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+        
+    }
+    
+    private int maxIdle;
+    
+    private Consumer<V> destroyer;
+    
+    private Map<V, K> inUse;
+    
+    private LinkedList<Entry<K, V>> idle;
+    
+    /**
+     * Creates a new, empty pool.
+     * 
+     * @param maxIdle The maximum number of idle objects to keep.
+     * @param destroyer Releases the resources of objects that are not re-used anymore. Called outside of the lock of
+     *      this pool.
+     */
+    KeyedLruPool(int maxIdle, Consumer<V> destroyer) {
+        this.maxIdle = maxIdle;
+        this.destroyer = destroyer;
+        this.inUse = new IdentityHashMap<>();
+        this.idle = new LinkedList<>();
+    }
+    
+    /**
+     * Returns the most recently used idle object for the given key. The object is exclusively used by the caller until
+     * it is passed to {@link #release(Object, boolean)}.
+     * 
+     * @param key The key to get an object for.
+     * 
+     * @return An idle object for the key, or <code>null</code> if there is none. In this case, the caller creates a
+     *      new object and registers it via {@link #addInUse(Object, Object)}.
+     */
+    synchronized V takeIdle(K key) {
+        V result = null;
+        
+        Iterator<Entry<K, V>> iterator = idle.iterator();
+        while (iterator.hasNext() && result == null) {
+            Entry<K, V> candidate = iterator.next();
+            if (candidate.key.equals(key)) {
+                iterator.remove();
+                result = candidate.value;
+            }
+        }
+        
+        if (result != null) {
+            inUse.put(result, key);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Registers a new object that the caller created for the given key. The object is exclusively used by the caller
+     * until it is passed to {@link #release(Object, boolean)}.
+     * 
+     * @param key The key that the object was created for.
+     * @param value The new object.
+     */
+    synchronized void addInUse(K key, V value) {
+        inUse.put(value, key);
+    }
+    
+    /**
+     * Passes an object retrieved by {@link #takeIdle(Object)} or registered by {@link #addInUse(Object, Object)} back
+     * to this pool.
+     * 
+     * @param value The object that is no longer used by the caller.
+     * @param reusable Whether the object may be re-used. If <code>false</code>, it is destroyed.
+     * 
+     * @throws IllegalArgumentException If the object is not in use in this pool.
+     */
+    void release(V value, boolean reusable) throws IllegalArgumentException {
+        K key;
+        Entry<K, V> evicted = null;
+        
+        synchronized (this) {
+            key = inUse.remove(value);
+            
+            if (key != null && reusable) {
+                idle.addFirst(new Entry<>(key, value));
+                if (idle.size() > maxIdle) {
+                    evicted = idle.removeLast();
+                }
+            }
+        }
+        
+        if (key == null) {
+            throw new IllegalArgumentException(value + " does not belong to this pool");
+        }
+        
+        if (!reusable) {
+            destroyer.accept(value);
+        }
+        if (evicted != null) {
+            destroyer.accept(evicted.value);
+        }
+    }
+    
+    /**
+     * Returns the number of idle objects in this pool.
+     * 
+     * @return The number of idle objects.
+     */
+    synchronized int getNumIdle() {
+        return idle.size();
+    }
+    
+}
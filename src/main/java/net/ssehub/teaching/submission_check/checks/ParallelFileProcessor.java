@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.ssehub.teaching.submission_check.utils.ResourceMeter;
+
+/**
+ * Applies a function to a list of files, optionally split across the threads of a {@link ForkJoinPool}. Each task
+ * collects the results of its files locally; the results are joined in the order of the input list, so the caller
+ * sees the same results in the same order as in a sequential run.
+ * <p>
+ * Like a sequential loop, the results end at the first file that throws an {@link IOException}. Files after it may
+ * still be processed by other threads, but their results are discarded.
+ * <p>
+ * A {@link ResourceMeter} of the calling thread does not see the work done by the threads of the pool. Therefore, the
+ * CPU time and allocated bytes of the pool threads are measured separately (see {@link #getWorkerCpuTime()} and
+ * {@link #getWorkerAllocatedBytes()}), so that they can be added to the usage of the calling thread.
+ * 
+ * @author Adam
+ */
+class ParallelFileProcessor {
+    
+    /**
+     * Lists with at most this many files are not split further.
+     */
+    static final int SPLIT_THRESHOLD = 8;
+    
+    /**
+     * A function that processes a single file.
+     * 
+     * @param <R> The type of the result for a single file.
+     */
+    @FunctionalInterface
+    interface FileFunction<R> {
+        
+        /**
+         * Processes the given file. May be called concurrently from multiple threads.
+         * 
+         * @param file The file to process.
+         * 
+         * @return The result for this file.
+         * 
+         * @throws IOException If reading the file fails.
+         */
+        public R apply(File file) throws IOException;
+        
+    }
+    
+    /**
+     * The result of a single file; either a value or the {@link IOException} that occurred.
+     * 
+     * @param <R> The type of the result.
+     */
+    static class Result<R> {
+        
+        private R value;
+        
+        private IOException exception;
+        
+        /**
+         * Creates a result.
+         * 
+         * @param value The value, if the function completed normally.
+         * @param exception The exception thrown by the function, or <code>null</code>.
+         */
+        private Result(R value, IOException exception) {
+            this.value = value;
+            this.exception = exception;
+        }
+        
+        /**
+         * Returns the value of this result.
+         * 
+         * @return The value returned by the function.
+         * 
+         * @throws IOException If the function threw this exception for the file.
+         */
+        R get() throws IOException {
+            if (exception != null) {
+                throw exception;
+            }
+            return value;
+        }
+        
+    }
+    
+    private int parallelism;
+    
+    private AtomicLong workerCpuTime;
+    
+    private AtomicLong workerAllocatedBytes;
+    
+    /**
+     * Creates a processor.
+     * 
+     * @param parallelism The maximum number of threads to use. 1 means that all files are processed in the calling
+     *      thread.
+     */
+    ParallelFileProcessor(int parallelism) {
+        this.parallelism = parallelism;
+        this.workerCpuTime = new AtomicLong(-1);
+        this.workerAllocatedBytes = new AtomicLong(-1);
+    }
+    
+    /**
+     * Returns the CPU time that the threads of the pools used in all previous calls to {@link #process(List,
+     * FileFunction)}. This does not include the calling thread.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if no pool was used (or the CPU time is not supported).
+     */
+    long getWorkerCpuTime() {
+        return workerCpuTime.get();
+    }
+    
+    /**
+     * Returns the number of bytes that the threads of the pools allocated on the heap in all previous calls to
+     * {@link #process(List, FileFunction)}. This does not include the calling thread.
+     * 
+     * @return The allocated bytes, or -1 if no pool was used (or measuring allocations is not supported).
+     */
+    long getWorkerAllocatedBytes() {
+        return workerAllocatedBytes.get();
+    }
+    
+    /**
+     * Adds the resources that a pool thread used for a part of the files.
+     * 
+     * @param meter The meter that the pool thread created before processing its files.
+     */
+    private void addWorkerUsage(ResourceMeter meter) {
+        add(workerCpuTime, meter.getCpuTime());
+        add(workerAllocatedBytes, meter.getAllocatedBytes());
+    }
+    
+    /**
+     * Adds a measured value to a sum.
+     * 
+     * @param sum The sum, -1 if no value has been added yet.
+     * @param value The value to add. Ignored if -1 (i.e. not supported).
+     */
+    private static void add(AtomicLong sum, long value) {
+        if (value != -1) {
+            sum.updateAndGet((current) -> Math.max(current, 0) + value);
+        }
+    }
+    
+    /**
+     * Applies the function to all given files. A new {@link ForkJoinPool} is used for each call, so that the threads
+     * do not outlive the {@link Check} run. Small lists are processed in the calling thread.
+     * 
+     * @param <R> The type of the result for a single file.
+     * 
+     * @param files The files to process.
+     * @param function The function to apply to each file.
+     * 
+     * @return The results, in the same order as the files. Ends with the first result that has an exception, so may be
+     *      shorter than the list of files.
+     */
+    <R> List<Result<R>> process(List<File> files, FileFunction<R> function) {
+        List<Result<R>> results;
+        
+        if (parallelism <= 1 || files.size() <= SPLIT_THRESHOLD) {
+            results = processSequentially(files, function);
+            
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                results = pool.invoke(new FileTask<>(this, files, function));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Applies the function to the given files in the calling thread. Stops at the first exception.
+     * 
+     * @param <R> The type of the result for a single file.
+     * 
+     * @param files The files to process.
+     * @param function The function to apply to each file.
+     * 
+     * @return The results, in the same order as the files.
+     */
+    private static <R> List<Result<R>> processSequentially(List<File> files, FileFunction<R> function) {
+        List<Result<R>> results = new ArrayList<>(files.size());
+        
+        boolean failed = false;
+        for (int i = 0; !failed && i < files.size(); i++) {
+            try {
+                results.add(new Result<>(function.apply(files.get(i)), null));
+            } catch (IOException e) {
+                results.add(new Result<>(null, e));
+                failed = true;
+            }
+        }
+        
+        return results;
+    }
+    
+    /**
+     * A task that splits its files in half until they are small enough, and joins the results of both halves in order.
+     * 
+     * @param <R> The type of the result for a single file.
+     */
+    private static class FileTask<R> extends RecursiveTask<List<Result<R>>> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private transient ParallelFileProcessor processor;
+        
+        private transient List<File> files;
+        
+        private transient FileFunction<R> function;
+        
+        /**
+         * Creates a task.
+         * 
+         * @param processor The processor that the resources of the pool threads are added to.
+         * @param files The files of this task.
+         * @param function The function to apply to each file.
+         */
+        FileTask(ParallelFileProcessor processor, List<File> files, FileFunction<R> function) {
+            this.processor = processor;
+            this.files = files;
+            this.function = function;
+        }
+        
+        @Override
+        protected List<Result<R>> compute() {
+            List<Result<R>> results;
+            
+            if (files.size() <= SPLIT_THRESHOLD) {
+                // always runs in a pool thread, since the calling thread only waits in ForkJoinPool.invoke()
+                ResourceMeter meter = new ResourceMeter();
+                results = processSequentially(files, function);
+                processor.addWorkerUsage(meter);
+                
+            } else {
+                int middle = files.size() / 2;
+                FileTask<R> second = new FileTask<>(processor, files.subList(middle, files.size()), function);
+                second.fork();
+                
+                results = new FileTask<>(processor, files.subList(0, middle), function).compute();
+                List<Result<R>> secondResults = second.join();
+                
+                // drop the results after an exception in the first half, like a sequential run would
+                if (results.size() == middle && results.get(middle - 1).exception == null) {
+                    results.addAll(secondResults);
+                }
+            }
+            
+            return results;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * Caches the source files of a single submission directory, so that the {@link Check}s that run on the same
+ * submission do not search and read the same files again. The files are found via a {@link SubmissionIndex}, which
+ * is created when it is requested for the first time, unless it is passed to the constructor. The files are only read
+ * once they are requested for the first time.
+ * <p>
+ * The raw content of files can be added while the submission is checked out (see {@link #putBytes(File, byte[])}), so
+ * that the checks read these files from memory instead of from the checkout directory. Files that are read from disk
+ * are only kept in memory up to {@link #MAX_RETAINED_SIZE} bytes. At most {@link #MAX_RETAINED_TOTAL_SIZE} bytes are
+ * kept in memory per submission; further files are read from disk.
+ * <p>
+ * Since the submission directory is not expected to change while the cache is used, a new cache should be created
+ * for each run of the {@link Check}s (see {@link Check#setSourceFileCache(SourceFileCache)}).
+ * 
+ * @author Adam
+ */
+public class SourceFileCache {
+    
+    /**
+     * The maximum size of files that are kept in memory after they have been read from disk.
+     */
+    public static final int MAX_RETAINED_SIZE = 1024 * 1024;
+    
+    /**
+     * The maximum number of bytes of all files that are kept in memory.
+     */
+    public static final long MAX_RETAINED_TOTAL_SIZE = 32 * 1024 * 1024;
+    
+    /**
+     * The decoded content of a single file.
+     */
+    private static class Content {
+        
+        private Charset charset;
+        
+        private String text;
+        
+    }
+    
+    private File submissionDirectory;
+    
+    private SubmissionIndex submissionIndex;
+    
+    private Map<File, Content> contents;
+    
+    private Map<File, byte[]> bytes;
+    
+    private AtomicLong retainedSize;
+    
+    /**
+     * Creates a new, empty cache for the given submission directory.
+     * 
+     * @param submissionDirectory The directory that contains the submission.
+     */
+    public SourceFileCache(File submissionDirectory) {
+        this.submissionDirectory = submissionDirectory;
+        this.contents = new HashMap<>();
+        // streaming and parallel checks may read the raw content from multiple threads
+        this.bytes = new ConcurrentHashMap<>();
+        this.retainedSize = new AtomicLong();
+    }
+    
+    /**
+     * Creates a new, empty cache for the submission directory of the given {@link SubmissionIndex}.
+     * 
+     * @param submissionIndex The index of the files in the submission directory.
+     */
+    public SourceFileCache(SubmissionIndex submissionIndex) {
+        this(submissionIndex.getSubmissionDirectory());
+        this.submissionIndex = submissionIndex;
+    }
+    
+    /**
+     * Returns the submission directory that this cache is for.
+     * 
+     * @return The submission directory.
+     */
+    public File getSubmissionDirectory() {
+        return submissionDirectory;
+    }
+    
+    /**
+     * Returns the {@link SubmissionIndex} of the submission directory. The directory is only walked on the first call.
+     * 
+     * @return The {@link SubmissionIndex}.
+     */
+    public SubmissionIndex getSubmissionIndex() {
+        if (submissionIndex == null) {
+            submissionIndex = new SubmissionIndex(submissionDirectory);
+        }
+        return submissionIndex;
+    }
+    
+    /**
+     * Returns all files in the submission directory with the given suffix (see
+     * {@link SubmissionIndex#getFilesBySuffix(String)}).
+     * 
+     * @param suffix The suffix of the filenames to search for.
+     * 
+     * @return An unmodifiable set of all files in the submission directory that end with the given suffix.
+     */
+    public Set<File> getFilesBySuffix(String suffix) {
+        return getSubmissionIndex().getFilesBySuffix(suffix);
+    }
+    
+    /**
+     * Adds the raw content of a file that has already been read, e.g. by the checkout. The checks then read the file
+     * from memory, unless {@link #MAX_RETAINED_TOTAL_SIZE} has already been reached.
+     * 
+     * @param file The file in the submission directory.
+     * @param content The complete content of the file. Must not be modified afterwards.
+     */
+    public void putBytes(File file, byte[] content) {
+        if (retainedSize.addAndGet(content.length) <= MAX_RETAINED_TOTAL_SIZE) {
+            bytes.put(file, content);
+        } else {
+            retainedSize.addAndGet(-content.length);
+        }
+    }
+    
+    /**
+     * Returns the size of the given file. Uses the content in memory, if available.
+     * 
+     * @param file The file in the submission directory.
+     * 
+     * @return The size of the file in bytes.
+     * 
+     * @throws IOException If determining the size of the file fails.
+     */
+    public long getSize(File file) throws IOException {
+        byte[] content = bytes.get(file);
+        return content != null ? content.length : FileUtils.getFileSize(file);
+    }
+    
+    /**
+     * Opens a stream to read the raw content of the given file. Reads from memory, if the content is available there;
+     * otherwise, the file is read from disk without keeping it in memory.
+     * 
+     * @param file The file in the submission directory.
+     * 
+     * @return A stream of the file content; must be closed by the caller.
+     * 
+     * @throws IOException If opening the file fails.
+     */
+    public InputStream openStream(File file) throws IOException {
+        byte[] content = bytes.get(file);
+        return content != null ? new ByteArrayInputStream(content) : FileUtils.newInputStream(file);
+    }
+    
+    /**
+     * Returns the raw content of the given file. Reads the file from disk if it is not available in memory; the
+     * content is then kept in memory if it is not larger than {@link #MAX_RETAINED_SIZE} (see
+     * {@link #putBytes(File, byte[])}).
+     * 
+     * @param file The file in the submission directory.
+     * 
+     * @return The complete content of the file. Must not be modified.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    public byte[] getBytes(File file) throws IOException {
+        byte[] content = bytes.get(file);
+        if (content == null) {
+            try (InputStream input = FileUtils.newInputStream(file)) {
+                content = input.readAllBytes();
+            }
+            if (content.length <= MAX_RETAINED_SIZE) {
+                putBytes(file, content);
+            }
+        }
+        return content;
+    }
+    
+    /**
+     * Returns the content of the given file, decoded with the given charset. The file is only read and decoded again
+     * if it was previously requested with a different charset.
+     * <p>
+     * Decoding is strict: if the file is not valid in the given charset, <code>null</code> is returned, so that
+     * callers can fall back to their own handling (e.g. reporting the invalid characters). Usually, the encoding of
+     * the submission files has already been validated by the {@link EncodingCheck} with the same charset.
+     * 
+     * @param file The file to read.
+     * @param charset The charset to decode the file with.
+     * 
+     * @return The content of the file, or <code>null</code> if the file cannot be decoded with the given charset.
+     * 
+     * @throws IOException If reading the file fails.
+     * 
+     * @see #getBytes(File)
+     */
+    public String getContent(File file, Charset charset) throws IOException {
+        Content content = contents.get(file);
+        
+        if (content == null || !content.charset.equals(charset)) {
+            content = new Content();
+            content.charset = charset;
+            content.text = decode(getBytes(file), charset);
+            contents.put(file, content);
+        }
+        
+        return content.text;
+    }
+    
+    /**
+     * Strictly decodes the given file content.
+     * 
+     * @param content The raw content of the file.
+     * @param charset The charset to decode the file with.
+     * 
+     * @return The decoded content, or <code>null</code> if the content cannot be decoded with the given charset.
+     */
+    private static String decode(byte[] content, Charset charset) {
+        String result;
+        
+        try {
+            result = charset.newDecoder().decode(ByteBuffer.wrap(content)).toString();
+            
+        } catch (CharacterCodingException e) {
+            result = null;
+        }
+        
+        return result;
+    }
+    
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An immutable index of all files in a submission directory. The directory is walked only once when the index is
+ * created; the size of each file is taken from the attributes read during the walk. The files are grouped by their
+ * extension, so that looking up the files with a given suffix does not need to go through all files.
+ * <p>
+ * Only regular files are indexed. Symbolic links, devices and named pipes are skipped, so that no {@link Check}
+ * reads from outside of the submission or blocks on a file that never ends. Since the submission directory is not
+ * expected to change while the {@link Check}s run, one index is created for each run (see {@link SourceFileCache}).
+ * 
+ * @author Adam
+ */
+public class SubmissionIndex {
+    
+    private static final Logger LOGGER = Logger.getLogger(SubmissionIndex.class.getName());
+    
+    private File submissionDirectory;
+    
+    private Map<File, Long> sizes;
+    
+    private Map<String, Set<File>> filesByExtension;
+    
+    /**
+     * Creates the index by walking through the given submission directory. Files and directories that cannot be read
+     * are skipped.
+     * 
+     * @param submissionDirectory The directory that contains the submission.
+     */
+    public SubmissionIndex(File submissionDirectory) {
+        this.submissionDirectory = submissionDirectory;
+        
+        Map<File, Long> sizes = new LinkedHashMap<>();
+        Map<String, Set<File>> filesByExtension = new HashMap<>();
+        
+        try {
+            Files.walkFileTree(submissionDirectory.toPath(), new SimpleFileVisitor<Path>() {
+                
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile()) {
+                        File file = path.toFile();
+                        sizes.put(file, attributes.size());
+                        
+                        String extension = getExtension(file.getName());
+                        if (extension != null) {
+                            filesByExtension.computeIfAbsent(extension, (key) -> new LinkedHashSet<>()).add(file);
+                        }
+                    } else if (!attributes.isDirectory()) {
+                        LOGGER.log(Level.WARNING, "Skipping {0}, it is not a regular file", path);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException exception) {
+                    LOGGER.log(Level.WARNING, "Could not read " + path, exception);
+                    return FileVisitResult.CONTINUE;
+                }
+                
+            });
+        } catch (IOException e) {
+            // cannot happen, since the visitor above never throws
+            throw new UncheckedIOException(e);
+        }
+        
+        filesByExtension.replaceAll((key, files) -> Collections.unmodifiableSet(files));
+        
+        this.sizes = Collections.unmodifiableMap(sizes);
+        this.filesByExtension = filesByExtension;
+    }
+    
+    /**
+     * Returns the submission directory that this index is for.
+     * 
+     * @return The submission directory.
+     */
+    public File getSubmissionDirectory() {
+        return submissionDirectory;
+    }
+    
+    /**
+     * Returns all files in the submission directory.
+     * 
+     * @return An unmodifiable set of all files, in the order they were found.
+     */
+    public Set<File> getFiles() {
+        return sizes.keySet();
+    }
+    
+    /**
+     * Returns all files in the submission directory with the given suffix. Suffixes that are a file extension (e.g.
+     * <code>.java</code>) are looked up directly; for other suffixes, all files are searched.
+     * 
+     * @param suffix The suffix of the filenames to search for.
+     * 
+     * @return An unmodifiable set of all files in the submission directory that end with the given suffix.
+     */
+    public Set<File> getFilesBySuffix(String suffix) {
+        Set<File> result;
+        
+        if (suffix.equals(getExtension(suffix))) {
+            result = filesByExtension.getOrDefault(suffix, Collections.emptySet());
+            
+        } else {
+            Set<File> matching = new LinkedHashSet<>();
+            for (File file : sizes.keySet()) {
+                if (file.getName().endsWith(suffix)) {
+                    matching.add(file);
+                }
+            }
+            result = Collections.unmodifiableSet(matching);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Returns the size of the given file, as read while creating this index.
+     * 
+     * @param file The file, as returned by {@link #getFiles()}.
+     * 
+     * @return The size of the file in bytes.
+     * 
+     * @throws IllegalArgumentException If the file is not part of this index.
+     */
+    public long getSize(File file) throws IllegalArgumentException {
+        Long size = sizes.get(file);
+        if (size == null) {
+            throw new IllegalArgumentException(file + " is not in the index of " + submissionDirectory);
+        }
+        return size;
+    }
+    
+    /**
+     * Returns the extension of the given file name, including the dot.
+     * 
+     * @param fileName The name of the file.
+     * 
+     * @return The extension, or <code>null</code> if the name contains no dot.
+     */
+    private static String getExtension(String fileName) {
+        String result = null;
+        int dot = fileName.lastIndexOf('.');
+        if (dot != -1) {
+            result = fileName.substring(dot);
+        }
+        return result;
+    }
+    
+}
@@ -15,7 +15,10 @@
  */
 package net.ssehub.teaching.submission_check.output;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException;
 import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
@@ -29,7 +32,13 @@ import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.Submission;
 
 /**
- * Submits {@link ResultMessage}s to the <b>Student Management Server</b>.
+ * Submits {@link ResultMessage}s to the <b>Student Management Server</b>. An instance logs in once and can be used
+ * for any number of submissions of the same course. The {@link Assignment} of each exercise is looked up only once
+ * per instance.
+ * <p>
+ * An instance must only be used by one thread at a time, since the underlying {@link SubmissionHookProtocol} is not
+ * documented to be thread-safe. Hooks get their instances from a cache that hands out each login to only one thread
+ * at a time.
  * 
  * @author El-Sharkawy
  */
@@ -162,10 +171,36 @@ public class StudentManagementSubmitter {
             this.authenticationPassword = password;
         }
         
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(getSettings());
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            boolean equal = false;
+            if (obj instanceof StudentManagementConfig) {
+                equal = Arrays.equals(getSettings(), ((StudentManagementConfig) obj).getSettings());
+            }
+            return equal;
+        }
+        
+        /**
+         * Returns all settings of this configuration, for {@link #equals(Object)} and {@link #hashCode()}.
+         * 
+         * @return The settings.
+         */
+        private String[] getSettings() {
+            return new String[] {url, courseName, courseSemester, authenticationUrl, authenticationUsername,
+                authenticationPassword};
+        }
+        
     }
     
     private SubmissionHookProtocol protocol;
     
+    private Map<String, Assignment> assignments = new ConcurrentHashMap<>();
+    
     /**
      * This constructor is intended for testing and allows to mock the internally used network protocol.
      * 
@@ -211,11 +246,7 @@ public class StudentManagementSubmitter {
      * @throws NetworkException When network problems occur (i.e., server not reachable, user not authorized).
      */
     public boolean submit(Submission submission, List<ResultMessage> messages) throws NetworkException {
-        Assignment assignment = protocol.getAssignmentByName(submission.getExercise());
-        if (null == assignment) {
-            throw new DataNotFoundException("For the given submission was no configured assignment found on server",
-                submission.getExercise(), DataType.ASSIGNMENTS_NOT_FOUND);
-        }
+        Assignment assignment = getAssignment(submission.getExercise());
         
         Assessment assessment = protocol.loadAssessmentByName(assignment, submission.getGroup());
         assessment.clearPartialAssessments("checkstyle", "eclipse-configuration", "encoding", "file-size", "javac");
@@ -228,5 +259,28 @@ public class StudentManagementSubmitter {
         
         return protocol.submitAssessment(assignment, assessment);
     }
+    
+    /**
+     * Returns the {@link Assignment} for the given exercise. It is only requested from the server the first time.
+     * 
+     * @param exercise The name of the exercise.
+     * 
+     * @return The {@link Assignment}.
+     * 
+     * @throws NetworkException When network problems occur, or the server has no assignment for the exercise.
+     */
+    private Assignment getAssignment(String exercise) throws NetworkException {
+        Assignment assignment = assignments.get(exercise);
+        if (null == assignment) {
+            // concurrent submissions of the same exercise may both request it; this is harmless
+            assignment = protocol.getAssignmentByName(exercise);
+            if (null == assignment) {
+                throw new DataNotFoundException("For the given submission was no configured assignment found on server",
+                    exercise, DataType.ASSIGNMENTS_NOT_FOUND);
+            }
+            assignments.put(exercise, assignment);
+        }
+        return assignment;
+    }
 
 }
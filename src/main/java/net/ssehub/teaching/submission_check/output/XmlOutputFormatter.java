@@ -17,7 +17,9 @@ package net.ssehub.teaching.submission_check.output;
 
 import java.io.File;
 import java.io.StringWriter;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,13 +34,16 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import net.ssehub.teaching.submission_check.CheckTiming;
 import net.ssehub.teaching.submission_check.ResultMessage;
 
 /**
  * Provides a method for serializing {@link ResultMessage}s as XML, so that they can be sent to the client in a
- * parser-friendly way. 
+ * parser-friendly way. Optionally, {@link CheckTiming}s are added as <code>timing</code> elements after the messages;
+ * clients that only look at the <code>message</code> elements do not show them.
  * 
  * @author Adam
  */
@@ -54,6 +59,18 @@ public class XmlOutputFormatter {
      * @return The messages serialized as an XML string.
      */
     public String format(List<ResultMessage> messages) {
+        return format(messages, Collections.emptyList());
+    }
+    
+    /**
+     * Serializes the given list of {@link ResultMessage}s and {@link CheckTiming}s as an XML string.
+     * 
+     * @param messages The messages to serialize.
+     * @param timings The timings to serialize after the messages. May be empty.
+     * 
+     * @return The messages and timings serialized as an XML string.
+     */
+    public String format(List<ResultMessage> messages, List<CheckTiming> timings) {
         String result;
         
         try {
@@ -63,7 +80,8 @@ public class XmlOutputFormatter {
             xmlPrinter.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
             
             StringWriter output = new StringWriter();
-            xmlPrinter.transform(new DOMSource(createXmlDocumentForMessages(messages)), new StreamResult(output));
+            xmlPrinter.transform(new DOMSource(createXmlDocumentForMessages(messages, timings)),
+                    new StreamResult(output));
             
             result = output.toString();
         } catch (DOMException | TransformerException | ParserConfigurationException e) {
@@ -78,16 +96,17 @@ public class XmlOutputFormatter {
     }
     
     /**
-     * Converts all given {@link ResultMessage}s to an XML representation.
+     * Converts all given {@link ResultMessage}s and {@link CheckTiming}s to an XML representation.
      * 
      * @param messages The list of {@link ResultMessage}s to convert to XML.
+     * @param timings The list of {@link CheckTiming}s to convert to XML.
      * 
-     * @return An XML representation of all messages.
+     * @return An XML representation of all messages and timings.
      * 
      * @throws DOMException If creating the XML fails.
      * @throws ParserConfigurationException If creating the {@link Document} fails.
      */
-    private Document createXmlDocumentForMessages(List<ResultMessage> messages)
+    private Document createXmlDocumentForMessages(List<ResultMessage> messages, List<CheckTiming> timings)
             throws DOMException, ParserConfigurationException {
         Document document = DocumentBuilderFactory.newDefaultInstance().newDocumentBuilder().newDocument();
         
@@ -98,9 +117,45 @@ public class XmlOutputFormatter {
             rootNode.appendChild(createXmlNodeForMessage(document, message));
         }
         
+        for (CheckTiming timing : timings) {
+            rootNode.appendChild(createXmlNodeForTiming(document, timing));
+        }
+        
         return document;
     }
     
+    /**
+     * Converts the given {@link CheckTiming} into a single XML node. Times are in milliseconds; values that are not
+     * available are omitted.
+     * 
+     * @param xmlDocument The XML document of the created node.
+     * @param timing The timing to convert.
+     * 
+     * @return An XML representation of the timing.
+     * 
+     * @throws DOMException If creating the XML fails.
+     */
+    private Node createXmlNodeForTiming(Document xmlDocument, CheckTiming timing) throws DOMException {
+        Element node = xmlDocument.createElement("timing");
+        
+        node.setAttribute("name", timing.getName());
+        node.setAttribute("submission", timing.getSubmission().toString());
+        node.setAttribute("wallTime", String.valueOf(TimeUnit.NANOSECONDS.toMillis(timing.getWallTime())));
+        
+        if (timing.getCpuTime() != -1) {
+            node.setAttribute("cpuTime", String.valueOf(TimeUnit.NANOSECONDS.toMillis(timing.getCpuTime())));
+        }
+        if (timing.getAllocatedBytes() != -1) {
+            node.setAttribute("allocatedBytes", String.valueOf(timing.getAllocatedBytes()));
+        }
+        if (timing.getChildCpuTime() != -1) {
+            node.setAttribute("childCpuTime", String.valueOf(
+                    TimeUnit.NANOSECONDS.toMillis(timing.getChildCpuTime())));
+        }
+        
+        return node;
+    }
+    
     /**
      * Converts the given {@link ResultMessage} into a single XML node.
      * 
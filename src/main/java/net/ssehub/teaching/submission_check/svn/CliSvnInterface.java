@@ -20,20 +20,46 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.ProcessBuilder.Redirect;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
 import net.ssehub.teaching.submission_check.Submission;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.Deadline;
 import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.ProcessWatchdog;
 
 /**
  * An {@link ISvnInterface} that uses the <code>svnlook</code> command-line tool to interact with the SVN repository.
+ * In the {@link Phase#POST_COMMIT} phase, submissions are checked out with a single <code>svn export</code> call
+ * (plus one <code>svn propget</code> call for the line endings, see {@link #restoreLineEndings(File, Map)}), so that
+ * the checked out files are the same that <code>svnlook cat</code> produces. This includes symbolic links, see
+ * {@link #replaceSymbolicLinks(File)}.
+ * <p>
+ * In the {@link Phase#PRE_COMMIT} phase, a transaction can't be exported with <code>svn</code>, so a separate
+ * <code>svnlook cat</code> process is started for each file of the submission. This is a known limitation: large
+ * submissions take considerably longer in the pre-commit hook. The {@link FsfsSvnInterface} does not have it.
  * 
  * @author Adam
  */
@@ -41,12 +67,16 @@ public class CliSvnInterface implements ISvnInterface {
     
     private static final Logger LOGGER = Logger.getLogger(CliSvnInterface.class.getName());
     
+    private static File svnConfigDirectory;
+    
     protected File repositoryPath;
     
     protected Phase phase;
     
     protected String transactionId;
     
+    private Deadline deadline = Deadline.NONE;
+    
     /**
      * Runs the <code>svnlook</code> command with the given sub-command. Repository path and transaction identifier
      * are set automatically based on {@link #repositoryPath}, {@link #phase}, and {@link #transactionId}.
@@ -102,6 +132,263 @@ public class CliSvnInterface implements ISvnInterface {
             command.add(additionalArgument);
         }
         
+        return runCommand(command, outputRedirect);
+    }
+    
+    /**
+     * Creates a <code>file://</code> URL for the given path in the repository at {@link #repositoryPath}. The URL ends
+     * with {@link #transactionId} as peg revision. <code>svn</code> takes the last <code>@</code> of a target as start
+     * of the peg revision, so this also prevents an <code>@</code> in the path from being taken as one.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param pathInRepo The path relative to the repository root, with forward slashes.
+     * 
+     * @return The URL-encoded repository URL, with peg revision.
+     * 
+     * @throws SvnException If the path is not valid.
+     */
+    String getRepositoryUrl(String pathInRepo) throws SvnException {
+        String repository = this.repositoryPath.getAbsoluteFile().toURI().getRawPath();
+        if (!repository.endsWith("/")) {
+            repository += "/";
+        }
+        
+        try {
+            return "file://" + repository + new URI(null, null, pathInRepo, null).getRawPath()
+                    + "@" + this.transactionId;
+        } catch (URISyntaxException e) {
+            throw new SvnException("Invalid path in repository: " + pathInRepo, e);
+        }
+    }
+    
+    /**
+     * Returns an empty configuration directory for <code>svn</code>, so that the configuration of the user running
+     * the hook (in <code>~/.subversion</code>) does not influence the hook. Created once per JVM.
+     * 
+     * @return The configuration directory.
+     * 
+     * @throws SvnException If creating the directory fails.
+     */
+    private static synchronized File getSvnConfigDirectory() throws SvnException {
+        if (svnConfigDirectory == null) {
+            try {
+                svnConfigDirectory = FileUtils.createTemporaryDirectory();
+            } catch (IOException e) {
+                throw new SvnException("Could not create configuration directory for svn", e);
+            }
+        }
+        return svnConfigDirectory;
+    }
+    
+    /**
+     * Creates the command for the given <code>svn</code> sub-command with the options that all <code>svn</code> calls
+     * share.
+     * 
+     * @param subcommand The sub-command to run.
+     * 
+     * @return The command, to which further arguments can be added.
+     * 
+     * @throws SvnException If creating the configuration directory fails.
+     */
+    private static List<String> createSvnCommand(String subcommand) throws SvnException {
+        List<String> command = new LinkedList<>();
+        command.add("svn");
+        command.add(subcommand);
+        command.add("--non-interactive");
+        command.add("--config-dir");
+        command.add(getSvnConfigDirectory().getAbsolutePath());
+        return command;
+    }
+    
+    /**
+     * Exports the given directory of the repository at revision {@link #transactionId} with a single
+     * <code>svn export</code> process. Only works in the {@link Phase#POST_COMMIT} phase, since transactions are not
+     * accessible via repository URLs.
+     * 
+     * @param pathInRepo The directory to export, relative to the repository root.
+     * @param targetDirectory The (existing) directory to export the content to.
+     * 
+     * @throws SvnException If the <code>svn</code> exists abnormally.
+     */
+    protected void runSvnExport(String pathInRepo, File targetDirectory) throws SvnException {
+        List<String> command = createSvnCommand("export");
+        command.add("--quiet");
+        command.add("--force"); // target directory already exists
+        command.add("--ignore-externals");
+        command.add("--ignore-keywords");
+        command.add("--native-eol");
+        command.add("LF"); // files with svn:eol-style=native are stored with LF
+        command.add(getRepositoryUrl(pathInRepo));
+        command.add(targetDirectory.getAbsolutePath());
+        
+        runCommand(command, null);
+    }
+    
+    /**
+     * Finds the files in the given directory of the repository at revision {@link #transactionId} that have an
+     * <code>svn:eol-style</code>. Uses a single <code>svn propget</code> process.
+     * 
+     * @param pathInRepo The directory, relative to the repository root.
+     * 
+     * @return The <code>svn:eol-style</code> of these files, by their path relative to the given directory (with
+     *      forward slashes).
+     * 
+     * @throws SvnException If the <code>svn</code> exists abnormally or its output is invalid.
+     */
+    protected Map<String, String> getEolStyles(String pathInRepo) throws SvnException {
+        String url = getRepositoryUrl(pathInRepo);
+        
+        List<String> command = createSvnCommand("propget");
+        command.add("--recursive");
+        command.add("--xml");
+        command.add("svn:eol-style");
+        command.add(url);
+        
+        Map<String, String> result;
+        File output = null;
+        try {
+            output = File.createTempFile("submission-check-propget", ".xml");
+            runCommand(command, output);
+            result = parseEolStyles(FileUtils.parseXml(output), url.substring(0, url.lastIndexOf('@')));
+            
+        } catch (IOException | SAXException e) {
+            throw new SvnException("Could not read output of svn propget", e);
+            
+        } finally {
+            if (output != null && !output.delete()) {
+                LOGGER.log(Level.WARNING, "Could not delete temporary file {0}", output);
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Parses the XML output of <code>svn propget --recursive --xml svn:eol-style</code>.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param propgetOutput The XML output of <code>svn propget</code>.
+     * @param baseUrl The URL of the directory that <code>svn propget</code> was called on, without peg revision.
+     * 
+     * @return The <code>svn:eol-style</code> of the files, by their path relative to the base URL (with forward
+     *      slashes).
+     * 
+     * @throws SvnException If a target is not inside the base URL.
+     */
+    static Map<String, String> parseEolStyles(Document propgetOutput, String baseUrl) throws SvnException {
+        String basePath = URI.create(baseUrl).getPath();
+        if (!basePath.endsWith("/")) {
+            basePath += "/";
+        }
+        
+        Map<String, String> result = new HashMap<>();
+        
+        NodeList targets = propgetOutput.getElementsByTagName("target");
+        for (int i = 0; i < targets.getLength(); i++) {
+            Element target = (Element) targets.item(i);
+            String path = URI.create(target.getAttribute("path")).getPath();
+            if (!path.startsWith(basePath)) {
+                throw new SvnException("svn propget returned target outside of " + baseUrl + ": " + path);
+            }
+            
+            NodeList properties = target.getElementsByTagName("property");
+            if (properties.getLength() > 0) {
+                result.put(path.substring(basePath.length()), properties.item(0).getTextContent().trim());
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Restores the line endings of files that <code>svn export</code> converted according to their
+     * <code>svn:eol-style</code>. The repository stores these files with LF, which is also what
+     * <code>svnlook cat</code> (and thus the {@link Phase#PRE_COMMIT} checkout) produces.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param directory The directory that the files were exported to.
+     * @param eolStyles The <code>svn:eol-style</code> of the files, as returned by {@link #getEolStyles(String)}.
+     * 
+     * @throws IOException If reading or writing a file fails.
+     */
+    static void restoreLineEndings(File directory, Map<String, String> eolStyles) throws IOException {
+        for (Map.Entry<String, String> entry : eolStyles.entrySet()) {
+            String eol;
+            switch (entry.getValue()) {
+            case "CRLF":
+                eol = "\r\n";
+                break;
+            
+            case "CR":
+                eol = "\r";
+                break;
+            
+            default:
+                eol = null; // native (exported with LF) and LF are not converted
+                break;
+            }
+            
+            File file = new File(directory, entry.getKey());
+            if (eol != null && file.isFile()) {
+                // ISO-8859-1 maps each byte to one char, so all other bytes are written back unchanged
+                String content = Files.readString(file.toPath(), StandardCharsets.ISO_8859_1);
+                Files.writeString(file.toPath(), content.replace(eol, "\n"), StandardCharsets.ISO_8859_1);
+            }
+        }
+    }
+    
+    /**
+     * Replaces the symbolic links that <code>svn export</code> created for files with the <code>svn:special</code>
+     * property by regular files. Like in the repository (and in the output of <code>svnlook cat</code>), each file
+     * contains <code>link </code> followed by the target of the link. Otherwise, the checks would read whatever the
+     * link points to, e.g. files outside of the submission or a device that never ends.
+     * <p>
+     * Package visibility for test cases.
+     * 
+     * @param directory The directory that the files were exported to.
+     * 
+     * @throws IOException If reading or replacing a link fails.
+     */
+    static void replaceSymbolicLinks(File directory) throws IOException {
+        List<Path> links = new ArrayList<>();
+        Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+            
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isSymbolicLink()) {
+                    links.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+            
+        });
+        
+        for (Path link : links) {
+            String target = Files.readSymbolicLink(link).toString();
+            Files.delete(link);
+            Files.writeString(link, "link " + target, StandardCharsets.UTF_8);
+        }
+    }
+    
+    /**
+     * Runs the given command. The working directory is the {@link #repositoryPath}. The process is killed if it does
+     * not finish before the {@link #setDeadline(Deadline) deadline}.
+     * 
+     * @param command The command to run.
+     * @param outputRedirect A file to write the command output to. If <code>null</code>, then the output will be
+     *      returned as a list of lines instead.
+     * 
+     * @return The standard output of the process as a list of lines. <code>null</code> if outputRedirect is
+     *      non-<code>null</code>.
+     * 
+     * @throws SvnException If the process exists abnormally or is killed because the deadline expired.
+     */
+    private List<String> runCommand(List<String> command, File outputRedirect) throws SvnException {
+        String name = command.get(0);
+        
         ProcessBuilder builder = new ProcessBuilder(command);
         builder.directory(this.repositoryPath);
         builder.redirectError(Redirect.PIPE);
@@ -114,27 +401,35 @@ public class CliSvnInterface implements ISvnInterface {
         List<String> stdout = null;
         try {
             Process process = builder.start();
-            captureAndLogStderr(process);
+            captureAndLogStderr(process, name);
             
-            if (outputRedirect == null) {
-                stdout = new LinkedList<>();
-                BufferedReader stdoutReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                String line;
-                while ((line = stdoutReader.readLine()) != null) {
-                    stdout.add(line);
+            int exitCode;
+            try (ProcessWatchdog watchdog = new ProcessWatchdog(process, deadline)) {
+                if (outputRedirect == null) {
+                    stdout = new LinkedList<>();
+                    BufferedReader stdoutReader = new BufferedReader(
+                            new InputStreamReader(process.getInputStream()));
+                    String line;
+                    while ((line = stdoutReader.readLine()) != null) {
+                        stdout.add(line);
+                    }
+                }
+                
+                exitCode = process.waitFor();
+                
+                if (watchdog.hasKilled()) {
+                    throw new SvnTimeoutException(name + " killed since it exceeded its time limit");
                 }
             }
             
-            int exitCode = process.waitFor();
-            
             if (exitCode != 0) {
-                throw new SvnException("svnlook exited with exit code " + exitCode);
+                throw new SvnException(name + " exited with exit code " + exitCode);
             }
             
         } catch (IOException e) {
-            throw new SvnException("Exception while running svnlook command", e);
+            throw new SvnException("Exception while running " + name + " command", e);
         } catch (InterruptedException e) {
-            throw new SvnException("Exception while waiting for svnlook command", e);
+            throw new SvnException("Exception while waiting for " + name + " command", e);
         }
         
         return stdout;
@@ -144,8 +439,9 @@ public class CliSvnInterface implements ISvnInterface {
      * Reads the error output stream of the given process and logs it to the {@link #LOGGER} if it's not empty.
      * 
      * @param process The process to capture the error output from.
+     * @param name The name of the process, used in the log message.
      */
-    private void captureAndLogStderr(Process process) {
+    private void captureAndLogStderr(Process process, String name) {
         new Thread(() -> {
             try (BufferedReader stderrReader = new BufferedReader(
                     new InputStreamReader(process.getErrorStream()))) {
@@ -157,15 +453,20 @@ public class CliSvnInterface implements ISvnInterface {
                 }
                 
                 if (stderr.length() > 0) {
-                    LOGGER.log(Level.WARNING, "Got error output from svnlook:\n{0}", stderr);
+                    LOGGER.log(Level.WARNING, "Got error output from {0}:\n{1}", new Object[] {name, stderr});
                 }
                 
             } catch (IOException e) {
-                LOGGER.log(Level.WARNING, "Failed to read stderr from svnlook", e);
+                LOGGER.log(Level.WARNING, "Failed to read stderr from " + name, e);
             }
         }).start();
     }
 
+    @Override
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+    
     @Override
     public TransactionInfo createTransactionInfo(Phase phase, File repositoryPath, String transactionId)
             throws SvnException {
@@ -221,6 +522,8 @@ public class CliSvnInterface implements ISvnInterface {
     /**
      * Parses the given change line from <code>svnlook changed</code> and returns the submission folder that was
      * affected.
+     * <p>
+     * Package visibility for benchmarks.
      * 
      * @param changeLine The change line as created by <code>svnlook changed</code>.
      * 
@@ -228,7 +531,7 @@ public class CliSvnInterface implements ISvnInterface {
      * 
      * @throws SvnException If the line has an invalid format.
      */
-    private Submission getChangedSubmissionFolder(String changeLine) throws SvnException {
+    static Submission getChangedSubmissionFolder(String changeLine) throws SvnException {
         if (changeLine.length() < 3) {
             throw new SvnException("Got empty line from svnlook changed");
         }
@@ -238,7 +541,20 @@ public class CliSvnInterface implements ISvnInterface {
             throw new SvnException("Got invalid change '" + change + "' in line " + changeLine);
         }
         
-        File path = new File(changeLine.substring(2).trim());
+        return getSubmissionOfPath(new File(changeLine.substring(2).trim()));
+    }
+    
+    /**
+     * Returns the submission folder that the given path is part of.
+     * <p>
+     * Package visibility for other {@link ISvnInterface} implementations.
+     * 
+     * @param path A path relative to the repository root.
+     * 
+     * @return The submission folder that contains the path, or <code>null</code> if the path is not inside a
+     *      submission folder.
+     */
+    static Submission getSubmissionOfPath(File path) {
         if (getNumberOfParents(path) > 1) {
             while (getNumberOfParents(path) > 1) {
                 path = path.getParentFile();
@@ -261,21 +577,68 @@ public class CliSvnInterface implements ISvnInterface {
     public void checkoutSubmission(TransactionInfo transaction, Submission submission, File checkoutLocation)
             throws SvnException, IOException {
         
+        checkoutSubmission(transaction, submission, checkoutLocation, (file) -> true);
+    }
+    
+    @Override
+    public boolean checkoutSubmission(TransactionInfo transaction, Submission submission, File checkoutLocation,
+            ICheckoutListener listener) throws SvnException, IOException {
+        
         LOGGER.log(Level.FINER, "Checking out submission {0} to {1}", new Object[] {submission, checkoutLocation});
         
         this.repositoryPath = transaction.getRepository();
         this.phase = transaction.getPhase();
         this.transactionId = transaction.getTransactionId();
         
+        boolean complete;
+        if (this.phase == Phase.POST_COMMIT) {
+            // export the whole submission with a single process; files can't be passed to the listener one by one
+            String pathInRepo = submission.getPathInRepo().getPath().replace(File.separatorChar, '/');
+            runSvnExport(pathInRepo, checkoutLocation);
+            replaceSymbolicLinks(checkoutLocation);
+            restoreLineEndings(checkoutLocation, getEolStyles(pathInRepo));
+            complete = true;
+            
+        } else {
+            // svnlook can only output single files; a transaction can't be exported with svn
+            complete = checkoutFilesIndividually(submission, checkoutLocation, listener);
+        }
+        
+        return complete;
+    }
+    
+    /**
+     * Checks out all files of the given submission with a separate <code>svnlook cat</code> call for each file.
+     * 
+     * @param submission The {@link Submission} to check out.
+     * @param checkoutLocation The directory to write the files to.
+     * @param listener The {@link ICheckoutListener} to notify after each file.
+     * 
+     * @return Whether all files were checked out, i.e. <code>false</code> if the listener aborted the checkout.
+     * 
+     * @throws SvnException If listing or checking out the files with <code>svnlook</code> fails.
+     * @throws IOException If creating a directory fails.
+     */
+    private boolean checkoutFilesIndividually(Submission submission, File checkoutLocation,
+            ICheckoutListener listener) throws SvnException, IOException {
+        
         List<File> filesInSubmission = runSvnLookCommand("tree", "--full-paths", submission.getPathInRepo().getPath())
                 .stream()
                 .filter((path) -> !path.endsWith("/")) // directories always have a trailing slash (only directories)
                 .map((path) -> new File(path))
                 .collect(Collectors.toList());
         
+        boolean complete = true;
         for (File file : filesInSubmission) {
-            checkoutFile(file, submission, checkoutLocation);
+            File targetFile = checkoutFile(file, submission, checkoutLocation);
+            if (!listener.fileCheckedOut(targetFile)) {
+                LOGGER.log(Level.FINE, "Checkout of {0} aborted after {1}", new Object[] {submission, file});
+                complete = false;
+                break;
+            }
         }
+        
+        return complete;
     }
     
     /**
@@ -285,11 +648,13 @@ public class CliSvnInterface implements ISvnInterface {
      * @param submission The {@link Submission} in the repository that this file is a part of.
      * @param checkoutLocation The base-directory to write the output file to. Sub-folders will be created where
      *      necessary.
+     * 
+     * @return The file that was written.
      *      
      * @throws SvnException If checking out the file with <code>svnlook</code> fails.
      * @throws IOException If creating the parent directory fails.
      */
-    private void checkoutFile(File fileInRepo, Submission submission, File checkoutLocation)
+    private File checkoutFile(File fileInRepo, Submission submission, File checkoutLocation)
             throws SvnException, IOException {
         
         File targetFile = new File(checkoutLocation,
@@ -301,6 +666,8 @@ public class CliSvnInterface implements ISvnInterface {
         }
         
         runSvnLookCommand("cat", targetFile, fileInRepo.getPath());
+        
+        return targetFile;
     }
 
 }
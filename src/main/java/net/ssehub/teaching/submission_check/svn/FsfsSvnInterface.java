@@ -0,0 +1,411 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.svn;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.tmatesoft.svn.core.SVNCancelException;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperty;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.wc.ISVNEventHandler;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNEvent;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc.admin.ISVNChangeEntryHandler;
+import org.tmatesoft.svn.core.wc.admin.ISVNTreeHandler;
+import org.tmatesoft.svn.core.wc.admin.SVNLookClient;
+
+import net.ssehub.teaching.submission_check.Submission;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.Deadline;
+
+/**
+ * An {@link ISvnInterface} that reads the FSFS repository files directly (via the pure-Java FSFS implementation of
+ * SVNKit), instead of starting <code>svnlook</code> processes. The <code>svn:mime-type</code> property of each file is
+ * passed to the {@link ICheckoutListener}. The content of files up to {@link #MAX_CAPTURED_SIZE} bytes is kept in
+ * memory while it is written, and passed to the listener as well (see
+ * {@link ICheckoutListener#fileCheckedOut(File, String, byte[])}).
+ * <p>
+ * The {@link #setDeadline(Deadline) deadline} is checked whenever SVNKit checks for cancellation, between the files of
+ * a checkout, and while the content of a file is written. When it expires, the operation is aborted with an
+ * {@link SvnTimeoutException}.
+ * 
+ * @author Adam
+ */
+public class FsfsSvnInterface implements ISvnInterface {
+    
+    /**
+     * The maximum size of files whose content is passed to the {@link ICheckoutListener} from memory.
+     */
+    public static final int MAX_CAPTURED_SIZE = 1024 * 1024;
+    
+    private static final Logger LOGGER = Logger.getLogger(FsfsSvnInterface.class.getName());
+    
+    static {
+        FSRepositoryFactory.setup();
+    }
+    
+    private volatile Deadline deadline = Deadline.NONE;
+    
+    /**
+     * Creates a new {@link SVNLookClient} that aborts its operations when the {@link #deadline} expires. A new one is
+     * created for each operation, so that this class can be used from multiple threads.
+     * 
+     * @return A new {@link SVNLookClient}.
+     */
+    private SVNLookClient createLookClient() {
+        SVNLookClient lookClient = SVNClientManager.newInstance().getLookClient();
+        lookClient.setEventHandler(new ISVNEventHandler() {
+            
+            @Override
+            public void checkCancelled() throws SVNCancelException {
+                if (deadline.isExpired()) {
+                    throw new SVNCancelException();
+                }
+            }
+            
+            @Override
+            public void handleEvent(SVNEvent event, double progress) {
+            }
+            
+        });
+        return lookClient;
+    }
+    
+    /**
+     * Creates the {@link SvnException} for a failed SVNKit operation. If the {@link #deadline} has expired, the
+     * operation was most likely aborted because of it, so an {@link SvnTimeoutException} is created instead.
+     * 
+     * @param message A message explaining the failure.
+     * @param cause The exception thrown by SVNKit.
+     * 
+     * @return The exception to throw.
+     */
+    private SvnException createException(String message, SVNException cause) {
+        SvnException result;
+        if (deadline.isExpired()) {
+            result = new SvnTimeoutException(message + " within the time limit", cause);
+        } else {
+            result = new SvnException(message, cause);
+        }
+        return result;
+    }
+    
+    /**
+     * Throws an {@link SvnTimeoutException} if the {@link #deadline} has expired.
+     * 
+     * @throws SvnTimeoutException If the deadline has expired.
+     */
+    private void checkDeadline() throws SvnTimeoutException {
+        if (deadline.isExpired()) {
+            throw new SvnTimeoutException("SVN operation aborted since it exceeded its time limit");
+        }
+    }
+    
+    @Override
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Parses the revision number of the given transaction in the {@link Phase#POST_COMMIT} phase.
+     * 
+     * @param transaction The transaction.
+     * 
+     * @return The revision.
+     * 
+     * @throws SvnException If the transaction identifier is not a valid revision number.
+     */
+    private static SVNRevision getRevision(TransactionInfo transaction) throws SvnException {
+        try {
+            return SVNRevision.create(Long.parseLong(transaction.getTransactionId()));
+        } catch (NumberFormatException e) {
+            throw new SvnException("Invalid revision: " + transaction.getTransactionId(), e);
+        }
+    }
+    
+    @Override
+    public TransactionInfo createTransactionInfo(Phase phase, File repositoryPath, String transactionId)
+            throws SvnException {
+        
+        TransactionInfo incomplete = new TransactionInfo(repositoryPath, null, transactionId, phase);
+        SVNLookClient lookClient = createLookClient();
+        
+        String author;
+        try {
+            if (phase == Phase.PRE_COMMIT) {
+                author = lookClient.doGetAuthor(repositoryPath, transactionId);
+            } else {
+                author = lookClient.doGetAuthor(repositoryPath, getRevision(incomplete));
+            }
+        } catch (SVNException e) {
+            throw createException("Failed to read author of " + transactionId, e);
+        }
+        
+        if (author == null) {
+            throw new SvnException("No author set for " + transactionId);
+        }
+        
+        return new TransactionInfo(repositoryPath, author, transactionId, phase);
+    }
+    
+    @Override
+    public Set<Submission> getModifiedSubmissions(TransactionInfo transaction) throws SvnException {
+        SVNLookClient lookClient = createLookClient();
+        Set<Submission> changedSubmissions = new HashSet<>();
+        ISVNChangeEntryHandler handler = (entry) -> {
+            Submission submission = CliSvnInterface.getSubmissionOfPath(new File(removeLeadingSlash(entry.getPath())));
+            if (submission != null) {
+                changedSubmissions.add(submission);
+            }
+        };
+        
+        try {
+            if (transaction.getPhase() == Phase.PRE_COMMIT) {
+                lookClient.doGetChanged(transaction.getRepository(), transaction.getTransactionId(), handler, false);
+            } else {
+                lookClient.doGetChanged(transaction.getRepository(), getRevision(transaction), handler, false);
+            }
+        } catch (SVNException e) {
+            throw createException("Failed to read changed paths of " + transaction.getTransactionId(), e);
+        }
+        
+        return changedSubmissions;
+    }
+    
+    /**
+     * Removes the leading slash from absolute repository paths.
+     * 
+     * @param path The path.
+     * 
+     * @return The path relative to the repository root.
+     */
+    private static String removeLeadingSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+    
+    @Override
+    public void checkoutSubmission(TransactionInfo transaction, Submission submission, File checkoutLocation)
+            throws SvnException, IOException {
+        
+        checkoutSubmission(transaction, submission, checkoutLocation, (file) -> true);
+    }
+    
+    @Override
+    public boolean checkoutSubmission(TransactionInfo transaction, Submission submission, File checkoutLocation,
+            ICheckoutListener listener) throws SvnException, IOException {
+        
+        LOGGER.log(Level.FINER, "Checking out submission {0} to {1}", new Object[] {submission, checkoutLocation});
+        
+        String submissionPath = "/" + submission.getPathInRepo().getPath().replace(File.separatorChar, '/');
+        
+        SVNLookClient lookClient = createLookClient();
+        List<String> files = new LinkedList<>();
+        ISVNTreeHandler handler = (path) -> {
+            if (deadline.isExpired()) {
+                throw new SVNCancelException();
+            }
+            if (!path.isDir()) {
+                files.add(path.getPath());
+            }
+        };
+        
+        try {
+            if (transaction.getPhase() == Phase.PRE_COMMIT) {
+                lookClient.doGetTree(transaction.getRepository(), submissionPath, transaction.getTransactionId(),
+                        false, true, handler);
+            } else {
+                lookClient.doGetTree(transaction.getRepository(), submissionPath, getRevision(transaction),
+                        false, true, handler);
+            }
+        } catch (SVNException e) {
+            throw createException("Failed to read tree of " + submissionPath, e);
+        }
+        
+        boolean complete = true;
+        for (String file : files) {
+            checkDeadline();
+            File targetFile = new File(checkoutLocation, file.substring(submissionPath.length() + 1));
+            
+            File parentDir = targetFile.getParentFile();
+            if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+                throw new IOException("Could not create directory " + parentDir);
+            }
+            
+            CapturingOutputStream capture = new CapturingOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(targetFile)));
+            try (OutputStream out = new DeadlineOutputStream(capture)) {
+                if (transaction.getPhase() == Phase.PRE_COMMIT) {
+                    lookClient.doCat(transaction.getRepository(), file, transaction.getTransactionId(), out);
+                } else {
+                    lookClient.doCat(transaction.getRepository(), file, getRevision(transaction), out);
+                }
+            } catch (SVNException e) {
+                throw createException("Failed to read content of " + file, e);
+            }
+            
+            if (!listener.fileCheckedOut(targetFile, getMimeType(lookClient, transaction, file),
+                    capture.getContent())) {
+                LOGGER.log(Level.FINE, "Checkout of {0} aborted after {1}", new Object[] {submission, file});
+                complete = false;
+                break;
+            }
+        }
+        
+        return complete;
+    }
+    
+    /**
+     * Reads the <code>svn:mime-type</code> property of the given file.
+     * 
+     * @param lookClient The {@link SVNLookClient} to use.
+     * @param transaction The transaction to read the property in.
+     * @param path The absolute path of the file in the repository.
+     * 
+     * @return The mime-type, or <code>null</code> if the property is not set.
+     * 
+     * @throws SvnException If reading the property fails.
+     */
+    private String getMimeType(SVNLookClient lookClient, TransactionInfo transaction, String path)
+            throws SvnException {
+        
+        SVNPropertyValue value;
+        try {
+            if (transaction.getPhase() == Phase.PRE_COMMIT) {
+                value = lookClient.doGetProperty(transaction.getRepository(), SVNProperty.MIME_TYPE, path,
+                        transaction.getTransactionId());
+            } else {
+                value = lookClient.doGetProperty(transaction.getRepository(), SVNProperty.MIME_TYPE, path,
+                        getRevision(transaction));
+            }
+        } catch (SVNException e) {
+            throw createException("Failed to read properties of " + path, e);
+        }
+        
+        return value != null ? value.getString() : null;
+    }
+    
+    /**
+     * An {@link OutputStream} that fails as soon as the {@link #deadline} has expired, so that writing a huge file
+     * is aborted. SVNKit wraps the {@link IOException} in an {@link SVNException}.
+     */
+    private class DeadlineOutputStream extends FilterOutputStream {
+        
+        /**
+         * Creates a new stream.
+         * 
+         * @param out The stream to write to.
+         */
+        DeadlineOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        /**
+         * Throws an {@link IOException} if the {@link #deadline} has expired.
+         * 
+         * @throws IOException If the deadline has expired.
+         */
+        private void failIfExpired() throws IOException {
+            if (deadline.isExpired()) {
+                throw new IOException("Time limit exceeded");
+            }
+        }
+        
+        @Override
+        public void write(int value) throws IOException {
+            failIfExpired();
+            out.write(value);
+        }
+        
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            failIfExpired();
+            out.write(buffer, offset, length);
+        }
+        
+    }
+    
+    /**
+     * An {@link OutputStream} that keeps a copy of the written content in memory, as long as it is not larger than
+     * {@link #MAX_CAPTURED_SIZE}.
+     */
+    private static class CapturingOutputStream extends FilterOutputStream {
+        
+        private ByteArrayOutputStream copy;
+        
+        /**
+         * Creates a new stream.
+         * 
+         * @param out The stream to write to.
+         */
+        CapturingOutputStream(OutputStream out) {
+            super(out);
+            this.copy = new ByteArrayOutputStream();
+        }
+        
+        /**
+         * Returns the content that has been written.
+         * 
+         * @return The written content, or <code>null</code> if it was larger than {@link #MAX_CAPTURED_SIZE}.
+         */
+        byte[] getContent() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+        
+        @Override
+        public void write(int value) throws IOException {
+            out.write(value);
+            if (copy != null) {
+                copy.write(value);
+                discardIfTooLarge();
+            }
+        }
+        
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            if (copy != null) {
+                copy.write(buffer, offset, length);
+                discardIfTooLarge();
+            }
+        }
+        
+        /**
+         * Stops keeping the copy once it exceeds {@link #MAX_CAPTURED_SIZE}.
+         */
+        private void discardIfTooLarge() {
+            if (copy.size() > MAX_CAPTURED_SIZE) {
+                copy = null;
+            }
+        }
+        
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.svn;
+
+import java.io.File;
+
+import net.ssehub.teaching.submission_check.Submission;
+
+/**
+ * Gets notified about each file while a {@link Submission} is checked out with
+ * {@link ISvnInterface#checkoutSubmission(TransactionInfo, Submission, File, ICheckoutListener)}. This allows
+ * consuming files as they arrive, before the whole submission is written to disk.
+ * 
+ * @author Adam
+ */
+public interface ICheckoutListener {
+    
+    /**
+     * Called after a single file has been completely written to the checkout location.
+     * 
+     * @param file The checked-out file inside the checkout location.
+     * 
+     * @return Whether the checkout should continue. If <code>false</code>, the checkout is aborted and the remaining
+     *      files are not written.
+     */
+    public boolean fileCheckedOut(File file);
+    
+    /**
+     * Called after a single file has been completely written to the checkout location, by {@link ISvnInterface}
+     * implementations that can read the <code>svn:mime-type</code> property of the file. The default implementation
+     * ignores the property and calls {@link #fileCheckedOut(File)}.
+     * 
+     * @param file The checked-out file inside the checkout location.
+     * @param mimeType The <code>svn:mime-type</code> property of the file, or <code>null</code> if it is not set.
+     * 
+     * @return Whether the checkout should continue.
+     */
+    public default boolean fileCheckedOut(File file, String mimeType) {
+        return fileCheckedOut(file);
+    }
+    
+    /**
+     * Called after a single file has been completely written to the checkout location, by {@link ISvnInterface}
+     * implementations that also keep the content of small files in memory while writing them. This allows consuming
+     * the file without reading it back from disk. The default implementation ignores the content and calls
+     * {@link #fileCheckedOut(File, String)}.
+     * 
+     * @param file The checked-out file inside the checkout location.
+     * @param mimeType The <code>svn:mime-type</code> property of the file, or <code>null</code> if it is not set.
+     * @param content The complete content of the file, or <code>null</code> if the file was too large to keep it in
+     *      memory.
+     * 
+     * @return Whether the checkout should continue.
+     */
+    public default boolean fileCheckedOut(File file, String mimeType, byte[] content) {
+        return fileCheckedOut(file, mimeType);
+    }
+    
+}
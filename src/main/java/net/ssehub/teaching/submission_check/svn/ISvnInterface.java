@@ -21,11 +21,13 @@ import java.util.Set;
 
 import net.ssehub.teaching.submission_check.Submission;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.Deadline;
 
 /**
  * Interface for implementations that communicate with the SVN server. The methods represent the operations on the
  * SVN server that are required for the submission hook to run. Implementations should be state-less between calls to
- * methods defined here.
+ * methods defined here. {@link #checkoutSubmission(TransactionInfo, Submission, File)} may be called concurrently for
+ * different submissions of the same transaction.
  * 
  * @author Adam
  */
@@ -70,4 +72,43 @@ public interface ISvnInterface {
     public void checkoutSubmission(TransactionInfo transaction, Submission submission, File checkoutLocation)
             throws SvnException, IOException;
     
+    /**
+     * Checks out the content of a submission to a specified location and notifies the given listener about each file
+     * as soon as it is written. The listener may abort the checkout, e.g. if a file already violates a check.
+     * <p>
+     * The default implementation checks out the complete submission via
+     * {@link #checkoutSubmission(TransactionInfo, Submission, File)} and never calls the listener; implementations
+     * that write files one after another should override this.
+     * 
+     * @param transaction The transaction to check the submission out for.
+     * @param submission The {@link Submission} directory to check out.
+     * @param checkoutLocation The location where the checked-out content should be placed. This points to an empty
+     *      directory.
+     * @param listener The {@link ICheckoutListener} to notify about each checked-out file.
+     * 
+     * @return Whether the submission was checked out completely, i.e. <code>false</code> if the listener aborted the
+     *      checkout.
+     * 
+     * @throws SvnException If the interaction with the SVN repository fails.
+     * @throws IOException If I/O errors occur.
+     */
+    public default boolean checkoutSubmission(TransactionInfo transaction, Submission submission,
+            File checkoutLocation, ICheckoutListener listener) throws SvnException, IOException {
+        
+        checkoutSubmission(transaction, submission, checkoutLocation);
+        return true;
+    }
+    
+    /**
+     * Sets the {@link Deadline} that the following SVN operations must finish before. Implementations should abort
+     * operations (e.g. kill the processes that they started) when the deadline expires and throw an
+     * {@link SvnTimeoutException}.
+     * <p>
+     * The default implementation ignores the deadline.
+     * 
+     * @param deadline The deadline; {@link Deadline#NONE} for no limit.
+     */
+    public default void setDeadline(Deadline deadline) {
+    }
+    
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.svn;
+
+import net.ssehub.teaching.submission_check.utils.Deadline;
+
+/**
+ * An {@link SvnException} signaling that an SVN operation was aborted because the {@link Deadline} set via
+ * {@link ISvnInterface#setDeadline(Deadline)} expired.
+ * 
+ * @author Adam
+ */
+public class SvnTimeoutException extends SvnException {
+
+    private static final long serialVersionUID = -2716342468907553197L;
+    
+    /**
+     * Creates an {@link SvnTimeoutException}.
+     * 
+     * @param message A message explaining this exception.
+     */
+    public SvnTimeoutException(String message) {
+        super(message);
+    }
+    
+    /**
+     * Creates an {@link SvnTimeoutException}.
+     * 
+     * @param message A message explaining this exception.
+     * @param cause Another exception that caused this exception.
+     */
+    public SvnTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
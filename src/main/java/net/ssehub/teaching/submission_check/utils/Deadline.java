@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * A point in time until which an operation must be finished. Based on {@link System#nanoTime()}, so it is not affected
+ * by changes of the system clock. Instances are immutable.
+ * <p>
+ * A deadline can also be cancelled before its time has passed, e.g. because the result of the operation is not needed
+ * anymore (see {@link #cancelledWhen(BooleanSupplier)}). A cancelled deadline counts as expired.
+ * 
+ * @author Adam
+ */
+public class Deadline {
+    
+    /**
+     * A deadline that never expires.
+     */
+    public static final Deadline NONE = new Deadline(0, false, null);
+    
+    private long nanoTime;
+    
+    private boolean limited;
+    
+    private BooleanSupplier cancelled;
+    
+    /**
+     * Creates a deadline.
+     * 
+     * @param nanoTime The value of {@link System#nanoTime()} at which this deadline expires.
+     * @param limited Whether this deadline expires at all.
+     * @param cancelled The condition that cancels this deadline. <code>null</code> if it cannot be cancelled.
+     */
+    private Deadline(long nanoTime, boolean limited, BooleanSupplier cancelled) {
+        this.nanoTime = nanoTime;
+        this.limited = limited;
+        this.cancelled = cancelled;
+    }
+    
+    /**
+     * Creates a deadline that expires after the given time from now.
+     * 
+     * @param millis The time budget in milliseconds. 0 or less means no limit.
+     * 
+     * @return The deadline; {@link #NONE} if the budget is not positive.
+     */
+    public static Deadline after(long millis) {
+        Deadline result = NONE;
+        if (millis > 0) {
+            result = new Deadline(System.nanoTime() + millis * 1_000_000, true, null);
+        }
+        return result;
+    }
+    
+    /**
+     * Creates a deadline that expires at the same time as this one, but is also cancelled as soon as the given
+     * condition is <code>true</code>. The condition is evaluated each time the deadline is queried, so it should be
+     * cheap.
+     * 
+     * @param condition The condition that cancels the deadline.
+     * 
+     * @return The cancellable deadline.
+     */
+    public Deadline cancelledWhen(BooleanSupplier condition) {
+        return new Deadline(nanoTime, limited, combine(cancelled, condition));
+    }
+    
+    /**
+     * Combines two cancellation conditions.
+     * 
+     * @param first The first condition, may be <code>null</code>.
+     * @param second The second condition, may be <code>null</code>.
+     * 
+     * @return A condition that is <code>true</code> if any of the two is; <code>null</code> if both are
+     *      <code>null</code>.
+     */
+    private static BooleanSupplier combine(BooleanSupplier first, BooleanSupplier second) {
+        BooleanSupplier result;
+        if (first == null || first == second) {
+            result = second;
+        } else if (second == null) {
+            result = first;
+        } else {
+            result = () -> first.getAsBoolean() || second.getAsBoolean();
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the earlier of this and the given deadline. The result is cancelled if any of the two is cancelled.
+     * 
+     * @param other The other deadline.
+     * 
+     * @return The deadline that expires first.
+     */
+    public Deadline earliest(Deadline other) {
+        Deadline result;
+        if (!other.limited) {
+            result = this;
+        } else if (!this.limited) {
+            result = other;
+        } else {
+            result = this.nanoTime - other.nanoTime <= 0 ? this : other;
+        }
+        
+        BooleanSupplier cancellation = combine(this.cancelled, other.cancelled);
+        if (cancellation != result.cancelled) {
+            result = new Deadline(result.nanoTime, result.limited, cancellation);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns whether this deadline expires at all.
+     * 
+     * @return Whether this is not {@link #NONE}.
+     */
+    public boolean isLimited() {
+        return limited;
+    }
+    
+    /**
+     * Returns whether this deadline can be cancelled before its time has passed.
+     * 
+     * @return Whether this deadline was created by {@link #cancelledWhen(BooleanSupplier)}.
+     */
+    public boolean isCancellable() {
+        return cancelled != null;
+    }
+    
+    /**
+     * Returns whether this deadline has already passed or has been cancelled.
+     * 
+     * @return Whether there is no time left.
+     */
+    public boolean isExpired() {
+        return (limited && nanoTime - System.nanoTime() <= 0) || (cancelled != null && cancelled.getAsBoolean());
+    }
+    
+    /**
+     * Returns the time that is left until this deadline.
+     * 
+     * @return The remaining time in milliseconds; 0 if the deadline has passed or has been cancelled,
+     *      {@link Long#MAX_VALUE} if it is not limited.
+     */
+    public long getRemainingMillis() {
+        long result = Long.MAX_VALUE;
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            result = 0;
+        } else if (limited) {
+            result = Math.max(0, (nanoTime - System.nanoTime()) / 1_000_000);
+        }
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        String result = limited ? getRemainingMillis() + " ms left" : "no deadline";
+        if (cancelled != null) {
+            result += ", cancellable";
+        }
+        return result;
+    }
+    
+}
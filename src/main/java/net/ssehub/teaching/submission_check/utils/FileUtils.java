@@ -270,7 +270,8 @@ public class FileUtils {
     }
 
     /**
-     * Deletes a directory with all content of it.
+     * Deletes a directory with all content of it. Symbolic links are deleted, not the files or directories that they
+     * point to.
      * 
      * @param directory The folder to delete.
      * 
@@ -282,7 +283,7 @@ public class FileUtils {
         }
         
         for (File file : directory.listFiles()) {
-            if (file.isDirectory()) {
+            if (file.isDirectory() && !Files.isSymbolicLink(file.toPath())) {
                 deleteDirectory(file);
             } else {
                 deleteFile(file);
@@ -302,9 +303,11 @@ public class FileUtils {
      * @see Runtime#addShutdownHook(Thread)
      */
     public static File createTemporaryDirectory() throws IOException {
-        if (!shutdownHookRegistered) {
-            Runtime.getRuntime().addShutdownHook(new Thread(FileUtils::cleanTemporaryFolders));
-            shutdownHookRegistered = true;
+        synchronized (temporaryDirectories) {
+            if (!shutdownHookRegistered) {
+                Runtime.getRuntime().addShutdownHook(new Thread(FileUtils::cleanTemporaryFolders));
+                shutdownHookRegistered = true;
+            }
         }
         
         File temporaryFile = File.createTempFile("submission-check", null);
@@ -321,6 +324,24 @@ public class FileUtils {
         return temporaryFile;
     }
     
+    /**
+     * Deletes a temporary folder created via {@link #createTemporaryDirectory()} before the shutdown hook runs. If the
+     * deletion fails, a warning is logged and the shutdown hook will try again.
+     * 
+     * @param directory The temporary folder to delete.
+     */
+    public static void deleteTemporaryDirectory(File directory) {
+        // the lock only guards the set, so that parallel checkouts do not wait for each other's deletion
+        try {
+            deleteDirectory(directory);
+            synchronized (temporaryDirectories) {
+                temporaryDirectories.remove(directory);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete temporary directory " + directory, e);
+        }
+    }
+    
     /**
      * Removes all temporary folders created via {@link #createTemporaryDirectory()}. Called by a shutdown hook.
      * Package visibility for test cases.
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Static utility methods for the SHA-256 hashes that the caches use as keys.
+ * 
+ * @author Adam
+ */
+public class HashUtils {
+    
+    /**
+     * Don't allow any instances.
+     */
+    private HashUtils() {}
+    
+    /**
+     * Creates a new SHA-256 {@link MessageDigest}.
+     * 
+     * @return The new {@link MessageDigest}.
+     */
+    public static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e); // cannot happen, every Java platform supports SHA-256
+        }
+    }
+    
+    /**
+     * Updates the digest with the content of the given file.
+     * 
+     * @param digest The digest to update.
+     * @param file The file to add.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    public static void updateWithFile(MessageDigest digest, File file) throws IOException {
+        try (InputStream input = FileUtils.newInputStream(file)) {
+            updateWithStream(digest, input);
+        }
+    }
+    
+    /**
+     * Updates the digest with the remaining content of the given stream. The stream is not closed.
+     * 
+     * @param digest The digest to update.
+     * @param input The stream to read.
+     * 
+     * @throws IOException If reading the stream fails.
+     */
+    public static void updateWithStream(MessageDigest digest, InputStream input) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+    }
+    
+    /**
+     * Completes the hash computation of the given digest and returns the hash. The digest is reset afterwards.
+     * 
+     * @param digest The digest to complete.
+     * 
+     * @return The hash as a lower-case hexadecimal string.
+     */
+    public static String toHex(MessageDigest digest) {
+        byte[] hash = digest.digest();
+        char[] result = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            result[2 * i] = Character.forDigit((hash[i] >> 4) & 0xF, 16);
+            result[2 * i + 1] = Character.forDigit(hash[i] & 0xF, 16);
+        }
+        return new String(result);
+    }
+    
+}
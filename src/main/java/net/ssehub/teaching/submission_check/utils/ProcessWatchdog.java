@@ -0,0 +1,190 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Forcibly destroys a {@link Process} and all its descendants when a {@link Deadline} expires. Reading the output of
+ * the process ends when it is destroyed, so callers can keep reading the output and waiting for the process as usual,
+ * and check {@link #hasKilled()} afterwards. Should be closed when the process has finished, so that it is not killed
+ * afterwards. A {@link Deadline#isCancellable() cancellable} deadline is checked every {@link #SAMPLE_INTERVAL}
+ * milliseconds, so the process is also destroyed shortly after the deadline is cancelled.
+ * <p>
+ * If requested, the watchdog also samples the CPU time of the process and its descendants via {@link ProcessHandle}
+ * while the process runs (see {@link #getCpuTime()}). The CPU time of a process cannot be read anymore once it has
+ * exited, so the last sample is used; this may miss up to {@link #SAMPLE_INTERVAL} milliseconds of CPU time. Finding
+ * the descendants is expensive (on Linux, it reads all of <code>/proc</code>), so only callers that use the CPU time
+ * should request it. The sampling runs in a separate thread, so that a slow sample never delays killing a process.
+ * 
+ * @author Adam
+ */
+public class ProcessWatchdog implements AutoCloseable {
+    
+    static final long SAMPLE_INTERVAL = 50;
+    
+    private static final Logger LOGGER = Logger.getLogger(ProcessWatchdog.class.getName());
+    
+    private static final ScheduledExecutorService TIMER = createExecutor("ProcessWatchdog");
+    
+    private static final ScheduledExecutorService SAMPLER = createExecutor("ProcessWatchdog-CpuSampler");
+    
+    private Process process;
+    
+    private Deadline deadline;
+    
+    private ScheduledFuture<?> kill;
+    
+    private ScheduledFuture<?> cancellationCheck;
+    
+    private ScheduledFuture<?> sampling;
+    
+    private volatile boolean killed;
+    
+    private volatile long cpuTime;
+    
+    /**
+     * Starts watching the given process, without sampling its CPU time.
+     * 
+     * @param process The process to destroy when the deadline expires.
+     * @param deadline The deadline. If this is {@link Deadline#NONE}, the process is never destroyed.
+     */
+    public ProcessWatchdog(Process process, Deadline deadline) {
+        this(process, deadline, false);
+    }
+    
+    /**
+     * Starts watching the given process.
+     * 
+     * @param process The process to destroy when the deadline expires.
+     * @param deadline The deadline. If this is {@link Deadline#NONE}, the process is never destroyed.
+     * @param sampleCpuTime Whether to sample the CPU time of the process for {@link #getCpuTime()}.
+     */
+    public ProcessWatchdog(Process process, Deadline deadline, boolean sampleCpuTime) {
+        this.process = process;
+        this.deadline = deadline;
+        this.cpuTime = -1;
+        if (sampleCpuTime) {
+            this.sampling = SAMPLER.scheduleAtFixedRate(this::sampleCpuTime, 0, SAMPLE_INTERVAL,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (deadline.isCancellable()) {
+            this.cancellationCheck = TIMER.scheduleAtFixedRate(this::checkCancelled, SAMPLE_INTERVAL, SAMPLE_INTERVAL,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (deadline.isLimited()) {
+            this.kill = TIMER.schedule(this::kill, deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Creates a single-threaded executor with a daemon thread.
+     * 
+     * @param name The name of the thread.
+     * 
+     * @return The new executor.
+     */
+    private static ScheduledExecutorService createExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Destroys the process and all its descendants, if it is still alive.
+     */
+    private void kill() {
+        if (process.isAlive()) {
+            LOGGER.log(Level.WARNING, "Killing process {0} since its time limit is exceeded or it was cancelled",
+                    process.pid());
+            killed = true;
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+    
+    /**
+     * Called every {@link #SAMPLE_INTERVAL} milliseconds for a cancellable deadline. Kills the process if the deadline
+     * has been cancelled.
+     */
+    private void checkCancelled() {
+        if (deadline.isExpired()) {
+            kill();
+        }
+    }
+    
+    /**
+     * Called every {@link #SAMPLE_INTERVAL} milliseconds if requested. Reads the total CPU time of the process and its
+     * descendants that are still alive. Keeps the largest value seen, since descendants that have already exited are
+     * not counted anymore.
+     */
+    private void sampleCpuTime() {
+        Optional<Duration> own = process.info().totalCpuDuration();
+        if (own.isPresent()) {
+            long total = own.get().toNanos();
+            total += process.descendants().mapToLong(
+                (descendant) -> descendant.info().totalCpuDuration().map(Duration::toNanos).orElse(0L)).sum();
+            
+            if (total > cpuTime) {
+                cpuTime = total;
+            }
+        }
+    }
+    
+    /**
+     * Returns the CPU time of the process and its descendants, as last sampled while the process was alive.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if it was not requested or could not be sampled.
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+    
+    /**
+     * Returns whether the process has been destroyed because the deadline expired.
+     * 
+     * @return Whether the process was killed by this watchdog.
+     */
+    public boolean hasKilled() {
+        return killed;
+    }
+    
+    /**
+     * Stops watching the process. Does not destroy it.
+     */
+    @Override
+    public void close() {
+        if (sampling != null) {
+            sampling.cancel(false);
+        }
+        if (cancellationCheck != null) {
+            cancellationCheck.cancel(false);
+        }
+        if (kill != null) {
+            kill.cancel(false);
+        }
+    }
+    
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the resources that the current thread uses from the creation of this meter on: wall time, CPU time and
+ * allocated heap memory. CPU time and allocated memory are read from the {@link ThreadMXBean}; if the runtime does not
+ * support them, they are reported as -1.
+ * <p>
+ * Instances must only be used by the thread that created them.
+ * 
+ * @author Adam
+ */
+public class ResourceMeter {
+    
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    
+    private long startWallTime;
+    
+    private long startCpuTime;
+    
+    private long startAllocatedBytes;
+    
+    /**
+     * Starts measuring the resources of the current thread.
+     */
+    public ResourceMeter() {
+        this.startWallTime = System.nanoTime();
+        this.startCpuTime = readCpuTime();
+        this.startAllocatedBytes = readAllocatedBytes();
+    }
+    
+    /**
+     * Returns the wall time since this meter was created.
+     * 
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getWallTime() {
+        return System.nanoTime() - startWallTime;
+    }
+    
+    /**
+     * Returns the CPU time that the current thread used since this meter was created.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if not supported.
+     */
+    public long getCpuTime() {
+        return difference(startCpuTime, readCpuTime());
+    }
+    
+    /**
+     * Returns the number of bytes that the current thread allocated on the heap since this meter was created.
+     * 
+     * @return The allocated bytes, or -1 if not supported.
+     */
+    public long getAllocatedBytes() {
+        return difference(startAllocatedBytes, readAllocatedBytes());
+    }
+    
+    /**
+     * Computes the difference between two readings.
+     * 
+     * @param start The reading at the start.
+     * @param end The current reading.
+     * 
+     * @return The difference, or -1 if any of the readings is -1.
+     */
+    private static long difference(long start, long end) {
+        long result = -1;
+        if (start != -1 && end != -1) {
+            result = end - start;
+        }
+        return result;
+    }
+    
+    /**
+     * Reads the CPU time of the current thread.
+     * 
+     * @return The CPU time in nanoseconds, or -1 if not supported.
+     */
+    private static long readCpuTime() {
+        long result = -1;
+        if (THREAD_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_BEAN.isThreadCpuTimeEnabled()) {
+            result = THREAD_BEAN.getCurrentThreadCpuTime();
+        }
+        return result;
+    }
+    
+    /**
+     * Reads the total number of bytes allocated by the current thread. Only supported by runtimes that provide the
+     * {@link com.sun.management.ThreadMXBean} extension.
+     * 
+     * @return The allocated bytes, or -1 if not supported.
+     */
+    private static long readAllocatedBytes() {
+        long result = -1;
+        if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean extendedBean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+            if (extendedBean.isThreadAllocatedMemorySupported() && extendedBean.isThreadAllocatedMemoryEnabled()) {
+                result = extendedBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return result;
+    }
+    
+}
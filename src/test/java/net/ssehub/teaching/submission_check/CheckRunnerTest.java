@@ -16,17 +16,29 @@
 package net.ssehub.teaching.submission_check;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.checks.FileSizeCheck;
 import net.ssehub.teaching.submission_check.checks.MockCheck;
+import net.ssehub.teaching.submission_check.checks.SourceFileCache;
+import net.ssehub.teaching.submission_check.utils.Deadline;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
 
 public class CheckRunnerTest {
@@ -298,6 +310,216 @@ public class CheckRunnerTest {
     }
     
     
+    @Test
+    public void checkFilePassedToLeadingStreamingChecks() {
+        File directory = new File("src/test/resources/FileSizeCheckTest/multipleFiles");
+        FileSizeCheck check = new FileSizeCheck();
+        check.setMaxFileSize(150);
+        runner.addCheck(check);
+        runner.addCheck(new MockCheck(true));
+        
+        assertThat("Postcondition: leading streaming check should reject the file",
+                runner.checkFile(directory, new File(directory, "200bytes.txt")), is(false));
+    }
+    
+    @Test
+    public void checkFileNotPassedToStreamingChecksAfterOtherChecks() {
+        File directory = new File("src/test/resources/FileSizeCheckTest/multipleFiles");
+        FileSizeCheck check = new FileSizeCheck();
+        check.setMaxFileSize(150);
+        runner.addCheck(new MockCheck(true));
+        runner.addCheck(check);
+        
+        assertThat("Postcondition: streaming check after a non-streaming check should not get the file",
+                runner.checkFile(directory, new File(directory, "200bytes.txt")), is(true));
+    }
+    
+    @Test
+    public void checkFileReadsContentFromMemory() throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        File file = new File(directory, "200bytes.txt");
+        SourceFileCache cache = new SourceFileCache(directory);
+        cache.putBytes(file, new byte[200]);
+        
+        FileSizeCheck check = new FileSizeCheck();
+        check.setMaxFileSize(150);
+        runner.addCheck(check);
+        
+        boolean streamingSuccess = runner.checkFile(cache, file, null);
+        runner.run(new Submission("Exercise01", "Group01"), cache);
+        
+        ResultMessage expected = new ResultMessage(FileSizeCheck.CHECK_NAME, MessageType.ERROR, "File is too large");
+        expected.setFile(new File("200bytes.txt"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: streaming check should reject the file in memory",
+                    streamingSuccess, is(false)),
+            () -> assertThat("Postcondition: file that is only in memory should be reported",
+                    collector.getAllMessages(), is(Arrays.asList(expected)))
+        );
+    }
+    
+    @Test
+    public void runUsesGivenSourceFileCache() {
+        MockCheck check = new MockCheck(true);
+        runner.addCheck(check);
+        SourceFileCache cache = new SourceFileCache(new File(""));
+        
+        runner.run(new Submission("Exercise01", "Group01"), cache);
+        
+        assertThat("Postcondition: the run should use the given source file cache",
+                check.getUsedSourceFileCache(), sameInstance(cache));
+    }
+    
+    @Test
+    public void checksShareSourceFileCache() {
+        MockCheck first = new MockCheck(true);
+        MockCheck second = new MockCheck(true);
+        runner.addCheck(first);
+        runner.addCheck(second);
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertThat("Postcondition: checks of one run should use the same source file cache",
+                second.getUsedSourceFileCache(), sameInstance(first.getUsedSourceFileCache()));
+    }
+    
+    @Test
+    public void sourceFileCacheNotSharedBetweenRuns() {
+        MockCheck check = new MockCheck(true);
+        runner.addCheck(check);
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        SourceFileCache first = check.getUsedSourceFileCache();
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertThat("Postcondition: each run should use a new source file cache",
+                check.getUsedSourceFileCache(), not(sameInstance(first)));
+    }
+    
+    @Test
+    public void checksGetEarliestDeadline() {
+        MockCheck shortTimeout = new MockCheck(true);
+        shortTimeout.setTimeout(1000);
+        MockCheck noTimeout = new MockCheck(true);
+        runner.addCheck(shortTimeout);
+        runner.addCheck(noTimeout);
+        runner.setDeadline(Deadline.after(60000));
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertAll(
+            () -> assertThat("Postcondition: check timeout should be used if it expires first",
+                    shortTimeout.getUsedDeadline().getRemainingMillis(), lessThanOrEqualTo(1000L)),
+            () -> assertThat("Postcondition: runner deadline should be used if check has no timeout",
+                    noTimeout.getUsedDeadline().getRemainingMillis(), lessThanOrEqualTo(60000L)),
+            () -> assertThat(noTimeout.getUsedDeadline().isLimited(), is(true))
+        );
+    }
+    
+    @Test
+    public void completeWithoutTimeout() {
+        runner.addCheck(new MockCheck(true));
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertThat("Postcondition: run without aborted checks should be complete",
+                runner.isComplete(), is(true));
+    }
+    
+    @Test
+    public void incompleteAfterTimeout() {
+        MockCheck check = new MockCheck(true);
+        check.setTimeout(true);
+        runner.addCheck(new MockCheck(true));
+        runner.addCheck(check);
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertAll(
+            () -> assertThat("Postcondition: run with an aborted check should not be complete",
+                    runner.isComplete(), is(false)),
+            () -> assertThat("Postcondition: timeout should be reported as message",
+                    collector.getAllMessages().size(), is(1))
+        );
+    }
+    
+    @Test
+    public void incompleteAfterInternalError() {
+        MockCheck check = new MockCheck(false);
+        check.setInternalError(true);
+        runner.addCheck(check);
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertAll(
+            () -> assertThat("Postcondition: run with an internal error should not be complete",
+                    runner.isComplete(), is(false)),
+            () -> assertThat(collector.getAllMessages().get(0).getMessage(),
+                    is("An internal error occurred while mocking"))
+        );
+    }
+    
+    @Test
+    public void completeAgainAfterTimeout() {
+        MockCheck check = new MockCheck(true);
+        check.setTimeout(true);
+        runner.addCheck(check);
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        check.setTimeout(false);
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertThat("Postcondition: a following run without timeout should be complete",
+                runner.isComplete(), is(true));
+    }
+    
+    @Test
+    public void noDeadlineByDefault() {
+        MockCheck check = new MockCheck(true);
+        runner.addCheck(check);
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertThat(check.getUsedDeadline(), is(Deadline.NONE));
+    }
+    
+    @Test
+    public void recordsTimingPerCheck() {
+        runner.addCheck(new MockCheck(true));
+        runner.addCheck(new MockCheck(true));
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should record one timing per check",
+                    collector.getTimings().size(), is(2)),
+            () -> assertThat(collector.getTimings().get(0).getName(), is("MockCheck")),
+            () -> assertThat(collector.getTimings().get(0).getSubmission(), is(new Submission("Exercise01", "Group01"))),
+            () -> assertThat(collector.getTimings().get(0).getWallTime(), greaterThanOrEqualTo(0L)),
+            () -> assertThat("Postcondition: check did not start any processes",
+                    collector.getTimings().get(0).getChildCpuTime(), is(-1L))
+        );
+    }
+    
+    @Test
+    public void timingIncludesWorkerUsage() {
+        MockCheck check = new MockCheck(true);
+        check.setWorkerUsage(TimeUnit.SECONDS.toNanos(100), 1L << 40);
+        runner.addCheck(check);
+        
+        runner.run(new Submission("Exercise01", "Group01"), new File(""));
+        
+        CheckTiming timing = collector.getTimings().get(0);
+        assumeTrue(timing.getCpuTime() != -1 && timing.getAllocatedBytes() != -1, "thread metering not supported");
+        assertAll(
+            () -> assertThat("Postcondition: CPU time should include the worker threads",
+                    timing.getCpuTime(), greaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(100))),
+            () -> assertThat("Postcondition: allocated bytes should include the worker threads",
+                    timing.getAllocatedBytes(), greaterThanOrEqualTo(1L << 40))
+        );
+    }
+    
     @BeforeAll
     public static void initLogger() {
         LoggingSetup.setupStdoutLogging();
@@ -19,6 +19,7 @@ import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
@@ -28,6 +29,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -41,6 +43,8 @@ import net.ssehub.teaching.submission_check.checks.FileSizeCheck;
 import net.ssehub.teaching.submission_check.checks.InternalJavacCheck;
 import net.ssehub.teaching.submission_check.checks.JavacCheck;
 import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
+import net.ssehub.teaching.submission_check.svn.CliSvnInterface;
+import net.ssehub.teaching.submission_check.svn.FsfsSvnInterface;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
 
@@ -219,6 +223,237 @@ public class ConfigurationTest {
                 config.getLogLevel(), is("FINER"));
     }
     
+    @Test
+    public void daemonSettingsDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "empty.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should have correct default value",
+                config.getDaemonPort(), is(0));
+        assertThat("Postcondition: should have correct default value",
+                config.getDaemonThreads(), is(Runtime.getRuntime().availableProcessors()));
+    }
+    
+    @Test
+    public void daemonSettingsConfigured() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "daemon.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should have configured value",
+                config.getDaemonPort(), is(4242));
+        assertThat("Postcondition: should have configured value",
+                config.getDaemonThreads(), is(3));
+    }
+    
+    @Test
+    public void daemonSettingsInvalid() throws IOException {
+        File configFile = new File(TESTDATA, "daemonInvalid.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThrows(ConfigurationException.class, () -> config.getDaemonPort());
+        assertThrows(ConfigurationException.class, () -> config.getDaemonThreads());
+    }
+    
+    @Test
+    public void parallelSubmissionsDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "empty.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should have correct default value",
+                config.getParallelSubmissions(), is(1));
+    }
+    
+    @Test
+    public void parallelSubmissionsConfigured() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "parallelSubmissions.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should have configured value",
+                config.getParallelSubmissions(), is(4));
+    }
+    
+    @Test
+    public void parallelSubmissionsInvalid() throws IOException {
+        File configFile = new File(TESTDATA, "parallelSubmissionsInvalid.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThrows(ConfigurationException.class, () -> config.getParallelSubmissions());
+    }
+    
+    @Test
+    public void fileCheckParallelismDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "empty.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should have correct default value",
+                    config.getFileCheckParallelism(), is(1)),
+            () -> assertThat("Postcondition: encoding check should check files sequentially",
+                    config.createEncodingCheck(new Submission("Exercise01", "")).getParallelism(), is(1))
+        );
+    }
+    
+    @Test
+    public void fileCheckParallelismConfigured() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "fileCheckParallelism.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should have configured value",
+                    config.getFileCheckParallelism(), is(4)),
+            () -> assertThat("Postcondition: encoding check should use configured value",
+                    config.createEncodingCheck(new Submission("Exercise01", "")).getParallelism(), is(4))
+        );
+    }
+    
+    @Test
+    public void fileCheckParallelismInvalid() throws IOException {
+        File configFile = new File(TESTDATA, "fileCheckParallelismInvalid.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThrows(ConfigurationException.class, () -> config.getFileCheckParallelism());
+    }
+    
+    @Test
+    public void uploadParallelismDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "empty.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should have correct default value",
+                config.getUploadParallelism(), is(4));
+    }
+    
+    @Test
+    public void uploadParallelismConfigured() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "uploadParallelism.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should have configured value",
+                config.getUploadParallelism(), is(2));
+    }
+    
+    @Test
+    public void uploadParallelismInvalid() throws IOException {
+        File configFile = new File(TESTDATA, "uploadParallelismInvalid.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThrows(ConfigurationException.class, () -> config.getUploadParallelism());
+    }
+    
+    @Test
+    public void uploadTimeoutDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "empty.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should have correct default value",
+                    config.getUploadTimeout(), is(20)),
+            () -> assertThat("Postcondition: should have no outbox without state directory",
+                    config.getOutboxDirectory(), is(nullValue()))
+        );
+    }
+    
+    @Test
+    public void uploadTimeoutConfigured() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "uploadTimeout.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should have configured value",
+                    config.getUploadTimeout(), is(5)),
+            () -> assertThat("Postcondition: outbox should be in the state directory",
+                    config.getOutboxDirectory(), is(new File(TESTDATA, "outbox")))
+        );
+    }
+    
+    @Test
+    public void uploadTimeoutInvalid() throws IOException {
+        File configFile = new File(TESTDATA, "uploadTimeoutInvalid.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThrows(ConfigurationException.class, () -> config.getUploadTimeout());
+    }
+    
+    @Test
+    public void svnInterfaceDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "empty.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should create svnlook based interface by default",
+                config.createSvnInterface(), instanceOf(CliSvnInterface.class));
+    }
+    
+    @Test
+    public void svnInterfaceFsfs() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "svnInterfaceFsfs.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: should create configured interface",
+                config.createSvnInterface(), instanceOf(FsfsSvnInterface.class));
+    }
+    
+    @Test
+    public void svnInterfaceInvalid() throws IOException {
+        File configFile = new File(TESTDATA, "svnInterfaceInvalid.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThrows(ConfigurationException.class, () -> config.createSvnInterface());
+    }
+    
     @Test
     public void fileSizeCheckDefault() throws IOException, ConfigurationException {
         File configFile = new File(TESTDATA, "empty.properties");
@@ -576,6 +811,82 @@ public class ConfigurationTest {
                 ((EclipseConfigCheck) checks.get(0)).getRequireJavaProject(), is(true));
     }
     
+    @Test
+    public void timeoutsDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "allChecks.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        List<Check> checks = config.createChecks(new Submission("Exercise01", "A"), Phase.POST_COMMIT);
+        
+        assertAll(
+            () -> assertThat("Postcondition: commit should have no time limit",
+                    config.getCommitTimeout(), is(0)),
+            () -> assertThat("Postcondition: checks should have no time limit",
+                    checks.get(1).getTimeout(), is(0L))
+        );
+    }
+    
+    @Test
+    public void timeoutsConfigured() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "timeouts.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        List<Check> checks = config.createChecks(new Submission("Exercise01", "A"), Phase.POST_COMMIT);
+        List<Check> overridden = config.createChecks(new Submission("Exercise02", "A"), Phase.POST_COMMIT);
+        
+        assertAll(
+            () -> assertThat(config.getCommitTimeout(), is(300)),
+            () -> assertThat("Postcondition: all checks should get the timeout in milliseconds",
+                    checks.get(0).getTimeout(), is(60000L)),
+            () -> assertThat(checks.get(1).getTimeout(), is(60000L)),
+            () -> assertThat(checks.get(2).getTimeout(), is(60000L)),
+            () -> assertThat("Postcondition: exercise specific setting should override",
+                    overridden.get(2).getTimeout(), is(0L))
+        );
+    }
+    
+    @Test
+    public void timeoutsInvalid() throws IOException {
+        File configFile = new File(TESTDATA, "timeoutsInvalid.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThrows(ConfigurationException.class, () -> config.getCommitTimeout());
+        assertThrows(ConfigurationException.class,
+            () -> config.createChecks(new Submission("Exercise01", "A"), Phase.PRE_COMMIT));
+    }
+    
+    @Test
+    public void timingsInOutputDefault() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "empty.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat("Postcondition: timings should not be in the output by default",
+                config.getTimingsInOutput(), is(false));
+    }
+    
+    @Test
+    public void timingsInOutputConfigured() throws IOException, ConfigurationException {
+        File configFile = new File(TESTDATA, "timingsInOutput.properties");
+        assertThat("Precondition: test file should exist",
+                configFile.isFile(), is(true));
+        
+        Configuration config = new Configuration(configFile);
+        
+        assertThat(config.getTimingsInOutput(), is(true));
+    }
+    
     @Test
     public void studentManagementSystemConfigurationNotConfigured() throws IOException, ConfigurationException {
         File configFile = new File(TESTDATA, "empty.properties");
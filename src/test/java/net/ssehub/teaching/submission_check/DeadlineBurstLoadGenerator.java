@@ -0,0 +1,407 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.ssehub.teaching.submission_check.svn.MockSvnInterface;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+/**
+ * A load-test tool that simulates the last minutes before a deadline: many groups commit their submissions at the
+ * same time. Not run as part of the test suites; start it manually from the test classpath:
+ * <pre>
+ * DeadlineBurstLoadGenerator svn|mock [--groups N] [--commits N] [--files N] [--config FILE] [--jar FILE]
+ *         [--svnlook-latency MILLIS]
+ * </pre>
+ * <ul>
+ *      <li><code>svn</code> runs real commits against a local repository, see {@link SvnBurstDriver}.</li>
+ *      <li><code>mock</code> runs the {@link SubmissionHook} in this process with a {@link MockSvnInterface}, see
+ *      {@link MockBurstDriver}.</li>
+ * </ul>
+ * Without <code>--config</code>, all checks run with the checkstyle rules of the integration tests.
+ * 
+ * @author Adam
+ */
+public class DeadlineBurstLoadGenerator {
+    
+    /**
+     * The exercise that all groups submit to.
+     */
+    static final String EXERCISE = "Homework01";
+    
+    private static final File CHECKSTYLE_RULES = new File("src/test/resources/SubmissionHookIT/javaBeginners_checks.xml");
+    
+    private static final String USAGE = "Usage: DeadlineBurstLoadGenerator svn|mock [--groups N] [--commits N]"
+            + " [--files N] [--config FILE] [--jar FILE] [--svnlook-latency MILLIS]";
+    
+    /**
+     * Runs the hooks for the commits of a burst. There is one implementation for each way of running the hook.
+     */
+    interface BurstDriver {
+        
+        /**
+         * Prepares the submissions and runs the burst with
+         * {@link DeadlineBurstLoadGenerator#runBurst(CommitAction)}.
+         * 
+         * @param config The configuration file for the hook.
+         * 
+         * @throws IOException If preparing the submissions fails.
+         * @throws InterruptedException If interrupted while waiting for the commits.
+         */
+        void run(File config) throws IOException, InterruptedException;
+        
+        /**
+         * Prints how many hooks ran concurrently.
+         * 
+         * @param out The stream to print to.
+         */
+        void printHooks(PrintStream out);
+        
+    }
+    
+    /**
+     * A single commit of a group.
+     */
+    interface CommitAction {
+        
+        /**
+         * Commits.
+         * 
+         * @param group The index of the group.
+         * @param number The number of this commit of the group, starting at 0.
+         * 
+         * @return Whether the commit was accepted.
+         * 
+         * @throws IOException If running the commit fails.
+         * @throws InterruptedException If interrupted while running the commit.
+         */
+        boolean commit(int group, int number) throws IOException, InterruptedException;
+        
+    }
+    
+    private String mode;
+    
+    private BurstDriver driver;
+    
+    private int groups = 20;
+    
+    private int commitsPerGroup = 1;
+    
+    private int filesPerSubmission = 10;
+    
+    private File configFile;
+    
+    private File workDirectory;
+    
+    private LatencyStatistics preCommit = new LatencyStatistics("pre-commit");
+    
+    private LatencyStatistics postCommit = new LatencyStatistics("post-commit");
+    
+    private LatencyStatistics commit = new LatencyStatistics("commit");
+    
+    private AtomicInteger rejectedCommits = new AtomicInteger();
+    
+    private long burstNanos;
+    
+    /**
+     * Creates a load generator for the given command line arguments.
+     * 
+     * @param args The command line arguments: the mode (<code>svn</code> or <code>mock</code>), followed by pairs of
+     *      options and values.
+     * 
+     * @throws IllegalArgumentException If the arguments are invalid.
+     */
+    public DeadlineBurstLoadGenerator(String[] args) throws IllegalArgumentException {
+        if (args.length == 0 || !(args[0].equals("svn") || args[0].equals("mock"))) {
+            throw new IllegalArgumentException("First argument must be svn or mock");
+        }
+        mode = args[0];
+        
+        File hookJar = null;
+        long svnlookLatency = 50;
+        
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            
+            switch (args[i]) {
+            case "--groups":
+                groups = Integer.parseInt(value);
+                break;
+            case "--commits":
+                commitsPerGroup = Integer.parseInt(value);
+                break;
+            case "--files":
+                filesPerSubmission = Integer.parseInt(value);
+                break;
+            case "--config":
+                configFile = new File(value);
+                break;
+            case "--jar":
+                hookJar = new File(value);
+                break;
+            case "--svnlook-latency":
+                svnlookLatency = Long.parseLong(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        
+        if (mode.equals("svn")) {
+            if (hookJar == null || !hookJar.isFile()) {
+                throw new IllegalArgumentException("svn mode requires the hook jar (--jar)");
+            }
+            driver = new SvnBurstDriver(this, hookJar);
+        } else {
+            driver = new MockBurstDriver(this, svnlookLatency);
+        }
+    }
+    
+    /**
+     * Runs the burst in a new temporary directory, which is deleted afterwards.
+     * 
+     * @throws IOException If preparing the submissions or the configuration fails.
+     * @throws InterruptedException If interrupted while waiting for the commits.
+     */
+    public void run() throws IOException, InterruptedException {
+        workDirectory = FileUtils.createTemporaryDirectory();
+        try {
+            File config = new File(workDirectory, "config.properties");
+            if (configFile != null) {
+                Files.copy(configFile.toPath(), config.toPath());
+            } else {
+                Files.writeString(config.toPath(), "logLevel = SEVERE\n"
+                        + "all.checkstyle.rules = " + CHECKSTYLE_RULES.getAbsolutePath().replace('\\', '/') + "\n",
+                        StandardCharsets.UTF_8);
+            }
+            
+            driver.run(config);
+            
+        } finally {
+            FileUtils.deleteTemporaryDirectory(workDirectory);
+        }
+    }
+    
+    /**
+     * Prints the latency percentiles, the throughput and the number of concurrent hooks of the last {@link #run()}.
+     * 
+     * @param out The stream to print the report to.
+     */
+    public void printReport(PrintStream out) {
+        int commits = commit.getCount() > 0 ? commit.getCount() : preCommit.getCount();
+        double seconds = burstNanos / 1e9;
+        
+        out.printf("%s mode: %d groups x %d commits, %d files per submission%n", mode, groups, commitsPerGroup,
+                filesPerSubmission);
+        out.printf("%-16s %6s %9s %9s %9s %9s%n", "latency [ms]", "count", "p50", "p95", "p99", "max");
+        if (commit.getCount() > 0) {
+            out.println(commit);
+        }
+        out.println(preCommit);
+        out.println(postCommit);
+        out.printf("Throughput: %.2f commits/s (%d commits in %.1f s, %d rejected)%n", commits / seconds, commits,
+                seconds, rejectedCommits.get());
+        driver.printHooks(out);
+    }
+    
+    /**
+     * Returns the number of groups that commit concurrently.
+     * 
+     * @return The number of groups.
+     */
+    int getGroups() {
+        return groups;
+    }
+    
+    /**
+     * Returns the temporary directory of the current {@link #run()}.
+     * 
+     * @return The work directory.
+     */
+    File getWorkDirectory() {
+        return workDirectory;
+    }
+    
+    /**
+     * Returns the statistics of the whole <code>svn commit</code>s.
+     * 
+     * @return The commit latencies.
+     */
+    LatencyStatistics getCommitStatistics() {
+        return commit;
+    }
+    
+    /**
+     * Returns the statistics of the pre-commit hooks.
+     * 
+     * @return The pre-commit latencies.
+     */
+    LatencyStatistics getPreCommitStatistics() {
+        return preCommit;
+    }
+    
+    /**
+     * Returns the statistics of the post-commit hooks.
+     * 
+     * @return The post-commit latencies.
+     */
+    LatencyStatistics getPostCommitStatistics() {
+        return postCommit;
+    }
+    
+    /**
+     * Lets all groups run their commits at the same time, and waits until all are done.
+     * 
+     * @param action The commit of a single group.
+     * 
+     * @throws InterruptedException If interrupted while waiting for the commits.
+     */
+    void runBurst(CommitAction action) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(groups);
+        CountDownLatch start = new CountDownLatch(1);
+        
+        List<Future<?>> futures = new ArrayList<>();
+        for (int group = 0; group < groups; group++) {
+            int currentGroup = group;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int number = 0; number < commitsPerGroup; number++) {
+                    if (!action.commit(currentGroup, number)) {
+                        rejectedCommits.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            }
+        }
+        burstNanos = System.nanoTime() - startTime;
+        executor.shutdown();
+    }
+    
+    /**
+     * Writes an Eclipse project with valid Java files into the given directory.
+     * 
+     * @param directory The directory to write the submission into.
+     * @param group The index of the group that submits.
+     * 
+     * @throws IOException If writing the files fails.
+     */
+    void writeSubmission(File directory, int group) throws IOException {
+        Files.writeString(new File(directory, ".project").toPath(), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<projectDescription>\n"
+                + "    <name>" + groupName(group) + "</name>\n"
+                + "    <comment></comment>\n"
+                + "    <projects>\n    </projects>\n"
+                + "    <buildSpec>\n    </buildSpec>\n"
+                + "    <natures>\n        <nature>org.eclipse.jdt.core.javanature</nature>\n    </natures>\n"
+                + "</projectDescription>\n", StandardCharsets.UTF_8);
+        Files.writeString(new File(directory, ".classpath").toPath(), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<classpath>\n"
+                + "    <classpathentry kind=\"src\" path=\"\"/>\n"
+                + "    <classpathentry kind=\"output\" path=\"\"/>\n"
+                + "</classpath>\n", StandardCharsets.UTF_8);
+        
+        for (int i = 0; i < filesPerSubmission; i++) {
+            StringBuilder content = new StringBuilder();
+            content.append("/**\n * Class ").append(i).append(" of ").append(groupName(group)).append(".\n */\n");
+            content.append("public class Class").append(i).append(" {\n\n");
+            for (int method = 0; method < 20; method++) {
+                content.append("    /**\n     * Adds ").append(method).append(".\n     *\n")
+                        .append("     * @param value The input.\n     * @return The result.\n     */\n")
+                        .append("    public static int add").append(method).append("(int value) {\n")
+                        .append("        return value + ").append(method).append(";\n    }\n\n");
+            }
+            content.append("}\n");
+            Files.writeString(new File(directory, "Class" + i + ".java").toPath(), content, StandardCharsets.UTF_8);
+        }
+    }
+    
+    /**
+     * Appends a comment to a file of the submission, so that the next commit of the group changes something.
+     * 
+     * @param directory The directory of the submission.
+     * @param number The number of the commit.
+     * 
+     * @throws IOException If writing the file fails.
+     */
+    static void appendComment(File directory, int number) throws IOException {
+        Files.writeString(new File(directory, "Class0.java").toPath(), "// change " + number + "\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+    
+    /**
+     * Returns the name of the given group.
+     * 
+     * @param group The index of the group.
+     * 
+     * @return The group name.
+     */
+    static String groupName(int group) {
+        return String.format("Group%03d", group);
+    }
+    
+    /**
+     * Runs the load test and prints the report to {@link System#out}.
+     * 
+     * @param args The command line arguments, see {@link #DeadlineBurstLoadGenerator(String[])}.
+     * 
+     * @throws IOException If preparing the submissions fails.
+     * @throws InterruptedException If interrupted while waiting for the commits.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        DeadlineBurstLoadGenerator generator;
+        try {
+            generator = new DeadlineBurstLoadGenerator(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        
+        LoggingSetup.setLevel("SEVERE");
+        generator.run();
+        generator.printReport(System.out);
+    }
+    
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class JobQueueTest {
+    
+    private static final File REPOSITORY = new File("src/test/resources/SubmissionHookTest");
+    
+    private static final Submission SUBMISSION = new Submission("Homework01", "Group01");
+    
+    private static PostCommitJob createJob(String revision) {
+        return new PostCommitJob(REPOSITORY, revision, SUBMISSION);
+    }
+    
+    @Test
+    public void jobIdentifiersSortedByRevision() {
+        assertAll(
+            () -> assertThat(createJob("9").getId().compareTo(createJob("10").getId()) < 0, is(true)),
+            () -> assertThat(createJob("10").getId(), is(createJob("10").getId())),
+            () -> assertThat(createJob("10").getId(), not(createJob("11").getId()))
+        );
+    }
+    
+    @Test
+    public void jobKeysUniquePerSubmission() {
+        assertAll(
+            () -> assertThat(createJob("9").getKey(), is(createJob("10").getKey())),
+            () -> assertThat(new PostCommitJob(REPOSITORY, "9", new Submission("a-b", "c")).getKey(),
+                    not(new PostCommitJob(REPOSITORY, "9", new Submission("a", "b-c")).getKey())),
+            () -> assertThat(new PostCommitJob(REPOSITORY, "9", new Submission("Home work", "Gruppe ä")).getKey()
+                    .matches("[A-Za-z0-9%+._*-]+"), is(true))
+        );
+    }
+    
+    @Test
+    public void enqueuedJobPolled() throws IOException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), 60000);
+        
+        assertThat("Precondition: new job should be added",
+                queue.enqueue(createJob("5")), is(true));
+        
+        JobQueue.Lease lease = queue.poll();
+        
+        assertAll(
+            () -> assertThat("Postcondition: should claim the job", lease, notNullValue()),
+            () -> assertThat("Postcondition: should read the same job", lease.getJob(), is(createJob("5"))),
+            () -> assertThat("Postcondition: should be the first attempt", lease.getAttempt(), is(1)),
+            () -> assertThat("Postcondition: job should not be claimed twice", queue.poll(), nullValue())
+        );
+    }
+    
+    @Test
+    public void jobsPolledInRevisionOrder() throws IOException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), 60000);
+        queue.enqueue(new PostCommitJob(REPOSITORY, "10", new Submission("Homework01", "Group01")));
+        queue.enqueue(new PostCommitJob(REPOSITORY, "9", new Submission("Homework01", "Group02")));
+        
+        assertAll(
+            () -> assertThat(queue.poll().getJob().getRevision(), is("9")),
+            () -> assertThat(queue.poll().getJob().getRevision(), is("10")),
+            () -> assertThat(queue.poll(), nullValue())
+        );
+    }
+    
+    @Test
+    public void pendingJobSuperseded() throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        JobQueue queue = new JobQueue(directory, 60000);
+        queue.enqueue(createJob("9"));
+        queue.enqueue(new PostCommitJob(REPOSITORY, "9", new Submission("Homework01", "Group02")));
+        
+        assertThat("Precondition: newer revision should be added",
+                queue.enqueue(createJob("10")), is(true));
+        
+        assertAll(
+            () -> assertThat("Postcondition: other submission should not be superseded",
+                    queue.poll().getJob().getSubmission(), is(new Submission("Homework01", "Group02"))),
+            () -> assertThat("Postcondition: only the newer revision should be polled",
+                    queue.poll().getJob(), is(createJob("10"))),
+            () -> assertThat(queue.poll(), nullValue()),
+            () -> assertThat("Postcondition: older revision should be in superseded directory",
+                    new File(directory, "superseded/" + createJob("9").getId() + ".job").isFile(), is(true))
+        );
+    }
+    
+    @Test
+    public void olderRevisionNotEnqueued() throws IOException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), 60000);
+        queue.enqueue(createJob("10"));
+        queue.poll().complete();
+        
+        assertThat("Postcondition: revision older than a processed one should not be added",
+                queue.enqueue(createJob("9")), is(false));
+    }
+    
+    @Test
+    public void leasedJobSuperseded() throws IOException, InterruptedException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), 60000);
+        queue.enqueue(createJob("9"));
+        JobQueue.Lease old = queue.poll();
+        
+        assertThat("Precondition: lease should be held",
+                old.isLost(), is(false));
+        
+        queue.enqueue(createJob("10"));
+        JobQueue.Lease current = queue.poll();
+        Thread.sleep(JobQueue.LOST_CHECK_INTERVAL + 10); // the result of isLost() is re-used for a short time
+        
+        assertAll(
+            () -> assertThat("Postcondition: old lease should be lost", old.isLost(), is(true)),
+            () -> assertThat("Postcondition: old lease should not be renewed", old.renew(), is(false)),
+            () -> assertThat("Postcondition: old job should not be completed", old.complete(), is(false)),
+            () -> assertThat("Postcondition: newer revision should be polled", current.getJob(), is(createJob("10"))),
+            () -> assertThat("Postcondition: newer lease should be held", current.isLost(), is(false)),
+            () -> assertThat(current.complete(), is(true))
+        );
+    }
+    
+    @Test
+    public void jobsSurviveRestart() throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        new JobQueue(directory, 60000).enqueue(createJob("5"));
+        
+        JobQueue.Lease lease = new JobQueue(directory, 60000).poll();
+        
+        assertThat("Postcondition: a new queue instance should find the stored job",
+                lease.getJob(), is(createJob("5")));
+    }
+    
+    @Test
+    public void duplicateJobNotEnqueued() throws IOException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), 60000);
+        queue.enqueue(createJob("5"));
+        
+        assertThat("Postcondition: pending job should not be added again",
+                queue.enqueue(createJob("5")), is(false));
+        
+        JobQueue.Lease lease = queue.poll();
+        assertThat("Postcondition: leased job should not be added again",
+                queue.enqueue(createJob("5")), is(false));
+        
+        lease.complete();
+        assertThat("Postcondition: completed job should not be added again",
+                queue.enqueue(createJob("5")), is(false));
+        assertThat("Postcondition: completed job should not be polled again",
+                queue.poll(), nullValue());
+    }
+    
+    @Test
+    public void expiredLeaseRecovered() throws IOException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), -1);
+        queue.enqueue(createJob("5"));
+        JobQueue.Lease first = queue.poll();
+        
+        assertThat("Postcondition: expired lease should be moved back",
+                queue.recoverExpiredLeases(), is(1));
+        
+        JobQueue.Lease second = queue.poll();
+        
+        assertAll(
+            () -> assertThat("Postcondition: job should be claimed again", second, notNullValue()),
+            () -> assertThat("Postcondition: should count attempts", second.getAttempt(), is(2)),
+            () -> assertThat("Postcondition: first lease should be lost", first.renew(), is(false)),
+            () -> assertThat("Postcondition: first lease should not complete the job", first.complete(), is(false)),
+            () -> assertThat("Postcondition: second lease should complete the job", second.complete(), is(true))
+        );
+    }
+    
+    @Test
+    public void validLeaseNotRecovered() throws IOException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), 60000);
+        queue.enqueue(createJob("5"));
+        JobQueue.Lease lease = queue.poll();
+        
+        assertAll(
+            () -> assertThat(queue.recoverExpiredLeases(), is(0)),
+            () -> assertThat(lease.renew(), is(true)),
+            () -> assertThat(lease.complete(), is(true))
+        );
+    }
+    
+    @Test
+    public void releasedJobPolledAgain() throws IOException {
+        JobQueue queue = new JobQueue(FileUtils.createTemporaryDirectory(), 60000);
+        queue.enqueue(createJob("5"));
+        
+        queue.poll().release();
+        JobQueue.Lease lease = queue.poll();
+        
+        assertThat("Postcondition: released job should be claimed again",
+                lease.getAttempt(), is(2));
+    }
+    
+    @Test
+    public void failedAfterMaxAttempts() throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        JobQueue queue = new JobQueue(directory, 60000);
+        queue.enqueue(createJob("5"));
+        
+        for (int i = 0; i < JobQueue.MAX_ATTEMPTS; i++) {
+            queue.poll().release();
+        }
+        
+        assertAll(
+            () -> assertThat("Postcondition: job should not be claimed again", queue.poll(), nullValue()),
+            () -> assertThat("Postcondition: job should be in failed directory",
+                    new File(directory, "failed/" + createJob("5").getId() + ".job").isFile(), is(true)),
+            () -> assertThat("Postcondition: failed job should not be added again",
+                    queue.enqueue(createJob("5")), is(false))
+        );
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects latencies measured by the {@link DeadlineBurstLoadGenerator} and computes percentiles with the nearest-rank
+ * method. Thread-safe.
+ * 
+ * @author Adam
+ */
+public class LatencyStatistics {
+    
+    private String name;
+    
+    private List<Long> latencies;
+    
+    /**
+     * Creates empty statistics.
+     * 
+     * @param name The name to print in the report.
+     */
+    public LatencyStatistics(String name) {
+        this.name = name;
+        this.latencies = new ArrayList<>();
+    }
+    
+    /**
+     * Adds a latency.
+     * 
+     * @param nanos The latency in nanoseconds.
+     */
+    public synchronized void add(long nanos) {
+        latencies.add(nanos);
+    }
+    
+    /**
+     * Returns the number of added latencies.
+     * 
+     * @return The number of latencies.
+     */
+    public synchronized int getCount() {
+        return latencies.size();
+    }
+    
+    /**
+     * Returns the given percentile of all latencies.
+     * 
+     * @param percentile The percentile, between 0 (exclusive) and 100 (inclusive).
+     * 
+     * @return The latency in nanoseconds, or -1 if no latencies were added.
+     */
+    public synchronized long getPercentile(double percentile) {
+        long result = -1;
+        if (!latencies.isEmpty()) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+            result = sorted.get(Math.max(rank, 1) - 1);
+        }
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%-16s %6d %9s %9s %9s %9s", name, getCount(), toMillis(getPercentile(50)),
+                toMillis(getPercentile(95)), toMillis(getPercentile(99)), toMillis(getPercentile(100)));
+    }
+    
+    private static String toMillis(long nanos) {
+        return nanos != -1 ? Long.toString(TimeUnit.NANOSECONDS.toMillis(nanos)) : "-";
+    }
+    
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyStatisticsTest {
+    
+    @Test
+    public void emptyHasNoPercentiles() {
+        LatencyStatistics statistics = new LatencyStatistics("empty");
+        
+        assertAll(
+            () -> assertThat(statistics.getCount(), is(0)),
+            () -> assertThat(statistics.getPercentile(50), is(-1L))
+        );
+    }
+    
+    @Test
+    public void nearestRankPercentiles() {
+        LatencyStatistics statistics = new LatencyStatistics("test");
+        for (long i = 100; i >= 1; i--) {
+            statistics.add(i);
+        }
+        
+        assertAll(
+            () -> assertThat(statistics.getCount(), is(100)),
+            () -> assertThat(statistics.getPercentile(50), is(50L)),
+            () -> assertThat(statistics.getPercentile(95), is(95L)),
+            () -> assertThat(statistics.getPercentile(99), is(99L)),
+            () -> assertThat(statistics.getPercentile(100), is(100L))
+        );
+    }
+    
+    @Test
+    public void singleValueIsEveryPercentile() {
+        LatencyStatistics statistics = new LatencyStatistics("test");
+        statistics.add(42);
+        
+        assertAll(
+            () -> assertThat(statistics.getPercentile(1), is(42L)),
+            () -> assertThat(statistics.getPercentile(99), is(42L))
+        );
+    }
+    
+}
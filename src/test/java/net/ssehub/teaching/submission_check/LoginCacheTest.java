@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.backend.ServerNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmissionHookProtocol;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
+
+public class LoginCacheTest {
+    
+    private AtomicInteger logins = new AtomicInteger();
+    
+    private StudentManagementSubmitter login(StudentManagementConfig config) {
+        logins.incrementAndGet();
+        return new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+        };
+    }
+    
+    private static StudentManagementConfig createConfig(String username) {
+        StudentManagementConfig config = new StudentManagementConfig();
+        config.setUrl("http://localhost:3000/");
+        config.setAuthenticationUrl("http://localhost:2000/");
+        config.setAuthenticationUsername(username);
+        config.setAuthenticationPassword("secret");
+        return config;
+    }
+    
+    @Test
+    public void loginReused() throws NetworkException {
+        LoginCache cache = new LoginCache(this::login);
+        
+        StudentManagementSubmitter first = cache.create(createConfig("admin"));
+        cache.release(createConfig("admin"), first);
+        StudentManagementSubmitter second = cache.create(createConfig("admin"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should log in only once",
+                    logins.get(), is(1)),
+            () -> assertThat("Postcondition: should return the same submitter",
+                    second, sameInstance(first))
+        );
+    }
+    
+    @Test
+    public void loginInUseNotShared() throws NetworkException {
+        LoginCache cache = new LoginCache(this::login);
+        
+        StudentManagementSubmitter first = cache.create(createConfig("admin"));
+        StudentManagementSubmitter second = cache.create(createConfig("admin"));
+        cache.release(createConfig("admin"), first);
+        cache.release(createConfig("admin"), second);
+        StudentManagementSubmitter third = cache.create(createConfig("admin"));
+        StudentManagementSubmitter fourth = cache.create(createConfig("admin"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should log in for each concurrent user",
+                    logins.get(), is(2)),
+            () -> assertThat("Postcondition: should not hand out a submitter that is in use",
+                    second, not(sameInstance(first))),
+            () -> assertThat("Postcondition: should re-use both released submitters",
+                    third != fourth && (third == first || third == second)
+                            && (fourth == first || fourth == second), is(true))
+        );
+    }
+    
+    @Test
+    public void differentConfigurationsLogInSeparately() throws NetworkException {
+        LoginCache cache = new LoginCache(this::login);
+        
+        StudentManagementSubmitter first = cache.create(createConfig("admin"));
+        StudentManagementSubmitter second = cache.create(createConfig("tutor"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should log in for each configuration",
+                    logins.get(), is(2)),
+            () -> assertThat("Postcondition: should return different submitters",
+                    second, not(sameInstance(first)))
+        );
+    }
+    
+    @Test
+    public void invalidatedLoginRenewed() throws NetworkException {
+        LoginCache cache = new LoginCache(this::login);
+        
+        StudentManagementSubmitter first = cache.create(createConfig("admin"));
+        cache.invalidate(createConfig("admin"), first);
+        cache.release(createConfig("admin"), first);
+        StudentManagementSubmitter second = cache.create(createConfig("admin"));
+        cache.release(createConfig("admin"), second);
+        
+        // a second rejection of the old login must not drop the new one
+        cache.invalidate(createConfig("admin"), first);
+        StudentManagementSubmitter third = cache.create(createConfig("admin"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should log in again after invalidation",
+                    logins.get(), is(2)),
+            () -> assertThat("Postcondition: should return new submitter",
+                    second, not(sameInstance(first))),
+            () -> assertThat("Postcondition: should keep new submitter",
+                    third, sameInstance(second))
+        );
+    }
+    
+    @Test
+    public void expiredLoginRenewed() throws NetworkException, InterruptedException {
+        LoginCache cache = new LoginCache(this::login, 50);
+        
+        cache.release(createConfig("admin"), cache.create(createConfig("admin")));
+        Thread.sleep(100);
+        cache.create(createConfig("admin"));
+        
+        assertThat("Postcondition: should log in again after max age",
+                logins.get(), is(2));
+    }
+    
+    @Test
+    public void failedLoginNotCached() throws NetworkException {
+        LoginCache cache = new LoginCache((config) -> {
+            logins.incrementAndGet();
+            throw new DataNotFoundException("Simulated failure", "admin", DataType.ASSIGNMENTS_NOT_FOUND);
+        });
+        
+        assertThrows(NetworkException.class, () -> cache.create(createConfig("admin")));
+        assertThrows(NetworkException.class, () -> cache.create(createConfig("admin")));
+        
+        assertThat("Postcondition: should try to log in again",
+                logins.get(), is(2));
+    }
+    
+    @Test
+    public void onlyLoginAndConnectionFailuresRetried() {
+        assertAll(
+            () -> assertThat("Postcondition: connection failure should be retried with a new login",
+                    LoginCache.isLoginFailure(new ServerNotFoundException("Simulated failure")), is(true)),
+            () -> assertThat("Postcondition: missing data should not be retried",
+                    LoginCache.isLoginFailure(new DataNotFoundException("Simulated failure", "admin",
+                            DataType.ASSIGNMENTS_NOT_FOUND)), is(false))
+        );
+    }
+    
+}
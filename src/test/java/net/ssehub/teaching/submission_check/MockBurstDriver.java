@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static net.ssehub.teaching.submission_check.DeadlineBurstLoadGenerator.EXERCISE;
+import static net.ssehub.teaching.submission_check.DeadlineBurstLoadGenerator.groupName;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.ssehub.teaching.submission_check.svn.MockSvnInterface;
+import net.ssehub.teaching.submission_check.svn.SvnException;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * The <code>mock</code> mode of the {@link DeadlineBurstLoadGenerator}. Runs the {@link SubmissionHook} in this
+ * process with a {@link MockSvnInterface} that sleeps for the given latency in each SVN operation, as
+ * <code>svnlook</code> would. Instead of processes, the concurrently running hooks are counted.
+ * 
+ * @author Adam
+ */
+class MockBurstDriver implements DeadlineBurstLoadGenerator.BurstDriver {
+    
+    private DeadlineBurstLoadGenerator generator;
+    
+    private long svnlookLatency;
+    
+    private AtomicInteger runningHooks = new AtomicInteger();
+    
+    private AtomicInteger maxRunningHooks = new AtomicInteger();
+    
+    /**
+     * Creates the driver.
+     * 
+     * @param generator The generator that runs the burst.
+     * @param svnlookLatency The time in milliseconds that each SVN operation takes.
+     */
+    MockBurstDriver(DeadlineBurstLoadGenerator generator, long svnlookLatency) {
+        this.generator = generator;
+        this.svnlookLatency = svnlookLatency;
+    }
+    
+    @Override
+    public void run(File config) throws IOException, InterruptedException {
+        File workDirectory = generator.getWorkDirectory();
+        int groups = generator.getGroups();
+        
+        File repository = new File(workDirectory, "repository");
+        repository.mkdir();
+        
+        File[] submissions = new File[groups];
+        for (int group = 0; group < groups; group++) {
+            submissions[group] = new File(workDirectory, "submissions/" + groupName(group));
+            submissions[group].mkdirs();
+            generator.writeSubmission(submissions[group], group);
+        }
+        
+        Configuration configuration = new Configuration(config);
+        AtomicInteger revision = new AtomicInteger();
+        
+        generator.runBurst((group, number) -> {
+            Submission submission = new Submission(EXERCISE, groupName(group));
+            int newRevision = revision.incrementAndGet();
+            
+            boolean accepted = runHook(configuration, repository, submissions[group], submission,
+                    Phase.PRE_COMMIT, (newRevision - 1) + "-" + newRevision,
+                    generator.getPreCommitStatistics()) == 0;
+            if (accepted) {
+                runHook(configuration, repository, submissions[group], submission, Phase.POST_COMMIT,
+                        Integer.toString(newRevision), generator.getPostCommitStatistics());
+            }
+            return accepted;
+        });
+    }
+    
+    @Override
+    public void printHooks(PrintStream out) {
+        out.printf("Hooks: %d at most concurrently%n", maxRunningHooks.get());
+    }
+    
+    /**
+     * Runs a single hook in this process and records its latency.
+     * 
+     * @param configuration The configuration of the hook.
+     * @param repository The (empty) repository directory.
+     * @param content The prepared submission to check out.
+     * @param submission The submission that is committed.
+     * @param phase The phase of the hook.
+     * @param transactionId The transaction or revision identifier.
+     * @param statistics The statistics to add the latency to.
+     * 
+     * @return The exit code of the hook.
+     */
+    private int runHook(Configuration configuration, File repository, File content, Submission submission,
+            Phase phase, String transactionId, LatencyStatistics statistics) {
+        
+        LatentSvnInterface svn = new LatentSvnInterface(svnlookLatency, content);
+        svn.setTransactionInfo(new TransactionInfo(repository, submission.getGroup(), transactionId, phase));
+        svn.setModifiedSubmissions(new HashSet<>(Arrays.asList(submission)));
+        
+        maxRunningHooks.accumulateAndGet(runningHooks.incrementAndGet(), Math::max);
+        long start = System.nanoTime();
+        
+        SubmissionHook hook = new SubmissionHook(new String[] {
+            phase == Phase.PRE_COMMIT ? "PRE" : "POST", repository.getPath(), transactionId}, svn);
+        int exitCode = hook.execute(() -> configuration, new PrintStream(OutputStream.nullOutputStream()));
+        
+        statistics.add(System.nanoTime() - start);
+        runningHooks.decrementAndGet();
+        return exitCode;
+    }
+    
+    /**
+     * A {@link MockSvnInterface} that sleeps in each operation, and checks out a prepared submission.
+     */
+    private static class LatentSvnInterface extends MockSvnInterface {
+        
+        private long latency;
+        
+        private File content;
+        
+        LatentSvnInterface(long latency, File content) {
+            this.latency = latency;
+            this.content = content;
+        }
+        
+        private void sleep() throws SvnException {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                throw new SvnException("Interrupted", e);
+            }
+        }
+        
+        @Override
+        public TransactionInfo createTransactionInfo(Phase phase, File repositoryPath, String transactionId)
+                throws SvnException {
+            sleep();
+            return super.createTransactionInfo(phase, repositoryPath, transactionId);
+        }
+        
+        @Override
+        public Set<Submission> getModifiedSubmissions(TransactionInfo transaction) throws SvnException {
+            sleep();
+            return super.getModifiedSubmissions(transaction);
+        }
+        
+        @Override
+        public void checkoutSubmission(TransactionInfo transaction, Submission submission, File checkoutLocation)
+                throws SvnException, IOException {
+            sleep();
+            for (File file : FileUtils.findAllFiles(content)) {
+                File target = new File(checkoutLocation, FileUtils.getRelativeFile(content, file).getPath());
+                target.getParentFile().mkdirs();
+                Files.copy(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        
+    }
+    
+}
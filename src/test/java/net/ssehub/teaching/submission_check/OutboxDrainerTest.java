@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmissionHookProtocol;
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.SubmissionHook.SubmitterFactory;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class OutboxDrainerTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/SubmissionHookTest");
+    
+    private static final SubmitterFactory SUBMITTERS = (config) -> new StudentManagementSubmitter(
+            (SubmissionHookProtocol) null) {
+        @Override
+        public boolean submit(Submission submission, List<ResultMessage> messages) {
+            return true;
+        }
+    };
+    
+    @Test
+    public void noStateDirectory() {
+        OutboxDrainer drainer = new OutboxDrainer(
+            () -> new Configuration(new File(TESTDATA, "studentManagement.properties")), SUBMITTERS);
+        
+        assertThat("Postcondition: should not send anything without an outbox",
+                drainer.drain(), is(0));
+    }
+    
+    @Test
+    public void dueResultSent() throws IOException {
+        File stateDirectory = FileUtils.createTemporaryDirectory();
+        File configFile = new File(stateDirectory, "config.properties");
+        Files.writeString(configFile.toPath(), Files.readString(new File(TESTDATA, "studentManagement.properties")
+                .toPath()) + "\nstateDirectory = " + stateDirectory.getAbsolutePath().replace('\\', '/') + "\n");
+        
+        // write an outbox entry that is due right away
+        UploadOutbox outbox = new UploadOutbox(new File(stateDirectory, "outbox")) {
+            @Override
+            long getBackoff(int attempt) {
+                return 0;
+            }
+        };
+        outbox.put(new PostCommitJob(TESTDATA, "5", new Submission("Homework01", "Group01")),
+                Arrays.asList(new ResultMessage("javac", MessageType.ERROR, "error")));
+        
+        OutboxDrainer drainer = new OutboxDrainer(() -> new Configuration(configFile), SUBMITTERS);
+        
+        assertThat("Postcondition: should send the stored result",
+                drainer.drain(), is(1));
+        assertThat("Postcondition: outbox should be empty",
+                outbox.getPending().isEmpty(), is(true));
+        assertThat("Postcondition: should record that the outbox is served by a drainer",
+                outbox.isServedByDrainer(), is(true));
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.svn.ISvnInterface;
+import net.ssehub.teaching.submission_check.svn.MockSvnInterface;
+import net.ssehub.teaching.submission_check.svn.SvnException;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class PostCommitWorkerTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/SubmissionHookTest");
+    
+    private static MockSvnInterface createSvnInterface() {
+        MockSvnInterface svnInterface = new MockSvnInterface();
+        svnInterface.setExpectedPhase(Phase.POST_COMMIT);
+        svnInterface.setExpectedRepositoryPath(TESTDATA.getAbsoluteFile());
+        svnInterface.setExpectedTransactionId("42");
+        
+        svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "student", "42",
+                Phase.POST_COMMIT));
+        // not set, so that the hook must take the submissions from the job
+        svnInterface.setModifiedSubmissions(null);
+        
+        return svnInterface;
+    }
+    
+    private static File createConfiguration() throws IOException {
+        File stateDirectory = FileUtils.createTemporaryDirectory();
+        File configFile = new File(stateDirectory, "config.properties");
+        Files.writeString(configFile.toPath(), "stateDirectory = "
+                + stateDirectory.getAbsolutePath().replace('\\', '/') + "\n"
+                + "all.checkstyle.rules = " + new File("src/test/resources/CheckstyleCheckTest/javaBeginners_checks.xml")
+                    .getAbsolutePath().replace('\\', '/') + "\n");
+        return configFile;
+    }
+    
+    private static boolean waitForFile(File file) throws InterruptedException {
+        for (int i = 0; i < 100 && !file.exists(); i++) {
+            Thread.sleep(100);
+        }
+        return file.exists();
+    }
+    
+    @Test
+    public void queuedJobProcessed() throws IOException, ConfigurationException, InterruptedException {
+        File configFile = createConfiguration();
+        PostCommitJob job = new PostCommitJob(TESTDATA, "42",
+                new Submission("Homework01", "Group01"));
+        
+        try (PostCommitWorker worker = new PostCommitWorker(configFile, () -> createSvnInterface())) {
+            worker.start();
+            
+            assertThat("Precondition: job should be added",
+                    worker.getQueue().enqueue(job), is(true));
+            
+            assertThat("Postcondition: job should be marked as done",
+                    waitForFile(new File(configFile.getParentFile(), "queue/done/" + job.getId() + ".job")), is(true));
+        }
+    }
+    
+    @Test
+    public void failingJobGivenUp() throws IOException, ConfigurationException, InterruptedException {
+        File configFile = createConfiguration();
+        PostCommitJob job = new PostCommitJob(new File(configFile.getParentFile(), "doesnt_exist"), "42",
+                new Submission("Homework01", "Group01"));
+        
+        try (PostCommitWorker worker = new PostCommitWorker(configFile, () -> createSvnInterface())) {
+            worker.start();
+            worker.getQueue().enqueue(job);
+            
+            assertThat("Postcondition: job should be marked as failed after all attempts",
+                    waitForFile(new File(configFile.getParentFile(), "queue/failed/" + job.getId() + ".job")),
+                    is(true));
+        }
+    }
+    
+    @Test
+    public void errorInJobGivenUp() throws IOException, ConfigurationException, InterruptedException {
+        File configFile = createConfiguration();
+        PostCommitJob job = new PostCommitJob(TESTDATA, "43",
+                new Submission("Homework01", "Group01"));
+        
+        // the mock expects revision 42 and throws an AssertionError, i.e. an Error instead of an Exception
+        try (PostCommitWorker worker = new PostCommitWorker(configFile, () -> createSvnInterface())) {
+            worker.start();
+            worker.getQueue().enqueue(job);
+            
+            assertThat("Postcondition: job should be marked as failed after all attempts",
+                    waitForFile(new File(configFile.getParentFile(), "queue/failed/" + job.getId() + ".job")),
+                    is(true));
+        }
+    }
+    
+    @Test
+    public void internalErrorRetried() throws IOException, ConfigurationException, InterruptedException {
+        File configFile = createConfiguration();
+        PostCommitJob job = new PostCommitJob(TESTDATA, "42",
+                new Submission("Homework01", "Group01"));
+        
+        AtomicInteger checkouts = new AtomicInteger();
+        Supplier<ISvnInterface> svnInterfaceFactory = () -> {
+            MockSvnInterface svnInterface = new MockSvnInterface() {
+                @Override
+                public void checkoutSubmission(TransactionInfo transaction, Submission submission,
+                        File checkoutLocation) throws SvnException {
+                    checkouts.incrementAndGet();
+                    throw new SvnException("Simulated svnlook failure");
+                }
+            };
+            svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "student", "42",
+                    Phase.POST_COMMIT));
+            return svnInterface;
+        };
+        
+        try (PostCommitWorker worker = new PostCommitWorker(configFile, svnInterfaceFactory)) {
+            worker.start();
+            worker.getQueue().enqueue(job);
+            
+            assertThat("Postcondition: job should be marked as failed after all attempts",
+                    waitForFile(new File(configFile.getParentFile(), "queue/failed/" + job.getId() + ".job")),
+                    is(true));
+        }
+        
+        assertThat("Postcondition: job should not be marked as done",
+                new File(configFile.getParentFile(), "queue/done/" + job.getId() + ".job").exists(), is(false));
+        assertThat("Postcondition: each attempt should try the checkout again",
+                checkouts.get(), is(JobQueue.MAX_ATTEMPTS));
+    }
+    
+    @Test
+    public void noStateDirectory() {
+        PostCommitWorker worker = new PostCommitWorker(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface());
+        
+        assertThrows(ConfigurationException.class, () -> worker.start());
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.checks.SubmissionIndex;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class ResultCacheTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/ConfigurationTest");
+    
+    private static final Submission SUBMISSION = new Submission("Exercise01", "Group01");
+    
+    private static File createSubmission(String content) throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        Files.writeString(new File(directory, "Main.java").toPath(), content, StandardCharsets.UTF_8);
+        return directory;
+    }
+    
+    @Test
+    public void storedResultReplayed() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        
+        ResultMessage fileMessage = new ResultMessage("javac", MessageType.ERROR, "some error")
+                .setFile(new File("dir/Main.java")).setLine(3).setColumn(5);
+        ResultMessage globalMessage = new ResultMessage("checkstyle", MessageType.WARNING, "some warning");
+        
+        ResultCollector original = new ResultCollector();
+        original.addCheckResult(true);
+        original.addCheckResult(false);
+        original.addMessage(fileMessage, SUBMISSION);
+        original.addMessage(globalMessage, SUBMISSION);
+        cache.put("somekey", SUBMISSION, original);
+        
+        ResultCollector replayed = new ResultCollector();
+        
+        assertThat("Postcondition: stored result should be found",
+                cache.get("somekey", SUBMISSION, replayed), is(true));
+        assertThat("Postcondition: success should be replayed",
+                replayed.getAllSuccessful(), is(false));
+        assertThat("Postcondition: messages should be replayed in order",
+                replayed.getMessageForSubmission(SUBMISSION), is(Arrays.asList(fileMessage, globalMessage)));
+        assertThat("Postcondition: lookup should count as hit",
+                cache.getHits(), is(1));
+    }
+    
+    @Test
+    public void missingResult() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        
+        ResultCollector results = new ResultCollector();
+        
+        assertThat("Postcondition: no result should be found",
+                cache.get("somekey", SUBMISSION, results), is(false));
+        assertThat("Postcondition: nothing should be added",
+                results.getAllMessages(), is(Arrays.asList()));
+        assertThat("Postcondition: lookup should count as miss",
+                cache.getMisses(), is(1));
+    }
+    
+    @Test
+    public void invalidResultIgnored() throws IOException {
+        File cacheDirectory = FileUtils.createTemporaryDirectory();
+        Files.writeString(new File(cacheDirectory, "somekey.properties").toPath(), "success = true\n");
+        ResultCache cache = new ResultCache(cacheDirectory);
+        
+        ResultCollector results = new ResultCollector();
+        
+        assertThat("Postcondition: invalid result should be ignored",
+                cache.get("somekey", SUBMISSION, results), is(false));
+        assertThat("Postcondition: lookup should count as miss",
+                cache.getMisses(), is(1));
+    }
+    
+    @Test
+    public void keyDependsOnContent() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        Configuration config = new Configuration(new File(TESTDATA, "empty.properties"));
+        
+        String key = cache.computeKey(SUBMISSION, Phase.PRE_COMMIT, config, createSubmission("class Main {}"));
+        
+        assertThat("Postcondition: identical submission should have same key",
+                cache.computeKey(SUBMISSION, Phase.PRE_COMMIT, config, createSubmission("class Main {}")), is(key));
+        assertThat("Postcondition: modified submission should have different key",
+                cache.computeKey(SUBMISSION, Phase.PRE_COMMIT, config, createSubmission("class Main { }")),
+                not(key));
+    }
+    
+    @Test
+    public void keyFromIndexSameAsFromDirectory() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        Configuration config = new Configuration(new File(TESTDATA, "empty.properties"));
+        File submission = createSubmission("class Main {}");
+        
+        assertThat("Postcondition: key from shared index should be the same as from walking the directory",
+                cache.computeKey(SUBMISSION, Phase.PRE_COMMIT, config, new SubmissionIndex(submission)),
+                is(cache.computeKey(SUBMISSION, Phase.PRE_COMMIT, config, submission)));
+    }
+    
+    @Test
+    public void keyDependsOnPhase() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        Configuration config = new Configuration(new File(TESTDATA, "empty.properties"));
+        File submission = createSubmission("class Main {}");
+        
+        assertThat("Postcondition: different phase should have different key",
+                cache.computeKey(SUBMISSION, Phase.PRE_COMMIT, config, submission),
+                not(cache.computeKey(SUBMISSION, Phase.POST_COMMIT, config, submission)));
+    }
+    
+    @Test
+    public void keyDependsOnSettings() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        Configuration config = new Configuration(new File(TESTDATA, "specificOverrides.properties"));
+        File submission = createSubmission("class Main {}");
+        
+        assertThat("Postcondition: exercises with same settings should have same key",
+                cache.computeKey(new Submission("Exercise01", "Group01"), Phase.PRE_COMMIT, config, submission),
+                is(cache.computeKey(new Submission("Exercise02", "Group01"), Phase.PRE_COMMIT, config, submission)));
+        assertThat("Postcondition: exercises with different settings should have different key",
+                cache.computeKey(new Submission("Exercise01", "Group01"), Phase.PRE_COMMIT, config, submission),
+                not(cache.computeKey(new Submission("Exercise03", "Group01"), Phase.PRE_COMMIT, config,
+                        submission)));
+    }
+    
+    @Test
+    public void keyDependsOnCheckstyleRules() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        File rules = File.createTempFile("checkstyle_rules", ".xml");
+        try {
+            File configFile = File.createTempFile("submission-check-config", ".properties");
+            try {
+                Files.writeString(configFile.toPath(), "all.checkstyle.rules = "
+                        + rules.getAbsolutePath().replace('\\', '/') + "\n");
+                Configuration config = new Configuration(configFile);
+                File submission = createSubmission("class Main {}");
+                
+                Files.writeString(rules.toPath(), "<module name=\"Checker\"/>\n");
+                String key = cache.computeKey(SUBMISSION, Phase.POST_COMMIT, config, submission);
+                
+                Files.writeString(rules.toPath(), "<module name=\"Checker\"><module name=\"TreeWalker\"/></module>\n");
+                
+                assertThat("Postcondition: modified rules should have different key",
+                        cache.computeKey(SUBMISSION, Phase.POST_COMMIT, config, submission), not(key));
+                
+            } finally {
+                configFile.delete();
+            }
+        } finally {
+            rules.delete();
+        }
+    }
+    
+    @Test
+    public void keyDependsOnClasspathContent() throws IOException {
+        ResultCache cache = new ResultCache(FileUtils.createTemporaryDirectory());
+        File library = File.createTempFile("library", ".jar");
+        try {
+            File configFile = File.createTempFile("submission-check-config", ".properties");
+            try {
+                Files.writeString(configFile.toPath(), "all.javac.classpath = "
+                        + library.getAbsolutePath().replace('\\', '/') + "\n");
+                Configuration config = new Configuration(configFile);
+                File submission = createSubmission("class Main {}");
+                
+                Files.writeString(library.toPath(), "version 1");
+                String key = cache.computeKey(SUBMISSION, Phase.POST_COMMIT, config, submission);
+                
+                Files.writeString(library.toPath(), "version 2");
+                
+                assertThat("Postcondition: modified library should have different key",
+                        cache.computeKey(SUBMISSION, Phase.POST_COMMIT, config, submission), not(key));
+                
+            } finally {
+                configFile.delete();
+            }
+        } finally {
+            library.delete();
+        }
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
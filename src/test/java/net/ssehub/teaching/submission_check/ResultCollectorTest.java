@@ -112,6 +112,27 @@ public class ResultCollectorTest {
                 )));
     }
     
+    @Test
+    public void storesTimings() {
+        ResultCollector collector = new ResultCollector();
+        
+        assertThat("Precondition: empty collector should have no timings",
+                collector.getTimings().size(), is(0));
+        
+        CheckTiming timing = new CheckTiming("JavacCheck", new Submission("Exercise01", "Group01"), 1000, 500, 64,
+                -1);
+        collector.addTiming(timing);
+        
+        ResultCollector other = new ResultCollector();
+        CheckTiming otherTiming = new CheckTiming("checkout", new Submission("Exercise01", "Group02"), 10, -1, -1,
+                -1);
+        other.addTiming(otherTiming);
+        collector.addAll(other);
+        
+        assertThat("Postcondition: should store own and merged timings in order",
+                collector.getTimings(), is(Arrays.asList(timing, otherTiming)));
+    }
+    
     @Test
     public void storesSucessConjunction() {
         ResultCollector collector = new ResultCollector();
@@ -203,4 +224,66 @@ public class ResultCollectorTest {
         
     }
     
+    @Test
+    public void addAllAppendsInOrder() {
+        Submission s1 = new Submission("Exercise01", "Group01");
+        Submission s2 = new Submission("Exercise01", "Group02");
+        
+        ResultCollector collector = new ResultCollector();
+        collector.addMessage(new ResultMessage("hook", MessageType.ERROR, "first"));
+        collector.addMessage(new ResultMessage("javac", MessageType.ERROR, "second"), s1);
+        collector.addCheckResult(true);
+        
+        ResultCollector other = new ResultCollector();
+        other.addMessage(new ResultMessage("checkstyle", MessageType.WARNING, "third"), s1);
+        other.addMessage(new ResultMessage("checkstyle", MessageType.WARNING, "fourth"), s2);
+        other.addCheckResult(false);
+        
+        collector.addAll(other);
+        
+        assertThat("Postcondition: messages of the other collector should be appended",
+                collector.getAllMessages(), is(Arrays.asList(
+                        new ResultMessage("hook", MessageType.ERROR, "first"),
+                        new ResultMessage("javac", MessageType.ERROR, "second"),
+                        new ResultMessage("checkstyle", MessageType.WARNING, "third"),
+                        new ResultMessage("checkstyle", MessageType.WARNING, "fourth")
+                )));
+        assertThat("Postcondition: messages per submission should be merged",
+                collector.getMessageForSubmission(s1), is(Arrays.asList(
+                        new ResultMessage("javac", MessageType.ERROR, "second"),
+                        new ResultMessage("checkstyle", MessageType.WARNING, "third")
+                )));
+        assertThat("Postcondition: messages per submission should be merged",
+                collector.getMessageForSubmission(s2), is(Arrays.asList(
+                        new ResultMessage("checkstyle", MessageType.WARNING, "fourth")
+                )));
+        assertThat("Postcondition: failure of other collector should be merged",
+                collector.getAllSuccessful(), is(false));
+    }
+    
+    @Test
+    public void concurrentAdds() throws InterruptedException {
+        ResultCollector collector = new ResultCollector();
+        Submission submission = new Submission("Exercise01", "Group01");
+        
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    collector.addMessage(new ResultMessage("javac", MessageType.ERROR, "msg"), submission);
+                    collector.addCheckResult(true);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertThat("Postcondition: no message should be lost",
+                collector.getAllMessages().size(), is(8000));
+        assertThat("Postcondition: no message should be lost",
+                collector.getMessageForSubmission(submission).size(), is(8000));
+    }
+    
 }
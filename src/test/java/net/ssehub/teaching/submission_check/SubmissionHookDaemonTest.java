@@ -0,0 +1,370 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.svn.MockSvnInterface;
+import net.ssehub.teaching.submission_check.svn.SvnException;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class SubmissionHookDaemonTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/SubmissionHookDaemonTest");
+    
+    private static MockSvnInterface createSvnInterface(String author) {
+        MockSvnInterface svnInterface = new MockSvnInterface();
+        svnInterface.setExpectedPhase(Phase.PRE_COMMIT);
+        svnInterface.setExpectedRepositoryPath(TESTDATA.getAbsoluteFile());
+        svnInterface.setExpectedTransactionId("42-c");
+        
+        svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), author, "42-c",
+                Phase.PRE_COMMIT));
+        svnInterface.setModifiedSubmissions(new HashSet<>(Arrays.asList(new Submission("Homework01", "Group05"))));
+        
+        return svnInterface;
+    }
+    
+    private static String[] sendRequest(int port, String... lines) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            for (String line : lines) {
+                out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            socket.shutdownOutput();
+            
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String exitCode = in.readLine();
+            String output = in.lines().collect(Collectors.joining("\n"));
+            return new String[] {exitCode, output};
+        }
+    }
+    
+    @Test
+    public void notStarted() {
+        SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("student"));
+        
+        assertThrows(IllegalStateException.class, () -> daemon.getPort());
+    }
+    
+    @Test
+    public void failingSubmission() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("student"))) {
+            daemon.start();
+            
+            String[] result = sendRequest(daemon.getPort(), daemon.getToken(), "PRE", TESTDATA.getAbsolutePath(), "42-c");
+            
+            assertThat("Postcondition: should answer with exit code of failed pre-commit hook",
+                    result[0], is("1"));
+            assertThat("Postcondition: should answer with XML output of the failed check",
+                    result[1], containsString("tool=\"eclipse-configuration\""));
+        }
+    }
+    
+    @Test
+    public void unrestrictedUser() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("admin"))) {
+            daemon.start();
+            
+            String[] result = sendRequest(daemon.getPort(), daemon.getToken(), "PRE", TESTDATA.getAbsolutePath(), "42-c");
+            
+            assertThat("Postcondition: should answer with successful exit code",
+                    result[0], is("0"));
+            assertThat("Postcondition: should answer without messages",
+                    result[1], not(containsString("<message")));
+        }
+    }
+    
+    @Test
+    public void multipleRequests() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("student"))) {
+            daemon.start();
+            
+            for (int i = 0; i < 3; i++) {
+                String[] result = sendRequest(daemon.getPort(), daemon.getToken(), "PRE", TESTDATA.getAbsolutePath(), "42-c");
+                
+                assertThat("Postcondition: each request should be answered",
+                        result[0], is("1"));
+            }
+        }
+    }
+    
+    @Test
+    public void invalidArguments() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("student"))) {
+            daemon.start();
+            
+            String[] result = sendRequest(daemon.getPort(), daemon.getToken(), "INVALID", TESTDATA.getAbsolutePath(), "42-c");
+            
+            assertThat("Postcondition: should answer with failure exit code",
+                    result[0], is("1"));
+            assertThat("Postcondition: should answer without output",
+                    result[1], is(""));
+        }
+    }
+    
+    @Test
+    public void wrongTokenDenied() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("admin"))) {
+            daemon.start();
+            
+            String[] result = sendRequest(daemon.getPort(), "wrong", "PRE", TESTDATA.getAbsolutePath(), "42-c");
+            
+            assertThat("Postcondition: should deny request with wrong token",
+                    result[0], is(SubmissionHookDaemon.DENIED));
+            assertThat("Postcondition: should answer without output",
+                    result[1], is(""));
+        }
+    }
+    
+    @Test
+    public void missingTokenDenied() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("admin"))) {
+            daemon.start();
+            
+            String[] result = sendRequest(daemon.getPort(), "PRE", TESTDATA.getAbsolutePath(), "42-c");
+            
+            assertThat("Postcondition: should deny request without token",
+                    result[0], is(SubmissionHookDaemon.DENIED));
+        }
+    }
+    
+    @Test
+    public void idleConnectionsDoNotBlockDaemon() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("student"))) {
+            daemon.setClientTimeout(200);
+            daemon.start();
+            
+            // as many idle connections as the daemon has threads
+            try (Socket idle1 = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+                    Socket idle2 = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+                
+                String[] result = sendRequest(daemon.getPort(), daemon.getToken(), "PRE", TESTDATA.getAbsolutePath(),
+                        "42-c");
+                
+                assertAll(
+                    () -> assertThat("Postcondition: should answer request after idle connections timed out",
+                            result[0], is("1")),
+                    () -> assertThat("Postcondition: idle connection should be closed without answer",
+                            closedWithoutAnswer(idle1), is(true))
+                );
+            }
+        }
+    }
+    
+    @Test
+    public void tooLongLineNotAnswered() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("student"))) {
+            daemon.start();
+            
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+                socket.getOutputStream().write(("x".repeat(SubmissionHookDaemon.MAX_LINE_LENGTH + 1) + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                
+                assertThat("Postcondition: connection should be closed without answer",
+                        closedWithoutAnswer(socket), is(true));
+            }
+        }
+    }
+    
+    @Test
+    public void runtimeExceptionAnswered() throws IOException, ConfigurationException {
+        try (SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> new MockSvnInterface() {
+                    @Override
+                    public TransactionInfo createTransactionInfo(Phase phase, File repositoryPath,
+                            String transactionId) {
+                        throw new IllegalStateException("test");
+                    }
+                })) {
+            daemon.start();
+            
+            String[] result = sendRequest(daemon.getPort(), daemon.getToken(), "PRE", TESTDATA.getAbsolutePath(),
+                    "42-c");
+            
+            assertAll(
+                () -> assertThat("Postcondition: should answer with failure exit code",
+                        result[0], is("1")),
+                () -> assertThat("Postcondition: should answer with internal error",
+                        result[1], containsString("An internal error occurred"))
+            );
+        }
+    }
+    
+    @Test
+    public void closeWaitsForRunningHooks() throws IOException, ConfigurationException, InterruptedException {
+        AtomicBoolean finished = new AtomicBoolean();
+        SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"), () -> {
+            MockSvnInterface svnInterface = new MockSvnInterface() {
+                @Override
+                public TransactionInfo createTransactionInfo(Phase phase, File repositoryPath,
+                        String transactionId) throws SvnException {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        throw new SvnException("Interrupted", e);
+                    }
+                    finished.set(true);
+                    return super.createTransactionInfo(phase, repositoryPath, transactionId);
+                }
+            };
+            svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "admin", "42-c",
+                    Phase.PRE_COMMIT));
+            return svnInterface;
+        });
+        daemon.start();
+        
+        CompletableFuture<String[]> result = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendRequest(daemon.getPort(), daemon.getToken(), "PRE", TESTDATA.getAbsolutePath(), "42-c");
+            } catch (IOException e) {
+                return new String[] {e.toString(), ""};
+            }
+        });
+        Thread.sleep(200);
+        
+        daemon.close();
+        
+        assertAll(
+            () -> assertThat("Postcondition: close() should wait for the running hook",
+                    finished.get(), is(true)),
+            () -> assertThat("Postcondition: running hook should still be answered",
+                    result.join()[0], is("0"))
+        );
+    }
+    
+    @Test
+    public void tokensDifferBetweenDaemons() {
+        SubmissionHookDaemon first = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"), null);
+        SubmissionHookDaemon second = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"), null);
+        
+        assertThat("Postcondition: each daemon should have its own token",
+                first.getToken(), not(second.getToken()));
+    }
+    
+    @Test
+    public void tokenFileOnlyReadableByOwner() throws IOException {
+        File tokenFile = File.createTempFile("submission-check", ".token");
+        try {
+            Files.writeString(tokenFile.toPath(), "old\n");
+            SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"), null);
+            
+            daemon.writeTokenFile(tokenFile);
+            
+            assertAll(
+                () -> assertThat("Postcondition: token file should contain the token",
+                        Files.readString(tokenFile.toPath()), is(daemon.getToken() + "\n")),
+                () -> assertThat("Postcondition: only the owner should be able to read the token file",
+                        Files.getPosixFilePermissions(tokenFile.toPath()),
+                        is(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)))
+            );
+        
+        } finally {
+            tokenFile.delete();
+        }
+    }
+    
+    @Test
+    public void configurationCached() throws IOException {
+        SubmissionHookDaemon daemon = new SubmissionHookDaemon(new File(TESTDATA, "config.properties"),
+                () -> createSvnInterface("student"));
+        
+        Configuration first = daemon.getConfiguration();
+        
+        assertThat("Postcondition: unmodified configuration should not be read again",
+                daemon.getConfiguration(), sameInstance(first));
+    }
+    
+    @Test
+    public void configurationReloadedOnModification() throws IOException {
+        File configFile = File.createTempFile("submission-check-config", ".properties");
+        try {
+            Files.writeString(configFile.toPath(), "unrestrictedUsers = admin\n");
+            configFile.setLastModified(1000);
+            
+            SubmissionHookDaemon daemon = new SubmissionHookDaemon(configFile, () -> createSvnInterface("student"));
+            
+            assertThat("Precondition: should read initial configuration",
+                    daemon.getConfiguration().getUnrestrictedUsers(), is(new HashSet<>(Arrays.asList("admin"))));
+            
+            Files.writeString(configFile.toPath(), "unrestrictedUsers = tutor\n");
+            configFile.setLastModified(2000);
+            
+            assertThat("Postcondition: should read modified configuration",
+                    daemon.getConfiguration().getUnrestrictedUsers(), is(new HashSet<>(Arrays.asList("tutor"))));
+        
+        } finally {
+            configFile.delete();
+        }
+    }
+    
+    private static boolean closedWithoutAnswer(Socket socket) throws IOException {
+        socket.setSoTimeout(5000);
+        boolean closed;
+        try {
+            closed = socket.getInputStream().read() == -1;
+        } catch (SocketException e) {
+            // connection reset, since the daemon closed the socket without reading everything
+            closed = true;
+        }
+        return closed;
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+
+}
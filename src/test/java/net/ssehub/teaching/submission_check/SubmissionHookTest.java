@@ -20,23 +20,44 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.SimpleFormatter;
 import java.util.logging.StreamHandler;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.backend.ServerNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmissionHookProtocol;
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
+import net.ssehub.teaching.submission_check.svn.CliSvnInterfaceIT;
 import net.ssehub.teaching.submission_check.svn.MockSvnInterface;
 import net.ssehub.teaching.submission_check.svn.SvnException;
+import net.ssehub.teaching.submission_check.svn.SvnTimeoutException;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
 import net.ssehub.teaching.submission_check.utils.LoggingSetupTest;
 
@@ -269,6 +290,543 @@ public class SubmissionHookTest {
         }
     }
     
+    @Test
+    public void notifyStudentManagementSystemParallelUploadsWithSeparateLogins() throws SvnException, IOException {
+        Set<Submission> submissions = new HashSet<>();
+        for (int i = 1; i <= 8; i++) {
+            submissions.add(new Submission(i % 2 == 0 ? "Homework01" : "Homework02", String.format("Group%02d", i)));
+        }
+        
+        SubmissionHook hook = createNotifyingHook(submissions);
+        
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger sharedUses = new AtomicInteger();
+        Set<Submission> sent = ConcurrentHashMap.newKeySet();
+        
+        hook.setSubmitterFactory(new LoginCache((config) -> {
+            logins.incrementAndGet();
+            AtomicBoolean inUse = new AtomicBoolean();
+            return new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+                @Override
+                public boolean submit(Submission submission, List<ResultMessage> messages) {
+                    if (!inUse.compareAndSet(false, true)) {
+                        sharedUses.incrementAndGet();
+                    }
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    inUse.set(false);
+                    sent.add(submission);
+                    return true;
+                }
+            };
+        }));
+        
+        hook.notifyStudentManagementSystem();
+        
+        assertAll(
+            () -> assertThat("Postcondition: should log in at most once per upload thread",
+                    logins.get() <= 4, is(true)),
+            () -> assertThat("Postcondition: should never use a submitter in two threads at the same time",
+                    sharedUses.get(), is(0)),
+            () -> assertThat("Postcondition: should send the results of all submissions",
+                    sent, is(submissions)),
+            () -> assertThat("Postcondition: should send results in parallel",
+                    maxRunning.get() > 1, is(true)),
+            () -> assertThat("Postcondition: should not use more threads than configured",
+                    maxRunning.get() <= 4, is(true))
+        );
+    }
+    
+    @Test
+    public void notifyStudentManagementSystemFailureIsolated() throws SvnException, IOException {
+        Submission failing = new Submission("Homework01", "Group02");
+        Set<Submission> submissions = new HashSet<>(Arrays.asList(new Submission("Homework01", "Group01"), failing,
+                new Submission("Homework01", "Group03")));
+        
+        SubmissionHook hook = createNotifyingHook(submissions);
+        
+        Set<Submission> sent = ConcurrentHashMap.newKeySet();
+        hook.setSubmitterFactory((config) -> new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+            @Override
+            public boolean submit(Submission submission, List<ResultMessage> messages) throws NetworkException {
+                if (submission.equals(failing)) {
+                    throw new DataNotFoundException("Simulated failure", submission.getExercise(),
+                            DataType.ASSIGNMENTS_NOT_FOUND);
+                }
+                sent.add(submission);
+                return true;
+            }
+        });
+        
+        ByteArrayOutputStream logoutput = new ByteArrayOutputStream();
+        StreamHandler handler = new StreamHandler(logoutput, new SimpleFormatter());
+        try {
+            LoggingSetupTest.ROOT_LOGGER.addHandler(handler);
+            
+            hook.notifyStudentManagementSystem();
+            
+            handler.close();
+            
+            assertAll(
+                () -> assertThat("Postcondition: should log the failure",
+                        new String(logoutput.toByteArray()),
+                        containsString("Failed to send result to Student Management System")),
+                () -> assertThat("Postcondition: should send the results of the other submissions",
+                        sent, is(new HashSet<>(Arrays.asList(new Submission("Homework01", "Group01"),
+                                new Submission("Homework01", "Group03")))))
+            );
+            
+        } finally {
+            LoggingSetupTest.ROOT_LOGGER.removeHandler(handler);
+        }
+    }
+    
+    @Test
+    public void notifyStudentManagementSystemRetriesWithNewLogin() throws SvnException, IOException {
+        Submission submission = new Submission("Homework01", "Group01");
+        SubmissionHook hook = createNotifyingHook(new HashSet<>(Arrays.asList(submission)));
+        
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger invalidations = new AtomicInteger();
+        Set<Submission> sent = ConcurrentHashMap.newKeySet();
+        
+        hook.setSubmitterFactory(new SubmissionHook.SubmitterFactory() {
+            
+            @Override
+            public StudentManagementSubmitter create(StudentManagementConfig config) {
+                boolean expired = logins.incrementAndGet() == 1;
+                return new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+                    @Override
+                    public boolean submit(Submission submission, List<ResultMessage> messages)
+                            throws NetworkException {
+                        if (expired) {
+                            throw new ServerNotFoundException("Simulated rejection");
+                        }
+                        sent.add(submission);
+                        return true;
+                    }
+                };
+            }
+            
+            @Override
+            public void invalidate(StudentManagementConfig config, StudentManagementSubmitter submitter) {
+                invalidations.incrementAndGet();
+            }
+            
+        });
+        
+        hook.notifyStudentManagementSystem();
+        
+        assertAll(
+            () -> assertThat("Postcondition: should drop the rejected login",
+                    invalidations.get(), is(1)),
+            () -> assertThat("Postcondition: should log in again",
+                    logins.get(), is(2)),
+            () -> assertThat("Postcondition: should send the result with the new login",
+                    sent, is(new HashSet<>(Arrays.asList(submission))))
+        );
+    }
+    
+    @Test
+    public void notifyStudentManagementSystemDoesNotRetryMissingData() throws SvnException, IOException {
+        Submission submission = new Submission("Homework01", "Group01");
+        SubmissionHook hook = createNotifyingHook(new HashSet<>(Arrays.asList(submission)));
+        
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger invalidations = new AtomicInteger();
+        
+        hook.setSubmitterFactory(new SubmissionHook.SubmitterFactory() {
+            
+            @Override
+            public StudentManagementSubmitter create(StudentManagementConfig config) {
+                logins.incrementAndGet();
+                return new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+                    @Override
+                    public boolean submit(Submission submission, List<ResultMessage> messages)
+                            throws NetworkException {
+                        throw new DataNotFoundException("Simulated missing assignment", submission.getExercise(),
+                                DataType.ASSIGNMENTS_NOT_FOUND);
+                    }
+                };
+            }
+            
+            @Override
+            public void invalidate(StudentManagementConfig config, StudentManagementSubmitter submitter) {
+                invalidations.incrementAndGet();
+            }
+            
+        });
+        
+        hook.notifyStudentManagementSystem();
+        
+        assertAll(
+            () -> assertThat("Postcondition: should keep the login",
+                    invalidations.get(), is(0)),
+            () -> assertThat("Postcondition: should not log in again",
+                    logins.get(), is(1))
+        );
+    }
+    
+    @Test
+    public void notifyStudentManagementSystemStoresUnsentResultsInOutbox() throws SvnException, IOException,
+            ConfigurationException {
+        
+        Submission failing = new Submission("Homework01", "Group01");
+        Submission slow = new Submission("Homework01", "Group02");
+        Submission sent = new Submission("Homework01", "Group03");
+        
+        File stateDirectory = FileUtils.createTemporaryDirectory();
+        File configFile = new File(stateDirectory, "config.properties");
+        Files.writeString(configFile.toPath(), Files.readString(new File(TESTDATA, "studentManagement.properties")
+                .toPath()) + "\nstateDirectory = " + stateDirectory.getAbsolutePath().replace('\\', '/')
+                + "\nuploadTimeout = 1\n");
+        
+        SubmissionHook hook = createNotifyingHook(new HashSet<>(Arrays.asList(failing, slow, sent)), configFile);
+        
+        hook.setSubmitterFactory((config) -> new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+            @Override
+            public boolean submit(Submission submission, List<ResultMessage> messages) throws NetworkException {
+                if (submission.equals(failing)) {
+                    throw new DataNotFoundException("Simulated failure", submission.getExercise(),
+                            DataType.ASSIGNMENTS_NOT_FOUND);
+                    
+                } else if (submission.equals(slow)) {
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return true;
+            }
+        });
+        
+        long start = System.currentTimeMillis();
+        hook.notifyStudentManagementSystem();
+        long duration = System.currentTimeMillis() - start;
+        
+        UploadOutbox outbox = new UploadOutbox(new File(stateDirectory, "outbox"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should not wait for slow upload longer than the timeout",
+                    duration < 4000, is(true)),
+            () -> assertThat("Postcondition: outbox should contain failed and slow results",
+                    outbox.getPending(), is(Arrays.asList(
+                        new PostCommitJob(TESTDATA.getAbsoluteFile(), "42-c", failing).getId(),
+                        new PostCommitJob(TESTDATA.getAbsoluteFile(), "42-c", slow).getId())))
+        );
+    }
+    
+    @Test
+    public void notifyStudentManagementSystemDrainsOutboxWithoutDrainer() throws SvnException, IOException,
+            ConfigurationException {
+        
+        Submission stored = new Submission("Homework01", "Group01");
+        Submission modified = new Submission("Homework01", "Group02");
+        
+        File stateDirectory = FileUtils.createTemporaryDirectory();
+        File configFile = new File(stateDirectory, "config.properties");
+        Files.writeString(configFile.toPath(), Files.readString(new File(TESTDATA, "studentManagement.properties")
+                .toPath()) + "\nstateDirectory = " + stateDirectory.getAbsolutePath().replace('\\', '/') + "\n");
+        
+        // an outbox entry of an earlier hook that is due right away
+        UploadOutbox outbox = new UploadOutbox(new File(stateDirectory, "outbox")) {
+            @Override
+            long getBackoff(int attempt) {
+                return 0;
+            }
+        };
+        outbox.put(new PostCommitJob(TESTDATA.getAbsoluteFile(), "41", stored),
+                Arrays.asList(new ResultMessage("javac", MessageType.ERROR, "error")));
+        
+        SubmissionHook hook = createNotifyingHook(new HashSet<>(Arrays.asList(modified)), configFile);
+        
+        List<Submission> sent = Collections.synchronizedList(new LinkedList<>());
+        hook.setSubmitterFactory((config) -> new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+            @Override
+            public boolean submit(Submission submission, List<ResultMessage> messages) {
+                sent.add(submission);
+                return true;
+            }
+        });
+        
+        hook.notifyStudentManagementSystem();
+        
+        assertAll(
+            () -> assertThat("Postcondition: should send the own and the stored result",
+                    new HashSet<>(sent), is(new HashSet<>(Arrays.asList(stored, modified)))),
+            () -> assertThat("Postcondition: outbox should be empty",
+                    outbox.getPending(), is(Collections.emptyList()))
+        );
+    }
+    
+    @Test
+    public void notifyStudentManagementSystemLeavesOutboxToDrainer() throws SvnException, IOException,
+            ConfigurationException {
+        
+        Submission stored = new Submission("Homework01", "Group01");
+        Submission modified = new Submission("Homework01", "Group02");
+        
+        File stateDirectory = FileUtils.createTemporaryDirectory();
+        File configFile = new File(stateDirectory, "config.properties");
+        Files.writeString(configFile.toPath(), Files.readString(new File(TESTDATA, "studentManagement.properties")
+                .toPath()) + "\nstateDirectory = " + stateDirectory.getAbsolutePath().replace('\\', '/') + "\n");
+        
+        UploadOutbox outbox = new UploadOutbox(new File(stateDirectory, "outbox")) {
+            @Override
+            long getBackoff(int attempt) {
+                return 0;
+            }
+        };
+        outbox.put(new PostCommitJob(TESTDATA.getAbsoluteFile(), "41", stored),
+                Arrays.asList(new ResultMessage("javac", MessageType.ERROR, "error")));
+        outbox.recordDrainer();
+        
+        SubmissionHook hook = createNotifyingHook(new HashSet<>(Arrays.asList(modified)), configFile);
+        
+        List<Submission> sent = Collections.synchronizedList(new LinkedList<>());
+        hook.setSubmitterFactory((config) -> new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+            @Override
+            public boolean submit(Submission submission, List<ResultMessage> messages) {
+                sent.add(submission);
+                return true;
+            }
+        });
+        
+        hook.notifyStudentManagementSystem();
+        
+        assertAll(
+            () -> assertThat("Postcondition: should only send the own result",
+                    sent, is(Arrays.asList(modified))),
+            () -> assertThat("Postcondition: stored result should be left to the drainer",
+                    outbox.getPending().size(), is(1))
+        );
+    }
+    
+    /**
+     * Creates a post-commit hook for the given submissions, configured with the Student Management System settings
+     * of <code>studentManagement.properties</code>.
+     * 
+     * @param submissions The modified submissions.
+     * 
+     * @return The hook, ready for {@link SubmissionHook#notifyStudentManagementSystem()}.
+     */
+    private static SubmissionHook createNotifyingHook(Set<Submission> submissions) throws SvnException, IOException {
+        return createNotifyingHook(submissions, new File(TESTDATA, "studentManagement.properties"));
+    }
+    
+    /**
+     * Creates a post-commit hook for the given submissions.
+     * 
+     * @param submissions The modified submissions.
+     * @param configFile The configuration file to use.
+     * 
+     * @return The hook, ready for {@link SubmissionHook#notifyStudentManagementSystem()}.
+     */
+    private static SubmissionHook createNotifyingHook(Set<Submission> submissions, File configFile)
+            throws SvnException, IOException {
+        MockSvnInterface svnInterface = new MockSvnInterface();
+        svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "someuser", "42-c", Phase.POST_COMMIT));
+        svnInterface.setModifiedSubmissions(submissions);
+        
+        SubmissionHook hook = new SubmissionHook(new String[] {"POST", TESTDATA.getAbsolutePath(), "42-c"}, svnInterface);
+        hook.readConfiguration(configFile);
+        hook.queryMetadataFromSvn();
+        return hook;
+    }
+    
+    @Test
+    public void runChecksInParallel() throws SvnException, IOException, ConfigurationException {
+        MockSvnInterface svnInterface = new MockSvnInterface();
+        svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "someuser", "42-c", Phase.PRE_COMMIT));
+        
+        Set<Submission> submissions = new HashSet<>();
+        for (int i = 1; i <= 10; i++) {
+            submissions.add(new Submission("Homework01", String.format("Group%02d", i)));
+        }
+        svnInterface.setModifiedSubmissions(submissions);
+        
+        SubmissionHook hook = new SubmissionHook(new String[] {"PRE", TESTDATA.getAbsolutePath(), "42-c"}, svnInterface);
+        
+        File configFile = new File(TESTDATA, "parallel.properties");
+        assertThat("Precondition: test config file exists",
+                configFile.isFile(), is(true));
+        
+        hook.readConfiguration(configFile);
+        hook.queryMetadataFromSvn();
+        
+        hook.runChecksOnAllModifiedSubmissions();
+        
+        ResultCollector result = hook.getResultCollector();
+        assertThat("Postcondition: empty checkouts should fail",
+                result.getAllSuccessful(), is(false));
+        assertThat("Postcondition: should have one message per submission",
+                result.getAllMessages().size(), is(10));
+        for (Submission submission : submissions) {
+            assertThat("Postcondition: should have one message per submission",
+                    result.getMessageForSubmission(submission).size(), is(1));
+        }
+    }
+    
+    @Test
+    public void runChecksPipelined() throws SvnException, IOException, ConfigurationException {
+        MockSvnInterface svnInterface = new MockSvnInterface();
+        svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "someuser", "42-c", Phase.PRE_COMMIT));
+        
+        Set<Submission> submissions = new HashSet<>();
+        for (int i = 1; i <= 10; i++) {
+            submissions.add(new Submission("Homework01", String.format("Group%02d", i)));
+        }
+        svnInterface.setModifiedSubmissions(submissions);
+        
+        SubmissionHook hook = new SubmissionHook(new String[] {"PRE", TESTDATA.getAbsolutePath(), "42-c"}, svnInterface);
+        
+        File configFile = new File(TESTDATA, "config.properties");
+        assertThat("Precondition: test config file exists",
+                configFile.isFile(), is(true));
+        
+        hook.readConfiguration(configFile);
+        hook.queryMetadataFromSvn();
+        
+        hook.runChecksOnAllModifiedSubmissions();
+        
+        ResultCollector result = hook.getResultCollector();
+        assertThat("Postcondition: empty checkouts should fail",
+                result.getAllSuccessful(), is(false));
+        assertThat("Postcondition: should have one message per submission",
+                result.getAllMessages().size(), is(10));
+        for (Submission submission : submissions) {
+            assertThat("Postcondition: should have one message per submission",
+                    result.getMessageForSubmission(submission).size(), is(1));
+        }
+    }
+    
+    @Test
+    public void runChecksWithResultCache() throws SvnException, IOException, ConfigurationException {
+        MockSvnInterface svnInterface = new MockSvnInterface();
+        svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "someuser", "42-c", Phase.PRE_COMMIT));
+        
+        Set<Submission> submissions = new HashSet<>();
+        for (int i = 1; i <= 10; i++) {
+            submissions.add(new Submission("Homework01", String.format("Group%02d", i)));
+        }
+        svnInterface.setModifiedSubmissions(submissions);
+        
+        SubmissionHook hook = new SubmissionHook(new String[] {"PRE", TESTDATA.getAbsolutePath(), "42-c"}, svnInterface);
+        
+        File stateDirectory = FileUtils.createTemporaryDirectory();
+        File configFile = new File(stateDirectory, "config.properties");
+        Files.writeString(configFile.toPath(), "stateDirectory = "
+                + stateDirectory.getAbsolutePath().replace('\\', '/') + "\n");
+        
+        hook.readConfiguration(configFile);
+        hook.queryMetadataFromSvn();
+        
+        hook.runChecksOnAllModifiedSubmissions();
+        
+        ResultCollector result = hook.getResultCollector();
+        assertThat("Postcondition: empty checkouts should fail",
+                result.getAllSuccessful(), is(false));
+        for (Submission submission : submissions) {
+            assertThat("Postcondition: cached results should have one message per submission",
+                    result.getMessageForSubmission(submission).size(), is(1));
+        }
+        assertThat("Postcondition: only the first of the identical submissions should be checked",
+                hook.getResultCache().getMisses(), is(1));
+        assertThat("Postcondition: the other identical submissions should use the cached result",
+                hook.getResultCache().getHits(), is(9));
+    }
+    
+    @Test
+    public void executePostCommitQueued() throws IOException {
+        MockSvnInterface svnInterface = new MockSvnInterface();
+        svnInterface.setTransactionInfo(new TransactionInfo(TESTDATA.getAbsoluteFile(), "someuser", "42", Phase.POST_COMMIT));
+        Submission submission1 = new Submission("Homework01", "Group01");
+        Submission submission2 = new Submission("Homework01", "Group02");
+        svnInterface.setModifiedSubmissions(new HashSet<>(Arrays.asList(submission1, submission2)));
+
+        SubmissionHook hook = new SubmissionHook(new String[] {"POST", TESTDATA.getAbsolutePath(), "42"}, svnInterface);
+
+        File stateDirectory = FileUtils.createTemporaryDirectory();
+        File configFile = new File(stateDirectory, "config.properties");
+        Files.writeString(configFile.toPath(), "postCommitQueue = true\nstateDirectory = "
+                + stateDirectory.getAbsolutePath().replace('\\', '/') + "\n");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int exitCode = hook.execute(() -> new Configuration(configFile), new PrintStream(output, true));
+
+        assertThat("Postcondition: should return successfully without running the checks",
+                exitCode, is(0));
+        assertThat("Postcondition: should not output any messages",
+                new String(output.toByteArray()), not(containsString("<message")));
+
+        JobQueue queue = new JobQueue(new File(stateDirectory, "queue"), 60000);
+        Set<PostCommitJob> jobs = new HashSet<>();
+        jobs.add(queue.poll().getJob());
+        jobs.add(queue.poll().getJob());
+        assertThat("Postcondition: should have queued one job per submission",
+                jobs, is(new HashSet<>(Arrays.asList(new PostCommitJob(TESTDATA, "42", submission1),
+                        new PostCommitJob(TESTDATA, "42", submission2)))));
+    }
+
+    @Test
+    public void executeWithConfiguredSvnInterface() throws IOException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(
+                new File("src/test/resources/CliSvnInterfaceIT/repo2Exercises2GroupsInTransaction_4-4.zip"));
+        
+        SubmissionHook hook = new SubmissionHook(new String[] {"PRE", repo.getAbsolutePath(), "4-4"});
+        
+        File configFile = new File(TESTDATA, "fsfs.properties");
+        assertThat("Precondition: test config file exists",
+                configFile.isFile(), is(true));
+        
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int exitCode = hook.execute(() -> new Configuration(configFile), new PrintStream(output, true));
+        
+        assertThat("Postcondition: should have read the author from the repository",
+                hook.getTransactionInfo().getAuthor(), is("student1"));
+        assertThat("Postcondition: should reject the submission since it is no eclipse project",
+                exitCode, is(1));
+        assertThat("Postcondition: should output the message of the failed check",
+                new String(output.toByteArray()), containsString("tool=\"eclipse-configuration\""));
+    }
+    
+    @Test
+    public void executeSvnTimeoutReported() throws IOException {
+        MockSvnInterface svnInterface = new MockSvnInterface() {
+            @Override
+            public TransactionInfo createTransactionInfo(Phase phase, File repositoryPath, String transactionId)
+                    throws SvnException {
+                throw new SvnTimeoutException("svnlook killed since it exceeded its time limit");
+            }
+        };
+        
+        SubmissionHook hook = new SubmissionHook(new String[] {"PRE", TESTDATA.getAbsolutePath(), "42-c"},
+                svnInterface);
+        
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int exitCode = hook.execute(() -> new Configuration(new File(TESTDATA, "config.properties")),
+                new PrintStream(output, true));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should reject the commit",
+                    exitCode, is(1)),
+            () -> assertThat("Postcondition: should report the timeout",
+                    new String(output.toByteArray()), containsString(SubmissionHook.TIMEOUT_MESSAGE)),
+            () -> assertThat("Postcondition: should not report a generic internal error",
+                    new String(output.toByteArray()), not(containsString("An internal error occurred"))),
+            () -> assertThat("Postcondition: should count as internal error",
+                    hook.hadInternalError(), is(true))
+        );
+    }
+    
     @BeforeAll
     public static void initLogger() {
         LoggingSetup.setupStdoutLogging();
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static net.ssehub.teaching.submission_check.DeadlineBurstLoadGenerator.EXERCISE;
+import static net.ssehub.teaching.submission_check.DeadlineBurstLoadGenerator.appendComment;
+import static net.ssehub.teaching.submission_check.DeadlineBurstLoadGenerator.groupName;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The <code>svn</code> mode of the {@link DeadlineBurstLoadGenerator}. Creates a local repository with
+ * <code>svnadmin create</code>, installs the hook from the given jar with <code>scripts/install.sh</code> and runs
+ * concurrent <code>svn commit</code>s over <code>file://</code>. The installed hook scripts are wrapped to record the
+ * pre- and post-commit latency, and the running hook processes are counted. Requires <code>svn</code>,
+ * <code>svnadmin</code> and <code>svnlook</code>, and the jar built by <code>mvn package</code>.
+ * 
+ * @author Adam
+ */
+class SvnBurstDriver implements DeadlineBurstLoadGenerator.BurstDriver {
+    
+    private static final File INSTALL_SCRIPT = new File("scripts/install.sh");
+    
+    private DeadlineBurstLoadGenerator generator;
+    
+    private File hookJar;
+    
+    private AtomicInteger maxRunningHooks = new AtomicInteger();
+    
+    private Set<Long> hookPids = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Creates the driver.
+     * 
+     * @param generator The generator that runs the burst.
+     * @param hookJar The jar with dependencies of the hook, to install into the repository.
+     */
+    SvnBurstDriver(DeadlineBurstLoadGenerator generator, File hookJar) {
+        this.generator = generator;
+        this.hookJar = hookJar;
+    }
+    
+    @Override
+    public void run(File config) throws IOException, InterruptedException {
+        File workDirectory = generator.getWorkDirectory();
+        int groups = generator.getGroups();
+        
+        File repository = new File(workDirectory, "repository");
+        runCommand(workDirectory, "svnadmin", "create", repository.getAbsolutePath());
+        String url = repository.toURI().toString().replaceFirst("^file:/+", "file:///");
+        
+        List<String> mkdir = new ArrayList<>(Arrays.asList("svn", "mkdir", "--parents", "-m", "setup"));
+        for (int group = 0; group < groups; group++) {
+            mkdir.add(url + EXERCISE + "/" + groupName(group));
+        }
+        runCommand(workDirectory, mkdir.toArray(new String[0]));
+        
+        installHook(repository, config);
+        
+        File[] workingCopies = new File[groups];
+        for (int group = 0; group < groups; group++) {
+            workingCopies[group] = new File(workDirectory, "wc/" + groupName(group));
+            runCommand(workDirectory, "svn", "checkout", url + EXERCISE + "/" + groupName(group),
+                    workingCopies[group].getAbsolutePath());
+            generator.writeSubmission(workingCopies[group], group);
+            runCommand(workingCopies[group], "svn", "add", "--force", ".");
+        }
+        
+        LatencyStatistics commit = generator.getCommitStatistics();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(this::countHookProcesses, 0, 20, TimeUnit.MILLISECONDS);
+        try {
+            generator.runBurst((group, number) -> {
+                if (number > 0) {
+                    appendComment(workingCopies[group], number);
+                }
+                long start = System.nanoTime();
+                boolean accepted = tryCommand(workingCopies[group], "svn", "commit", "--non-interactive",
+                        "--username", groupName(group), "-m", "commit " + number);
+                commit.add(System.nanoTime() - start);
+                return accepted;
+            });
+        } finally {
+            sampler.shutdownNow();
+        }
+        
+        File hookDirectory = new File(repository, "hooks/submission-check");
+        readHookTimings(new File(hookDirectory, "pre-commit.timings"), generator.getPreCommitStatistics());
+        readHookTimings(new File(hookDirectory, "post-commit.timings"), generator.getPostCommitStatistics());
+    }
+    
+    @Override
+    public void printHooks(PrintStream out) {
+        out.printf("Hook processes: %d at most concurrently, %d in total%n", maxRunningHooks.get(), hookPids.size());
+    }
+    
+    /**
+     * Installs the hook into the repository and wraps the hook scripts to record their latency.
+     * 
+     * @param repository The repository to install the hook into.
+     * @param config The configuration file for the hook.
+     * 
+     * @throws IOException If installing fails.
+     * @throws InterruptedException If interrupted while waiting for the install script.
+     */
+    private void installHook(File repository, File config) throws IOException, InterruptedException {
+        File bundle = new File(generator.getWorkDirectory(), "bundle");
+        bundle.mkdir();
+        Files.copy(INSTALL_SCRIPT.toPath(), new File(bundle, "install.sh").toPath());
+        Files.copy(hookJar.toPath(), new File(bundle, hookJar.getName()).toPath());
+        runCommand(bundle, "bash", "install.sh", repository.getAbsolutePath());
+        
+        File hooks = new File(repository, "hooks");
+        Files.copy(config.toPath(), new File(hooks, "submission-check/config.properties").toPath());
+        
+        // SVN runs hooks with an empty environment
+        String javaBin = new File(System.getProperty("java.home"), "bin").getAbsolutePath();
+        Files.writeString(new File(repository, "conf/hooks-env").toPath(),
+                "[default]\nPATH = " + javaBin + File.pathSeparator + System.getenv("PATH") + "\n",
+                StandardCharsets.UTF_8);
+        
+        // wrap the installed hooks to record their latency
+        for (String hook : new String[] {"pre-commit", "post-commit"}) {
+            File script = new File(hooks, hook);
+            Files.move(script.toPath(), new File(hooks, hook + ".real").toPath());
+            Files.writeString(script.toPath(), "#!/bin/bash\n"
+                    + "START=$(date +%s%N)\n"
+                    + "\"$(dirname \"$0\")/" + hook + ".real\" \"$@\"\n"
+                    + "EXIT_CODE=$?\n"
+                    + "echo \"$START $(date +%s%N) $EXIT_CODE\" >> \"$(dirname \"$0\")/submission-check/" + hook
+                    + ".timings\"\n"
+                    + "exit $EXIT_CODE\n", StandardCharsets.UTF_8);
+            script.setExecutable(true);
+        }
+    }
+    
+    /**
+     * Counts the currently running hook processes. Called periodically during the burst.
+     */
+    private void countHookProcesses() {
+        int running = 0;
+        for (ProcessHandle process : (Iterable<ProcessHandle>) ProcessHandle.allProcesses()::iterator) {
+            if (process.info().commandLine().orElse("").contains("submission-check.jar")) {
+                running++;
+                hookPids.add(process.pid());
+            }
+        }
+        maxRunningHooks.accumulateAndGet(running, Math::max);
+    }
+    
+    /**
+     * Reads the latencies that the wrapped hook scripts recorded.
+     * 
+     * @param timings The file written by the wrapped hook script.
+     * @param statistics The statistics to add the latencies to.
+     * 
+     * @throws IOException If reading the file fails.
+     */
+    private static void readHookTimings(File timings, LatencyStatistics statistics) throws IOException {
+        if (timings.isFile()) {
+            for (String line : Files.readAllLines(timings.toPath())) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length == 3) {
+                    statistics.add(Long.parseLong(parts[1]) - Long.parseLong(parts[0]));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Runs the given command and fails if it does not succeed.
+     * 
+     * @param directory The working directory of the command.
+     * @param command The command to run.
+     * 
+     * @throws IOException If the command cannot be started or exits with a non-zero exit code.
+     * @throws InterruptedException If interrupted while waiting for the command.
+     */
+    private static void runCommand(File directory, String... command) throws IOException, InterruptedException {
+        if (!tryCommand(directory, command)) {
+            throw new IOException("Command failed: " + String.join(" ", command));
+        }
+    }
+    
+    /**
+     * Runs the given command and discards its output.
+     * 
+     * @param directory The working directory of the command.
+     * @param command The command to run.
+     * 
+     * @return Whether the command exited with exit code 0.
+     * 
+     * @throws IOException If the command cannot be started.
+     * @throws InterruptedException If interrupted while waiting for the command.
+     */
+    private static boolean tryCommand(File directory, String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .directory(directory)
+                .redirectErrorStream(true)
+                .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")))
+                .start();
+        process.getInputStream().transferTo(OutputStream.nullOutputStream());
+        return process.waitFor() == 0;
+    }
+    
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmissionHookProtocol;
+import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.SubmissionHook.SubmitterFactory;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class UploadOutboxTest {
+    
+    private static final File REPOSITORY = new File("src/test/resources/SubmissionHookTest");
+    
+    private static final Submission SUBMISSION = new Submission("Homework01", "Group01");
+    
+    private static final long LATER = System.currentTimeMillis() + 2 * UploadOutbox.MAX_BACKOFF;
+    
+    private List<List<ResultMessage>> sent = new ArrayList<>();
+    
+    private boolean failing;
+    
+    private static PostCommitJob createJob(String revision) {
+        return new PostCommitJob(REPOSITORY, revision, SUBMISSION);
+    }
+    
+    private static List<ResultMessage> createResult(String text) {
+        ResultMessage message = new ResultMessage("javac", MessageType.ERROR, text);
+        message.setFile(new File("Main.java"));
+        message.setLine(3);
+        return Arrays.asList(message);
+    }
+    
+    private static Configuration createConfiguration() throws IOException {
+        return new Configuration(new File(REPOSITORY, "studentManagement.properties"));
+    }
+    
+    private SubmitterFactory createSubmitters() {
+        return (config) -> new StudentManagementSubmitter((SubmissionHookProtocol) null) {
+            @Override
+            public boolean submit(Submission submission, List<ResultMessage> messages) throws NetworkException {
+                if (failing) {
+                    throw new DataNotFoundException("Simulated failure", submission.getExercise(),
+                            DataType.ASSIGNMENTS_NOT_FOUND);
+                }
+                sent.add(messages);
+                return true;
+            }
+        };
+    }
+    
+    @Test
+    public void storedResultSentLater() throws IOException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        
+        assertThat("Precondition: result should be stored",
+                outbox.put(createJob("5"), createResult("error")), is(true));
+        
+        int numSentNow = outbox.drain(createConfiguration(), createSubmitters());
+        int numSentLater = outbox.drain(createConfiguration(), createSubmitters(), LATER);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should not send before the backoff", numSentNow, is(0)),
+            () -> assertThat("Postcondition: should send after the backoff", numSentLater, is(1)),
+            () -> assertThat("Postcondition: should send the stored result", sent, is(Arrays.asList(
+                    createResult("error")))),
+            () -> assertThat("Postcondition: should remove the sent result", outbox.getPending(),
+                    is(Collections.emptyList()))
+        );
+    }
+    
+    @Test
+    public void onlyNewestResultKept() throws IOException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        
+        outbox.put(createJob("5"), createResult("old"));
+        boolean newerStored = outbox.put(createJob("7"), createResult("new"));
+        boolean olderStored = outbox.put(createJob("6"), createResult("older"));
+        
+        outbox.drain(createConfiguration(), createSubmitters(), LATER);
+        
+        assertAll(
+            () -> assertThat("Postcondition: newer result should replace older one", newerStored, is(true)),
+            () -> assertThat("Postcondition: older result should not replace newer one", olderStored, is(false)),
+            () -> assertThat("Postcondition: should only send the newest result", sent, is(Arrays.asList(
+                    createResult("new"))))
+        );
+    }
+    
+    @Test
+    public void removedWhenNewerResultSent() throws IOException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        
+        outbox.put(createJob("5"), createResult("old"));
+        outbox.remove(createJob("4"));
+        
+        assertThat("Precondition: sending an older revision should not remove the result",
+                outbox.getPending(), is(Arrays.asList(createJob("5").getId())));
+        
+        outbox.remove(createJob("6"));
+        
+        assertThat("Postcondition: sending a newer revision should remove the result",
+                outbox.getPending(), is(Collections.emptyList()));
+    }
+    
+    @Test
+    public void failedResultRetriedWithBackoff() throws IOException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        outbox.put(createJob("5"), createResult("error"));
+        
+        failing = true;
+        long firstAttempt = System.currentTimeMillis() + UploadOutbox.INITIAL_BACKOFF;
+        int numSentFirst = outbox.drain(createConfiguration(), createSubmitters(), firstAttempt);
+        
+        // the second retry is delayed by at least the initial backoff
+        failing = false;
+        int numSentTooEarly = outbox.drain(createConfiguration(), createSubmitters(), firstAttempt + 1000);
+        int numSentLater = outbox.drain(createConfiguration(), createSubmitters(), LATER);
+        
+        assertAll(
+            () -> assertThat("Postcondition: first retry should fail", numSentFirst, is(0)),
+            () -> assertThat("Postcondition: should not retry before the backoff", numSentTooEarly, is(0)),
+            () -> assertThat("Postcondition: should retry after the backoff", numSentLater, is(1)),
+            () -> assertThat("Postcondition: should remove the sent result", outbox.getPending(),
+                    is(Collections.emptyList()))
+        );
+    }
+    
+    @Test
+    public void givenUpAfterMaxAttempts() throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        UploadOutbox outbox = new UploadOutbox(directory);
+        outbox.put(createJob("5"), createResult("error"));
+        
+        failing = true;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < UploadOutbox.MAX_ATTEMPTS; i++) {
+            now += 2 * UploadOutbox.MAX_BACKOFF;
+            outbox.drain(createConfiguration(), createSubmitters(), now);
+        }
+        
+        assertAll(
+            () -> assertThat("Postcondition: should not retry anymore", outbox.getPending(),
+                    is(Collections.emptyList())),
+            () -> assertThat("Postcondition: should move the result to failed",
+                    new File(directory, "failed/" + createJob("5").getKey() + ".result").isFile(), is(true))
+        );
+    }
+    
+    @Test
+    public void olderResultNotSentAfterNewer() throws IOException, NetworkException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        List<String> uploaded = new ArrayList<>();
+        
+        boolean newerSent = outbox.sendIfNewest(createJob("7"), () -> uploaded.add("7"));
+        boolean olderSent = outbox.sendIfNewest(createJob("5"), () -> uploaded.add("5"));
+        boolean sameSent = outbox.sendIfNewest(createJob("7"), () -> uploaded.add("7"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: newer result should be sent", newerSent, is(true)),
+            () -> assertThat("Postcondition: older result should not be sent", olderSent, is(false)),
+            () -> assertThat("Postcondition: same revision may be sent again", sameSent, is(true)),
+            () -> assertThat(uploaded, is(Arrays.asList("7", "7")))
+        );
+    }
+    
+    @Test
+    public void storedResultDroppedAfterNewerSent() throws IOException, NetworkException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        
+        outbox.put(createJob("5"), createResult("old"));
+        // e.g. a hook that still runs after this one has stored its result
+        outbox.sendIfNewest(createJob("7"), () -> { });
+        boolean olderStored = outbox.put(createJob("6"), createResult("older"));
+        
+        int numSent = outbox.drain(createConfiguration(), createSubmitters(), LATER);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should not store result older than the sent one", olderStored,
+                    is(false)),
+            () -> assertThat("Postcondition: should not send outdated result", numSent, is(0)),
+            () -> assertThat("Postcondition: should not send outdated result", sent, is(Collections.emptyList())),
+            () -> assertThat("Postcondition: should remove outdated result", outbox.getPending(),
+                    is(Collections.emptyList()))
+        );
+    }
+    
+    @Test
+    public void uploadsOfSameSubmissionSerialized() throws IOException, InterruptedException, ExecutionException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        List<String> uploaded = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch olderStarted = new CountDownLatch(1);
+        CountDownLatch releaseOlder = new CountDownLatch(1);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> older = executor.submit(() -> outbox.sendIfNewest(createJob("5"), () -> {
+                olderStarted.countDown();
+                try {
+                    releaseOlder.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                uploaded.add("5");
+            }));
+            olderStarted.await();
+            
+            Future<Boolean> newer = executor.submit(() -> outbox.sendIfNewest(createJob("7"), () -> uploaded.add("7")));
+            Thread.sleep(200);
+            
+            assertThat("Precondition: newer upload should wait for the running older one", uploaded,
+                    is(Collections.emptyList()));
+            
+            releaseOlder.countDown();
+            
+            assertAll(
+                () -> assertThat(older.get(), is(true)),
+                () -> assertThat(newer.get(), is(true)),
+                () -> assertThat("Postcondition: newer result should be uploaded last", uploaded,
+                        is(Arrays.asList("5", "7")))
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void backoffGrowsExponentially() throws IOException {
+        UploadOutbox outbox = new UploadOutbox(FileUtils.createTemporaryDirectory());
+        
+        for (int attempt = 1; attempt <= UploadOutbox.MAX_ATTEMPTS; attempt++) {
+            long delay = Math.min(UploadOutbox.MAX_BACKOFF, UploadOutbox.INITIAL_BACKOFF << (attempt - 1));
+            long backoff = outbox.getBackoff(attempt);
+            
+            assertThat("Postcondition: backoff of attempt " + attempt + " should be between half and full delay",
+                    backoff >= delay / 2 && backoff <= delay, is(true));
+        }
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
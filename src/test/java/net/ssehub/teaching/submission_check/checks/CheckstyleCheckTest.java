@@ -21,15 +21,23 @@ import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInA
 import static org.junit.jupiter.api.Assertions.assertAll;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.utils.Deadline;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
 
 public class CheckstyleCheckTest {
@@ -367,6 +375,59 @@ public class CheckstyleCheckTest {
         assertThat(check.getCheckstyleRules(), is(new File("something/else.xml")));
     }
     
+    @Test
+    @DisplayName("caches correctly formatted files and still reports incorrect files")
+    public void cacheFile() throws IOException, CheckstyleException {
+        File directory = FileUtils.createTemporaryDirectory();
+        File correct = new File(directory, "Correct.java");
+        File incorrect = new File(directory, "HelloWorld.java");
+        Files.copy(new File(TESTDATA, "beginnersCorrect/HelloWorld.java").toPath(), correct.toPath());
+        Files.copy(new File(TESTDATA, "beginnersIncorrect/HelloWorld.java").toPath(), incorrect.toPath());
+        
+        File cacheFile = new File(FileUtils.createTemporaryDirectory(), "cache.properties");
+        
+        CheckstyleCheck first = new CheckstyleCheck(BEGINNERS_RULES);
+        first.setCacheFile(cacheFile);
+        boolean firstSuccess = first.run(directory);
+        
+        CheckstyleCheck second = new CheckstyleCheck(BEGINNERS_RULES);
+        second.setCacheFile(cacheFile);
+        boolean secondSuccess = second.run(directory);
+        
+        CheckstyleFileCache cache = new CheckstyleFileCache(cacheFile, BEGINNERS_RULES, StandardCharsets.UTF_8,
+                ConfigurationLoader.loadConfiguration(BEGINNERS_RULES.getPath(), null));
+        
+        assertAll(
+            () -> assertThat("Postcondition: first run should not succeed", firstSuccess, is(false)),
+            () -> assertThat("Postcondition: second run should not succeed", secondSuccess, is(false)),
+            () -> assertThat("Postcondition: second run should create the same messages",
+                    second.getResultMessages(), is(first.getResultMessages())),
+            () -> assertThat("Postcondition: only the incorrect file should need analysis",
+                    cache.getChangedFiles(directory, Set.of(correct, incorrect)), is(Set.of(incorrect)))
+        );
+    }
+    
+    @Test
+    @DisplayName("aborts after the deadline and does not cache the incomplete run")
+    public void expiredDeadlineAborts() throws IOException, InterruptedException {
+        File cacheFile = new File(FileUtils.createTemporaryDirectory(), "cache.properties");
+        
+        CheckstyleCheck check = new CheckstyleCheck(BEGINNERS_RULES);
+        check.setCacheFile(cacheFile);
+        check.setDeadline(Deadline.after(1));
+        Thread.sleep(10);
+        
+        boolean success = check.run(new File(TESTDATA, "beginnersCorrect"));
+        
+        assertAll(
+            () -> assertThat("Postcondition: run after the deadline should fail", success, is(false)),
+            () -> assertThat("Postcondition: should contain a timeout message",
+                    check.getResultMessages(), is(Arrays.asList(new ResultMessage("checkstyle", MessageType.ERROR,
+                            "Check aborted since it exceeded its time limit")))),
+            () -> assertThat("Postcondition: should not write the cache", cacheFile.exists(), is(false))
+        );
+    }
+    
     @BeforeAll
     public static void checkRulesExist() {
         assertAll(
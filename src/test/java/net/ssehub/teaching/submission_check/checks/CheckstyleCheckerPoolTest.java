@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class CheckstyleCheckerPoolTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/CheckstyleCheckTest");
+    
+    private static final File BEGINNERS_RULES = new File(TESTDATA, "javaBeginners_checks.xml");
+    
+    private static final File OO_RULES = new File(TESTDATA, "javaOO_checks.xml");
+    
+    @Test
+    public void reusesCheckerForSameSettings() throws IOException, CheckstyleException {
+        CheckstyleCheckerPool pool = new CheckstyleCheckerPool(2);
+        
+        Checker first = pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8);
+        pool.release(first, true);
+        
+        Checker second = pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8);
+        
+        assertThat("Postcondition: idle checker should be re-used",
+                second, sameInstance(first));
+    }
+    
+    @Test
+    public void doesNotShareCheckerInUse() throws IOException, CheckstyleException {
+        CheckstyleCheckerPool pool = new CheckstyleCheckerPool(2);
+        
+        Checker first = pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8);
+        Checker second = pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8);
+        
+        assertThat("Postcondition: checker in use should not be handed out again",
+                second, not(sameInstance(first)));
+    }
+    
+    @Test
+    public void differentSettingsGetDifferentCheckers() throws IOException, CheckstyleException {
+        CheckstyleCheckerPool pool = new CheckstyleCheckerPool(4);
+        
+        Checker first = pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8);
+        pool.release(first, true);
+        
+        assertThat("Postcondition: different rules should get a different checker",
+                pool.acquire(OO_RULES, StandardCharsets.UTF_8), not(sameInstance(first)));
+        assertThat("Postcondition: different charset should get a different checker",
+                pool.acquire(BEGINNERS_RULES, StandardCharsets.ISO_8859_1), not(sameInstance(first)));
+    }
+    
+    @Test
+    public void modifiedRulesGetNewChecker() throws IOException, CheckstyleException {
+        File rules = File.createTempFile("checkstyle_rules", ".xml");
+        try {
+            Files.copy(BEGINNERS_RULES.toPath(), rules.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            rules.setLastModified(1000);
+            
+            CheckstyleCheckerPool pool = new CheckstyleCheckerPool(2);
+            
+            Checker first = pool.acquire(rules, StandardCharsets.UTF_8);
+            pool.release(first, true);
+            
+            rules.setLastModified(2000);
+            
+            assertThat("Postcondition: modified rules file should get a different checker",
+                    pool.acquire(rules, StandardCharsets.UTF_8), not(sameInstance(first)));
+            
+        } finally {
+            rules.delete();
+        }
+    }
+    
+    @Test
+    public void notReusableCheckerIsDiscarded() throws IOException, CheckstyleException {
+        CheckstyleCheckerPool pool = new CheckstyleCheckerPool(2);
+        
+        Checker first = pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8);
+        pool.release(first, false);
+        
+        assertThat("Postcondition: discarded checker should not be idle",
+                pool.getNumIdle(), is(0));
+        assertThat("Postcondition: discarded checker should not be re-used",
+                pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8), not(sameInstance(first)));
+    }
+    
+    @Test
+    public void idleCheckersBounded() throws IOException, CheckstyleException {
+        CheckstyleCheckerPool pool = new CheckstyleCheckerPool(2);
+        
+        Checker oldest = pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8);
+        Checker middle = pool.acquire(OO_RULES, StandardCharsets.UTF_8);
+        Checker newest = pool.acquire(BEGINNERS_RULES, StandardCharsets.ISO_8859_1);
+        pool.release(oldest, true);
+        pool.release(middle, true);
+        pool.release(newest, true);
+        
+        assertThat("Postcondition: should not keep more than the maximum idle checkers",
+                pool.getNumIdle(), is(2));
+        assertThat("Postcondition: least recently used checker should be evicted",
+                pool.acquire(BEGINNERS_RULES, StandardCharsets.UTF_8), not(sameInstance(oldest)));
+        assertThat("Postcondition: recently used checker should be kept",
+                pool.acquire(BEGINNERS_RULES, StandardCharsets.ISO_8859_1), sameInstance(newest));
+    }
+    
+    @Test
+    public void invalidRules() {
+        CheckstyleCheckerPool pool = new CheckstyleCheckerPool(2);
+        
+        assertThrows(CheckstyleException.class,
+            () -> pool.acquire(new File(TESTDATA, "invalid_rules.xml"), StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    public void releaseForeignChecker() {
+        CheckstyleCheckerPool pool = new CheckstyleCheckerPool(2);
+        
+        assertThrows(IllegalArgumentException.class, () -> pool.release(new Checker(), true));
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
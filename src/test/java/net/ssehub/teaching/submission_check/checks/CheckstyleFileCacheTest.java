@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+public class CheckstyleFileCacheTest {
+    
+    private static final Configuration CONFIGURATION = new DefaultConfiguration("Checker");
+    
+    private static File createFile(File directory, String name, String content) throws IOException {
+        File file = new File(directory, name);
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+        return file;
+    }
+    
+    @Test
+    public void newCacheAnalyzesAllFiles() throws IOException {
+        File submission = FileUtils.createTemporaryDirectory();
+        File state = FileUtils.createTemporaryDirectory();
+        File rules = createFile(state, "rules.xml", "rules");
+        
+        File main = createFile(submission, "Main.java", "class Main {}");
+        File util = createFile(submission, "util/Util.java", "class Util {}");
+        
+        CheckstyleFileCache cache = new CheckstyleFileCache(new File(state, "cache.properties"), rules,
+                StandardCharsets.UTF_8, CONFIGURATION);
+        
+        assertThat("Postcondition: all files should need analysis",
+                cache.getChangedFiles(submission, Set.of(main, util)), is(Set.of(main, util)));
+    }
+    
+    @Test
+    public void unchangedCleanFilesSkipped() throws IOException {
+        File submission = FileUtils.createTemporaryDirectory();
+        File state = FileUtils.createTemporaryDirectory();
+        File rules = createFile(state, "rules.xml", "rules");
+        File cacheFile = new File(state, "sub/cache.properties");
+        
+        File main = createFile(submission, "Main.java", "class Main {}");
+        File util = createFile(submission, "util/Util.java", "class Util {}");
+        File other = createFile(submission, "Other.java", "class Other {}");
+        
+        CheckstyleFileCache cache = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8,
+                CONFIGURATION);
+        cache.getChangedFiles(submission, Set.of(main, util, other));
+        cache.update(new File("Main.java"), true);
+        cache.update(new File("util/Util.java"), true);
+        cache.update(new File("Other.java"), false);
+        cache.persist();
+        
+        assertThat("Precondition: cache file should be written",
+                cacheFile.isFile(), is(true));
+        
+        createFile(submission, "util/Util.java", "class Util { }");
+        
+        CheckstyleFileCache reloaded = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8,
+                CONFIGURATION);
+        
+        assertThat("Postcondition: only changed files and files with messages should need analysis",
+                reloaded.getChangedFiles(submission, Set.of(main, util, other)), is(Set.of(util, other)));
+    }
+    
+    @Test
+    public void changedRulesInvalidateCache() throws IOException {
+        File submission = FileUtils.createTemporaryDirectory();
+        File state = FileUtils.createTemporaryDirectory();
+        File rules = createFile(state, "rules.xml", "rules");
+        File cacheFile = new File(state, "cache.properties");
+        
+        File main = createFile(submission, "Main.java", "class Main {}");
+        
+        CheckstyleFileCache cache = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8,
+                CONFIGURATION);
+        cache.getChangedFiles(submission, Set.of(main));
+        cache.update(new File("Main.java"), true);
+        cache.persist();
+        
+        createFile(state, "rules.xml", "other rules");
+        
+        CheckstyleFileCache reloaded = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8,
+                CONFIGURATION);
+        
+        assertThat("Postcondition: all files should need analysis with different rules",
+                reloaded.getChangedFiles(submission, Set.of(main)), is(Set.of(main)));
+    }
+    
+    @Test
+    public void changedCharsetInvalidatesCache() throws IOException {
+        File submission = FileUtils.createTemporaryDirectory();
+        File state = FileUtils.createTemporaryDirectory();
+        File rules = createFile(state, "rules.xml", "rules");
+        File cacheFile = new File(state, "cache.properties");
+        
+        File main = createFile(submission, "Main.java", "class Main {}");
+        
+        CheckstyleFileCache cache = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8,
+                CONFIGURATION);
+        cache.getChangedFiles(submission, Set.of(main));
+        cache.update(new File("Main.java"), true);
+        cache.persist();
+        
+        CheckstyleFileCache reloaded = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.ISO_8859_1,
+                CONFIGURATION);
+        
+        assertThat("Postcondition: all files should need analysis with a different charset",
+                reloaded.getChangedFiles(submission, Set.of(main)), is(Set.of(main)));
+    }
+    
+    @Test
+    public void changedExternalResourceInvalidatesCache() throws IOException {
+        File submission = FileUtils.createTemporaryDirectory();
+        File state = FileUtils.createTemporaryDirectory();
+        File rules = createFile(state, "rules.xml", "rules");
+        File suppressions = createFile(state, "suppressions.xml", "suppressions");
+        File cacheFile = new File(state, "cache.properties");
+        
+        DefaultConfiguration filter = new DefaultConfiguration("SuppressionFilter");
+        filter.addAttribute("file", suppressions.getAbsolutePath());
+        filter.addAttribute("optional", "false");
+        DefaultConfiguration configuration = new DefaultConfiguration("Checker");
+        configuration.addChild(filter);
+        
+        File main = createFile(submission, "Main.java", "class Main {}");
+        
+        CheckstyleFileCache cache = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8, configuration);
+        cache.getChangedFiles(submission, Set.of(main));
+        cache.update(new File("Main.java"), true);
+        cache.persist();
+        
+        CheckstyleFileCache unchanged = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8,
+                configuration);
+        
+        assertThat("Precondition: unchanged external resources should keep the cache",
+                unchanged.getChangedFiles(submission, Set.of(main)), is(Set.of()));
+        
+        createFile(state, "suppressions.xml", "other suppressions");
+        
+        CheckstyleFileCache reloaded = new CheckstyleFileCache(cacheFile, rules, StandardCharsets.UTF_8,
+                configuration);
+        
+        assertThat("Postcondition: all files should need analysis with a changed external resource",
+                reloaded.getChangedFiles(submission, Set.of(main)), is(Set.of(main)));
+    }
+    
+}
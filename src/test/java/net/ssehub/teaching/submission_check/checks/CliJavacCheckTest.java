@@ -53,7 +53,8 @@ public class CliJavacCheckTest extends JavacCheckTest {
             () -> assertThat("Postcondition: should not succeed", success, is(false)),
             () -> assertThat("Postcondition: should contain result messages about internal error", check.getResultMessages(), is(Arrays.asList(
                     new ResultMessage("javac", MessageType.ERROR, "An internal error occurred while running javac")
-                )))
+                ))),
+            () -> assertThat("Postcondition: run should be incomplete", check.wasIncomplete(), is(true))
         );
     }
     
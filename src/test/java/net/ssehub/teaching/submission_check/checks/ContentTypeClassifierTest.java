@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+public class ContentTypeClassifierTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/EncodingCheckTest");
+    
+    private static File createFile(String name, byte[] content) throws IOException {
+        File file = new File(FileUtils.createTemporaryDirectory(), name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+    
+    @Test
+    public void svnMimeTypeHasPrecedence() throws IOException {
+        File file = new File(TESTDATA, "UTF-8/umlauts.txt");
+        
+        assertAll(
+            () -> assertThat(ContentTypeClassifier.getMimeType(file, "application/octet-stream"),
+                    is("application/octet-stream")),
+            () -> assertThat(ContentTypeClassifier.getMimeType(file, null), is("text/plain"))
+        );
+    }
+    
+    @Test
+    public void extensionTable() {
+        assertAll(
+            () -> assertThat(ContentTypeClassifier.getMimeTypeByExtension("Main.java"), is("text/plain")),
+            () -> assertThat(ContentTypeClassifier.getMimeTypeByExtension("Messages.properties"), is("text/plain")),
+            () -> assertThat(ContentTypeClassifier.getMimeTypeByExtension(".classpath"), is("text/xml")),
+            () -> assertThat(ContentTypeClassifier.getMimeTypeByExtension("README.MD"), is("text/plain")),
+            () -> assertThat(ContentTypeClassifier.getMimeTypeByExtension("lib.jar"), is("application/zip")),
+            () -> assertThat(ContentTypeClassifier.getMimeTypeByExtension("Makefile"), is(nullValue())),
+            () -> assertThat(ContentTypeClassifier.getMimeTypeByExtension("data.unknown"), is(nullValue()))
+        );
+    }
+    
+    @Test
+    public void textTypesWithoutTextMimeTypeOnLinux() {
+        // the platform detectors of Linux report these as application/*, so they were not checked before
+        assertAll(
+            () -> assertThat(ContentTypeClassifier.isText(ContentTypeClassifier.getMimeTypeByExtension("pom.xml")),
+                    is(true)),
+            () -> assertThat(ContentTypeClassifier.isText(ContentTypeClassifier.getMimeTypeByExtension("data.json")),
+                    is(true)),
+            () -> assertThat(ContentTypeClassifier.isText(ContentTypeClassifier.getMimeTypeByExtension("script.js")),
+                    is(true)),
+            () -> assertThat(ContentTypeClassifier.isText(ContentTypeClassifier.getMimeTypeByExtension("build.sh")),
+                    is(true))
+        );
+    }
+    
+    @Test
+    public void sniffKnownMagicNumber() throws IOException {
+        File file = new File(TESTDATA, "binaryFile/binaryFile.pdf");
+        File copy = createFile("document", Files.readAllBytes(file.toPath()));
+        
+        assertThat(ContentTypeClassifier.getMimeType(copy, null), is("application/pdf"));
+    }
+    
+    @Test
+    public void sniffControlCharacters() throws IOException {
+        File file = createFile("data", new byte[] {'a', 'b', 0, 1, 'c'});
+        
+        assertThat(ContentTypeClassifier.getMimeType(file, null), is("application/octet-stream"));
+    }
+    
+    @Test
+    public void sniffText() throws IOException {
+        File file = createFile("Makefile", "all:\n\tjavac Main.java\r\n".getBytes(StandardCharsets.UTF_8));
+        
+        assertThat(ContentTypeClassifier.isText(ContentTypeClassifier.getMimeType(file, null)), is(true));
+    }
+    
+    @Test
+    public void sniffUtf16WithByteOrderMark() throws IOException {
+        File file = createFile("notes", "some text".getBytes(StandardCharsets.UTF_16));
+        
+        assertThat(ContentTypeClassifier.isText(ContentTypeClassifier.getMimeType(file, null)), is(true));
+    }
+    
+    @Test
+    public void emptyFileUnknown() throws IOException {
+        assertThat(ContentTypeClassifier.getMimeType(new File(TESTDATA, "emptyFile/empty"), null), is(nullValue()));
+    }
+    
+    @Test
+    public void isText() {
+        assertAll(
+            () -> assertThat(ContentTypeClassifier.isText("text/x-java"), is(true)),
+            () -> assertThat(ContentTypeClassifier.isText("application/pdf"), is(false)),
+            () -> assertThat(ContentTypeClassifier.isText(null), is(false))
+        );
+    }
+    
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+
+@EnabledIf("net.ssehub.teaching.submission_check.checks.InternalJavacCheck#isSupported")
+public class DiscardingFileManagerTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/JavacCheckTest/singleCompilingFile");
+    
+    @Test
+    public void classOutputDiscarded() throws IOException {
+        StandardJavaFileManager wrapped = ToolProvider.getSystemJavaCompiler().getStandardFileManager(
+                null, null, StandardCharsets.UTF_8);
+        wrapped.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(TESTDATA));
+        
+        try (DiscardingFileManager fileManager = new DiscardingFileManager(wrapped)) {
+            JavaFileObject classFile = fileManager.getJavaFileForOutput(StandardLocation.CLASS_OUTPUT,
+                    "HelloWorld", Kind.CLASS, null);
+            
+            try (OutputStream out = classFile.openOutputStream()) {
+                out.write(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+            }
+        }
+        
+        assertThat("Postcondition: class file should not be written",
+                new File(TESTDATA, "HelloWorld.class").exists(), is(false));
+    }
+    
+    @Test
+    public void locationsForwarded() throws IOException {
+        StandardJavaFileManager wrapped = ToolProvider.getSystemJavaCompiler().getStandardFileManager(
+                null, null, StandardCharsets.UTF_8);
+        
+        try (DiscardingFileManager fileManager = new DiscardingFileManager(wrapped)) {
+            fileManager.setLocation(StandardLocation.CLASS_PATH, Arrays.asList(new File("lib.jar")));
+            
+            assertThat("Postcondition: location should be set on the wrapped file manager",
+                    wrapped.getLocation(StandardLocation.CLASS_PATH), contains(new File("lib.jar")));
+        }
+    }
+    
+}
@@ -23,7 +23,11 @@ import static org.junit.jupiter.api.Assertions.fail;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -31,6 +35,7 @@ import org.junit.jupiter.api.Test;
 
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
 import net.ssehub.teaching.submission_check.utils.FileUtilsTest;
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
 
@@ -86,7 +91,8 @@ public class EncodingCheckTest {
         assertAll(
             () -> assertThat("Postcondition: should not succeed", success, is(false)),
             () -> assertThat("Postcondition: should create an error message", check.getResultMessages(), is(Arrays.asList(
-                    new ResultMessage("encoding", MessageType.ERROR, "File has invalid encoding; expected UTF-8").setFile(new File("umlauts.txt"))
+                    new ResultMessage("encoding", MessageType.ERROR, "File has invalid encoding; expected UTF-8 (invalid byte sequence at offset 0)")
+                            .setFile(new File("umlauts.txt")).setLine(1)
                 )))
         );
     }
@@ -105,7 +111,8 @@ public class EncodingCheckTest {
         assertAll(
             () -> assertThat("Postcondition: should not succeed", success, is(false)),
             () -> assertThat("Postcondition: should create an error message", check.getResultMessages(), is(Arrays.asList(
-                    new ResultMessage("encoding", MessageType.ERROR, "File has invalid encoding; expected UTF-8").setFile(new File("umlauts.txt"))
+                    new ResultMessage("encoding", MessageType.ERROR, "File has invalid encoding; expected UTF-8 (invalid byte sequence at offset 0)")
+                            .setFile(new File("umlauts.txt")).setLine(1)
                 )))
         );
     }
@@ -124,11 +131,36 @@ public class EncodingCheckTest {
         assertAll(
             () -> assertThat("Postcondition: should not succeed", success, is(false)),
             () -> assertThat("Postcondition: should create an error message", check.getResultMessages(), is(Arrays.asList(
-                    new ResultMessage("encoding", MessageType.ERROR, "File has invalid encoding; expected UTF-8").setFile(new File("umlauts.txt"))
+                    new ResultMessage("encoding", MessageType.ERROR, "File has invalid encoding; expected UTF-8 (invalid byte sequence at offset 0)")
+                            .setFile(new File("umlauts.txt")).setLine(1)
                 )))
         );
     }
     
+    @Test
+    @DisplayName("checks xml, json, js, sh and extension-less text files")
+    public void otherTextTypesChecked() {
+        File directory = new File(TESTDATA, "otherTextTypes");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        EncodingCheck check = new EncodingCheck();
+        
+        boolean success = check.run(directory);
+        
+        Set<File> files = new HashSet<>();
+        for (ResultMessage message : check.getResultMessages()) {
+            files.add(message.getFile());
+        }
+        
+        assertAll(
+            () -> assertThat("Postcondition: should not succeed", success, is(false)),
+            () -> assertThat("Postcondition: should create an error message for each file", files, is(new HashSet<>(
+                    Arrays.asList(new File("config.xml"), new File("data.json"), new File("script.js"),
+                            new File("build.sh"), new File("README")))))
+        );
+    }
+    
     @Test
     @DisplayName("creates an internal error for an unreadable file")
     public void unreadableFile() throws IOException {
@@ -204,6 +236,122 @@ public class EncodingCheckTest {
         assertThat(check.getWantedCharset(), is(StandardCharsets.ISO_8859_1));
     }
     
+    @Test
+    @DisplayName("streamed windows-1258 file fails the check with UTF-8 required")
+    public void streamedFileInvalidEncoding() {
+        File directory = new File(TESTDATA, "windows-1258");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        EncodingCheck check = new EncodingCheck();
+        
+        boolean streamSuccess = check.checkFile(directory, new File(directory, "umlauts.txt"));
+        boolean success = check.run(directory);
+        
+        assertAll(
+            () -> assertThat("Postcondition: streamed file should be rejected", streamSuccess, is(false)),
+            () -> assertThat("Postcondition: should not succeed", success, is(false)),
+            () -> assertThat("Postcondition: should create the error message only once", check.getResultMessages(), is(Arrays.asList(
+                    new ResultMessage("encoding", MessageType.ERROR, "File has invalid encoding; expected UTF-8 (invalid byte sequence at offset 0)")
+                            .setFile(new File("umlauts.txt")).setLine(1)
+                )))
+        );
+    }
+    
+    @Test
+    @DisplayName("skips streamed file with a binary svn:mime-type")
+    public void streamedFileBinarySvnMimeType() {
+        File directory = new File(TESTDATA, "windows-1258");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        EncodingCheck check = new EncodingCheck();
+        
+        boolean streamSuccess = check.checkFile(directory, new File(directory, "umlauts.txt"),
+                "application/octet-stream");
+        boolean success = check.run(directory);
+        
+        assertAll(
+            () -> assertThat("Postcondition: streamed file should be accepted", streamSuccess, is(true)),
+            () -> assertThat("Postcondition: should succeed", success, is(true)),
+            () -> assertThat("Postcondition: should create no messages", check.getResultMessages(), is(Arrays.asList()))
+        );
+    }
+    
+    @Test
+    @DisplayName("checks streamed file with a text svn:mime-type")
+    public void streamedFileTextSvnMimeType() {
+        File directory = new File(TESTDATA, "binaryFile");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        EncodingCheck check = new EncodingCheck();
+        
+        boolean streamSuccess = check.checkFile(directory, new File(directory, "binaryFile.bin"), "text/plain");
+        check.run(directory);
+        
+        assertAll(
+            () -> assertThat("Postcondition: streamed file should be rejected", streamSuccess, is(false)),
+            () -> assertThat("Postcondition: should create an error message",
+                    check.getResultMessages().get(0).getFile(), is(new File("binaryFile.bin")))
+        );
+    }
+    
+    @Test
+    @DisplayName("is re-usable after a run with streamed files")
+    public void reusableAfterStreaming() {
+        File invalid = new File(TESTDATA, "windows-1258");
+        File valid = new File(TESTDATA, "UTF-8");
+        assertThat("Precondition: directory with test files should exist",
+                invalid.isDirectory(), is(true));
+        assertThat("Precondition: directory with test files should exist",
+                valid.isDirectory(), is(true));
+        
+        EncodingCheck check = new EncodingCheck();
+        
+        check.checkFile(invalid, new File(invalid, "umlauts.txt"));
+        check.run(invalid);
+        check.getResultMessages();
+        
+        boolean success = check.run(valid);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should succeed", success, is(true)),
+            () -> assertThat("Postcondition: should create no messages", check.getResultMessages(), is(Arrays.asList()))
+        );
+    }
+    
+    @Test
+    @DisplayName("creates the same messages in the same order with multiple threads")
+    public void parallelSameAsSequential() throws IOException {
+        File directory = FileUtils.createTemporaryDirectory();
+        try {
+            for (int i = 0; i < 10 * ParallelFileProcessor.SPLIT_THRESHOLD; i++) {
+                Files.writeString(new File(directory, "file" + i + ".txt").toPath(), "line\nÄö " + i,
+                        i % 3 == 0 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            }
+            
+            EncodingCheck sequential = new EncodingCheck();
+            boolean sequentialSuccess = sequential.run(directory);
+            List<ResultMessage> sequentialMessages = sequential.getResultMessages();
+            
+            EncodingCheck parallel = new EncodingCheck();
+            parallel.setParallelism(4);
+            boolean parallelSuccess = parallel.run(directory);
+            
+            assertAll(
+                () -> assertThat("Precondition: should create messages",
+                        sequentialMessages.size(), is(27)),
+                () -> assertThat("Postcondition: should fail", parallelSuccess, is(sequentialSuccess)),
+                () -> assertThat("Postcondition: should create the same messages in the same order",
+                        parallel.getResultMessages(), is(sequentialMessages))
+            );
+            
+        } finally {
+            FileUtils.deleteTemporaryDirectory(directory);
+        }
+    }
+    
     @BeforeAll
     public static void createEmptyDirectory() {
         File directory = new File(TESTDATA, "emptyDirectory");
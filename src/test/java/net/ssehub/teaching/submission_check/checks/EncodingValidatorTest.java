@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class EncodingValidatorTest {
+    
+    private static ByteArrayInputStream stream(String content, Charset charset) {
+        return new ByteArrayInputStream(content.getBytes(charset));
+    }
+    
+    @Test
+    public void emptyStreamValid() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        assertThat(validator.validate(new ByteArrayInputStream(new byte[0])), is(true));
+    }
+    
+    @Test
+    public void validUtf8() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        assertThat(validator.validate(stream("int x = 5;\n// äöü ß €\n😀\n", StandardCharsets.UTF_8)),
+                is(true));
+    }
+    
+    @Test
+    public void invalidUtf8ReportsPosition() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        boolean valid = validator.validate(stream("first\nsecond ä\nthird ü\n", StandardCharsets.ISO_8859_1));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should be invalid", valid, is(false)),
+            () -> assertThat("Postcondition: should report offset of first invalid byte",
+                    validator.getInvalidOffset(), is(13L)),
+            () -> assertThat("Postcondition: should report line of first invalid byte",
+                    validator.getInvalidLine(), is(2))
+        );
+    }
+    
+    @Test
+    public void incompleteSequenceBeforeAscii() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        boolean valid = validator.validate(new ByteArrayInputStream(new byte[] {'a', '\n', (byte) 0xC3, 'b'}));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should be invalid", valid, is(false)),
+            () -> assertThat(validator.getInvalidOffset(), is(2L)),
+            () -> assertThat(validator.getInvalidLine(), is(2))
+        );
+    }
+    
+    @Test
+    public void incompleteSequenceAtEnd() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        boolean valid = validator.validate(new ByteArrayInputStream(new byte[] {'a', 'b', (byte) 0xE2, (byte) 0x82}));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should be invalid", valid, is(false)),
+            () -> assertThat(validator.getInvalidOffset(), is(2L)),
+            () -> assertThat(validator.getInvalidLine(), is(1))
+        );
+    }
+    
+    @Test
+    public void sequenceAcrossBufferBoundary() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (int i = 0; i < EncodingValidator.BUFFER_SIZE - 1; i++) {
+            content.write(i % 80 == 79 ? '\n' : 'a');
+        }
+        content.writeBytes("€\n".getBytes(StandardCharsets.UTF_8));
+        
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        assertThat("Postcondition: multi-byte sequence split between chunks should be valid",
+                validator.validate(new ByteArrayInputStream(content.toByteArray())), is(true));
+    }
+    
+    @Test
+    public void invalidByteInLaterChunk() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (int i = 0; i < 3 * EncodingValidator.BUFFER_SIZE; i++) {
+            content.write(i % 100 == 99 ? '\n' : 'a');
+        }
+        byte[] bytes = content.toByteArray();
+        bytes[2 * EncodingValidator.BUFFER_SIZE + 50] = (byte) 0xFF;
+        
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        boolean valid = validator.validate(new ByteArrayInputStream(bytes));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should be invalid", valid, is(false)),
+            () -> assertThat(validator.getInvalidOffset(), is(2L * EncodingValidator.BUFFER_SIZE + 50)),
+            () -> assertThat(validator.getInvalidLine(), is((2 * EncodingValidator.BUFFER_SIZE + 50) / 100 + 1))
+        );
+    }
+    
+    @Test
+    public void reusedForMultipleStreams() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_8);
+        
+        assertAll(
+            () -> assertThat(validator.validate(new ByteArrayInputStream(new byte[] {'a', (byte) 0xC3})), is(false)),
+            () -> assertThat(validator.validate(stream("ä", StandardCharsets.UTF_8)), is(true))
+        );
+    }
+    
+    @Test
+    public void utf16NotAsciiCompatible() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.UTF_16);
+        
+        assertAll(
+            () -> assertThat(EncodingValidator.isAsciiCompatible(StandardCharsets.UTF_16), is(false)),
+            () -> assertThat(validator.validate(stream("some text\näöü\n", StandardCharsets.UTF_16)), is(true)),
+            () -> assertThat(validator.validate(new ByteArrayInputStream(new byte[] {'a', 'b', 'c'})), is(false))
+        );
+    }
+    
+    @Test
+    public void asciiCompatibleCharsets() {
+        assertAll(
+            () -> assertThat(EncodingValidator.isAsciiCompatible(StandardCharsets.UTF_8), is(true)),
+            () -> assertThat(EncodingValidator.isAsciiCompatible(StandardCharsets.US_ASCII), is(true)),
+            () -> assertThat(EncodingValidator.isAsciiCompatible(StandardCharsets.ISO_8859_1), is(true)),
+            () -> assertThat(EncodingValidator.isAsciiCompatible(Charset.forName("windows-1252")), is(true)),
+            () -> assertThat(EncodingValidator.isAsciiCompatible(Charset.forName("Shift_JIS")), is(false))
+        );
+    }
+    
+    @Test
+    public void asciiRejectsHighBytes() throws IOException {
+        EncodingValidator validator = new EncodingValidator(StandardCharsets.US_ASCII);
+        
+        boolean valid = validator.validate(stream("ab\ncä", StandardCharsets.ISO_8859_1));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should be invalid", valid, is(false)),
+            () -> assertThat(validator.getInvalidOffset(), is(4L)),
+            () -> assertThat(validator.getInvalidLine(), is(2))
+        );
+    }
+    
+}
@@ -247,6 +247,89 @@ public class FileSizeCheckTest {
         );
     }
     
+    @Test
+    @DisplayName("streamed file that breaks the file-size limit fails the check")
+    public void streamedFileLimitViolated() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        FileSizeCheck check = new FileSizeCheck();
+        check.setMaxFileSize(150);
+        
+        boolean streamSuccess = check.checkFile(directory, new File(directory, "200bytes.txt"));
+        boolean success = check.run(directory);
+        
+        assertAll(
+            () -> assertThat("Postcondition: streamed file should be rejected", streamSuccess, is(false)),
+            () -> assertThat("Postcondition: should not succeed", success, is(false)),
+            () -> assertThat("Postcondition: should create the error message only once", check.getResultMessages(), is(Arrays.asList(
+                    new ResultMessage("file-size", MessageType.ERROR, "File is too large").setFile(new File("200bytes.txt"))
+                )))
+        );
+    }
+    
+    @Test
+    @DisplayName("streamed files break the submission-size limit before all files are checked out")
+    public void streamedSubmissionSizeLimitViolated() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        FileSizeCheck check = new FileSizeCheck();
+        check.setMaxSubmissionSize(250);
+        
+        assertAll(
+            () -> assertThat("Postcondition: first file holds the limit",
+                    check.checkFile(directory, new File(directory, "100bytes.txt")), is(true)),
+            () -> assertThat("Postcondition: second file breaks the limit",
+                    check.checkFile(directory, new File(directory, "200bytes.txt")), is(false))
+        );
+    }
+    
+    @Test
+    @DisplayName("does not count streamed files twice")
+    public void streamedFilesNotCountedTwice() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        FileSizeCheck check = new FileSizeCheck();
+        check.setMaxSubmissionSize(300);
+        
+        check.checkFile(directory, new File(directory, "100bytes.txt"));
+        boolean success = check.run(directory);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should succeed", success, is(true)),
+            () -> assertThat("Postcondition: should create no messages", check.getResultMessages(), is(Arrays.asList()))
+        );
+    }
+    
+    @Test
+    @DisplayName("is re-usable after a run with streamed files")
+    public void reusableAfterStreaming() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        assertThat("Precondition: directory with test files should exist",
+                directory.isDirectory(), is(true));
+        
+        FileSizeCheck check = new FileSizeCheck();
+        check.setMaxSubmissionSize(250);
+        
+        check.checkFile(directory, new File(directory, "200bytes.txt"));
+        check.checkFile(directory, new File(directory, "100bytes.txt"));
+        check.run(directory);
+        check.getResultMessages();
+        
+        check.setMaxSubmissionSize(300);
+        boolean success = check.run(directory);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should succeed", success, is(true)),
+            () -> assertThat("Postcondition: should create no messages", check.getResultMessages(), is(Arrays.asList()))
+        );
+    }
+    
     @BeforeAll
     public static void createEmptyDirectory() {
         File directory = new File(TESTDATA, "emptyDirectory");
@@ -15,7 +15,14 @@
  */
 package net.ssehub.teaching.submission_check.checks;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIf;
 
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
@@ -28,6 +35,27 @@ public class InternalJavacCheckTest extends JavacCheckTest {
         return new InternalJavacCheck();
     }
     
+    @Test
+    public void reusedFileManagerIsolatesSubmissions() {
+        File incorrect = new File(TESTDATA, "singleIncorrectFile");
+        testDirecotry = new File(TESTDATA, "singleCompilingFile");
+        assertThat("Precondition: directory with test files does not exist",
+                incorrect.isDirectory());
+        assertThat("Precondition: directory with test files does not exist",
+                testDirecotry.isDirectory());
+        
+        JavacCheck first = creatInstance();
+        assertThat("Precondition: run with single incorrect file should not succeed",
+                first.run(incorrect), is(false));
+        first.getResultMessages();
+        
+        JavacCheck second = creatInstance();
+        assertThat("Postcondition: run with same settings on correct file should succeed",
+                second.run(testDirecotry), is(true));
+        assertThat("Postcondition: should not contain messages of the previous compilation",
+                second.getResultMessages(), is(Arrays.asList()));
+    }
+    
     @BeforeAll
     public static void initLogger() {
         LoggingSetup.setupStdoutLogging();
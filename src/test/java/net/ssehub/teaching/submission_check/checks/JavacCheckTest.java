@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.lang.ProcessBuilder.Redirect;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -34,6 +35,8 @@ import org.junit.jupiter.api.Test;
 
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.utils.Deadline;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
 
 public abstract class JavacCheckTest {
     
@@ -59,6 +62,25 @@ public abstract class JavacCheckTest {
                 )));
     }
     
+    @Test
+    public void expiredDeadlineAborts() throws InterruptedException {
+        testDirecotry = new File(TESTDATA, "singleCompilingFile");
+        assertThat("Precondition: directory with test files does not exist",
+                testDirecotry.isDirectory());
+        
+        JavacCheck check = creatInstance();
+        check.setDeadline(Deadline.after(1));
+        Thread.sleep(10);
+        
+        assertThat("Postcondition: run after the deadline should fail",
+                check.run(testDirecotry), is(false));
+        
+        assertThat("Postcondition: should contain a timeout message",
+                check.getResultMessages(), is(Arrays.asList(
+                        new ResultMessage("javac", MessageType.ERROR, "Check aborted since it exceeded its time limit")
+                )));
+    }
+    
     @Test
     public void testResultMessageClearing() {
         testDirecotry = new File(TESTDATA, "noJavaFiles");
@@ -145,6 +167,20 @@ public abstract class JavacCheckTest {
                 check.getResultMessages(), is(Arrays.asList()));
     }
     
+    @Test
+    public void noClassFilesWritten() {
+        testDirecotry = new File(TESTDATA, "packagesCorrect");
+        assertThat("Precondition: directory with test files does not exist",
+                testDirecotry.isDirectory());
+        
+        JavacCheck check = creatInstance();
+        assertThat("Precondition: run with correct files should succeed",
+                check.run(testDirecotry), is(true));
+        
+        assertThat("Postcondition: should not write class files",
+                FileUtils.findFilesBySuffix(testDirecotry, ".class"), is(Collections.emptySet()));
+    }
+    
     @Test
     public void multipleIncorrectFiles() {
         testDirecotry = new File(TESTDATA, "multipleIncorrectFiles");
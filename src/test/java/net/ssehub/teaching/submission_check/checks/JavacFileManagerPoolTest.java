@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+@EnabledIf("net.ssehub.teaching.submission_check.checks.InternalJavacCheck#isSupported")
+public class JavacFileManagerPoolTest {
+    
+    private static final List<File> CLASSPATH = Arrays.asList(new File("lib.jar"));
+    
+    @Test
+    public void reusesFileManagerForSameSettings() throws IOException {
+        JavacFileManagerPool pool = new JavacFileManagerPool(ToolProvider.getSystemJavaCompiler(), 2);
+        
+        StandardJavaFileManager first = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        pool.release(first, true);
+        
+        StandardJavaFileManager second = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        
+        assertThat("Postcondition: idle file manager should be re-used",
+                second, sameInstance(first));
+    }
+    
+    @Test
+    public void setsClasspath() throws IOException {
+        JavacFileManagerPool pool = new JavacFileManagerPool(ToolProvider.getSystemJavaCompiler(), 2);
+        
+        StandardJavaFileManager fileManager = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        
+        assertThat("Postcondition: classpath should be set",
+                fileManager.getLocation(StandardLocation.CLASS_PATH), contains(new File("lib.jar")));
+    }
+    
+    @Test
+    public void doesNotShareFileManagerInUse() throws IOException {
+        JavacFileManagerPool pool = new JavacFileManagerPool(ToolProvider.getSystemJavaCompiler(), 2);
+        
+        StandardJavaFileManager first = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        StandardJavaFileManager second = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        
+        assertThat("Postcondition: file manager in use should not be handed out again",
+                second, not(sameInstance(first)));
+    }
+    
+    @Test
+    public void differentSettingsGetDifferentFileManagers() throws IOException {
+        JavacFileManagerPool pool = new JavacFileManagerPool(ToolProvider.getSystemJavaCompiler(), 4);
+        
+        StandardJavaFileManager first = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        pool.release(first, true);
+        
+        assertThat("Postcondition: different Java version should get a different file manager",
+                pool.acquire(8, StandardCharsets.UTF_8, CLASSPATH), not(sameInstance(first)));
+        assertThat("Postcondition: different charset should get a different file manager",
+                pool.acquire(11, StandardCharsets.ISO_8859_1, CLASSPATH), not(sameInstance(first)));
+        assertThat("Postcondition: different classpath should get a different file manager",
+                pool.acquire(11, StandardCharsets.UTF_8, Arrays.asList()), not(sameInstance(first)));
+    }
+    
+    @Test
+    public void notReusableFileManagerIsDiscarded() throws IOException {
+        JavacFileManagerPool pool = new JavacFileManagerPool(ToolProvider.getSystemJavaCompiler(), 2);
+        
+        StandardJavaFileManager first = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        pool.release(first, false);
+        
+        assertThat("Postcondition: discarded file manager should not be idle",
+                pool.getNumIdle(), is(0));
+        assertThat("Postcondition: discarded file manager should not be re-used",
+                pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH), not(sameInstance(first)));
+    }
+    
+    @Test
+    public void idleFileManagersBounded() throws IOException {
+        JavacFileManagerPool pool = new JavacFileManagerPool(ToolProvider.getSystemJavaCompiler(), 2);
+        
+        StandardJavaFileManager oldest = pool.acquire(8, StandardCharsets.UTF_8, CLASSPATH);
+        StandardJavaFileManager middle = pool.acquire(11, StandardCharsets.UTF_8, CLASSPATH);
+        StandardJavaFileManager newest = pool.acquire(17, StandardCharsets.UTF_8, CLASSPATH);
+        pool.release(oldest, true);
+        pool.release(middle, true);
+        pool.release(newest, true);
+        
+        assertThat("Postcondition: should not keep more than the maximum idle file managers",
+                pool.getNumIdle(), is(2));
+        assertThat("Postcondition: least recently used file manager should be evicted",
+                pool.acquire(8, StandardCharsets.UTF_8, CLASSPATH), not(sameInstance(oldest)));
+        assertThat("Postcondition: recently used file manager should be kept",
+                pool.acquire(17, StandardCharsets.UTF_8, CLASSPATH), sameInstance(newest));
+    }
+    
+    @Test
+    public void releaseForeignFileManager() {
+        JavacFileManagerPool pool = new JavacFileManagerPool(ToolProvider.getSystemJavaCompiler(), 2);
+        
+        StandardJavaFileManager foreign = ToolProvider.getSystemJavaCompiler().getStandardFileManager(
+                null, null, StandardCharsets.UTF_8);
+        
+        assertThrows(IllegalArgumentException.class, () -> pool.release(foreign, true));
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class KeyedLruPoolTest {
+    
+    private List<Object> destroyed = new ArrayList<>();
+    
+    private KeyedLruPool<String, Object> pool = new KeyedLruPool<>(2, destroyed::add);
+    
+    @Test
+    public void emptyPoolHasNoIdle() {
+        assertThat("Postcondition: empty pool should not return an object",
+                pool.takeIdle("a"), is(nullValue()));
+    }
+    
+    @Test
+    public void releasedObjectReusedForSameKey() {
+        Object object = new Object();
+        pool.addInUse("a", object);
+        pool.release(object, true);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should not hand out object for other key",
+                    pool.takeIdle("b"), is(nullValue())),
+            () -> assertThat("Postcondition: should hand out released object for same key",
+                    pool.takeIdle("a"), sameInstance(object)),
+            () -> assertThat("Postcondition: object in use should not be handed out twice",
+                    pool.takeIdle("a"), is(nullValue()))
+        );
+    }
+    
+    @Test
+    public void mostRecentlyReleasedFirst() {
+        Object first = new Object();
+        Object second = new Object();
+        pool.addInUse("a", first);
+        pool.addInUse("a", second);
+        pool.release(first, true);
+        pool.release(second, true);
+        
+        assertThat("Postcondition: most recently used object should be handed out",
+                pool.takeIdle("a"), sameInstance(second));
+    }
+    
+    @Test
+    public void leastRecentlyUsedDestroyed() {
+        Object first = new Object();
+        Object second = new Object();
+        Object third = new Object();
+        pool.addInUse("a", first);
+        pool.addInUse("b", second);
+        pool.addInUse("c", third);
+        
+        pool.release(first, true);
+        pool.release(second, true);
+        pool.release(third, true);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should keep at most maxIdle objects",
+                    pool.getNumIdle(), is(2)),
+            () -> assertThat("Postcondition: least recently used object should be destroyed",
+                    destroyed, is(Arrays.asList(first))),
+            () -> assertThat("Postcondition: evicted object should not be handed out",
+                    pool.takeIdle("a"), is(nullValue()))
+        );
+    }
+    
+    @Test
+    public void notReusableDestroyed() {
+        Object object = new Object();
+        pool.addInUse("a", object);
+        pool.release(object, false);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should be destroyed", destroyed, is(Arrays.asList(object))),
+            () -> assertThat("Postcondition: should not be kept", pool.getNumIdle(), is(0))
+        );
+    }
+    
+    @Test
+    public void releaseForeignObject() {
+        assertThrows(IllegalArgumentException.class, () -> pool.release(new Object(), true));
+        assertThat("Postcondition: foreign object should not be destroyed",
+                destroyed.isEmpty(), is(true));
+    }
+    
+}
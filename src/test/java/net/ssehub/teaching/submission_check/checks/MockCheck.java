@@ -18,6 +18,7 @@ package net.ssehub.teaching.submission_check.checks;
 import java.io.File;
 
 import net.ssehub.teaching.submission_check.ResultMessage;
+import net.ssehub.teaching.submission_check.utils.Deadline;
 
 public class MockCheck extends Check {
 
@@ -25,6 +26,18 @@ public class MockCheck extends Check {
     
     private ResultMessage[] resultMessages;
     
+    private SourceFileCache usedSourceFileCache;
+    
+    private Deadline usedDeadline;
+    
+    private boolean timeout;
+    
+    private boolean internalError;
+    
+    private long workerCpuTime = -1;
+    
+    private long workerAllocatedBytes = -1;
+    
     
     public MockCheck(boolean success, ResultMessage... resultMessages) {
         this.success = success;
@@ -39,12 +52,44 @@ public class MockCheck extends Check {
         this.resultMessages = resultMessages;
     }
 
+    public void setTimeout(boolean timeout) {
+        this.timeout = timeout;
+    }
+    
+    public void setInternalError(boolean internalError) {
+        this.internalError = internalError;
+    }
+    
+    public void setWorkerUsage(long workerCpuTime, long workerAllocatedBytes) {
+        this.workerCpuTime = workerCpuTime;
+        this.workerAllocatedBytes = workerAllocatedBytes;
+    }
+    
+    public SourceFileCache getUsedSourceFileCache() {
+        return usedSourceFileCache;
+    }
+    
+    public Deadline getUsedDeadline() {
+        return usedDeadline;
+    }
+
     @Override
     public boolean run(File submissionDirectory) {
+        this.usedSourceFileCache = getSourceFileCache(submissionDirectory);
+        this.usedDeadline = getDeadline();
+        
         for (ResultMessage message : resultMessages) {
             addResultMessage(message);
         }
         
+        if (timeout) {
+            addTimeoutMessage("mock");
+        }
+        if (internalError) {
+            addInternalErrorMessage("mock", "mocking");
+        }
+        addWorkerUsage(workerCpuTime, workerAllocatedBytes);
+        
         return this.success;
     }
 
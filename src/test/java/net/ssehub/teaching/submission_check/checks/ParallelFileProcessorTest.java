@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.checks.ParallelFileProcessor.Result;
+
+public class ParallelFileProcessorTest {
+    
+    private static List<File> files(int count) {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(new File("file" + i));
+        }
+        return files;
+    }
+    
+    private static List<String> values(List<Result<String>> results) throws IOException {
+        List<String> values = new ArrayList<>();
+        for (Result<String> result : results) {
+            values.add(result.get());
+        }
+        return values;
+    }
+    
+    @Test
+    public void sequentialKeepsOrder() throws IOException {
+        List<Result<String>> results = new ParallelFileProcessor(1).process(files(20), File::getName);
+        
+        assertAll(
+            () -> assertThat(results.size(), is(20)),
+            () -> assertThat(values(results).get(0), is("file0")),
+            () -> assertThat(values(results).get(19), is("file19"))
+        );
+    }
+    
+    @Test
+    public void parallelKeepsOrder() throws IOException {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Result<String>> results = new ParallelFileProcessor(4).process(files(200), (file) -> {
+            threads.add(Thread.currentThread().getName());
+            return file.getName();
+        });
+        
+        List<String> expected = new ArrayList<>();
+        for (File file : files(200)) {
+            expected.add(file.getName());
+        }
+        
+        assertAll(
+            () -> assertThat("Postcondition: results should be in the order of the files",
+                    values(results), is(expected)),
+            () -> assertThat("Postcondition: should not run in the calling thread",
+                    threads.contains(Thread.currentThread().getName()), is(false))
+        );
+    }
+    
+    @Test
+    public void smallListProcessedInCallingThread() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        new ParallelFileProcessor(4).process(files(ParallelFileProcessor.SPLIT_THRESHOLD), (file) -> {
+            threads.add(Thread.currentThread().getName());
+            return file.getName();
+        });
+        
+        assertThat(threads, is(Set.of(Thread.currentThread().getName())));
+    }
+    
+    @Test
+    public void workerUsageMeasured() {
+        ParallelFileProcessor processor = new ParallelFileProcessor(4);
+        processor.process(files(200), (file) -> new String(new char[10000]));
+        
+        assertAll(
+            () -> assertThat("Postcondition: should measure CPU time of pool threads",
+                    processor.getWorkerCpuTime(), greaterThanOrEqualTo(0L)),
+            () -> assertThat("Postcondition: should measure allocations of pool threads",
+                    processor.getWorkerAllocatedBytes(), greaterThan(200L * 10000))
+        );
+    }
+    
+    @Test
+    public void noWorkerUsageInCallingThread() {
+        ParallelFileProcessor processor = new ParallelFileProcessor(1);
+        processor.process(files(200), File::getName);
+        
+        assertAll(
+            () -> assertThat("Postcondition: calling thread should not count as worker",
+                    processor.getWorkerCpuTime(), is(-1L)),
+            () -> assertThat("Postcondition: calling thread should not count as worker",
+                    processor.getWorkerAllocatedBytes(), is(-1L))
+        );
+    }
+    
+    @Test
+    public void resultsEndAtFirstException() {
+        for (int parallelism : new int[] {1, 4}) {
+            List<Result<String>> results = new ParallelFileProcessor(parallelism).process(files(100), (file) -> {
+                if (file.getName().equals("file42") || file.getName().equals("file77")) {
+                    throw new IOException(file.getName());
+                }
+                return file.getName();
+            });
+            
+            assertAll(
+                () -> assertThat("Postcondition: should end at first exception", results.size(), is(43)),
+                () -> assertThat(results.get(41).get(), is("file41")),
+                () -> assertThat(assertThrows(IOException.class, () -> results.get(42).get()).getMessage(),
+                        is("file42"))
+            );
+        }
+    }
+    
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class SourceFileCacheTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/JavacCheckTest");
+    
+    @Test
+    public void findsFilesBySuffix() {
+        File directory = new File(TESTDATA, "packagesCorrect");
+        SourceFileCache cache = new SourceFileCache(directory);
+        
+        assertThat("Postcondition: should find all files with the suffix",
+                cache.getFilesBySuffix(".java"), is(new HashSet<>(Arrays.asList(
+                        new File(directory, "main/Main.java"), new File(directory, "util/Util.java")))));
+    }
+    
+    @Test
+    public void filesBySuffixCached() {
+        SourceFileCache cache = new SourceFileCache(new File(TESTDATA, "packagesCorrect"));
+        
+        Set<File> first = cache.getFilesBySuffix(".java");
+        
+        assertThat("Postcondition: directory should not be searched again",
+                cache.getFilesBySuffix(".java"), sameInstance(first));
+    }
+    
+    @Test
+    public void readsContent() throws IOException {
+        File directory = new File(TESTDATA, "umlauts");
+        SourceFileCache cache = new SourceFileCache(directory);
+        
+        assertThat("Postcondition: should decode the content with the charset",
+                cache.getContent(new File(directory, "Umlauts.java"), StandardCharsets.UTF_8),
+                containsString("int ä = 5;"));
+    }
+    
+    @Test
+    public void contentCached() throws IOException {
+        File directory = new File(TESTDATA, "umlauts");
+        SourceFileCache cache = new SourceFileCache(directory);
+        
+        String first = cache.getContent(new File(directory, "Umlauts.java"), StandardCharsets.UTF_8);
+        
+        assertThat("Postcondition: file should not be read again",
+                cache.getContent(new File(directory, "Umlauts.java"), StandardCharsets.UTF_8), sameInstance(first));
+    }
+    
+    @Test
+    public void contentReadAgainForDifferentCharset() throws IOException {
+        File directory = new File(TESTDATA, "umlauts");
+        SourceFileCache cache = new SourceFileCache(directory);
+        
+        String utf8 = cache.getContent(new File(directory, "Umlauts.java"), StandardCharsets.UTF_8);
+        
+        assertThat("Postcondition: file should be decoded again with the other charset",
+                cache.getContent(new File(directory, "Umlauts.java"), StandardCharsets.ISO_8859_1), not(utf8));
+    }
+    
+    @Test
+    public void contentFromMemory() throws IOException {
+        File directory = new File(TESTDATA, "umlauts");
+        File file = new File(directory, "DoesNotExist.java");
+        byte[] content = "class Main {}".getBytes(StandardCharsets.UTF_8);
+        
+        SourceFileCache cache = new SourceFileCache(directory);
+        cache.putBytes(file, content);
+        
+        byte[] streamed;
+        try (InputStream input = cache.openStream(file)) {
+            streamed = input.readAllBytes();
+        }
+        
+        assertAll(
+            () -> assertThat("Postcondition: size should be taken from memory",
+                    cache.getSize(file), is(13L)),
+            () -> assertThat("Postcondition: raw content should be taken from memory",
+                    cache.getBytes(file), sameInstance(content)),
+            () -> assertThat("Postcondition: stream should read the content from memory",
+                    streamed, is(content)),
+            () -> assertThat("Postcondition: decoded content should be taken from memory",
+                    cache.getContent(file, StandardCharsets.UTF_8), is("class Main {}"))
+        );
+    }
+    
+    @Test
+    public void bytesReadFromDiskRetained() throws IOException {
+        File directory = new File(TESTDATA, "umlauts");
+        SourceFileCache cache = new SourceFileCache(directory);
+        
+        byte[] first = cache.getBytes(new File(directory, "Umlauts.java"));
+        
+        assertThat("Postcondition: small file should not be read again",
+                cache.getBytes(new File(directory, "Umlauts.java")), sameInstance(first));
+    }
+    
+    @Test
+    public void retainedSizeLimited() {
+        File directory = new File(TESTDATA, "umlauts");
+        File file = new File(directory, "DoesNotExist.java");
+        
+        SourceFileCache cache = new SourceFileCache(directory);
+        cache.putBytes(file, new byte[(int) SourceFileCache.MAX_RETAINED_TOTAL_SIZE + 1]);
+        
+        assertThrows(IOException.class, () -> cache.getBytes(file),
+                "Postcondition: content above the limit should not be kept in memory");
+    }
+    
+    @Test
+    public void undecodableContentIsNull() throws IOException {
+        File directory = new File(TESTDATA, "umlauts_ISO-8859-1");
+        SourceFileCache cache = new SourceFileCache(directory);
+        
+        assertThat("Postcondition: file with invalid encoding should have no content",
+                cache.getContent(new File(directory, "Umlauts.java"), StandardCharsets.UTF_8), nullValue());
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
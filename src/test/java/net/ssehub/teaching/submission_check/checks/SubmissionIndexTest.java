@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.checks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+public class SubmissionIndexTest {
+    
+    private static final File TESTDATA = new File("src/test/resources/FileSizeCheckTest");
+    
+    @Test
+    public void findsAllFiles() {
+        File directory = new File("src/test/resources/JavacCheckTest/packagesCorrect");
+        SubmissionIndex index = new SubmissionIndex(directory);
+        
+        assertThat("Postcondition: should find all files in sub-directories",
+                index.getFiles(), is(new HashSet<>(Arrays.asList(
+                        new File(directory, "main/Main.java"), new File(directory, "util/Util.java")))));
+    }
+    
+    @Test
+    public void readsSizes() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        SubmissionIndex index = new SubmissionIndex(directory);
+        
+        assertAll(
+            () -> assertThat(index.getSize(new File(directory, "100bytes.txt")), is(100L)),
+            () -> assertThat(index.getSize(new File(directory, "200bytes.txt")), is(200L))
+        );
+    }
+    
+    @Test
+    public void sizeOfUnknownFileThrows() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        SubmissionIndex index = new SubmissionIndex(directory);
+        
+        assertThrows(IllegalArgumentException.class, () -> index.getSize(new File(directory, "doesntExist.txt")));
+    }
+    
+    @Test
+    public void filesByExtension() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        SubmissionIndex index = new SubmissionIndex(directory);
+        
+        assertAll(
+            () -> assertThat(index.getFilesBySuffix(".txt"), is(new HashSet<>(Arrays.asList(
+                    new File(directory, "100bytes.txt"), new File(directory, "200bytes.txt"))))),
+            () -> assertThat("Postcondition: files of an extension should not be searched again",
+                    index.getFilesBySuffix(".txt"), sameInstance(index.getFilesBySuffix(".txt"))),
+            () -> assertThat(index.getFilesBySuffix(".java"), is(Collections.emptySet()))
+        );
+    }
+    
+    @Test
+    public void filesBySuffixThatIsNoExtension() {
+        File directory = new File(TESTDATA, "multipleFiles");
+        SubmissionIndex index = new SubmissionIndex(directory);
+        
+        assertAll(
+            () -> assertThat(index.getFilesBySuffix("200bytes.txt"), is(Collections.singleton(
+                    new File(directory, "200bytes.txt")))),
+            () -> assertThat(index.getFilesBySuffix("xt"), is(index.getFiles()))
+        );
+    }
+    
+    @Test
+    public void missingDirectoryIsEmpty() {
+        SubmissionIndex index = new SubmissionIndex(new File(TESTDATA, "doesntExist"));
+        
+        assertThat(index.getFiles(), is(Collections.emptySet()));
+    }
+    
+    @Test
+    public void onlyRegularFilesIndexed() throws IOException {
+        File directory = Files.createTempDirectory("SubmissionIndexTest").toFile();
+        File regular = new File(directory, "Regular.java");
+        File link = new File(directory, "Link.java");
+        try {
+            Files.writeString(regular.toPath(), "class Regular {}");
+            Files.createSymbolicLink(link.toPath(), new File("/dev/zero").toPath());
+            
+            SubmissionIndex index = new SubmissionIndex(directory);
+            
+            assertAll(
+                () -> assertThat(index.getFiles(), is(new HashSet<>(Arrays.asList(regular)))),
+                () -> assertThat(index.getFilesBySuffix(".java"), is(new HashSet<>(Arrays.asList(regular))))
+            );
+        } finally {
+            link.delete();
+            regular.delete();
+            directory.delete();
+        }
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
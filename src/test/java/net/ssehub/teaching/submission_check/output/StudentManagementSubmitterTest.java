@@ -18,6 +18,7 @@ package net.ssehub.teaching.submission_check.output;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -41,6 +42,7 @@ import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
 import net.ssehub.teaching.submission_check.Submission;
+import net.ssehub.teaching.submission_check.output.StudentManagementSubmitter.StudentManagementConfig;
 
 /**
  * Tests the {@link StudentManagementSubmitter}.
@@ -55,6 +57,8 @@ public class StudentManagementSubmitterTest {
         
         private boolean submitReturnValue = true;
         
+        private int assignmentRequests = 0;
+        
         private Assignment assignment;
         private Assessment assessment;
         
@@ -64,6 +68,7 @@ public class StudentManagementSubmitterTest {
         
         @Override
         public Assignment getAssignmentByName(String name) {
+            assignmentRequests++;
             assignment = new Assignment(name, null, State.SUBMISSION, false, 0);
             return assignment;
         }
@@ -230,4 +235,40 @@ public class StudentManagementSubmitterTest {
         );
     }
     
+    @Test
+    public void assignmentRequestedOncePerExercise() throws NetworkException {
+        // set up submissions of two groups for two exercises
+        MockSubmissionHookProtocol protocol = new MockSubmissionHookProtocol();
+        StudentManagementSubmitter submitter = new StudentManagementSubmitter(protocol);
+        
+        // run submissions
+        assertTrue(submitter.submit(new Submission("exercise", "auser"), Arrays.asList()));
+        assertTrue(submitter.submit(new Submission("exercise", "anotheruser"), Arrays.asList()));
+        assertTrue(submitter.submit(new Submission("other exercise", "auser"), Arrays.asList()));
+        
+        // check that the assignment of each exercise was only requested once
+        assertEquals(2, protocol.assignmentRequests);
+    }
+    
+    @Test
+    public void configEquality() {
+        StudentManagementConfig config1 = new StudentManagementConfig();
+        config1.setUrl("http://localhost:3000/");
+        config1.setAuthenticationUsername("admin");
+        
+        StudentManagementConfig config2 = new StudentManagementConfig();
+        config2.setUrl("http://localhost:3000/");
+        config2.setAuthenticationUsername("admin");
+        
+        StudentManagementConfig config3 = new StudentManagementConfig();
+        config3.setUrl("http://localhost:3000/");
+        config3.setAuthenticationUsername("other");
+        
+        assertAll(
+            () -> assertEquals(config1, config2),
+            () -> assertEquals(config1.hashCode(), config2.hashCode()),
+            () -> assertNotEquals(config1, config3)
+        );
+    }
+    
 }
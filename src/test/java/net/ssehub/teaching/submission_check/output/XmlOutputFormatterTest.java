@@ -25,8 +25,10 @@ import java.util.List;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import net.ssehub.teaching.submission_check.CheckTiming;
 import net.ssehub.teaching.submission_check.ResultMessage;
 import net.ssehub.teaching.submission_check.ResultMessage.MessageType;
+import net.ssehub.teaching.submission_check.Submission;
 import net.ssehub.teaching.submission_check.utils.LoggingSetup;
 
 public class XmlOutputFormatterTest {
@@ -145,6 +147,28 @@ public class XmlOutputFormatterTest {
                 ));
     }
 
+    @Test
+    public void serializeTimingsAfterMessages() {
+        List<ResultMessage> messages = new LinkedList<>();
+        messages.add(new ResultMessage("toolname", MessageType.ERROR, "my message"));
+        
+        List<CheckTiming> timings = new LinkedList<>();
+        timings.add(new CheckTiming("JavacCheck", new Submission("Exercise01", "Group01"), 2_500_000_000L,
+                1_200_000_000L, 4096, 800_000_000L));
+        timings.add(new CheckTiming("checkout", new Submission("Exercise01", "Group01"), 30_000_000L, -1, -1, -1));
+        
+        String linefeed = System.lineSeparator();
+        
+        assertThat("Postcondition: timings should be added in milliseconds, without unavailable values",
+                new XmlOutputFormatter().format(messages, timings), is(
+                        "<submitResults>" + linefeed
+                        + "    <message message=\"my message\" tool=\"toolname\" type=\"error\"/>" + linefeed
+                        + "    <timing allocatedBytes=\"4096\" childCpuTime=\"800\" cpuTime=\"1200\" name=\"JavacCheck\" submission=\"Exercise01/Group01\" wallTime=\"2500\"/>" + linefeed
+                        + "    <timing name=\"checkout\" submission=\"Exercise01/Group01\" wallTime=\"30\"/>" + linefeed
+                        + "</submitResults>" + linefeed
+                ));
+    }
+    
     @BeforeAll
     public static void initLogger() {
         LoggingSetup.setupStdoutLogging();
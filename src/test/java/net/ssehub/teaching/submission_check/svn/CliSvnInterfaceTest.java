@@ -17,6 +17,7 @@ package net.ssehub.teaching.submission_check.svn;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -28,6 +29,8 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,6 +40,8 @@ import java.util.Map;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
 
 import net.ssehub.teaching.submission_check.Submission;
 import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
@@ -61,6 +66,14 @@ public class CliSvnInterfaceTest extends CliSvnInterface {
     
     private TransactionInfo expectedTransactionInfo;
     
+    private int numExports;
+    
+    private int numCats;
+    
+    private int numPropgets;
+    
+    private Map<String, String> eolStyles = new HashMap<>();
+    
     @Test
     public void author() throws SvnException {
         author = "someauthor";
@@ -397,7 +410,7 @@ public class CliSvnInterfaceTest extends CliSvnInterface {
         assertThat("Precondition: test output directory should be empty",
                 targetDirecoty.listFiles().length, is(0));
         
-        TransactionInfo info = new TransactionInfo(TESTDATA, "other", "42-g", Phase.POST_COMMIT);
+        TransactionInfo info = new TransactionInfo(TESTDATA, "other", "42-g", Phase.PRE_COMMIT);
         expectedTransactionInfo = info;
         
         fileLists = new HashMap<>();
@@ -455,6 +468,226 @@ public class CliSvnInterfaceTest extends CliSvnInterface {
         }
     }
     
+    @Test
+    public void checkoutSubmissionPostUsesSingleExport() throws SvnException, IOException {
+        File targetDirecoty = new File(TESTDATA, "checkout");
+        targetDirecoty.mkdir();
+        
+        TransactionInfo info = new TransactionInfo(TESTDATA, "other", "42", Phase.POST_COMMIT);
+        expectedTransactionInfo = info;
+        
+        fileLists = new HashMap<>();
+        fileLists.put(new File("Exercise01/Group06").getPath(), Arrays.asList(
+                "Exercise01/Group06/",
+                "Exercise01/Group06/.project",
+                "Exercise01/Group06/src/",
+                "Exercise01/Group06/src/Main.java",
+                "Exercise01/Group06/src/Util.java"
+        ));
+        
+        checkoutSubmission(info, new Submission("Exercise01", "Group06"), targetDirecoty);
+        
+        assertThat("Postcondition: should export the submission with one call",
+                numExports, is(1));
+        assertThat("Postcondition: should read the line ending styles with one call",
+                numPropgets, is(1));
+        assertThat("Postcondition: should not run any svnlook cat",
+                numCats, is(0));
+    }
+    
+    @Test
+    public void checkoutSubmissionPreCatsEachFile() throws SvnException, IOException {
+        File targetDirecoty = new File(TESTDATA, "checkout");
+        targetDirecoty.mkdir();
+        assertThat("Precondition: test output directory should be empty",
+                targetDirecoty.listFiles().length, is(0));
+        
+        TransactionInfo info = new TransactionInfo(TESTDATA, "other", "42-g", Phase.PRE_COMMIT);
+        expectedTransactionInfo = info;
+        
+        fileLists = new HashMap<>();
+        fileLists.put(new File("Exercise01/Group06").getPath(), Arrays.asList(
+                "Exercise01/Group06/",
+                "Exercise01/Group06/.project",
+                "Exercise01/Group06/src/",
+                "Exercise01/Group06/src/Main.java"
+        ));
+        
+        checkoutSubmission(info, new Submission("Exercise01", "Group06"), targetDirecoty);
+        
+        assertThat("Postcondition: should not export in pre-commit",
+                numExports, is(0));
+        assertThat("Postcondition: should run svnlook cat for each file",
+                numCats, is(2));
+        
+        for (String name : new String[] {".project", "src/Main.java"}) {
+            File file = new File(targetDirecoty, name);
+            try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+                assertThat("Postcondition: should have correct file content",
+                        in.readLine(), is("this file was created by the test, filename: " + new File("Exercise01/Group06/" + name).toString()));
+            }
+        }
+    }
+    
+    @Test
+    public void checkoutSubmissionPreAbortedByListener() throws SvnException, IOException {
+        File targetDirecoty = new File(TESTDATA, "checkout");
+        targetDirecoty.mkdir();
+        assertThat("Precondition: test output directory should be empty",
+                targetDirecoty.listFiles().length, is(0));
+        
+        TransactionInfo info = new TransactionInfo(TESTDATA, "other", "42-g", Phase.PRE_COMMIT);
+        expectedTransactionInfo = info;
+        
+        fileLists = new HashMap<>();
+        fileLists.put(new File("Exercise01/Group06").getPath(), Arrays.asList(
+                "Exercise01/Group06/",
+                "Exercise01/Group06/.project",
+                "Exercise01/Group06/src/",
+                "Exercise01/Group06/src/Main.java"
+        ));
+        
+        List<File> notifiedFiles = new LinkedList<>();
+        boolean complete = checkoutSubmission(info, new Submission("Exercise01", "Group06"), targetDirecoty,
+            (file) -> {
+                notifiedFiles.add(file);
+                return false;
+            });
+        
+        assertThat("Postcondition: checkout should be aborted",
+                complete, is(false));
+        assertThat("Postcondition: should not run svnlook cat after the listener aborted",
+                numCats, is(1));
+        assertThat("Postcondition: listener should be notified about the written file",
+                notifiedFiles, is(Arrays.asList(new File(targetDirecoty, ".project"))));
+    }
+    
+    @Test
+    public void repositoryUrl() throws SvnException {
+        this.repositoryPath = new File("/var/svn/my repo");
+        this.transactionId = "42";
+        
+        assertThat("Postcondition: should create URL-encoded file URL",
+                getRepositoryUrl("Homework01/Group 01"), is("file:///var/svn/my%20repo/Homework01/Group%2001@42"));
+    }
+    
+    @Test
+    public void repositoryUrlWithAt() throws SvnException {
+        this.repositoryPath = new File("/var/svn/repo");
+        this.transactionId = "42";
+        
+        assertThat("Postcondition: should end with peg revision, so that the @ in the path is not taken as one",
+                getRepositoryUrl("Homework01/Group@01"), is("file:///var/svn/repo/Homework01/Group@01@42"));
+    }
+    
+    @Test
+    public void parseEolStylesOfPropgetOutput() throws IOException, SAXException, SvnException {
+        Document output = FileUtils.parseXml(new File(TESTDATA, "propget.xml"));
+        
+        Map<String, String> expected = new HashMap<>();
+        expected.put("Main.java", "native");
+        expected.put("src/Windows File.txt", "CRLF");
+        
+        assertThat("Postcondition: should return styles by decoded path relative to the exported directory",
+                parseEolStyles(output, "file:///var/svn/my%20repo/Homework01/Group%2001"), is(expected));
+    }
+    
+    @Test
+    public void parseEolStylesTargetOutsideOfDirectory() throws IOException, SAXException {
+        Document output = FileUtils.parseXml(new File(TESTDATA, "propget.xml"));
+        
+        assertThrows(SvnException.class,
+            () -> parseEolStyles(output, "file:///var/svn/my%20repo/Homework01/Group%2002"));
+    }
+    
+    @Test
+    public void restoreLineEndingsOfExport() throws IOException {
+        File directory = new File(TESTDATA, "checkout");
+        directory.mkdir();
+        Files.writeString(new File(directory, "crlf.txt").toPath(), "a\r\nb\r\n");
+        Files.writeString(new File(directory, "cr.txt").toPath(), "a\rb\r");
+        Files.writeString(new File(directory, "native.txt").toPath(), "a\nb\r\n");
+        Files.writeString(new File(directory, "none.txt").toPath(), "a\r\nb\r\n");
+        
+        Map<String, String> styles = new HashMap<>();
+        styles.put("crlf.txt", "CRLF");
+        styles.put("cr.txt", "CR");
+        styles.put("native.txt", "native");
+        
+        restoreLineEndings(directory, styles);
+        
+        assertAll(
+            () -> assertThat("Postcondition: CRLF file should have repository line endings",
+                    Files.readString(new File(directory, "crlf.txt").toPath()), is("a\nb\n")),
+            () -> assertThat("Postcondition: CR file should have repository line endings",
+                    Files.readString(new File(directory, "cr.txt").toPath()), is("a\nb\n")),
+            () -> assertThat("Postcondition: native file should not be changed",
+                    Files.readString(new File(directory, "native.txt").toPath()), is("a\nb\r\n")),
+            () -> assertThat("Postcondition: file without style should not be changed",
+                    Files.readString(new File(directory, "none.txt").toPath()), is("a\r\nb\r\n"))
+        );
+    }
+    
+    @Test
+    public void replaceSymbolicLinksOfExport() throws IOException {
+        File directory = new File(TESTDATA, "checkout");
+        new File(directory, "sub").mkdirs();
+        Files.writeString(new File(directory, "regular.txt").toPath(), "content");
+        Files.createSymbolicLink(new File(directory, "sub/zero.txt").toPath(), new File("/dev/zero").toPath());
+        Files.createSymbolicLink(new File(directory, "parent").toPath(), new File("..").toPath());
+        
+        replaceSymbolicLinks(directory);
+        
+        assertAll(
+            () -> assertThat("Postcondition: link to file should be replaced by svnlook content",
+                    Files.readString(new File(directory, "sub/zero.txt").toPath()), is("link /dev/zero")),
+            () -> assertThat("Postcondition: link to file should be a regular file",
+                    Files.isRegularFile(new File(directory, "sub/zero.txt").toPath(), LinkOption.NOFOLLOW_LINKS),
+                    is(true)),
+            () -> assertThat("Postcondition: link to directory should be replaced by svnlook content",
+                    Files.readString(new File(directory, "parent").toPath()), is("link ..")),
+            () -> assertThat("Postcondition: regular file should not be changed",
+                    Files.readString(new File(directory, "regular.txt").toPath()), is("content"))
+        );
+    }
+    
+    @Override
+    protected Map<String, String> getEolStyles(String pathInRepo) throws SvnException {
+        assertThat("should be in post-commit phase",
+                this.phase, is(Phase.POST_COMMIT));
+        
+        numPropgets++;
+        return eolStyles;
+    }
+    
+    @Override
+    protected void runSvnExport(String pathInRepo, File targetDirectory) throws SvnException {
+        assertThat("should have correct repository path set",
+                this.repositoryPath, is(expectedTransactionInfo.getRepository()));
+        assertThat("should be in post-commit phase",
+                this.phase, is(Phase.POST_COMMIT));
+        assertThat("should have correct revision set",
+                this.transactionId, is(expectedTransactionInfo.getTransactionId()));
+        
+        numExports++;
+        
+        // simulate svn export by writing all files listed for the exported directory
+        String directory = new File(pathInRepo).getPath();
+        for (String path : fileLists.get(directory)) {
+            File target = new File(targetDirectory, FileUtils.getRelativeFile(
+                    new File(directory), new File(path)).getPath());
+            if (path.endsWith("/")) {
+                target.mkdirs();
+            } else {
+                try (BufferedWriter out = new BufferedWriter(new FileWriter(target))) {
+                    out.write("this file was created by the test, filename: " + new File(path).getPath() + '\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+    
     @Override
     protected List<String> runSvnLookCommand(String subcommand, File outputRedirect, String... additionalArguments)
             throws SvnException {
@@ -493,6 +726,7 @@ public class CliSvnInterfaceTest extends CliSvnInterface {
             break;
             
         case "cat":
+            numCats++;
             assertThat("should have one additional argument supplied",
                     additionalArguments.length, is(1));
             output.add("this file was created by the test, filename: " + additionalArguments[0]);
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.svn;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperty;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.BasicAuthenticationManager;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+
+import net.ssehub.teaching.submission_check.Submission;
+import net.ssehub.teaching.submission_check.svn.TransactionInfo.Phase;
+import net.ssehub.teaching.submission_check.utils.Deadline;
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+import net.ssehub.teaching.submission_check.utils.LoggingSetup;
+
+/**
+ * Tests the {@link FsfsSvnInterface} on the same test repositories as the {@link CliSvnInterfaceIT}. Unlike the
+ * latter, this does not require any SVN tools to be installed.
+ * 
+ * @author Adam
+ */
+public class FsfsSvnInterfaceTest {
+
+    private static final File TESTDATA = new File("src/test/resources/CliSvnInterfaceIT");
+    
+    @Test
+    public void postCommitAuthor() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repoWithTwoCommits.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = svn.createTransactionInfo(Phase.POST_COMMIT, repo, "1");
+        assertThat("Postcondition: should have read correct author name",
+                info, is(new TransactionInfo(repo, "authorName1", "1", Phase.POST_COMMIT)));
+        
+        info = svn.createTransactionInfo(Phase.POST_COMMIT, repo, "2");
+        assertThat("Postcondition: should have read correct author name",
+                info.getAuthor(), is("secondAuthor"));
+    }
+    
+    @Test
+    public void postInvalidRepo() {
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        assertThrows(SvnException.class, () -> {
+            svn.createTransactionInfo(Phase.POST_COMMIT, TESTDATA, "1");
+        });
+    }
+    
+    @Test
+    public void postInvalidRevision() throws IOException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repoWithTwoCommits.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        assertThrows(SvnException.class, () -> {
+            svn.createTransactionInfo(Phase.POST_COMMIT, repo, "15");
+        });
+        
+        SvnException exc = assertThrows(SvnException.class, () -> {
+            svn.createTransactionInfo(Phase.POST_COMMIT, repo, "2-2");
+        });
+        assertThat("Postcondition: exception has correct message",
+                exc.getMessage(), is("Invalid revision: 2-2"));
+    }
+    
+    @Test
+    public void preCommitAuthor() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repoInTransaction_2-2.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = svn.createTransactionInfo(Phase.PRE_COMMIT, repo, "2-2");
+        assertThat("Postcondition: should have read correct author name",
+                info.getAuthor(), is("someThirdAuthor"));
+    }
+    
+    @Test
+    public void preInvalidTransaction() throws IOException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repoInTransaction_2-2.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        assertThrows(SvnException.class, () -> {
+            svn.createTransactionInfo(Phase.PRE_COMMIT, repo, "2-3");
+        });
+    }
+    
+    @Test
+    public void postModifiedSubmissions() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repo2Exercises2Groups.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        assertThat("Postcondition: should contain no submissions for creating the folder structure",
+                svn.getModifiedSubmissions(new TransactionInfo(repo, "admin", "1", Phase.POST_COMMIT)),
+                is(new HashSet<>()));
+        
+        assertThat("Postcondition: should contain the modified submissions",
+                svn.getModifiedSubmissions(new TransactionInfo(repo, "student1", "2", Phase.POST_COMMIT)),
+                is(new HashSet<>(Arrays.asList(
+                        new Submission("Homework01Task01", "Group01")
+                ))));
+        
+        assertThat("Postcondition: should contain the modified submissions",
+                svn.getModifiedSubmissions(new TransactionInfo(repo, "student2", "3", Phase.POST_COMMIT)),
+                is(new HashSet<>(Arrays.asList(
+                        new Submission("Homework01Task01", "Group02"),
+                        new Submission("Homework02Task02", "Group02")
+                ))));
+    }
+    
+    @Test
+    public void preModifiedSubmissions() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(
+                new File(TESTDATA, "repo2Exercises2GroupsInTransaction_4-4.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        assertThat("Postcondition: should contain the modified submissions",
+                svn.getModifiedSubmissions(new TransactionInfo(repo, "student1", "4-4", Phase.PRE_COMMIT)),
+                is(new HashSet<>(Arrays.asList(
+                        new Submission("Homework02Task02", "Group01")
+                ))));
+    }
+    
+    @Test
+    public void postCheckoutSubmissionWithSpaceInName() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repo2Exercises2Groups.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = new TransactionInfo(repo, "student2", "3", Phase.POST_COMMIT);
+        
+        File target = FileUtils.createTemporaryDirectory();
+        
+        svn.checkoutSubmission(info, new Submission("Homework01Task01", "Group02"), target);
+        
+        assertThat("Postcondition: target folder contains file",
+                target.listFiles().length, is(1));
+        
+        File submissionFile = new File(target, "my solution.txt");
+        try (BufferedReader in = new BufferedReader(new FileReader(submissionFile))) {
+            assertThat("Postcondition: file content is correct",
+                    in.readLine(), is("Wrong."));
+            assertThat("Postcondition: file content is correct",
+                    in.readLine(), is(nullValue()));
+        }
+    }
+    
+    @Test
+    public void postCheckoutSubmissionWithMultipleFilesAndFolders() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repo2Exercises2Groups.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "4", Phase.POST_COMMIT);
+        
+        File target = FileUtils.createTemporaryDirectory();
+        
+        svn.checkoutSubmission(info, new Submission("Homework02Task02", "Group01"), target);
+        
+        assertThat("Postcondition: target folder contains 3 files",
+                target.listFiles().length, is(3));
+        assertThat("Postcondition: target folder contains comment file",
+                new File(target, "comment.txt").isFile(), is(true));
+        
+        File sourceFile = new File(target, "src/Main.java");
+        try (BufferedReader in = new BufferedReader(new FileReader(sourceFile))) {
+            assertThat("Postcondition: file content is correct", in.readLine(), is("import util.Util;"));
+        }
+        
+        assertThat("Postcondition: library file has correct size",
+                FileUtils.getFileSize(new File(target, "libs/util-lib.jar")), is(946L));
+    }
+    
+    @Test
+    public void preCheckoutSubmissionWithMultipleFilesAndFolders() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(
+                new File(TESTDATA, "repo2Exercises2GroupsInTransaction_4-4.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "4-4", Phase.PRE_COMMIT);
+        
+        File target = FileUtils.createTemporaryDirectory();
+        
+        svn.checkoutSubmission(info, new Submission("Homework02Task02", "Group01"), target);
+        
+        assertThat("Postcondition: target folder contains 3 files",
+                target.listFiles().length, is(3));
+        
+        File sourceFile = new File(target, "src/Main.java");
+        try (BufferedReader in = new BufferedReader(new FileReader(sourceFile))) {
+            for (int i = 0; i < 5; i++) {
+                in.readLine();
+            }
+            assertThat("Postcondition: file content is the one modified in the transaction",
+                    in.readLine(), is("        System.out.println(\"main(args)\");"));
+        }
+        
+        assertThat("Postcondition: library file has correct size",
+                FileUtils.getFileSize(new File(target, "libs/util-lib.jar")), is(946L));
+    }
+    
+    @Test
+    public void checkoutNonExistingSubmission() throws IOException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repo2Exercises2Groups.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "4", Phase.POST_COMMIT);
+        
+        File target = FileUtils.createTemporaryDirectory();
+        
+        assertThrows(SvnException.class, () -> {
+            svn.checkoutSubmission(info, new Submission("Homework05", "Group01"), target);
+        });
+    }
+    
+    @Test
+    public void expiredDeadlineAbortsCheckout() throws IOException, InterruptedException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repo2Exercises2Groups.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        svn.setDeadline(Deadline.after(1));
+        Thread.sleep(10);
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "4", Phase.POST_COMMIT);
+        File target = FileUtils.createTemporaryDirectory();
+        
+        assertThrows(SvnTimeoutException.class, () -> {
+            svn.checkoutSubmission(info, new Submission("Homework02Task02", "Group01"), target);
+        });
+    }
+    
+    @Test
+    public void deadlineCheckedBetweenFiles() throws IOException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repo2Exercises2Groups.zip"));
+        
+        AtomicBoolean cancelled = new AtomicBoolean();
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        svn.setDeadline(Deadline.NONE.cancelledWhen(cancelled::get));
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "4", Phase.POST_COMMIT);
+        File target = FileUtils.createTemporaryDirectory();
+        
+        assertThrows(SvnTimeoutException.class, () -> {
+            svn.checkoutSubmission(info, new Submission("Homework02Task02", "Group01"), target, (file) -> {
+                cancelled.set(true);
+                return true;
+            });
+        });
+        assertThat("Postcondition: should stop after the first file",
+                FileUtils.findAllFiles(target).size(), is(1));
+    }
+    
+    @Test
+    public void checkoutAbortedByListener() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(new File(TESTDATA, "repo2Exercises2Groups.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "4", Phase.POST_COMMIT);
+        
+        File target = FileUtils.createTemporaryDirectory();
+        
+        List<File> notifiedFiles = new LinkedList<>();
+        boolean complete = svn.checkoutSubmission(info, new Submission("Homework02Task02", "Group01"), target,
+            (file) -> {
+                notifiedFiles.add(file);
+                return false;
+            });
+        
+        assertThat("Postcondition: checkout should be aborted",
+                complete, is(false));
+        assertThat("Postcondition: listener should be notified only about the first file",
+                notifiedFiles.size(), is(1));
+        assertThat("Postcondition: only the first file should be written",
+                FileUtils.findAllFiles(target), is(new HashSet<>(notifiedFiles)));
+    }
+    
+    @Test
+    public void checkoutPassesMimeTypeToListener() throws IOException, SvnException, SVNException {
+        File repo = FileUtils.createTemporaryDirectory();
+        SVNURL url = SVNRepositoryFactory.createLocalRepository(repo, true, true);
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        repository.setAuthenticationManager(BasicAuthenticationManager.newInstance("student1", new char[0]));
+        
+        ISVNEditor editor = repository.getCommitEditor("commit with mime-type", null);
+        editor.openRoot(-1);
+        editor.addDir("Homework01", null, -1);
+        editor.addDir("Homework01/Group01", null, -1);
+        addFile(editor, "Homework01/Group01/Main.java", null);
+        addFile(editor, "Homework01/Group01/image.dat", "image/png");
+        editor.closeDir();
+        editor.closeDir();
+        editor.closeDir();
+        editor.closeEdit();
+        repository.closeSession();
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "1", Phase.POST_COMMIT);
+        
+        File target = FileUtils.createTemporaryDirectory();
+        
+        Map<File, String> mimeTypes = new HashMap<>();
+        boolean complete = svn.checkoutSubmission(info, new Submission("Homework01", "Group01"), target,
+            new ICheckoutListener() {
+                
+                @Override
+                public boolean fileCheckedOut(File file) {
+                    throw new AssertionError("Should be called with mime-type");
+                }
+                
+                @Override
+                public boolean fileCheckedOut(File file, String mimeType) {
+                    mimeTypes.put(file, mimeType);
+                    return true;
+                }
+                
+            });
+        
+        Map<File, String> expected = new HashMap<>();
+        expected.put(new File(target, "Main.java"), null);
+        expected.put(new File(target, "image.dat"), "image/png");
+        
+        assertThat("Postcondition: checkout should be complete",
+                complete, is(true));
+        assertThat("Postcondition: listener should get the svn:mime-type of each file",
+                mimeTypes, is(expected));
+    }
+    
+    @Test
+    public void checkoutPassesContentToListener() throws IOException, SvnException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(
+                new File(TESTDATA, "repo2Exercises2GroupsInTransaction_4-4.zip"));
+        
+        FsfsSvnInterface svn = new FsfsSvnInterface();
+        
+        TransactionInfo info = new TransactionInfo(repo, "student1", "4-4", Phase.PRE_COMMIT);
+        
+        File target = FileUtils.createTemporaryDirectory();
+        
+        Map<File, byte[]> contents = new HashMap<>();
+        svn.checkoutSubmission(info, new Submission("Homework02Task02", "Group01"), target,
+            new ICheckoutListener() {
+                
+                @Override
+                public boolean fileCheckedOut(File file) {
+                    throw new AssertionError("Should be called with content");
+                }
+                
+                @Override
+                public boolean fileCheckedOut(File file, String mimeType, byte[] content) {
+                    contents.put(file, content);
+                    return true;
+                }
+                
+            });
+        
+        File sourceFile = new File(target, "src/Main.java");
+        File libraryFile = new File(target, "libs/util-lib.jar");
+        
+        assertThat("Postcondition: listener should get the content of each file",
+                contents.keySet(), is(new HashSet<>(Arrays.asList(
+                        new File(target, "comment.txt"), sourceFile, libraryFile))));
+        assertThat("Postcondition: content of the source file should be the one written to disk",
+                contents.get(sourceFile), is(Files.readAllBytes(sourceFile.toPath())));
+        assertThat("Postcondition: content of the binary file should be the one written to disk",
+                contents.get(libraryFile), is(Files.readAllBytes(libraryFile.toPath())));
+    }
+    
+    private static void addFile(ISVNEditor editor, String path, String mimeType) throws SVNException {
+        editor.addFile(path, null, -1);
+        if (mimeType != null) {
+            editor.changeFileProperty(path, SVNProperty.MIME_TYPE, SVNPropertyValue.create(mimeType));
+        }
+        editor.applyTextDelta(path, null);
+        String checksum = new SVNDeltaGenerator().sendDelta(path,
+                new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)), editor, true);
+        editor.closeFile(path, checksum);
+    }
+    
+    @BeforeAll
+    public static void initLogger() {
+        LoggingSetup.setupStdoutLogging();
+    }
+    
+}
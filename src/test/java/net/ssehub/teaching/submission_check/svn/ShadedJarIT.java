@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.svn;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.teaching.submission_check.utils.FileUtils;
+
+/**
+ * Runs the {@link FsfsSvnInterface} from the jar-with-dependencies that is created in the <code>package</code> phase,
+ * without the test classpath. This ensures that the dependencies excluded from SVNKit are not needed for FSFS access.
+ */
+public class ShadedJarIT {
+    
+    private static final File TESTDATA = new File("src/test/resources/CliSvnInterfaceIT");
+    
+    private static final String PACKAGE = "net.ssehub.teaching.submission_check.";
+    
+    private static File shadedJar;
+    
+    @BeforeAll
+    public static void findShadedJar() {
+        File[] candidates = new File("target").listFiles((dir, name) -> name.endsWith("-jar-with-dependencies.jar"));
+        
+        assertThat("Precondition: jar-with-dependencies should be built (run with mvn verify)",
+                candidates != null && candidates.length == 1, is(true));
+        
+        shadedJar = candidates[0];
+    }
+    
+    @Test
+    public void fsfsCheckoutFromShadedJar() throws IOException, ReflectiveOperationException {
+        File repo = CliSvnInterfaceIT.prepareTestdataSvnRepo(
+                new File(TESTDATA, "repo2Exercises2GroupsInTransaction_4-4.zip"));
+        File target = FileUtils.createTemporaryDirectory();
+        
+        Object author;
+        Object modified;
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {shadedJar.toURI().toURL()},
+                ClassLoader.getPlatformClassLoader())) {
+            
+            Class<?> submissionClass = loader.loadClass(PACKAGE + "Submission");
+            Class<?> phaseClass = loader.loadClass(PACKAGE + "svn.TransactionInfo$Phase");
+            Class<?> infoClass = loader.loadClass(PACKAGE + "svn.TransactionInfo");
+            Class<?> svnClass = loader.loadClass(PACKAGE + "svn.FsfsSvnInterface");
+            
+            assertThat("Precondition: classes should be loaded from the jar, not the test classpath",
+                    svnClass.getClassLoader(), is(loader));
+            
+            Object svn = svnClass.getConstructor().newInstance();
+            Object submission = submissionClass.getConstructor(String.class, String.class)
+                    .newInstance("Homework02Task02", "Group01");
+            
+            try {
+                Object info = svnClass.getMethod("createTransactionInfo", phaseClass, File.class, String.class)
+                        .invoke(svn, phaseClass.getField("PRE_COMMIT").get(null), repo, "4-4");
+                author = infoClass.getMethod("getAuthor").invoke(info);
+                modified = svnClass.getMethod("getModifiedSubmissions", infoClass).invoke(svn, info);
+                svnClass.getMethod("checkoutSubmission", infoClass, submissionClass, File.class)
+                        .invoke(svn, info, submission, target);
+                
+            } catch (InvocationTargetException e) {
+                // show the missing class or failed SVN access instead of the reflection wrapper
+                throw new AssertionError("FSFS access from the jar-with-dependencies failed", e.getCause());
+            }
+        }
+        
+        assertAll(
+            () -> assertThat("Postcondition: author should be read",
+                    author, is("student1")),
+            () -> assertThat("Postcondition: modified submission should be found",
+                    ((Set<?>) modified).size(), is(1)),
+            () -> assertThat("Postcondition: all files should be checked out",
+                    target.listFiles().length, is(3)),
+            () -> assertThat("Postcondition: library file has correct size",
+                    Files.size(new File(target, "libs/util-lib.jar").toPath()), is(946L))
+        );
+    }
+    
+    @Test
+    public void excludedDependenciesNotBundled() throws IOException {
+        List<String> excludedPackages = Arrays.asList("org/tmatesoft/sqljet/", "org/antlr/runtime/",
+                "org/apache/sshd/", "net/i2p/crypto/", "com/trilead/", "com/jcraft/", "com/sun/jna/");
+        
+        List<String> bundled = new ArrayList<>();
+        boolean thirdPartyLicenses;
+        try (JarFile jar = new JarFile(shadedJar)) {
+            for (JarEntry entry : Collections.list(jar.entries())) {
+                for (String excluded : excludedPackages) {
+                    if (entry.getName().startsWith(excluded) && !bundled.contains(excluded)) {
+                        bundled.add(excluded);
+                    }
+                }
+            }
+            thirdPartyLicenses = jar.getEntry("META-INF/LICENSE-THIRD-PARTY.md") != null;
+        }
+        
+        assertAll(
+            () -> assertThat("Postcondition: excluded dependencies should not be bundled",
+                    bundled, is(Arrays.asList())),
+            () -> assertThat("Postcondition: third-party licenses should be bundled",
+                    thirdPartyLicenses, is(true))
+        );
+    }
+    
+}
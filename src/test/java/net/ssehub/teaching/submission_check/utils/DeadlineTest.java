@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class DeadlineTest {
+    
+    @Test
+    public void noneNeverExpires() {
+        assertAll(
+            () -> assertThat(Deadline.NONE.isLimited(), is(false)),
+            () -> assertThat(Deadline.NONE.isExpired(), is(false)),
+            () -> assertThat(Deadline.NONE.getRemainingMillis(), is(Long.MAX_VALUE))
+        );
+    }
+    
+    @Test
+    public void nonPositiveBudgetIsNone() {
+        assertAll(
+            () -> assertThat(Deadline.after(0), sameInstance(Deadline.NONE)),
+            () -> assertThat(Deadline.after(-5), sameInstance(Deadline.NONE))
+        );
+    }
+    
+    @Test
+    public void remainingTime() {
+        Deadline deadline = Deadline.after(60000);
+        
+        assertAll(
+            () -> assertThat(deadline.isLimited(), is(true)),
+            () -> assertThat(deadline.isExpired(), is(false)),
+            () -> assertThat(deadline.getRemainingMillis(), lessThanOrEqualTo(60000L)),
+            () -> assertThat(deadline.getRemainingMillis(), greaterThan(50000L))
+        );
+    }
+    
+    @Test
+    public void expires() throws InterruptedException {
+        Deadline deadline = Deadline.after(1);
+        Thread.sleep(10);
+        
+        assertAll(
+            () -> assertThat(deadline.isExpired(), is(true)),
+            () -> assertThat(deadline.getRemainingMillis(), is(0L))
+        );
+    }
+    
+    @Test
+    public void earliest() {
+        Deadline early = Deadline.after(1000);
+        Deadline late = Deadline.after(60000);
+        
+        assertAll(
+            () -> assertThat(early.earliest(late), sameInstance(early)),
+            () -> assertThat(late.earliest(early), sameInstance(early)),
+            () -> assertThat(late.earliest(Deadline.NONE), sameInstance(late)),
+            () -> assertThat(Deadline.NONE.earliest(late), sameInstance(late)),
+            () -> assertThat(Deadline.NONE.earliest(Deadline.NONE), sameInstance(Deadline.NONE))
+        );
+    }
+    
+    @Test
+    public void cancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Deadline deadline = Deadline.NONE.cancelledWhen(cancelled::get);
+        
+        assertAll(
+            () -> assertThat(deadline.isCancellable(), is(true)),
+            () -> assertThat(deadline.isLimited(), is(false)),
+            () -> assertThat(deadline.isExpired(), is(false)),
+            () -> assertThat(Deadline.NONE.isCancellable(), is(false))
+        );
+        
+        cancelled.set(true);
+        
+        assertAll(
+            () -> assertThat(deadline.isExpired(), is(true)),
+            () -> assertThat(deadline.getRemainingMillis(), is(0L))
+        );
+    }
+    
+    @Test
+    public void earliestKeepsCancellation() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Deadline cancellable = Deadline.after(60000).cancelledWhen(cancelled::get);
+        Deadline early = Deadline.after(1000);
+        
+        Deadline combined = cancellable.earliest(early);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should expire at the earlier time",
+                    combined.getRemainingMillis(), lessThanOrEqualTo(1000L)),
+            () -> assertThat("Postcondition: should keep the cancellation",
+                    combined.isCancellable(), is(true)),
+            () -> assertThat(early.earliest(cancellable).isCancellable(), is(true))
+        );
+        
+        cancelled.set(true);
+        
+        assertThat("Postcondition: cancellation should expire the combined deadline",
+                combined.isExpired(), is(true));
+    }
+    
+}
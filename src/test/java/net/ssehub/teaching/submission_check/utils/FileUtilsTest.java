@@ -568,6 +568,26 @@ public class FileUtilsTest {
                 TEMP_DIRECTORY.exists(), is(false));
     }
     
+    @Test
+    public void deleteDirectoryDoesNotFollowSymbolicLinks() throws IOException {
+        File outside = Files.createTempDirectory("FileUtilsTest").toFile();
+        File outsideFile = new File(outside, "keep.txt");
+        outsideFile.createNewFile();
+        try {
+            Files.createSymbolicLink(new File(TEMP_DIRECTORY, "link").toPath(), outside.toPath());
+            
+            FileUtils.deleteDirectory(TEMP_DIRECTORY);
+            
+            assertThat("Postcondition: directory should not exist",
+                    TEMP_DIRECTORY.exists(), is(false));
+            assertThat("Postcondition: file behind the link should not be deleted",
+                    outsideFile.isFile(), is(true));
+        } finally {
+            outsideFile.delete();
+            outside.delete();
+        }
+    }
+    
     @Test
     public void deleteDirectoryCantDeleteFile() throws IOException {
         File directory = new File(TESTDATA, "singleFile");
@@ -665,6 +685,40 @@ public class FileUtilsTest {
                 tempdir.exists(), is(false));
     }
     
+    @Test
+    public void temporaryDirectoryDeletedEarly() throws IOException {
+        File tempdir = FileUtils.createTemporaryDirectory();
+        new File(tempdir, "nested_file").createNewFile();
+        
+        assertThat("precondition: created temporary directory should exist",
+                tempdir.isDirectory(), is(true));
+        
+        FileUtils.deleteTemporaryDirectory(tempdir);
+        
+        assertThat("postcondition: temporary directory should not exist after deletion",
+                tempdir.exists(), is(false));
+    }
+    
+    @Test
+    public void temporaryDirectoryDeleteEarlyFails() throws IOException {
+        File tempdir = FileUtils.createTemporaryDirectory();
+        
+        try {
+            setRigFileOperationsToFail(true);
+            
+            FileUtils.deleteTemporaryDirectory(tempdir);
+            
+            assertThat("postcondition: temporary directory should still exist after failed deletion",
+                    tempdir.isDirectory(), is(true));
+        } finally {
+            setRigFileOperationsToFail(false);
+        }
+        
+        FileUtils.cleanTemporaryFolders();
+        assertThat("postcondition: shutdown cleaning should still delete the temporary directory",
+                tempdir.exists(), is(false));
+    }
+    
     @Test
     public void temporaryDirectoryCreateFile() throws IOException {
         File tempdir = FileUtils.createTemporaryDirectory();
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+
+import org.junit.jupiter.api.Test;
+
+public class HashUtilsTest {
+    
+    private static final String SHA256_ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+    
+    private static final String SHA256_EMPTY = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    
+    @Test
+    public void hexOfKnownHashes() {
+        MessageDigest digest = HashUtils.createDigest();
+        String empty = HashUtils.toHex(digest);
+        
+        digest.update("abc".getBytes(StandardCharsets.US_ASCII));
+        String abc = HashUtils.toHex(digest);
+        
+        assertAll(
+            () -> assertThat(empty, is(SHA256_EMPTY)),
+            () -> assertThat(abc, is(SHA256_ABC))
+        );
+    }
+    
+    @Test
+    public void hashOfFileContent() throws IOException {
+        File file = File.createTempFile("HashUtilsTest", ".txt");
+        try {
+            Files.write(file.toPath(), "abc".getBytes(StandardCharsets.US_ASCII));
+            
+            MessageDigest digest = HashUtils.createDigest();
+            HashUtils.updateWithFile(digest, file);
+            
+            assertThat(HashUtils.toHex(digest), is(SHA256_ABC));
+        } finally {
+            file.delete();
+        }
+    }
+    
+}
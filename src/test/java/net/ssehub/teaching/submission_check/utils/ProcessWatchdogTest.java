@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class ProcessWatchdogTest {
+    
+    private static Process startSleepingProcess(int seconds) throws IOException {
+        String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                Sleeper.class.getName(), Integer.toString(seconds)).start();
+    }
+    
+    public static class Sleeper {
+        
+        public static void main(String[] args) throws InterruptedException {
+            Thread.sleep(Integer.parseInt(args[0]) * 1000L);
+        }
+        
+    }
+    
+    @Test
+    public void killsAfterDeadline() throws IOException, InterruptedException {
+        Process process = startSleepingProcess(60);
+        long start = System.nanoTime();
+        
+        boolean killed;
+        try (ProcessWatchdog watchdog = new ProcessWatchdog(process, Deadline.after(200))) {
+            process.waitFor();
+            killed = watchdog.hasKilled();
+        }
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should have killed the process", killed, is(true)),
+            () -> assertThat("Postcondition: should not wait for the process", seconds, lessThan(30L))
+        );
+    }
+    
+    @Test
+    public void killsWhenCancelled() throws IOException, InterruptedException {
+        Process process = startSleepingProcess(60);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        long start = System.nanoTime();
+        
+        boolean killed;
+        try (ProcessWatchdog watchdog = new ProcessWatchdog(process, Deadline.NONE.cancelledWhen(cancelled::get))) {
+            Thread.sleep(200);
+            cancelled.set(true);
+            process.waitFor();
+            killed = watchdog.hasKilled();
+        }
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        
+        assertAll(
+            () -> assertThat("Postcondition: should have killed the process", killed, is(true)),
+            () -> assertThat("Postcondition: should not wait for the process", seconds, lessThan(30L))
+        );
+    }
+    
+    @Test
+    public void doesNotKillFinishedProcess() throws IOException, InterruptedException {
+        Process process = startSleepingProcess(0);
+        
+        boolean killed;
+        try (ProcessWatchdog watchdog = new ProcessWatchdog(process, Deadline.after(60000))) {
+            process.waitFor();
+            killed = watchdog.hasKilled();
+        }
+        
+        assertAll(
+            () -> assertThat(killed, is(false)),
+            () -> assertThat(process.exitValue(), is(0))
+        );
+    }
+    
+    public static class Spinner {
+        
+        public static void main(String[] args) {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Integer.parseInt(args[0]));
+            long counter = 0;
+            while (System.nanoTime() < end) {
+                counter++;
+            }
+            System.out.println(counter);
+        }
+        
+    }
+    
+    @Test
+    public void samplesCpuTime() throws IOException, InterruptedException {
+        String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                Spinner.class.getName(), "500").redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        
+        long cpuTime;
+        try (ProcessWatchdog watchdog = new ProcessWatchdog(process, Deadline.NONE, true)) {
+            process.waitFor();
+            cpuTime = watchdog.getCpuTime();
+        }
+        
+        assertThat("Postcondition: should have sampled the CPU time of the busy process",
+                cpuTime, greaterThan(0L));
+    }
+    
+    @Test
+    public void cpuTimeNotSampledByDefault() throws IOException, InterruptedException {
+        Process process = startSleepingProcess(0);
+        
+        long cpuTime;
+        try (ProcessWatchdog watchdog = new ProcessWatchdog(process, Deadline.after(60000))) {
+            process.waitFor();
+            Thread.sleep(2 * ProcessWatchdog.SAMPLE_INTERVAL);
+            cpuTime = watchdog.getCpuTime();
+        }
+        
+        assertThat("Postcondition: should not sample the CPU time without request",
+                cpuTime, is(-1L));
+    }
+    
+    @Test
+    public void noDeadlineNeverKills() throws IOException, InterruptedException {
+        Process process = startSleepingProcess(1);
+        
+        try (ProcessWatchdog watchdog = new ProcessWatchdog(process, Deadline.NONE)) {
+            process.waitFor();
+            assertThat(watchdog.hasKilled(), is(false));
+        }
+    }
+    
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Software Systems Engineering, University of Hildesheim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.teaching.submission_check.utils;
+
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class ResourceMeterTest {
+    
+    @Test
+    public void measuresWallTime() throws InterruptedException {
+        ResourceMeter meter = new ResourceMeter();
+        
+        Thread.sleep(100);
+        
+        assertThat("Postcondition: should measure at least the time slept",
+                meter.getWallTime(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+    
+    @Test
+    public void measuresAllocatedBytes() {
+        ResourceMeter meter = new ResourceMeter();
+        
+        byte[][] arrays = new byte[16][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = new byte[64 * 1024];
+        }
+        
+        long allocated = meter.getAllocatedBytes();
+        
+        assertAll(
+            () -> assertThat(arrays[15].length, is(64 * 1024)),
+            () -> assertThat("Postcondition: should count the allocated arrays, if supported",
+                    allocated == -1 || allocated >= 16 * 64 * 1024, is(true))
+        );
+    }
+    
+    @Test
+    public void measuresCpuTime() {
+        ResourceMeter meter = new ResourceMeter();
+        
+        long sum = 0;
+        for (int i = 0; i < 10_000_000; i++) {
+            sum += i % 7;
+        }
+        
+        long cpuTime = meter.getCpuTime();
+        
+        assertThat(sum, greaterThanOrEqualTo(0L));
+        assertThat("Postcondition: should not be negative, unless unsupported",
+                cpuTime, anyOf(is(-1L), greaterThanOrEqualTo(0L)));
+    }
+    
+}